@@ -37,17 +37,8 @@ package com.tibco.ps.utils.repository;
 
  */
 
-import java.io.BufferedWriter;
-import java.io.ByteArrayInputStream;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileWriter;
-import java.util.Enumeration;
 import java.util.Properties;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
-import com.compositesw.common.logging.Logger;
 import com.compositesw.extension.*;
 
 public class RepoUtilsPropertiesFactory {
@@ -112,30 +103,13 @@ public class RepoUtilsPropertiesFactory {
         "                       [^A-Za-z0-9_],\\\n" + 
         "                       (?i)^(?:${cis.reserved_words_re})$\n";
 
-    private static final int LOG_ERROR = 1;
-    private static final int LOG_INFO = 2;
-    private static final int LOG_DEBUG = 3;
-    private static final String PROPS_FILE_NAME = "RepoUtils.properties";
-    
-    private static Properties props = null;
-    private static String propsFileLocation = "";
-    private static File propsFile = null;
-    private static long propsLastUpdated = 0;
-    private static Logger logger = null;
-    private static Pattern propSubRE = null;
-
-    static {
-        propSubRE = Pattern.compile ("\\$\\{([^}]+)\\}"); // a regular expression that matches "${any_valid_properties_key}"
-    }
+    private static final PropertiesFileFactory factory =
+        new PropertiesFileFactory ("RepoUtils.properties", DEFAULT_PROPERTIES, RepoUtilsPropertiesFactory.class.getName(), false);
 
     // Write out the RepoUtils properties.
     //
     public static void writeProperties() throws Exception {
-        findPropertiesFile();
-        
-        // Force the write out an example properties file
-        //
-        writeSampleProperties();
+        factory.writeProperties();
     }
     
     // returns the RepoUtils properties.
@@ -145,285 +119,14 @@ public class RepoUtilsPropertiesFactory {
     // loaded, it looks to see if the properties file has been updated and
     // reloads the properties.
     //
-    // synchronized for thread safety.
-    //
-    public static synchronized Properties getProperties() throws Exception {
-        findPropertiesFile();
-        
-        // if the properties file is missing, write out an example properties file
-        //
-        // (this currently tries to write a file every time the getProperties() method
-        // is invoked and the file is still missing. might not want to do this.)
-        //
-        if (! propsFile.exists()) {
-            writeSampleProperties();
-        }
-            
-        // properties file exists so we need to see if it's been updated
-        //
-        if (propsFile.canRead()) {
-            log (LOG_DEBUG, "propsFile last modified = " + propsFile.lastModified() + "; internal props last modified = " + propsLastUpdated);
-            
-            if (propsFile.lastModified() > propsLastUpdated) {
-                Properties tmpProps = new Properties();
-
-                log (LOG_DEBUG, "Properties file has changed. Reading new properties from \"" + propsFileLocation + "\".");
-
-                try {
-                    FileInputStream fis = new FileInputStream (propsFile);
-                    tmpProps.load (fis);
-                    fis.close();
-                } catch (Exception e) {
-                    log (LOG_INFO, "Error reading properties from \"" + propsFileLocation + "\". Will continue using previously loaded properties.");
-                }
-                
-                tmpProps = parseProps (tmpProps);
-                propsLastUpdated = propsFile.lastModified();
-                
-                props = tmpProps;
-            } else {
-                log (LOG_DEBUG, "Properties file has not changed. Continuing to use previously loaded properties.");
-            }
-            
-        // can't read the properties file
-        //
-        } else {
-            log (LOG_INFO, "Unable to read properties from \"" + propsFileLocation + "\". Will continue using previously loaded properties.");
-        }
-        
-        // if the properties weren't loaded, then the properties file didn't exist and the location couldn't
-        // be written to. use the defaults as an inputstream to the properties loader.
-        //
-        if (props == null) {
-            log (LOG_ERROR, "Unable to write properties file either. Loading properties from default properties.");
-
-            props = new Properties();
-            try {
-                ByteArrayInputStream bais = new ByteArrayInputStream (DEFAULT_PROPERTIES.getBytes());
-                props.load (bais);
-                bais.close();
-            } catch (Exception e) {
-                log (LOG_ERROR, "Error loading default properties: " + e.getMessage());
-                throw e;
-            }
-            
-        }
-        
-        return props;
+    public static Properties getProperties() throws Exception {
+        return factory.getProperties();
     }
     
     // used in a CJP to set a logger to write to the cs_server.log file.
     // this will throw a CustomProcedureException if not used in a CJP.
     //
     public static void setCisLogger () throws CustomProcedureException {
-        if (logger == null) {
-            try {
-                RepoUtilsPropertiesFactory.logger = Logger.getLogger (RepoUtilsPropertiesFactory.class.getName());
-            } catch (Exception e) {
-                throw new CustomProcedureException (e);
-            }
-        }
-    }
-    
-    // used internally to write messages to a CIS instance's cs_server.log file.
-    // (see setCisLogger() above.)
-    //
-    private static void log (
-        int    debugLevel,
-        String msg
-    ) {
-//      System.out.println (debugLevel + ": " + msg);
-
-        switch (debugLevel) {
-            case LOG_DEBUG:
-                if (logger != null && logger.isDebug()) logger.debug(msg);
-                break;
-
-            case LOG_INFO:
-                if (logger != null && logger.isInfo()) logger.info(msg);
-                break;
-
-            case LOG_ERROR:
-                if (logger != null) logger.log(msg);
-                break;
-        }
-    }
-    
-    // if the properties file hasn't already been located, have a look for it
-    // depending on whether this class is running in support of a CJP or an
-    // application running independently of CIS.
-    //
-    private static void findPropertiesFile() {
-        
-        // assuming the previously located props file is still good so skip this processing if
-        // propsFileLocation has been set.
-        //
-        if (propsFileLocation.equals("")) {
-
-            // if the "apps.install.dir" system property is set, then we're running inside a CIS instance.
-            // in this case the properties file should be located in $CIS_HOME/conf/customjars.
-            // otherwise the properties file might be located in the CIS owner's home dir. if not located,
-            // a sample file will be created in $CIS_HOME/conf/customjars.
-            //
-            if (System.getProperty ("apps.install.dir") != null) {
-                propsFileLocation = System.getProperty ("apps.install.dir") + File.separator + "conf" + File.separator + "customjars" + File.separator + PROPS_FILE_NAME;
-                log (LOG_DEBUG, "Attempting to read properties from \"" + propsFileLocation + "\".");
-                propsFile = new File (propsFileLocation);
-                
-                if (! propsFile.exists() || ! propsFile.canRead()) {
-                    log (LOG_DEBUG, "Unable to read properties from \"" + propsFileLocation + "\".");
-                    propsFileLocation = System.getProperty ("user.dir") + File.separator + PROPS_FILE_NAME;
-                    log (LOG_DEBUG, "Attempting to read properties from \"" + propsFileLocation + "\".");
-                    propsFile = new File (propsFileLocation);
-                    
-                    if (! propsFile.exists() || ! propsFile.canRead()) {
-                        log (LOG_DEBUG, "Unable to read properties from \"" + propsFileLocation + "\".");
-                        propsFileLocation = System.getProperty ("apps.install.dir") + File.separator + "conf" + File.separator + "customjars" + File.separator + PROPS_FILE_NAME;
-                        propsFile = new File(propsFileLocation);
-                    }
-                }
-                
-            // not running in CIS. look in the classpath and the user's home folder. if not
-            // located, a sample file will be created in the user's home folder.
-            //
-            } else {
-                boolean foundInClassPath = false;
-                
-                // attempt to locate the properties file in the class path
-                //
-                log (LOG_DEBUG, "Scanning JVM system property \"java.class.path\" for properties file \"" + PROPS_FILE_NAME + "\" ...");
-                String[] cps = System.getProperty ("java.class.path").split (System.getProperty ("path.separator"), 0);
-                for (int c = 0; c < cps.length; c++) {
-                    
-                    // skip jar files. extracting a properties file from a jar file would be painful
-                    // and doesn't fit the requirement that the properties file be easy to update.
-                    //
-                    if (cps[c].endsWith (".jar"))
-                        continue;
-                    
-                    propsFileLocation = cps[c] + File.separator + PROPS_FILE_NAME;
-                    propsFile = new File (propsFileLocation);
-                    log (LOG_DEBUG, "Attempting to read properties from \"" + propsFileLocation + "\".");
-
-                    if (propsFile.exists() && propsFile.canRead()) {
-                        log (LOG_DEBUG, "Found properties at \"" + propsFileLocation + "\".");
-                        foundInClassPath = true;
-                        break;
-                    }
-                }
-                
-                // if the properties file was not found in the JVM's class path, attempt to locate in the user's home directory.
-                //
-                if (! foundInClassPath) {
-                    propsFileLocation = System.getProperty ("user.dir") + File.separator + PROPS_FILE_NAME;
-                    propsFile = new File (propsFileLocation);
-                    log (LOG_DEBUG, "No properties found in JVM class path. Attempting to read from user's home dir, \"" + propsFileLocation + "\".");
-
-                    if (! propsFile.exists() || ! propsFile.canRead()) {
-                        log (LOG_DEBUG, "Unable to read properties from \"" + propsFileLocation + "\".");
-                   }
-                }
-            }
-        }
-    }
-    
-    // write out a sample properties file
-    //
-    private static void writeSampleProperties() {
-        log (LOG_INFO, "Writing default properties to \"" + propsFileLocation + "\".");
-        
-        try {
-            BufferedWriter bw = new BufferedWriter (new FileWriter (propsFile));
-            bw.write(DEFAULT_PROPERTIES);
-            bw.close();
-        } catch (Exception e) {
-            log (LOG_INFO, "Unable to write default properties to \"" + propsFileLocation + "\". Will continue using default properties.");
-        }
-    }
-    
-    // parse out the properties
-    //
-    private static Properties parseProps (Properties inProps) throws Exception {
-        Properties outProps = new Properties();
-        int numParsed;
-
-        // loop until nothing parses.
-        //
-        do {
-            numParsed = 0;
-            
-            // iterate over all the keys from the properties file
-            //
-            keyLoop:
-            for (Enumeration e = inProps.keys(); e.hasMoreElements(); ) {
-                String k = (String) e.nextElement();
-                String v = inProps.getProperty (k);
-
-                // if the property has not already been parsed
-                //
-                if (outProps.getProperty (k) == null) {
-                    Matcher m = propSubRE.matcher (v);
-                    StringBuffer sb = new StringBuffer();
-
-                    log (LOG_DEBUG, "Found property \"" + k + "\" with the unparsed value of \"" + v + "\".");
-
-                    // locate any substitutions and try to find the referenced property
-                    //
-                    while (m.find()) {
-                        String sk = m.group (1);
-                        String sv = outProps.getProperty (sk);
-                        
-                        log (LOG_DEBUG, "Property \"" + k + "\"; found substitution variable \"" + sk + "\".");
-
-                        // if the substitution value has not already been parsed then skip
-                        // to the next key (with the idea that the substitution value will
-                        // be located later and the a subsequent pass throug the keys will 
-                        // find it.
-                        //
-                        if (sv == null) {
-                            log (LOG_DEBUG, "Property \"" + k + "\"; substitution variable \"" + sk + "\" not yet parsed. Skipping parsing \"" + k + "\" for now.");
-
-                            continue keyLoop;
-                        }
-                        
-                        log (LOG_DEBUG, "Property \"" + k + "\"; substitution variable \"" + sk + "\" resolves to \"" + sv + "\".");
-                        m.appendReplacement (sb, sv);
-                    }
-                    
-                    m.appendTail (sb);
-                    
-                    // if all the substitution keys parse out (or there weren't any to
-                    // begin with), add the key and value to the parsed properties.
-                    //
-                    log (LOG_DEBUG, "Property \"" + k + "\" parses as \"" + sb + "\".");
-                    outProps.setProperty (k, sb.toString());
-                    numParsed++;                    
-                }
-            }
-            
-        } while (numParsed > 0);
-        
-        // make sure all the properties got parsed, otherwise throw an exception.
-        //
-        if (inProps.size() != outProps.size()) {
-            String unparsedKeys = "";
-            int i = 0;
-            
-            // construct a meaningful error message containing the unparsed keys.
-            //
-            for (Enumeration e = inProps.keys(); e.hasMoreElements(); ) {
-                String k = (String) e.nextElement();
-                if (outProps.getProperty(k) == null) {
-                    if (i > 0)
-                        unparsedKeys += ", ";
-                    
-                    unparsedKeys += k;
-                    i++;
-                }
-            }
-            throw new Exception ("Unable to parse the following keys: " + unparsedKeys);
-        }
-        
-        return outProps;
+        factory.setCisLogger();
     }
 }
@@ -0,0 +1,172 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+Description:
+  This utility class is the text a Regex* CJP matches its regular expression against. It counts
+  the characters the Matcher reads and stops the evaluation, by throwing a BudgetExceededException
+  from charAt(), once it has read more than a maximum number of characters or has been running
+  for longer than a maximum time. A pattern that backtracks catastrophically (such as (a+)+b on a
+  long run of a's) reads the same characters over and over, so it is stopped instead of keeping
+  a CIS request thread busy for minutes.
+
+  The limits apply to each evaluation, i.e. each call of a Regex* CJP. There are none by default
+  (0 is no limit), so evaluations behave as they always have until a limit is set with the system
+  properties
+
+    com.tibco.ps.utils.text.BudgetedCharSequence.maxCharAccesses
+    com.tibco.ps.utils.text.BudgetedCharSequence.maxMillis
+
+  or, while CIS is running, with SetRegexLimits. While neither limit is set wrap() returns the
+  text itself, so the characters are not counted at all. The limits are checked every
+  CHECK_INTERVAL characters, so the cost of the clock is spread over many reads. The number of
+  evaluations stopped is reported by GetRegexCacheMetrics.
+
+Inputs:
+  N/A
+
+Outputs:
+  N/A
+
+Exceptions:
+  None
+
+Date:        10/18/2026
+CSW Version: 8.0.0
+
+*/
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BudgetedCharSequence implements CharSequence {
+
+    // the default limits of an evaluation: none
+    //
+    public static final long DEFAULT_MAX_CHAR_ACCESSES = 0L;
+    public static final long DEFAULT_MAX_MILLIS = 0L;
+
+    // the number of characters read between checks of the limits (a power of 2)
+    //
+    private static final int CHECK_INTERVAL = 4096;
+
+    private static volatile long maxCharAccesses = Long.getLong ("com.tibco.ps.utils.text.BudgetedCharSequence.maxCharAccesses", DEFAULT_MAX_CHAR_ACCESSES);
+    private static volatile long maxMillis = Long.getLong ("com.tibco.ps.utils.text.BudgetedCharSequence.maxMillis", DEFAULT_MAX_MILLIS);
+
+    private static final AtomicLong aborted = new AtomicLong();
+
+    // thrown by charAt() to stop an evaluation that is over its limits
+    //
+    public static class BudgetExceededException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BudgetExceededException (String message) {
+            super (message);
+        }
+    }
+
+    private final String text;
+    private final long maxAccesses;
+    private final long maxNanos;
+    private final long start;
+    private long accesses = 0;
+
+    // the text to match, wrapped with the current limits when there are any.
+    //
+    public static CharSequence wrap (String text) {
+        return (maxCharAccesses > 0 || maxMillis > 0) ? new BudgetedCharSequence (text) : text;
+    }
+
+    // wrap a text with the current limits.
+    //
+    public BudgetedCharSequence (String text) {
+        this.text = text;
+        this.maxAccesses = maxCharAccesses;
+        this.maxNanos = maxMillis * 1000000L;
+        this.start = (maxNanos > 0) ? System.nanoTime() : 0;
+    }
+
+    public char charAt (int index) {
+        if ((++accesses & (CHECK_INTERVAL - 1)) == 0) {
+            check();
+        }
+        return text.charAt (index);
+    }
+
+    private void check() {
+        if (maxAccesses > 0 && accesses > maxAccesses) {
+            abort ("read more than " + maxAccesses + " characters of the text");
+        }
+        if (maxNanos > 0 && System.nanoTime() - start > maxNanos) {
+            abort ("ran for more than " + (maxNanos / 1000000L) + " milliseconds");
+        }
+    }
+
+    private void abort (String reason) {
+        aborted.incrementAndGet();
+        throw new BudgetExceededException ("The evaluation of the regular expression was stopped as it " + reason +
+            ". The expression may backtrack excessively on this text.");
+    }
+
+    public int length() {
+        return text.length();
+    }
+
+    // the groups of a match are returned as Strings, without further counting.
+    //
+    public CharSequence subSequence (int start, int end) {
+        return text.substring (start, end);
+    }
+
+    public String toString() {
+        return text;
+    }
+
+    public long getCharAccesses() {
+        return accesses;
+    }
+
+    public static long getMaxCharAccesses() {
+        return maxCharAccesses;
+    }
+
+    public static void setMaxCharAccesses (long max) {
+        if (max < 0) {
+            throw new IllegalArgumentException ("The maximum number of characters read must not be negative");
+        }
+        maxCharAccesses = max;
+    }
+
+    public static long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public static void setMaxMillis (long max) {
+        if (max < 0) {
+            throw new IllegalArgumentException ("The maximum time must not be negative");
+        }
+        maxMillis = max;
+    }
+
+    public static long getAborted() {
+        return aborted.get();
+    }
+}
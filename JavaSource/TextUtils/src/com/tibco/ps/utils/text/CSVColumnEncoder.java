@@ -0,0 +1,371 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+Description:
+  This utility class turns a single result set column into CSV text. The CSV CJP's build an
+  array of encoders (an "encoder plan") once from the ResultSetMetaData of the query using
+  compile() and then call append() for every cell, so the column type lookup, the choice of
+  formatter and the quoting rules are resolved once per query rather than once per cell.
+
+  Integer columns are read with getLong() and appended without creating a String. DATE, TIME
+  and TIMESTAMP columns (when ANSI formatting is requested) are written field by field into
+  the output buffer (see DateTimeWriter) using the same patterns the CSV CJP's have always used:
+
+    DATE      - yyyy-MM-dd
+    TIME      - HH:mm:ss.SSS z
+    TIMESTAMP - yyyy-MM-dd HH:mm:ss.SSS z
+
+  These skip the quoting scan only when the separator and qualifier can't appear in the value
+  (for example a separator of ' ', '-', ':' or '.' can.) Otherwise the formatted value is
+  qualified like any other text.
+
+  Everything else is read with getString() and passed through a single pass scanner that
+  decides whether the value needs to be qualified and doubles any qualifier characters as it
+  copies the value to the output buffer.
+
+  An encoder plan holds a Calendar and is therefore not thread-safe. Compile one plan per
+  result set. fetch() does not use the Calendar, so one thread may fetch rows (fetchRow) while
+  another encodes them (encodeRow.)
+
+Inputs:
+  N/A
+
+Outputs:
+  N/A
+
+Exceptions:
+  None
+
+Date:        10/18/2026
+CSW Version: 8.0.0
+
+*/
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+public abstract class CSVColumnEncoder {
+
+    protected final CSVQuoter quoter;
+
+    protected CSVColumnEncoder (CSVQuoter quoter) {
+        this.quoter = quoter;
+    }
+
+    // read the value of the column from the current row of the result set. a NULL column value
+    // is returned as null.
+    //
+    public abstract Object fetch (ResultSet rs, int column) throws SQLException;
+
+    // append a value previously returned by fetch() to the output buffer. NULL values produce
+    // no output (an empty field.)
+    //
+    public abstract void encode (Object value, StringBuilder out);
+
+    // read the column from the current row and append it to the output buffer. encoders override
+    // this where they can avoid creating an intermediate object.
+    //
+    public void append (ResultSet rs, int column, StringBuilder out) throws SQLException {
+        encode (fetch (rs, column), out);
+    }
+
+    // build an encoder plan for all the columns of a result set.
+    //
+    // ansiDateTimes - when true DATE, TIME and TIMESTAMP columns are written in the ANSI formats
+    //                 listed above. when false they are written as returned by getString().
+    //
+    public static CSVColumnEncoder[] compile (ResultSetMetaData rsmd, String separator, String qualifier, boolean ansiDateTimes) throws SQLException {
+        CSVQuoter quoter = new CSVQuoter (separator, qualifier);
+        DateTimeWriter dtw = (ansiDateTimes) ? DateTimeWriter.ansi() : null;
+
+        CSVColumnEncoder[] plan = new CSVColumnEncoder[rsmd.getColumnCount()];
+
+        for (int x = 0; x < plan.length; x++) {
+            switch (rsmd.getColumnType (x + 1)) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                    plan[x] = (quoter.isNumericSafe()) ? new IntegerEncoder (quoter) : new StringEncoder (quoter);
+                    break;
+
+                case Types.DATE:
+                    plan[x] = (dtw != null) ? new DateEncoder (quoter, dtw, quoter.isSafeFor (dtw.getCharacters())) : new StringEncoder (quoter);
+                    break;
+
+                case Types.TIME:
+                    plan[x] = (dtw != null) ? new TimeEncoder (quoter, dtw, quoter.isSafeFor (dtw.getCharacters())) : new StringEncoder (quoter);
+                    break;
+
+                case Types.TIMESTAMP:
+                    plan[x] = (dtw != null) ? new TimestampEncoder (quoter, dtw, quoter.isSafeFor (dtw.getCharacters())) : new StringEncoder (quoter);
+                    break;
+
+                default:
+                    plan[x] = new StringEncoder (quoter);
+                    break;
+            }
+        }
+
+        return plan;
+    }
+
+    // append an entire row using an encoder plan. the row is not terminated.
+    //
+    public static void appendRow (CSVColumnEncoder[] plan, ResultSet rs, String separator, StringBuilder out) throws SQLException {
+        for (int x = 0; x < plan.length; x++) {
+            if (x > 0) {
+                out.append (separator);
+            }
+            plan[x].append (rs, x + 1, out);
+        }
+    }
+
+    // read an entire row into a row array using an encoder plan, for encoding later (possibly on
+    // another thread) with encodeRow().
+    //
+    public static void fetchRow (CSVColumnEncoder[] plan, ResultSet rs, Object[] row) throws SQLException {
+        for (int x = 0; x < plan.length; x++) {
+            row[x] = plan[x].fetch (rs, x + 1);
+        }
+    }
+
+    // append a row previously read with fetchRow(). the row is not terminated.
+    //
+    public static void encodeRow (CSVColumnEncoder[] plan, Object[] row, String separator, StringBuilder out) {
+        for (int x = 0; x < plan.length; x++) {
+            if (x > 0) {
+                out.append (separator);
+            }
+            plan[x].encode (row[x], out);
+        }
+    }
+
+    /*
+     * Quoting rules shared by all the encoders of a plan.
+     *
+     * A value is qualified when it contains the separator, the qualifier or any line terminator
+     * (\n, \r, \u0085, \u2028, \u2029.) Qualifier characters within a qualified value are doubled.
+     * An empty separator forces every value to be qualified and an empty qualifier disables
+     * qualifying altogether, which is how the CSV CJP's have always behaved.
+     */
+    public static class CSVQuoter {
+        private final char separator;
+        private final char qualifier;
+        private final boolean hasQualifier;
+        private final boolean alwaysQualify;
+
+        public CSVQuoter (String separator, String qualifier) {
+            this.hasQualifier = (qualifier.length() > 0);
+            this.alwaysQualify = hasQualifier && (separator.length() == 0);
+            this.separator = (separator.length() > 0) ? separator.charAt (0) : '\n';
+            this.qualifier = (hasQualifier) ? qualifier.charAt (0) : '\n';
+        }
+
+        // true when an integer value (digits and a leading minus sign) can never require qualifying.
+        //
+        public boolean isNumericSafe() {
+            return ! alwaysQualify && ! isNumericChar (separator) && ! (hasQualifier && isNumericChar (qualifier));
+        }
+
+        private static boolean isNumericChar (char c) {
+            return (c >= '0' && c <= '9') || c == '-';
+        }
+
+        // true when a value made only of the given characters can never require qualifying.
+        //
+        public boolean isSafeFor (String chars) {
+            return ! alwaysQualify && chars.indexOf (separator) < 0 && ! (hasQualifier && chars.indexOf (qualifier) >= 0);
+        }
+
+        public void append (String value, StringBuilder out) {
+            int len = value.length();
+            int i = 0;
+
+            if (! hasQualifier) {
+                out.append (value);
+                return;
+            }
+
+            if (! alwaysQualify) {
+
+                // scan up to the first character that requires qualifying. most values have none, in
+                // which case the value is copied as is.
+                //
+                for (; i < len; i++) {
+                    char c = value.charAt (i);
+                    if (c == separator || c == qualifier || c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                        break;
+                    }
+                }
+
+                if (i == len) {
+                    out.append (value);
+                    return;
+                }
+            }
+
+            // qualify the value. everything before the first special character can be copied in one go.
+            //
+            out.append (qualifier);
+            out.append (value, 0, i);
+            for (; i < len; i++) {
+                char c = value.charAt (i);
+                if (c == qualifier) {
+                    out.append (qualifier);
+                }
+                out.append (c);
+            }
+            out.append (qualifier);
+        }
+    }
+
+    /*
+     * Default encoder. Reads the column as a String and qualifies it if necessary.
+     */
+    static class StringEncoder extends CSVColumnEncoder {
+        StringEncoder (CSVQuoter quoter) {
+            super (quoter);
+        }
+
+        public Object fetch (ResultSet rs, int column) throws SQLException {
+            return rs.getString (column);
+        }
+
+        public void encode (Object value, StringBuilder out) {
+            if (value != null) {
+                quoter.append (value.toString(), out);
+            }
+        }
+
+        public void append (ResultSet rs, int column, StringBuilder out) throws SQLException {
+            String value = rs.getString (column);
+            if (value != null) {
+                quoter.append (value, out);
+            }
+        }
+    }
+
+    /*
+     * Integer encoder. Only used when the separator and qualifier can't appear in an integer, so
+     * the value is appended without scanning.
+     */
+    static class IntegerEncoder extends CSVColumnEncoder {
+        IntegerEncoder (CSVQuoter quoter) {
+            super (quoter);
+        }
+
+        public Object fetch (ResultSet rs, int column) throws SQLException {
+            long value = rs.getLong (column);
+            return (rs.wasNull()) ? null : new Long (value);
+        }
+
+        public void encode (Object value, StringBuilder out) {
+            if (value != null) {
+                out.append (((Long) value).longValue());
+            }
+        }
+
+        public void append (ResultSet rs, int column, StringBuilder out) throws SQLException {
+            long value = rs.getLong (column);
+            if (! rs.wasNull()) {
+                out.append (value);
+            }
+        }
+    }
+
+    /*
+     * Base of the DATE, TIME and TIMESTAMP encoders. When the separator or qualifier may appear in a
+     * formatted value, the value is formatted into a scratch buffer and qualified like any other
+     * text; otherwise it is written straight into the output buffer.
+     */
+    abstract static class DateTimeEncoder extends CSVColumnEncoder {
+        protected final DateTimeWriter dtw;
+        private final StringBuilder scratch;
+
+        DateTimeEncoder (CSVQuoter quoter, DateTimeWriter dtw, boolean safe) {
+            super (quoter);
+            this.dtw = dtw;
+            this.scratch = (safe) ? null : new StringBuilder (32);
+        }
+
+        protected abstract void write (long millis, StringBuilder out);
+
+        public void encode (Object value, StringBuilder out) {
+            if (value != null) {
+                long millis = ((java.util.Date) value).getTime();
+                if (scratch == null) {
+                    write (millis, out);
+                } else {
+                    scratch.setLength (0);
+                    write (millis, scratch);
+                    quoter.append (scratch.toString(), out);
+                }
+            }
+        }
+    }
+
+    static class DateEncoder extends DateTimeEncoder {
+        DateEncoder (CSVQuoter quoter, DateTimeWriter dtw, boolean safe) {
+            super (quoter, dtw, safe);
+        }
+
+        public Object fetch (ResultSet rs, int column) throws SQLException {
+            return rs.getDate (column);
+        }
+
+        protected void write (long millis, StringBuilder out) {
+            dtw.appendDate (millis, out);
+        }
+    }
+
+    static class TimeEncoder extends DateTimeEncoder {
+        TimeEncoder (CSVQuoter quoter, DateTimeWriter dtw, boolean safe) {
+            super (quoter, dtw, safe);
+        }
+
+        public Object fetch (ResultSet rs, int column) throws SQLException {
+            return rs.getTime (column);
+        }
+
+        protected void write (long millis, StringBuilder out) {
+            dtw.appendTime (millis, out);
+        }
+    }
+
+    static class TimestampEncoder extends DateTimeEncoder {
+        TimestampEncoder (CSVQuoter quoter, DateTimeWriter dtw, boolean safe) {
+            super (quoter, dtw, safe);
+        }
+
+        public Object fetch (ResultSet rs, int column) throws SQLException {
+            return rs.getTimestamp (column);
+        }
+
+        protected void write (long millis, StringBuilder out) {
+            dtw.appendTimestamp (millis, out);
+        }
+    }
+}
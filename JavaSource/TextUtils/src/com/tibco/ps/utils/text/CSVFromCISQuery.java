@@ -180,6 +180,7 @@ public class CSVFromCISQuery extends TextUtilTemplate implements CustomProcedure
 
       int resultSize = 0;
       while (rs.next()) {
+        int rowStart = sb.length();
         for (int x = 0; x < numColumns; x++) {
           if (x > 0) {
             sb.append (separator);
@@ -201,7 +202,11 @@ public class CSVFromCISQuery extends TextUtilTemplate implements CustomProcedure
         }
         resultSize++;
         sb.append ("\n");
-        logger.info ("Row::"+sb.toString());
+
+        // only log the row just built (logging the whole buffer on every row is quadratic in the result size.)
+        // use CSVFromCISQueryStream for large result sets.
+        //
+        if (logger.isDebug()) logger.debug ("Row::"+sb.substring (rowStart));
       }
       loginfo += "\nROWCOUNT = " + resultSize;
         
@@ -0,0 +1,299 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+	CSVFromCISQueryStream:
+	  Function to execute a CIS query and stream the result set out as CSV text in chunks.
+
+	  Unlike CSVFromCISQuery, which builds the whole result into a single VARCHAR, this procedure
+	  returns a cursor. Rows are only fetched from the query as the caller reads the cursor, and
+	  each cursor row holds at most rows_per_chunk CSV rows, so memory use is bounded no matter
+	  how large the result set is. Concatenating the chunks in chunk_number order produces the
+	  same text that CSVFromCISQuery would have returned.
+
+
+	Inputs:
+	  query_string          - The query to execute. If NULL is passed as input a NULL will be returned.
+	    values: Any valid CIS query.
+
+	  separator_character   - The character used to separate values.
+	    values: Any single character or NULL (defaults to ','.)
+
+	  qualifier_character   - The character used to qualify values when they contain a separator character.
+	    values: Any single character (other than the separator character) or NULL (defaults to '"'.)
+
+	  create_column_headers - Indicates whether to create a column headers row as the first row of the output.
+	    values: Any boolean value (such as "true" or "false".)
+
+	  rows_per_chunk        - Number of CSV rows to place in each chunk of the output cursor.
+	    values: Any positive integer or NULL (defaults to 1000.)
+
+
+	Output:
+	  result (              - Cursor of CSV text chunks.
+	    chunk_number        -   The ordinal number of the chunk, starting at 1.
+	    csv_chunk           -   One or more complete CSV rows, each terminated with a newline.
+	  )
+
+
+	Exceptions:
+	  CustomProcedureException - Thrown when illegal arguments are passed.
+
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import com.compositesw.common.logging.Logger;
+import com.compositesw.extension.CustomCursor;
+import com.compositesw.extension.CustomProcedure;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class CSVFromCISQueryStream extends TextUtilTemplate implements CustomProcedure {
+  String loginfo = "Done.";
+  ResultSet rs = null;
+  CustomCursor outputCursor = null;
+
+  static {
+	className = "CSVFromCISQueryStream";
+	logger = Logger.getLogger(CSVFromCISQueryStream.class.getName());
+  }
+
+  private static final ParameterInfo[] OUTPUT_CURSOR = new ParameterInfo[] {
+    new ParameterInfo("chunk_number", Types.INTEGER, DIRECTION_NONE),
+    new ParameterInfo("csv_chunk", Types.LONGVARCHAR, DIRECTION_NONE)
+  };
+
+  public String getDescription() {
+    return "This procedure takes in a CIS query and streams the results out as a cursor of CSV text chunks";
+  }
+
+  public String getName() {
+    return "CSVFromCISQueryStream";
+  }
+
+  public Object[] getOutputValues() {
+    return new Object[] { outputCursor };
+  }
+
+  public ParameterInfo[] getParameterInfo() {
+    return new ParameterInfo[] {
+      new ParameterInfo("query_string", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("separator_character", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("qualifier_character", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("create_column_headers", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("rows_per_chunk", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo("result", TYPED_CURSOR, DIRECTION_OUT, OUTPUT_CURSOR)
+    };
+  }
+
+  public void invoke(Object[] inputs) throws CustomProcedureException, SQLException {
+    try {
+      String queryString = null;
+      String separator = ",";
+      String qualifier = "\"";
+      boolean createHeaders = false;
+      int rowsPerChunk = 1000;
+
+      /*
+       * VALIDATE Input parameters for null
+       */
+  	  if (inputs[0] == null) {
+  		 throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter query_string must be provided.");
+  	  }
+
+      /*
+       * RETREIVE Input parameters
+       */
+      if (inputs[0] != null) {
+    	  queryString = ((String) inputs[0]).trim();
+      }
+
+      if (inputs[1] != null) {
+        separator = (String) inputs[1];
+      }
+
+      if (inputs[2] != null) {
+        qualifier = ((String) inputs[2]).trim();
+      }
+
+      if (inputs[3] != null) {
+        createHeaders = (Boolean.parseBoolean((((String) inputs[3])).trim()));
+      }
+
+      if (inputs[4] != null) {
+        rowsPerChunk = (Integer) inputs[4];
+      }
+
+      loginfo += "DEBUG: \nARGS" +
+           "\nQuery: " + queryString +
+           "\nSeparator Character: " + separator +
+           "\nQualifier Character: " + qualifier +
+           "\nCreate Column Headers: " + createHeaders +
+           "\nRows Per Chunk: " + rowsPerChunk + "\n";
+
+      /*
+       * VALIDATE parameters for content
+       */
+      if (separator.length() > 1) {
+          throw new IllegalArgumentException ("The separator character must be either null (defaults to ',') or a single character like ','");
+      }
+      if (qualifier.length() > 1) {
+          throw new IllegalArgumentException ("The qualifier character must be either null (defaults to '\"') or a single character like '\"'");
+      }
+      if (separator.equals (qualifier)) {
+          throw new IllegalArgumentException ("The separator and qualifier characters may not be the same: " + separator);
+      }
+      if (rowsPerChunk <= 0) {
+          throw new IllegalArgumentException ("The rows per chunk must be a positive integer");
+      }
+
+      rs = qenv.executeQuery (queryString, null);
+      ResultSetMetaData rsmd = rs.getMetaData();
+      int numColumns = rsmd.getColumnCount();
+      loginfo += "COLUMN COUNT: " + numColumns;
+
+      String header = null;
+      if (createHeaders) {
+        StringBuilder sb = new StringBuilder();
+        for (int x = 0; x < numColumns; x++) {
+          if (x > 0) {
+            sb.append (separator);
+          }
+          sb.append (rsmd.getColumnLabel (x + 1));
+        }
+        sb.append ("\n");
+        header = sb.toString();
+        if (logger.isDebug()) logger.debug ("createHeaders::" + header);
+      }
+
+      // values are written as returned by getString(), the same as CSVFromCISQuery. the result set
+      // is handed over to the cursor, which will close it once it has been drained.
+      //
+      CSVColumnEncoder[] encoders = CSVColumnEncoder.compile (rsmd, separator, qualifier, false);
+      outputCursor = new ChunkCursor (rs, encoders, separator, header, rowsPerChunk);
+
+    } catch (Throwable t) {
+      logger.info (t.getMessage() + "\n" + loginfo);
+
+      try {
+        if (rs != null) {
+          if (! rs.isClosed()) { rs.close(); }
+        }
+      } catch (Throwable t2) {
+        logger.info ("Exception Occurred closing result set: " + t2.getMessage());
+      }
+      throw new CustomProcedureException (t);
+
+    } finally {
+      qenv.log (LOG_DEBUG, loginfo);
+    }
+  }
+
+  public void close() throws SQLException {
+    if (logger.isDebug()) {
+      logger.debug(className + ".close called");
+    }
+    if (rs != null) {
+      if (! rs.isClosed()) { rs.close(); }
+    }
+  }
+
+  /*
+   * Cursor that fetches from the underlying result set only when the caller asks for the next chunk.
+   * A single StringBuilder is reused between chunks so the only long lived allocation is one chunk's worth of text.
+   */
+  private class ChunkCursor implements CustomCursor {
+    private ResultSet _rs;
+    private CSVColumnEncoder[] _encoders;
+    private String _separator;
+    private String _header;
+    private int _rowsPerChunk;
+    private int _chunkNumber = 0;
+    private int _rowCount = 0;
+    private boolean _done = false;
+    private StringBuilder _sb = new StringBuilder();
+
+    public ChunkCursor (ResultSet rs, CSVColumnEncoder[] encoders, String separator, String header, int rowsPerChunk) {
+      _rs = rs;
+      _encoders = encoders;
+      _separator = separator;
+      _header = header;
+      _rowsPerChunk = rowsPerChunk;
+    }
+
+    public ParameterInfo[] getColumnInfo() {
+      return OUTPUT_CURSOR;
+    }
+
+    public Object[] next() throws CustomProcedureException, SQLException {
+      if (_done) {
+        return null;
+      }
+
+      _sb.setLength (0);
+
+      if (_header != null) {
+        _sb.append (_header);
+        _header = null;
+      }
+
+      int rowsInChunk = 0;
+      while (rowsInChunk < _rowsPerChunk && _rs.next()) {
+        CSVColumnEncoder.appendRow (_encoders, _rs, _separator, _sb);
+        _sb.append ("\n");
+        rowsInChunk++;
+      }
+      _rowCount += rowsInChunk;
+
+      // a short chunk means the result set has been drained. release it now rather than waiting for close().
+      //
+      if (rowsInChunk < _rowsPerChunk) {
+        _done = true;
+        close();
+        if (logger.isDebug()) logger.debug (className + " ROWCOUNT = " + _rowCount);
+
+        if (_sb.length() == 0) {
+          return null;
+        }
+      }
+
+      _chunkNumber++;
+      return new Object[] { new Integer (_chunkNumber), _sb.toString() };
+    }
+
+    public void close() throws CustomProcedureException, SQLException {
+      _done = true;
+      if (_rs != null) {
+        if (! _rs.isClosed()) { _rs.close(); }
+      }
+    }
+  }
+}
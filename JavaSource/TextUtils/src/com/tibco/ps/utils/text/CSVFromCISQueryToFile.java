@@ -50,13 +50,44 @@ package com.tibco.ps.utils.text;
 	  append                - Indicates whether or not to append to the file at filePath.
 	    values: 0=do not append file, 1=append file.
 	
-	  buffer_size           - Number of rows to buffer before writing to the file.
+	  buffer_size           - Number of rows to buffer before they are encoded for writing. The rows are fetched
+	                          on a separate thread in batches of this many rows, up to 4 batches ahead of the
+	                          writer (see RowBatchPipeline.) The file itself is written in blocks of flush_bytes.
 	    values: Any positive integer.
+
+	  compression           - Compresses the file as it is written (see ExportCompression.) parallel_gzip compresses
+	                          blocks of the output on several threads. A deflate file cannot be appended to.
+	    values: none, gzip, deflate, parallel_gzip or NULL (defaults to none.)
+
+	  flush_bytes           - Number of encoded bytes collected before each write to the file (see ChannelTextWriter.)
+	                          Best kept a multiple of the filesystem block size.
+	    values: Any positive integer or NULL (defaults to 1048576.)
+
+	  max_rows_per_file     - Rolls the output over to numbered files (export.00001.csv, export.00002.csv, ...) of at most
+	                          this many rows each, repeating the column header row in every file (see ExportFileSet.)
+	    values: Any positive integer, or 0 or NULL for no row limit.
+
+	  max_bytes_per_file    - Rolls the output over to a new numbered file once a file holds this many uncompressed bytes.
+	                          A file may exceed the limit by less than one row.  Cannot be combined with append.
+	    values: Any positive integer, or 0 or NULL for no size limit.
+
+	  checkpoint_rows       - Makes the export resumable (see ExportCheckpoint.) The file is written as file_Path.inprogress
+	                          in the order of resume_key_column, a checkpoint is saved to file_Path.checkpoint every this
+	                          many rows, and the file is renamed to file_Path when the export completes. Running the
+	                          same export again after a failure continues from the last checkpoint. Requires
+	                          resume_key_column and cannot be combined with append, compression or the max per file limits.
+	    values: Any positive integer, or 0 or NULL for a normal export.
+
+	  resume_key_column     - A unique, non-NULL column of the query to order and resume the export by.
+	    values: A column name of the query or NULL.
 	
 	
 	Output:
 	  result                - Indicates success or failure
 	    values: 1 or 0
+
+	  files                 - The files written, in order, with their row counts and sizes on disk.
+	    values: file_number, file_path, row_count, byte_count
 	
 	
 	Exceptions:
@@ -85,20 +116,19 @@ package com.tibco.ps.utils.text;
 	             When non-positive number is used for total_columns input, column count validation is bypassed.
 	             Date, Time, and Timestamp columns now output in ANSI standard format.
 	
+	  Cell values are written through a per-column encoder plan (see CSVColumnEncoder) built once from the
+	  ResultSetMetaData, so the column type lookup, date formatting and qualifier scanning are not repeated
+	  for every cell. NULL Date, Time, and Timestamp values are written as empty fields.
+	
  */
 
 import com.compositesw.common.logging.Logger;
 import com.compositesw.extension.CustomProcedure;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
-import java.text.SimpleDateFormat;
 
 import com.compositesw.extension.CustomProcedureException;
 import com.compositesw.extension.ParameterInfo;
@@ -106,7 +136,7 @@ import com.compositesw.extension.ParameterInfo;
 public class CSVFromCISQueryToFile extends TextUtilTemplate implements CustomProcedure {
   String loginfo = "Done.";
   int error = 1;
-  ResultSet rs = null;
+  ExportFileSet files = null;
   final String NL = System.getProperty("line.separator");
 
   static {
@@ -123,7 +153,7 @@ public class CSVFromCISQueryToFile extends TextUtilTemplate implements CustomPro
   }
 
   public Object[] getOutputValues() {
-    return new Object[] { error };
+    return new Object[] { error, (files == null) ? null : files.getFilesCursor() };
   }
 
   public ParameterInfo[] getParameterInfo() {
@@ -136,7 +166,14 @@ public class CSVFromCISQueryToFile extends TextUtilTemplate implements CustomPro
       new ParameterInfo("file_Path", Types.VARCHAR, DIRECTION_IN),
       new ParameterInfo("append", Types.SMALLINT, DIRECTION_IN),
       new ParameterInfo("buffer_size", Types.INTEGER, DIRECTION_IN),
-      new ParameterInfo("result", Types.INTEGER, DIRECTION_OUT) 
+      new ParameterInfo("compression", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("flush_bytes", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo("max_rows_per_file", Types.BIGINT, DIRECTION_IN),
+      new ParameterInfo("max_bytes_per_file", Types.BIGINT, DIRECTION_IN),
+      new ParameterInfo("checkpoint_rows", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo("resume_key_column", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("result", Types.INTEGER, DIRECTION_OUT),
+      new ParameterInfo("files", TYPED_CURSOR, DIRECTION_OUT, ExportFileSet.FILES_CURSOR)
     };
   }
 
@@ -151,6 +188,12 @@ public class CSVFromCISQueryToFile extends TextUtilTemplate implements CustomPro
       int appendNum = 0;
       boolean append = false;
       int bufferSize = 1000;
+      String compression = null;
+      int flushBytes = ChannelTextWriter.DEFAULT_FLUSH_BYTES;
+      long maxRowsPerFile = 0;
+      long maxBytesPerFile = 0;
+      int checkpointRows = 0;
+      String resumeKeyColumn = null;
 
       /*
        * VALIDATE Input parameters
@@ -204,6 +247,26 @@ public class CSVFromCISQueryToFile extends TextUtilTemplate implements CustomPro
       if (inputs[7] != null) {
     	  bufferSize = (Integer)inputs[7];
       }
+      // Get compression from input
+      compression = ExportCompression.parse ((String) inputs[8]);
+      // Get flush bytes from input
+      if (inputs[9] != null) {
+    	  flushBytes = (Integer)inputs[9];
+      }
+      // Get the rollover limits from input
+      if (inputs[10] != null) {
+    	  maxRowsPerFile = ((Number)inputs[10]).longValue();
+      }
+      if (inputs[11] != null) {
+    	  maxBytesPerFile = ((Number)inputs[11]).longValue();
+      }
+      // Get the checkpoint settings from input
+      if (inputs[12] != null) {
+    	  checkpointRows = (Integer)inputs[12];
+      }
+      if (inputs[13] != null) {
+    	  resumeKeyColumn = ((String)inputs[13]).trim();
+      }
       loginfo += "DEBUG: \nARGS" +
            "\nQuery: " + queryString + 
            "\nSeparator Character: " + separator +
@@ -213,6 +276,12 @@ public class CSVFromCISQueryToFile extends TextUtilTemplate implements CustomPro
            "\nFile Path: " + filePath +
            "\nAppend: " + append +
            "\nBuffer Size: " + bufferSize +
+           "\nCompression: " + compression +
+           "\nFlush Bytes: " + flushBytes +
+           "\nMax Rows Per File: " + maxRowsPerFile +
+           "\nMax Bytes Per File: " + maxBytesPerFile +
+           "\nCheckpoint Rows: " + checkpointRows +
+           "\nResume Key Column: " + resumeKeyColumn +
            "\n";
      
       /*
@@ -227,21 +296,90 @@ public class CSVFromCISQueryToFile extends TextUtilTemplate implements CustomPro
       if (separator == qualifier) {
     	  throw new IllegalArgumentException ("The separator and qualifier characters may not be the same: " + separator);
       }
+      if (flushBytes <= 0) {
+    	  throw new IllegalArgumentException ("The flush bytes must be a positive integer");
+      }
       if (bufferSize <= 0) {
     	  throw new IllegalArgumentException ("The buffer size must be a positive integer");
       }
 
-      rs = qenv.executeQuery (queryString, null);
+      files = new ExportFileSet (filePath, append, compression, flushBytes, maxRowsPerFile, maxBytesPerFile);
+
+      ExportCheckpoint checkpoint = null;
+      if (checkpointRows > 0) {
+        if (append || files.isRollover() || !ExportCompression.NONE.equals (compression)) {
+          throw new IllegalArgumentException ("A checkpointed export cannot be combined with append, compression or max rows or bytes per file");
+        }
+        checkpoint = new ExportCheckpoint (filePath, queryString, resumeKeyColumn, checkpointRows);
+        if (checkpoint.load()) {
+          loginfo += "RESUMING AFTER ROW " + checkpoint.getRows() + "\n";
+        }
+        files.setAtomic (true);
+      }
+
+      int resultSize = exportToFile (queryString, separator, qualifier, createHeaders, totalColumns, bufferSize, files, checkpoint);
+
+      loginfo += "\nROWCOUNT = " + resultSize + "\nFILES = " + files.getFiles().size();
+
+    } catch (Throwable t) {
+      error = 0;
+      String message = "Exception Occurred:";
+      if (t.getMessage() != null) message = message + " " + t.getMessage();
+      message = message+"\n";
+      logger.info (message+loginfo);
+      t.printStackTrace();
+      throw new CustomProcedureException(message+loginfo);
+   
+    } finally {
+      qenv.log (LOG_DEBUG, loginfo);
+      
+      // Comment this line out after debugging is completed
+      //logger.info (loginfo);
+    }
+  }
+
+  /**
+   * Execute the query and write its result set as CSV to the file(s) of the file set.
+   * Only local state is used here so that CSVFromCISQueryToFileParallel can run several exports at once.
+   * @return the number of rows written, including those written before the checkpoint a resumed export started from
+   */
+  protected int exportToFile (String queryString, String separator, String qualifier, boolean createHeaders, int totalColumns,
+                              int bufferSize, ExportFileSet files, ExportCheckpoint checkpoint) throws Exception {
+    ResultSet rs = null;
+    ExportMetrics metrics = new ExportMetrics (getName(), files.getFilePath());
+    String status = "FAILED";
+    int resultSize = 0;
+    boolean resuming = (checkpoint != null && checkpoint.isResuming());
+    long resumedRows = (resuming) ? checkpoint.getRows() : 0;
+
+    try {
+      // open the file first so that an unusable path or compression fails before the query is run.
+      // a resumed export continues the file of the failed run from its last checkpoint.
+      //
+      ChannelTextWriter out = (resuming) ? files.resume (checkpoint.getOffset(), resumedRows) : files.open();
+
+      // the execution environment may be shared by the threads of a partitioned export. the queries are
+      // issued one at a time and their rows are then fetched concurrently.
+      long mark = metrics.mark();
+      synchronized (qenv) {
+        rs = qenv.executeQuery ((checkpoint != null) ? checkpoint.getQuery() : queryString, null);
+      }
+      metrics.queried (mark);
       ResultSetMetaData rsmd = rs.getMetaData();
       int numColumns = rsmd.getColumnCount();
-      loginfo += "COLUMN COUNT: " + numColumns;
-    
+      if (logger.isDebug()) logger.debug ("COLUMN COUNT: " + numColumns);
+
       // Validate the number of columns queried vs. the Total Number of Columns passed in and expected.  They should be equal
       if (totalColumns > 0 && numColumns != totalColumns) {
           throw new IllegalArgumentException ("The Number of columns selected in the query [" + numColumns + "] does not match the expected Total Columns in the format [" + totalColumns + "].");
       }
 
-      if (createHeaders) {
+      if (checkpoint != null) {
+        checkpoint.bind (rsmd);
+      }
+
+      // a resumed file already starts with the header
+      if (createHeaders && !resuming) {
         StringBuffer sb = new StringBuffer();
         for (int x = 0; x < numColumns; x++) {
           if (x > 0) {
@@ -249,144 +387,100 @@ public class CSVFromCISQueryToFile extends TextUtilTemplate implements CustomPro
           }
           sb.append (rsmd.getColumnLabel (x + 1));
         }
-        // Write the column header line to the file
-        createFileAscii (filePath, append, sb.toString() + NL);
-
-        //Now that the file has been written to make sure that additional writes are appended within the context of this procedure.
-        append = true;
+        // Write the column header line to the file, and to every file the output rolls over to
+        files.setHeader (sb.toString() + NL);
 
         if (logger.isDebug()) logger.debug ("createHeaders::"+sb.toString());
         // Comment this line out after debugging is completed
         //logger.info ("createHeaders::"+sb.toString());
-      } else {
-        createFileAscii (filePath, append, "");
       }
 
-  		BufferedWriter out = new BufferedWriter (new FileWriter (filePath, append));
+      int bufferedRows = 0;
+      long checkpointedRows = resumedRows;
+      StringBuilder sb = new StringBuilder();
 
-      int resultSize = 0;
-      StringBuffer sb = new StringBuffer();
+      // Build the column encoders once for the whole result set. Date, Time, and Timestamp columns are output in ANSI standard format.
+      //
+      final CSVColumnEncoder[] encoders = CSVColumnEncoder.compile (rsmd, separator, qualifier, true);
 
-      SimpleDateFormat dateFormatter = new SimpleDateFormat ("yyyy-MM-dd");
-      SimpleDateFormat timeFormatter = new SimpleDateFormat ("HH:mm:ss.SSS z");
-      SimpleDateFormat timestampFormatter = new SimpleDateFormat ("yyyy-MM-dd HH:mm:ss.SSS z");
+      // Rows are fetched on a separate thread in batches of buffer_size rows while the previous batches
+      // are formatted and written here.
+      //
+      RowBatchPipeline pipeline = new RowBatchPipeline (rs, numColumns, bufferSize, new RowBatchPipeline.RowFetcher() {
+        public void fetchRow (ResultSet rs, Object[] row) throws SQLException {
+          CSVColumnEncoder.fetchRow (encoders, rs, row);
+        }
+      }, getName());
 
-      while (rs.next()) {
+      try {
+        RowBatchPipeline.RowBatch batch;
+        mark = metrics.mark();
+        while ((batch = pipeline.take()) != null) {
+          mark = metrics.waited (mark);
+          for (int r = 0; r < batch.size(); r++) {
 
-        for (int x = 0; x < numColumns; x++) {
-          if (x > 0) {
-            sb.append (separator);
-          }
-          //String resultTmp = rs.getString (x + 1);
-          
-          String resultTmp;
-          
-          switch (rsmd.getColumnType (x + 1)) {
-              case Types.DATE:
-                resultTmp = dateFormatter.format (rs.getDate (x + 1));
-                break;
-              
-              case Types.TIME:
-                resultTmp = timeFormatter.format (rs.getTime (x + 1));
-                break;
-              
-              case Types.TIMESTAMP:
-                resultTmp = timestampFormatter.format (rs.getTimestamp (x + 1));
-                break;
-              
-              default: 
-                resultTmp = rs.getString (x + 1);
-                break;
+            // Finish the current file once it is full and continue in the next one
+            if (files.isFull (bufferedRows, sb.length())) {
+              mark = metrics.formatted (mark);
+              out.write (sb);
+              sb.setLength (0);
+              files.addRows (bufferedRows);
+              bufferedRows = 0;
+              out = files.next();
+              mark = metrics.wrote (mark);
+            }
+
+            CSVColumnEncoder.encodeRow (encoders, batch.getRow (r), separator, sb);
+            sb.append (NL);
+            // Comment this line out after debugging is completed
+            //logger.info ("Row::"+sb.toString());
+
+            resultSize++;
+            bufferedRows++;
           }
-          
-  
-          if (resultTmp != null) {
-          
-            // If the string representation of the result contains a separator, qualifier or newline, then it needs to be qualified. Any existing
-            // qualifier characters in the result string need to be escaped (doubled). 
-            //
-            if (resultTmp.contains (separator) || resultTmp.contains (qualifier) || resultTmp.matches("(?s).*[\\n\\r\\u0085\\u2028\\u2029].*")) {
-              resultTmp = resultTmp.replace (qualifier, qualifier + qualifier);
-              resultTmp = qualifier + resultTmp + qualifier;
-            }        
-            sb.append (resultTmp);
+          String lastKey = (checkpoint != null) ? checkpoint.keyOf (batch.getRow (batch.size() - 1)) : null;
+          pipeline.release (batch);
+          mark = metrics.formatted (mark);
+
+          // Write the buffer to the file
+          out.write (sb);
+          sb.setLength (0);
+          files.addRows (bufferedRows);
+          bufferedRows = 0;
+
+          // Save a checkpoint once the rows written since the last one are forced to disk
+          if (checkpoint != null && resumedRows + resultSize - checkpointedRows >= checkpoint.getCheckpointRows()) {
+            checkpointedRows = resumedRows + resultSize;
+            checkpoint.save (checkpointedRows, files.sync(), lastKey);
           }
+          mark = metrics.wrote (mark);
         }
-        sb.append (NL);
-        // Comment this line out after debugging is completed
-        //logger.info ("Row::"+sb.toString());
-        
-        resultSize++;
-
-        // Write the buffer to the file
-        if (resultSize % bufferSize == 0) {
-          out.write(sb.toString());
-          sb = new StringBuffer();
+        files.commit();
+        if (checkpoint != null) {
+          checkpoint.delete();
         }
-
-        //Now that the file has been written to make sure that additional writes are appended within the context of this procedure.
-        append = true;
+        metrics.wrote (mark);
+      } finally {
+        pipeline.close();
+        metrics.fetched (pipeline.getFirstRowTime(), pipeline.getFetchNanos());
       }
 
-      // Write remaining buffer to the file
-      if (resultSize % bufferSize > 0)
-        out.write(sb.toString());
+      status = "OK";
+      return (int) (resumedRows + resultSize);
+
+    } catch (Exception e) {
+      status = "FAILED: " + e.getMessage();
+      throw e;
 
-      loginfo += "\nROWCOUNT = " + resultSize;
-        
-  		out.close();
-      
-    } catch (Throwable t) {
-      error = 0;
-      String message = "Exception Occurred:";
-      if (t.getMessage() != null) message = message + " " + t.getMessage();
-      message = message+"\n";
-      logger.info (message+loginfo);
-      t.printStackTrace();
-      throw new CustomProcedureException(message+loginfo);
-   
     } finally {
-      try{
-          if (rs != null) {
-          	if (! rs.isClosed()) { rs.close(); }
-          }
-      } catch (Throwable t) {
-        error = 1;
-        String message = "Exception Occurred:";
-        if (t.getMessage() != null) message = message + " " + t.getMessage();
-        message = message+"\n";
-        logger.info (message+loginfo);
-        t.printStackTrace();
-        throw new CustomProcedureException(message+loginfo);
+      try {
+        files.close();
+      } finally {
+        metrics.finish (status, resultSize, files);
+        if (rs != null) {
+          if (! rs.isClosed()) { rs.close(); }
+        }
       }
-      qenv.log (LOG_DEBUG, loginfo);
-      
-      // Comment this line out after debugging is completed
-      //logger.info (loginfo);
     }
   }
-  
-	private void createFileAscii(String fileName, boolean append, String fileContent) 
-	throws CustomProcedureException, SQLException {
-
-    try {
-      File file = new File(fileName);
-      // if its not there create it
-      if(!file.isFile()){
-        file.createNewFile();
-      }				
-        
-      BufferedWriter out = new BufferedWriter(new FileWriter(fileName, append));
-      if (append) {
-        out.newLine();
-      }
-      out.write(fileContent);
-      out.close();
-      //System.out.println("Your file has been written");        	
-    }
-    catch(IOException ex)
-    {
-      throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
-    }	        
-  }  
 }
@@ -0,0 +1,225 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+/*
+	Description:
+	  Writer used by the *FromCISQueryToFile exporters. Characters are copied into a reusable char buffer,
+	  encoded with an explicit CharsetEncoder into a direct ByteBuffer, and the ByteBuffer is written to
+	  the file's channel each time it fills up. The write size is therefore a fixed number of bytes
+	  (flush_bytes) regardless of how wide the rows are, and no intermediate Strings or byte arrays are
+	  created per row.
+
+	  Unmappable characters are replaced, as FileWriter does.
+
+	  flush() only hands the encoded bytes to the channel. When the output is compressed the compressor
+	  is flushed by close().
+
+	Inputs:
+	  N/A
+
+	Outputs:
+	  N/A
+
+	Exceptions:
+	  None
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+public class ChannelTextWriter extends Writer {
+
+	// default number of bytes written to the channel at a time. a multiple of common filesystem block sizes.
+	public static final int DEFAULT_FLUSH_BYTES = 1024 * 1024;
+
+	// number of characters encoded at a time
+	private static final int CHAR_BUFFER_SIZE = 8192;
+
+	private final WritableByteChannel channel;
+	private final CharsetEncoder encoder;
+	private final ByteBuffer bytes;
+	private final CharBuffer chars;
+	private final char[] charArray;
+	private long bytesWritten = 0;
+	private boolean closed = false;
+
+	public ChannelTextWriter(WritableByteChannel channel, Charset charset, int flushBytes) {
+		if (flushBytes <= 0) {
+			throw new IllegalArgumentException("The flush bytes must be a positive integer");
+		}
+		this.channel = channel;
+		this.encoder = charset.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		// the buffer must at least hold a few encoded characters or the encoder could never make progress
+		this.bytes = ByteBuffer.allocateDirect(Math.max(flushBytes, 16 * (int) Math.ceil(encoder.maxBytesPerChar())));
+		this.charArray = new char[CHAR_BUFFER_SIZE];
+		this.chars = CharBuffer.wrap(charArray);
+	}
+
+	/**
+	 * Open filePath, optionally through a compressor (see ExportCompression), and write to it in the platform default charset.
+	 * Uncompressed files are written straight to the file's FileChannel.
+	 */
+	public static ChannelTextWriter open(String filePath, boolean append, String compression, int flushBytes) throws IOException {
+		WritableByteChannel channel;
+		if (compression == null || ExportCompression.NONE.equals(compression)) {
+			channel = new FileOutputStream(filePath, append).getChannel();
+		} else {
+			channel = Channels.newChannel(ExportCompression.open(filePath, append, compression));
+		}
+		return new ChannelTextWriter(channel, Charset.defaultCharset(), flushBytes);
+	}
+
+	/**
+	 * @return the number of encoded (uncompressed) bytes handed to the channel so far.
+	 */
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	/**
+	 * @return the number of encoded bytes written or waiting in the buffer.  Characters not yet encoded are counted as one byte each.
+	 */
+	public long getBytesPending() {
+		return bytesWritten + bytes.position() + chars.position();
+	}
+
+	public void write(int c) throws IOException {
+		if (!chars.hasRemaining()) {
+			encodeChars(false);
+		}
+		chars.put((char) c);
+	}
+
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		while (len > 0) {
+			if (!chars.hasRemaining()) {
+				encodeChars(false);
+			}
+			int n = Math.min(len, chars.remaining());
+			chars.put(cbuf, off, n);
+			off += n;
+			len -= n;
+		}
+	}
+
+	public void write(String str, int off, int len) throws IOException {
+		while (len > 0) {
+			if (!chars.hasRemaining()) {
+				encodeChars(false);
+			}
+			int n = Math.min(len, chars.remaining());
+			str.getChars(off, off + n, charArray, chars.position());
+			chars.position(chars.position() + n);
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * Write the contents of a StringBuilder without creating a String from it.
+	 */
+	public void write(StringBuilder sb) throws IOException {
+		int off = 0;
+		int len = sb.length();
+		while (len > 0) {
+			if (!chars.hasRemaining()) {
+				encodeChars(false);
+			}
+			int n = Math.min(len, chars.remaining());
+			sb.getChars(off, off + n, charArray, chars.position());
+			chars.position(chars.position() + n);
+			off += n;
+			len -= n;
+		}
+	}
+
+	public void flush() throws IOException {
+		encodeChars(false);
+		drain();
+	}
+
+	/**
+	 * Flush and, when writing straight to a file, force the file's contents to the disk.
+	 */
+	public void sync() throws IOException {
+		flush();
+		if (channel instanceof FileChannel) {
+			((FileChannel) channel).force(false);
+		}
+	}
+
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			encodeChars(true);
+			while (encoder.flush(bytes).isOverflow()) {
+				drain();
+			}
+			drain();
+		} finally {
+			channel.close();
+		}
+	}
+
+	// encode the buffered characters, writing the byte buffer out each time it fills. a trailing high
+	// surrogate is kept in the char buffer until the rest of its pair arrives.
+	private void encodeChars(boolean endOfInput) throws IOException {
+		chars.flip();
+		while (true) {
+			CoderResult cr = encoder.encode(chars, bytes, endOfInput);
+			if (cr.isOverflow()) {
+				drain();
+			} else if (cr.isUnderflow()) {
+				break;
+			} else {
+				cr.throwException();
+			}
+		}
+		chars.compact();
+	}
+
+	private void drain() throws IOException {
+		bytes.flip();
+		while (bytes.hasRemaining()) {
+			bytesWritten += channel.write(bytes);
+		}
+		bytes.clear();
+	}
+}
@@ -0,0 +1,138 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+Description:
+  This utility class writes dates and times field by field into a StringBuilder, in the JVM's
+  default time zone, without allocating a formatter result per value. It is shared by the column
+  encoders of the CSV and JSON CJP's, which differ only in the character between the date and the
+  time of a timestamp and in whether times end with the short time zone name:
+
+    ansi()    - yyyy-MM-dd, HH:mm:ss.SSS z and yyyy-MM-dd HH:mm:ss.SSS z (CSVColumnEncoder.) Produces
+                the same output as SimpleDateFormat with these patterns in the default locale.
+    iso8601() - yyyy-MM-dd, HH:mm:ss.SSS and yyyy-MM-ddTHH:mm:ss.SSS (JSONColumnEncoder.)
+
+  The short time zone names are looked up once. A DateTimeWriter holds a Calendar and is therefore
+  not thread-safe.
+
+Inputs:
+  N/A
+
+Outputs:
+  N/A
+
+Exceptions:
+  None
+
+Date:        10/18/2026
+CSW Version: 8.0.0
+
+*/
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+class DateTimeWriter {
+    private final Calendar cal;
+    private final char dateTimeSeparator;
+    private final boolean zoneSuffix;
+    private final String standardZoneName;
+    private final String daylightZoneName;
+
+    // dateTimeSeparator - the character between the date and the time of a timestamp
+    // zoneSuffix        - when true times end with a space and the short time zone name
+    //
+    DateTimeWriter (char dateTimeSeparator, boolean zoneSuffix) {
+        TimeZone tz = TimeZone.getDefault();
+        this.cal = new GregorianCalendar (tz);
+        this.dateTimeSeparator = dateTimeSeparator;
+        this.zoneSuffix = zoneSuffix;
+        this.standardZoneName = (zoneSuffix) ? tz.getDisplayName (false, TimeZone.SHORT, Locale.getDefault()) : "";
+        this.daylightZoneName = (zoneSuffix) ? tz.getDisplayName (true, TimeZone.SHORT, Locale.getDefault()) : "";
+    }
+
+    static DateTimeWriter ansi() {
+        return new DateTimeWriter (' ', true);
+    }
+
+    static DateTimeWriter iso8601() {
+        return new DateTimeWriter ('T', false);
+    }
+
+    // every character the formatted values may contain
+    //
+    String getCharacters() {
+        return "0123456789-:." + dateTimeSeparator + ((zoneSuffix) ? " " + standardZoneName + daylightZoneName : "");
+    }
+
+    void appendDate (long millis, StringBuilder out) {
+        cal.setTimeInMillis (millis);
+        appendDateFields (out);
+    }
+
+    void appendTime (long millis, StringBuilder out) {
+        cal.setTimeInMillis (millis);
+        appendTimeFields (out);
+    }
+
+    void appendTimestamp (long millis, StringBuilder out) {
+        cal.setTimeInMillis (millis);
+        appendDateFields (out);
+        out.append (dateTimeSeparator);
+        appendTimeFields (out);
+    }
+
+    private void appendDateFields (StringBuilder out) {
+        pad (out, cal.get (Calendar.YEAR), 4);
+        out.append ('-');
+        pad (out, cal.get (Calendar.MONTH) + 1, 2);
+        out.append ('-');
+        pad (out, cal.get (Calendar.DAY_OF_MONTH), 2);
+    }
+
+    private void appendTimeFields (StringBuilder out) {
+        pad (out, cal.get (Calendar.HOUR_OF_DAY), 2);
+        out.append (':');
+        pad (out, cal.get (Calendar.MINUTE), 2);
+        out.append (':');
+        pad (out, cal.get (Calendar.SECOND), 2);
+        out.append ('.');
+        pad (out, cal.get (Calendar.MILLISECOND), 3);
+        if (zoneSuffix) {
+            out.append (' ');
+            out.append ((cal.get (Calendar.DST_OFFSET) != 0) ? daylightZoneName : standardZoneName);
+        }
+    }
+
+    // append a non-negative value left padded with zeros to the requested width.
+    //
+    private static void pad (StringBuilder out, int value, int width) {
+        for (int limit = 10, w = 1; w < width; w++, limit *= 10) {
+            if (value < limit) {
+                out.append ('0');
+            }
+        }
+        out.append (value);
+    }
+}
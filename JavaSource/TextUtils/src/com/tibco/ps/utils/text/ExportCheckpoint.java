@@ -0,0 +1,258 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+/*
+	Description:
+	  Checkpoints of a resumable *FromCISQueryToFile export. The export is written to file_Path.inprogress
+	  (see ExportFileSet) in the order of a unique key column, and every checkpoint_rows rows the file is
+	  forced to disk and file_Path.checkpoint is replaced with:
+
+	    query      - the query of the export
+	    key_column - the key column
+	    rows       - the number of rows written
+	    offset     - the length of the .inprogress file after those rows
+	    last_key   - the key of the last of those rows, as an SQL literal
+
+	  When the export is run again with the same query and key column while both files exist, the
+	  .inprogress file is truncated to the checkpointed offset and only the rows after the last key are
+	  queried:
+
+	    SELECT * FROM (<query>) resumable_query WHERE <key_column> > <last_key> ORDER BY <key_column>
+
+	  The checkpoint is deleted once the finished file has been renamed to file_Path.
+
+	Inputs:
+	  N/A
+
+	Outputs:
+	  N/A
+
+	Exceptions:
+	  None
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Properties;
+
+public class ExportCheckpoint {
+
+	public static final String CHECKPOINT_SUFFIX = ".checkpoint";
+
+	private final String filePath;
+	private final String queryString;
+	private final String keyColumn;
+	private final int checkpointRows;
+	private final File checkpointFile;
+
+	private boolean resuming = false;
+	private long rows = 0;
+	private long offset = 0;
+	private String lastKey = null;
+	private int keyIndex = -1;
+	private int keyType = Types.VARCHAR;
+
+	/**
+	 * @param filePath - the final path of the export
+	 * @param keyColumn - a unique column to order and resume the export by
+	 * @param checkpointRows - the number of rows between checkpoints
+	 */
+	public ExportCheckpoint(String filePath, String queryString, String keyColumn, int checkpointRows) {
+		if (keyColumn == null || keyColumn.trim().length() == 0) {
+			throw new IllegalArgumentException("A resume key column must be provided with checkpoint rows");
+		}
+		if (checkpointRows <= 0) {
+			throw new IllegalArgumentException("The checkpoint rows must be a positive integer");
+		}
+		this.filePath = filePath;
+		this.queryString = queryString;
+		this.keyColumn = keyColumn.trim();
+		this.checkpointRows = checkpointRows;
+		this.checkpointFile = new File(filePath + CHECKPOINT_SUFFIX);
+	}
+
+	/**
+	 * Read the checkpoint of a previous run, if there is one.  A checkpoint without its .inprogress
+	 * file is left over from a run that finished and is discarded.
+	 * @return true when the export resumes from the checkpoint
+	 */
+	public boolean load() throws IOException {
+		if (!checkpointFile.exists()) {
+			return false;
+		}
+		if (!new File(filePath + ExportFileSet.IN_PROGRESS_SUFFIX).exists()) {
+			checkpointFile.delete();
+			return false;
+		}
+
+		Properties props = new Properties();
+		InputStream in = new FileInputStream(checkpointFile);
+		try {
+			props.load(in);
+		} finally {
+			in.close();
+		}
+
+		if (!queryString.equals(props.getProperty("query")) || !keyColumn.equals(props.getProperty("key_column"))) {
+			throw new IllegalArgumentException("The checkpoint " + checkpointFile.getPath() + " belongs to a different query or key column. Delete it to start the export over.");
+		}
+		rows = Long.parseLong(props.getProperty("rows"));
+		offset = Long.parseLong(props.getProperty("offset"));
+		lastKey = props.getProperty("last_key");
+		resuming = true;
+		return true;
+	}
+
+	public boolean isResuming() {
+		return resuming;
+	}
+
+	/**
+	 * @return the number of rows written before the checkpoint
+	 */
+	public long getRows() {
+		return rows;
+	}
+
+	/**
+	 * @return the length of the .inprogress file at the checkpoint
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	public int getCheckpointRows() {
+		return checkpointRows;
+	}
+
+	/**
+	 * @return the query ordered by the key column, restricted to the rows after the checkpoint when resuming
+	 */
+	public String getQuery() {
+		String query = "SELECT * FROM (" + queryString + ") resumable_query";
+		if (resuming && lastKey != null) {
+			query += " WHERE " + keyColumn + " > " + lastKey;
+		}
+		return query + " ORDER BY " + keyColumn;
+	}
+
+	/**
+	 * Find the key column in the result set.
+	 */
+	public void bind(ResultSetMetaData rsmd) throws SQLException {
+		String name = keyColumn;
+		if (name.length() > 1 && name.startsWith("\"") && name.endsWith("\"")) {
+			name = name.substring(1, name.length() - 1);
+		}
+		for (int x = 0; x < rsmd.getColumnCount(); x++) {
+			if (name.equalsIgnoreCase(rsmd.getColumnLabel(x + 1))) {
+				keyIndex = x;
+				keyType = rsmd.getColumnType(x + 1);
+				return;
+			}
+		}
+		throw new IllegalArgumentException("The resume key column [" + keyColumn + "] is not one of the columns of the query.");
+	}
+
+	/**
+	 * @param row - a fetched row (see RowBatchPipeline)
+	 * @return the key of the row as an SQL literal
+	 */
+	public String keyOf(Object[] row) {
+		Object value = row[keyIndex];
+		if (value == null) {
+			throw new IllegalArgumentException("The resume key column [" + keyColumn + "] must not be NULL.");
+		}
+		return literal(keyType, value.toString());
+	}
+
+	/**
+	 * Replace the checkpoint.  The rows must already have been forced to disk.
+	 */
+	public void save(long rows, long offset, String lastKey) throws IOException {
+		Properties props = new Properties();
+		props.setProperty("query", queryString);
+		props.setProperty("key_column", keyColumn);
+		props.setProperty("rows", String.valueOf(rows));
+		props.setProperty("offset", String.valueOf(offset));
+		props.setProperty("last_key", lastKey);
+
+		// write a new checkpoint next to the old one and then replace it, so that a failure never leaves a partial checkpoint behind
+		File tmp = new File(checkpointFile.getPath() + ".tmp");
+		FileOutputStream out = new FileOutputStream(tmp);
+		try {
+			props.store(out, "Checkpoint of " + filePath);
+			out.getFD().sync();
+		} finally {
+			out.close();
+		}
+		if (!tmp.renameTo(checkpointFile)) {
+			// File.renameTo does not replace an existing file on all platforms
+			checkpointFile.delete();
+			if (!tmp.renameTo(checkpointFile)) {
+				throw new IOException("Unable to replace the checkpoint " + checkpointFile.getPath());
+			}
+		}
+	}
+
+	/**
+	 * Remove the checkpoint after the export has finished.
+	 */
+	public void delete() {
+		checkpointFile.delete();
+	}
+
+	/**
+	 * @return value as an SQL literal of the given type
+	 */
+	public static String literal(int sqlType, String value) {
+		switch (sqlType) {
+			case Types.TINYINT:
+			case Types.SMALLINT:
+			case Types.INTEGER:
+			case Types.BIGINT:
+			case Types.DECIMAL:
+			case Types.NUMERIC:
+			case Types.REAL:
+			case Types.FLOAT:
+			case Types.DOUBLE:
+				return value;
+			case Types.DATE:
+				return "DATE '" + value + "'";
+			case Types.TIME:
+				return "TIME '" + value + "'";
+			case Types.TIMESTAMP:
+				return "TIMESTAMP '" + value + "'";
+			default:
+				return "'" + value.replace("'", "''") + "'";
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+/*
+	Description:
+	  Opens the output stream of the *FromCISQueryToFile exporters with optional inline compression
+	  so that the file is compressed as it is written rather than in a second pass.
+
+	  none          - plain text.
+	  gzip          - a single gzip stream.
+	  deflate       - a zlib (RFC 1950) deflate stream.
+	  parallel_gzip - the output is cut into blocks that are gzip compressed on a shared pool of
+	                  threads and written in order as consecutive gzip members (see ParallelGzipOutputStream.)
+
+	  Appending to a gzip file adds a new gzip member, which gzip readers treat as a continuation of the
+	  file. A deflate stream cannot be continued, so appending or concatenating with deflate is rejected.
+
+	Inputs:
+	  N/A
+
+	Outputs:
+	  N/A
+
+	Exceptions:
+	  None
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class ExportCompression {
+
+	public static final String NONE = "none";
+	public static final String GZIP = "gzip";
+	public static final String DEFLATE = "deflate";
+	public static final String PARALLEL_GZIP = "parallel_gzip";
+
+	// size of the compressor's output buffer.
+	private static final int COMPRESSOR_BUFFER_SIZE = 65536;
+
+	/**
+	 * @return the normalized compression name for a compression input parameter.  NULL or empty means none.
+	 */
+	public static String parse(String compression) {
+		if (compression == null || compression.trim().length() == 0) {
+			return NONE;
+		}
+		String value = compression.trim().toLowerCase();
+		if (value.equals(NONE) || value.equals(GZIP) || value.equals(DEFLATE) || value.equals(PARALLEL_GZIP)) {
+			return value;
+		}
+		throw new IllegalArgumentException("The compression must be one of " + NONE + ", " + GZIP + ", " + DEFLATE + " or " + PARALLEL_GZIP + ": " + compression);
+	}
+
+	/**
+	 * @return true when independently written files or appended output in this compression can be joined byte for byte.
+	 */
+	public static boolean isConcatenable(String compression) {
+		return !DEFLATE.equals(compression);
+	}
+
+	/**
+	 * Open filePath for writing through the requested compressor.
+	 */
+	public static OutputStream open(String filePath, boolean append, String compression) throws IOException {
+		if (append && !isConcatenable(compression)) {
+			throw new IllegalArgumentException("A " + compression + " compressed file cannot be appended to");
+		}
+
+		OutputStream out = new FileOutputStream(filePath, append);
+		try {
+			if (GZIP.equals(compression)) {
+				return new GZIPOutputStream(out, COMPRESSOR_BUFFER_SIZE);
+			}
+			if (DEFLATE.equals(compression)) {
+				// the default deflater is used so that it is released when the stream is closed
+				return new DeflaterOutputStream(new BufferedOutputStream(out, COMPRESSOR_BUFFER_SIZE));
+			}
+			if (PARALLEL_GZIP.equals(compression)) {
+				return new ParallelGzipOutputStream(out);
+			}
+			return out;
+		} catch (IOException e) {
+			out.close();
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,347 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+/*
+	Description:
+	  The output file(s) of one *FromCISQueryToFile export. Without limits this is just file_Path. With a
+	  row or byte limit the output rolls over to numbered files: /data/export.csv becomes /data/export.00001.csv,
+	  /data/export.00002.csv, ... (a trailing .gz is kept last.) A file is finished, and closed, as soon as it
+	  holds max_rows_per_file rows or max_bytes_per_file bytes; it may exceed the byte limit by less than one row.
+	  The column header row, when there is one, is repeated at the top of every file.
+
+	  The row and byte counts of each file are returned through a cursor with the FILES_CURSOR columns. The byte
+	  count is the size of the file on disk, i.e. after compression.
+
+	  An atomic file set writes each file as <path>.inprogress and only renames it to <path> once the file is
+	  complete, so a reader never sees a partially written file under its final name. A file that was not
+	  completed is left as <path>.inprogress, for ExportCheckpoint to resume.
+
+	  XMLUtils compiles this source into its jar, so that SplitXMLFile names its part files with
+	  numberedFilePath() (see the shared source directories of its build.xml.)
+
+	Inputs:
+	  N/A
+
+	Outputs:
+	  N/A
+
+	Exceptions:
+	  None
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import com.compositesw.extension.CustomCursor;
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+import com.compositesw.extension.ProcedureConstants;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ExportFileSet {
+
+	public static final String IN_PROGRESS_SUFFIX = ".inprogress";
+
+	public static final ParameterInfo[] FILES_CURSOR = new ParameterInfo[] {
+		new ParameterInfo("file_number", Types.INTEGER, ProcedureConstants.DIRECTION_NONE),
+		new ParameterInfo("file_path", Types.VARCHAR, ProcedureConstants.DIRECTION_NONE),
+		new ParameterInfo("row_count", Types.BIGINT, ProcedureConstants.DIRECTION_NONE),
+		new ParameterInfo("byte_count", Types.BIGINT, ProcedureConstants.DIRECTION_NONE)
+	};
+
+	/**
+	 * One file written by the export.
+	 */
+	public static class ExportFile {
+		public final int fileNumber;
+		public final String filePath;
+		public long rows = 0;
+		public long bytes = 0;
+
+		ExportFile(int fileNumber, String filePath) {
+			this.fileNumber = fileNumber;
+			this.filePath = filePath;
+		}
+	}
+
+	private final String filePath;
+	private final boolean append;
+	private final String compression;
+	private final int flushBytes;
+	private final long maxRowsPerFile;
+	private final long maxBytesPerFile;
+	private final List<ExportFile> files = new ArrayList<ExportFile>();
+	private final String NL = System.getProperty("line.separator");
+
+	private boolean atomic = false;
+	private String header = null;
+	private ExportFile current = null;
+	private ChannelTextWriter out = null;
+
+	/**
+	 * @param maxRowsPerFile - roll over after this many rows, or 0 for no row limit
+	 * @param maxBytesPerFile - roll over once a file holds this many (uncompressed) bytes, or 0 for no byte limit
+	 */
+	public ExportFileSet(String filePath, boolean append, String compression, int flushBytes, long maxRowsPerFile, long maxBytesPerFile) {
+		if (maxRowsPerFile < 0) {
+			throw new IllegalArgumentException("The max rows per file must not be negative");
+		}
+		if (maxBytesPerFile < 0) {
+			throw new IllegalArgumentException("The max bytes per file must not be negative");
+		}
+		if (append && (maxRowsPerFile > 0 || maxBytesPerFile > 0)) {
+			throw new IllegalArgumentException("Appending cannot be combined with max rows or max bytes per file");
+		}
+		this.filePath = filePath;
+		this.append = append;
+		this.compression = compression;
+		this.flushBytes = flushBytes;
+		this.maxRowsPerFile = maxRowsPerFile;
+		this.maxBytesPerFile = maxBytesPerFile;
+	}
+
+	/**
+	 * @return the file path the set was created with (before any numbering)
+	 */
+	public String getFilePath() {
+		return filePath;
+	}
+
+	/**
+	 * Write each file as <path>.inprogress and rename it to <path> once it is complete.
+	 */
+	public void setAtomic(boolean atomic) {
+		this.atomic = atomic;
+	}
+
+	/**
+	 * @return true when the output rolls over to numbered files
+	 */
+	public boolean isRollover() {
+		return maxRowsPerFile > 0 || maxBytesPerFile > 0;
+	}
+
+	/**
+	 * @return the path of numbered file n e.g. /data/export.csv file 2 becomes /data/export.00002.csv
+	 */
+	public static String numberedFilePath(String filePath, int fileNumber) {
+		return numberedFilePath(filePath, "", fileNumber);
+	}
+
+	/**
+	 * @return the path of numbered file n with a label before the number e.g. /data/export.csv part 3 becomes
+	 *         /data/export.part00003.csv and /data/export.csv.gz becomes /data/export.part00003.csv.gz
+	 */
+	public static String numberedFilePath(String filePath, String label, int fileNumber) {
+		String number = "." + label + String.format("%05d", fileNumber);
+		String compressionExtension = "";
+		String lower = filePath.toLowerCase();
+		if (lower.endsWith(".gz") || lower.endsWith(".zz")) {
+			compressionExtension = filePath.substring(filePath.length() - 3);
+			filePath = filePath.substring(0, filePath.length() - 3);
+		}
+		int slash = Math.max(filePath.lastIndexOf('/'), filePath.lastIndexOf('\\'));
+		int dot = filePath.lastIndexOf('.');
+		if (dot > slash + 1) {
+			return filePath.substring(0, dot) + number + filePath.substring(dot) + compressionExtension;
+		}
+		return filePath + number + compressionExtension;
+	}
+
+	/**
+	 * Open the first file.  Appended output starts on a new line.
+	 */
+	public ChannelTextWriter open() throws IOException {
+		return open(true);
+	}
+
+	/**
+	 * Open the first file.  When leadingNewline is true appended output starts with a line separator; exporters
+	 * whose rows already end with their own line terminator pass false.
+	 */
+	public ChannelTextWriter open(boolean leadingNewline) throws IOException {
+		openFile(append);
+		if (append && leadingNewline) {
+			out.write(NL);
+		}
+		return out;
+	}
+
+	/**
+	 * Reopen the first file of an atomic file set after a failure, discarding anything written after the checkpoint.
+	 * @param offset - the length of the file at the checkpoint
+	 * @param rows - the number of rows in the file at the checkpoint
+	 */
+	public ChannelTextWriter resume(long offset, long rows) throws IOException {
+		String writePath = writePath(isRollover() ? numberedFilePath(filePath, 1) : filePath);
+		RandomAccessFile file = new RandomAccessFile(writePath, "rw");
+		try {
+			if (file.length() < offset) {
+				throw new IOException("The file " + writePath + " is shorter than its checkpoint");
+			}
+			file.setLength(offset);
+		} finally {
+			file.close();
+		}
+		openFile(true);
+		current.rows = rows;
+		return out;
+	}
+
+	/**
+	 * Write the header row (including its line separator) to the current file and to every file opened after it.
+	 */
+	public void setHeader(String header) throws IOException {
+		this.header = header;
+		out.write(header);
+	}
+
+	/**
+	 * @param pendingRows - rows formatted but not yet handed to the writer
+	 * @param pendingChars - characters formatted but not yet handed to the writer
+	 * @return true when the current file has reached its row or byte limit
+	 */
+	public boolean isFull(int pendingRows, int pendingChars) {
+		if (maxRowsPerFile > 0 && current.rows + pendingRows >= maxRowsPerFile) {
+			return true;
+		}
+		if (maxBytesPerFile > 0 && out.getBytesPending() + pendingChars >= maxBytesPerFile) {
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Count rows that have been handed to the current file's writer.
+	 */
+	public void addRows(int rows) {
+		current.rows += rows;
+	}
+
+	/**
+	 * Close the current file and open the next numbered one.
+	 */
+	public ChannelTextWriter next() throws IOException {
+		closeFile(true);
+		openFile(false);
+		if (header != null) {
+			out.write(header);
+		}
+		return out;
+	}
+
+	/**
+	 * Write everything written so far through to the disk.
+	 * @return the length of the current file
+	 */
+	public long sync() throws IOException {
+		out.sync();
+		return new File(writePath(current.filePath)).length();
+	}
+
+	/**
+	 * Close the current file after the export has completed.  The files of an atomic file set get their final names.
+	 */
+	public void commit() throws IOException {
+		closeFile(true);
+	}
+
+	/**
+	 * Close the current file.  When the export has not completed the current file of an atomic file set keeps its .inprogress name.
+	 */
+	public void close() throws IOException {
+		closeFile(false);
+	}
+
+	public List<ExportFile> getFiles() {
+		return files;
+	}
+
+	/**
+	 * @return a cursor over the files written, with the FILES_CURSOR columns
+	 */
+	public CustomCursor getFilesCursor() {
+		final List<ExportFile> rows = new ArrayList<ExportFile>(files);
+		return new CustomCursor() {
+			private int index = 0;
+
+			public ParameterInfo[] getColumnInfo() {
+				return FILES_CURSOR;
+			}
+
+			public Object[] next() throws CustomProcedureException, SQLException {
+				if (index >= rows.size()) {
+					return null;
+				}
+				ExportFile file = rows.get(index++);
+				return new Object[] { new Integer(file.fileNumber), file.filePath, new Long(file.rows), new Long(file.bytes) };
+			}
+
+			public void close() throws CustomProcedureException, SQLException {
+				index = rows.size();
+			}
+		};
+	}
+
+	private String writePath(String path) {
+		return (atomic) ? path + IN_PROGRESS_SUFFIX : path;
+	}
+
+	private void openFile(boolean appendFile) throws IOException {
+		int fileNumber = files.size() + 1;
+		String path = isRollover() ? numberedFilePath(filePath, fileNumber) : filePath;
+		// the file is only counted once it has been opened
+		out = ChannelTextWriter.open(writePath(path), appendFile, compression, flushBytes);
+		current = new ExportFile(fileNumber, path);
+		files.add(current);
+	}
+
+	private void closeFile(boolean complete) throws IOException {
+		if (out == null) {
+			return;
+		}
+		File written = new File(writePath(current.filePath));
+		try {
+			out.close();
+		} finally {
+			out = null;
+			current.bytes = written.length();
+		}
+		if (atomic && complete) {
+			File target = new File(current.filePath);
+			if (!written.renameTo(target)) {
+				// File.renameTo does not replace an existing file on all platforms
+				target.delete();
+				if (!written.renameTo(target)) {
+					throw new IOException("Unable to rename " + written.getPath() + " to " + target.getPath());
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,222 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+/*
+	Description:
+	  Timings and counts of one *FromCISQueryToFile export, kept in an in-memory history of the last
+	  MAX_HISTORY runs that GetExportMetrics returns as a cursor. Each part of a partitioned export is
+	  recorded as a run of its own.
+
+	  The time of a run is split up as follows:
+
+	    query_millis     - executing the query
+	    first_row_millis - from the start of the run until the first row was fetched
+	    fetch_millis     - in rs.next() and reading the column values (on the fetch thread)
+	    wait_millis      - the writer waiting for the fetch thread to deliver rows
+	    format_millis    - formatting rows
+	    write_millis     - encoding, compressing and writing to the file(s)
+
+	  Fetching runs concurrently with formatting and writing (see RowBatchPipeline), so fetch_millis
+	  overlaps the others. A high wait_millis means the data source is the bottleneck, a high format_millis
+	  the formatter and a high write_millis the disk (or the compression.)
+
+	  The history lives as long as the class loader of the jar. It is shared by all the procedures of the jar
+	  and is emptied when the jar is redeployed or the server restarts.
+
+	Inputs:
+	  N/A
+
+	Outputs:
+	  N/A
+
+	Exceptions:
+	  None
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+public class ExportMetrics {
+
+	// number of runs kept in the history
+	public static final int MAX_HISTORY = 100;
+
+	private static final LinkedList<ExportMetrics> history = new LinkedList<ExportMetrics>();
+	private static long runCount = 0;
+
+	private long runNumber = 0;
+	private final String procedureName;
+	private final String filePath;
+	private final long startTime;
+	private final long startNanos;
+	private String status = "FAILED";
+	private long rows = 0;
+	private long bytes = 0;
+	private int files = 0;
+	private long totalNanos = 0;
+	private long queryNanos = 0;
+	private long firstRowNanos = -1;
+	private long fetchNanos = 0;
+	private long waitNanos = 0;
+	private long formatNanos = 0;
+	private long writeNanos = 0;
+
+	/**
+	 * Start timing a run.
+	 */
+	public ExportMetrics(String procedureName, String filePath) {
+		this.procedureName = procedureName;
+		this.filePath = filePath;
+		this.startTime = System.currentTimeMillis();
+		this.startNanos = System.nanoTime();
+	}
+
+	/**
+	 * @return System.nanoTime() for the timing methods below
+	 */
+	public long mark() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Add the time since mark to the query time.
+	 * @return a new mark
+	 */
+	public long queried(long mark) {
+		long now = System.nanoTime();
+		queryNanos += now - mark;
+		return now;
+	}
+
+	/**
+	 * Add the time since mark to the time spent waiting for rows.
+	 * @return a new mark
+	 */
+	public long waited(long mark) {
+		long now = System.nanoTime();
+		waitNanos += now - mark;
+		return now;
+	}
+
+	/**
+	 * Add the time since mark to the formatting time.
+	 * @return a new mark
+	 */
+	public long formatted(long mark) {
+		long now = System.nanoTime();
+		formatNanos += now - mark;
+		return now;
+	}
+
+	/**
+	 * Add the time since mark to the writing time.
+	 * @return a new mark
+	 */
+	public long wrote(long mark) {
+		long now = System.nanoTime();
+		writeNanos += now - mark;
+		return now;
+	}
+
+	/**
+	 * Record the fetch thread's timings (see RowBatchPipeline.)
+	 * @param firstRowTime - System.nanoTime() when the first row was fetched, or -1 when there were none
+	 */
+	public void fetched(long firstRowTime, long fetchNanos) {
+		this.firstRowNanos = (firstRowTime < 0) ? -1 : firstRowTime - startNanos;
+		this.fetchNanos = fetchNanos;
+	}
+
+	/**
+	 * Record the outcome of the run and add it to the history.
+	 * @param status - OK or the reason the run failed
+	 */
+	public void finish(String status, long rows, ExportFileSet fileSet) {
+		this.totalNanos = System.nanoTime() - startNanos;
+		this.status = status;
+		this.rows = rows;
+		if (fileSet != null) {
+			for (ExportFileSet.ExportFile file : fileSet.getFiles()) {
+				bytes += file.bytes;
+			}
+			files = fileSet.getFiles().size();
+		}
+		synchronized (history) {
+			runNumber = ++runCount;
+			history.addFirst(this);
+			while (history.size() > MAX_HISTORY) {
+				history.removeLast();
+			}
+		}
+	}
+
+	/**
+	 * @param maxRuns - the number of runs to return, or a non-positive number for all the runs kept
+	 * @return the most recent runs, most recent first
+	 */
+	public static List<ExportMetrics> getRecent(int maxRuns) {
+		synchronized (history) {
+			List<ExportMetrics> runs = new ArrayList<ExportMetrics>();
+			for (ExportMetrics run : history) {
+				if (maxRuns > 0 && runs.size() >= maxRuns) {
+					break;
+				}
+				runs.add(run);
+			}
+			return runs;
+		}
+	}
+
+	/**
+	 * @return the run as a row of the GetExportMetrics cursor
+	 */
+	public Object[] toRow() {
+		double seconds = totalNanos / 1000000000.0;
+		return new Object[] {
+			new Long(runNumber),
+			procedureName,
+			filePath,
+			new java.sql.Timestamp(startTime),
+			status,
+			new Long(rows),
+			new Long(bytes),
+			new Integer(files),
+			new Long(millis(totalNanos)),
+			new Long(millis(queryNanos)),
+			(firstRowNanos < 0) ? null : new Long(millis(firstRowNanos)),
+			new Long(millis(fetchNanos)),
+			new Long(millis(waitNanos)),
+			new Long(millis(formatNanos)),
+			new Long(millis(writeNanos)),
+			new Double((seconds > 0) ? rows / seconds : 0),
+			new Double((seconds > 0) ? bytes / seconds : 0)
+		};
+	}
+
+	private static long millis(long nanos) {
+		return nanos / 1000000;
+	}
+}
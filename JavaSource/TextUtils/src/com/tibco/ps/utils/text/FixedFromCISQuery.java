@@ -30,6 +30,7 @@ package com.tibco.ps.utils.text;
 	
 	  format_string   - A string of pipe separated sizes (widths) for each column.  
 	  	format: col1_Size|col2_Size|...|coln_Size
+	  	A size may be followed by L or R (alignment) and a pad character e.g. 10R0 is right aligned and zero padded.
 	    values: 4|3|10|18
 	
 	  create_column_headers - Indicates whether to create a column headers row as the first row of the output.
@@ -61,7 +62,6 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
-import java.util.StringTokenizer;
 
 import com.compositesw.extension.CustomProcedureException;
 import com.compositesw.extension.ParameterInfo;
@@ -158,7 +158,8 @@ public class FixedFromCISQuery extends TextUtilTemplate implements CustomProcedu
  	  }
 
       // Validate the number of widths in the format_string vs. the Total Number of Columns passed in and expected.  They should be equal.
-      int tokenCount = getTokenCount(format_string);
+      FixedWidthLayout layout = FixedWidthLayout.compile(format_string);
+      int tokenCount = layout.getColumnCount();
       if (tokenCount != totalColumns) {
           throw new IllegalArgumentException ("The number of sizes(widths) in the format_string ["+tokenCount+"] does not match the expected total_columns ["+totalColumns+"].");
       }
@@ -173,19 +174,16 @@ public class FixedFromCISQuery extends TextUtilTemplate implements CustomProcedu
           throw new IllegalArgumentException ("The Number of columns selected in the query ["+numColumns+"] does not match the expected total_columns ["+totalColumns+"].");
       }
       
-      if (createHeaders) {
-        for (int x = 0; x < numColumns; x++) {
-          String token = getToken(x, format_string);
-          if (token != null) {
-        	  int size = Integer.parseInt(token);
+      // Columns beyond the widths of the format string are not written.
+      int layoutColumns = Math.min(numColumns, layout.getColumnCount());
+      int lineWidth = layout.getRowWidth(layoutColumns);
+      char[] line = layout.newRow();
 
-        	  String columnHeader = (rsmd.getColumnLabel (x + 1)).toString().trim();
-        	  if (columnHeader.length() > size) {
-        		  columnHeader = columnHeader.substring(0, size);
-        	  }
-        	  sb.append (rpad(columnHeader, size, " "));
-          }
+      if (createHeaders) {
+        for (int x = 0; x < layoutColumns; x++) {
+          layout.put(line, x, rsmd.getColumnLabel (x + 1), true);
         }
+        sb.append (line, 0, lineWidth);
         sb.append ("\n");
       }
       if (logger.isDebug()) logger.debug ("createHeaders::"+sb.toString());
@@ -194,32 +192,12 @@ public class FixedFromCISQuery extends TextUtilTemplate implements CustomProcedu
 
       int resultSize = 0;
       while (rs.next()) {
-        for (int x = 0; x < numColumns; x++) {
-          
-          String resultTmp = (rs.getString (x + 1)).toString().trim();
-   
-          // Get the next token size from the format string
-          String token = getToken(x, format_string);
-          if (token != null) {
-        	  
-	          int size = Integer.parseInt(token);
-   
-	          // Append if not null
-	          if (resultTmp != null) {
-	
-	        	// Substring the result if larger than size
-	        	if (resultTmp.length() > size) {
-	        		resultTmp = resultTmp.substring(0, size);
-	        	}
-	        	// Apply padding on the result if needed
-	        	resultTmp = rpad(resultTmp,size," ");
-		        if (logger.isDebug()) logger.debug ("main_loop::x="+x+"  size="+size+"  resultTmp=["+resultTmp+"]");
-		        // Comment this line out after debugging is completed
-//		        logger.info ("main_loop::x="+x+"  size="+size+"  resultTmp=["+resultTmp+"]");
-	            sb.append (resultTmp);
-	          }
-          }
+        // NULL values are written as blanks
+        for (int x = 0; x < layoutColumns; x++) {
+          layout.put(line, x, rs.getString (x + 1), true);
         }
+        sb.append (line, 0, lineWidth);
+        if (logger.isDebug()) logger.debug ("main_loop::row=["+new String(line, 0, lineWidth)+"]");
         sb.append ("\n");
         resultSize++;
       }
@@ -255,52 +233,6 @@ public class FixedFromCISQuery extends TextUtilTemplate implements CustomProcedu
       }
   }
   
-	/**
-	 * @return the nth token for a string value
-	 * Example:
-	 * tokenNum=3
-	 * tokenString=4|5|8|9
-	 * tokenized string= 4 5 8 9
-	 * return the value "8"
-	 */
-	private String getToken(int tokenNum, String tokenString) {
-		String separator = "|";
-		if (tokenString.contains(",")) {
-			separator = ",";
-		}
-		// Tokenize a path based on separator
-	    StringTokenizer st = new StringTokenizer(tokenString, separator);
-	    int i=0;
-	    while (st.hasMoreTokens()) {
-	    	String token = st.nextToken();
-	    	if (i == tokenNum) {
-	    		return token;
-	    	}	
-	    	i++;
-	    }
-	    return null;
-	}
-	
-	/**
-	 * @return the number of tokens in a tokenString
-	 * Example:
-	 * tokenString=4|5|8|9
-	 * return the value "4"
-	 */
-	private int getTokenCount(String tokenString) {
-		String separator = "|";
-		if (tokenString.contains(",")) {
-			separator = ",";
-		}
-		// Tokenize a path based on separator
-	    StringTokenizer st = new StringTokenizer(tokenString, separator);
-	    int i=0;
-	    while (st.hasMoreTokens()) {
-	    	i++;
-	    	st.nextToken();
-	    }
-	    return i;
-	}
 	/**
 	 * Pad to the right of a string for totalPadAmount using padChar
 	 * @param str - string to pad
@@ -31,6 +31,7 @@ package com.tibco.ps.utils.text;
 	
 	  format_string         - A string of pipe separated sizes (widths) for each column.  
 	  	format: col1_Size|col2_Size|...|coln_Size
+	  	A size may be followed by L or R (alignment) and a pad character e.g. 10R0 is right aligned and zero padded.
 	    values: 4|3|10|18
 	
 	  create_column_headers - Indicates whether to create a column headers row as the first row of the output.
@@ -46,13 +47,44 @@ package com.tibco.ps.utils.text;
 	  append                - Indicates whether or not to append to the file at filePath.
 	    values: 0=do not append file, 1=append file.
 	
-	  buffer_size           - Number of rows to buffer before writing to the file.
+	  buffer_size           - Number of rows to buffer before they are encoded for writing. The rows are fetched
+	                          on a separate thread in batches of this many rows, up to 4 batches ahead of the
+	                          writer (see RowBatchPipeline.) The file itself is written in blocks of flush_bytes.
 	    values: Any positive integer.
+
+	  compression           - Compresses the file as it is written (see ExportCompression.) parallel_gzip compresses
+	                          blocks of the output on several threads. A deflate file cannot be appended to.
+	    values: none, gzip, deflate, parallel_gzip or NULL (defaults to none.)
+
+	  flush_bytes           - Number of encoded bytes collected before each write to the file (see ChannelTextWriter.)
+	                          Best kept a multiple of the filesystem block size.
+	    values: Any positive integer or NULL (defaults to 1048576.)
+
+	  max_rows_per_file     - Rolls the output over to numbered files (export.00001.txt, export.00002.txt, ...) of at most
+	                          this many rows each, repeating the column header row in every file (see ExportFileSet.)
+	    values: Any positive integer, or 0 or NULL for no row limit.
+
+	  max_bytes_per_file    - Rolls the output over to a new numbered file once a file holds this many uncompressed bytes.
+	                          A file may exceed the limit by less than one row.  Cannot be combined with append.
+	    values: Any positive integer, or 0 or NULL for no size limit.
+
+	  checkpoint_rows       - Makes the export resumable (see ExportCheckpoint.) The file is written as file_Path.inprogress
+	                          in the order of resume_key_column, a checkpoint is saved to file_Path.checkpoint every this
+	                          many rows, and the file is renamed to file_Path when the export completes. Running the
+	                          same export again after a failure continues from the last checkpoint. Requires
+	                          resume_key_column and cannot be combined with append, compression or the max per file limits.
+	    values: Any positive integer, or 0 or NULL for a normal export.
+
+	  resume_key_column     - A unique, non-NULL column of the query to order and resume the export by.
+	    values: A column name of the query or NULL.
 	
 	
 	Output:
 	  result                - Indicates success or failure
 	    values: 1 or 0
+
+	  files                 - The files written, in order, with their row counts and sizes on disk.
+	    values: file_number, file_path, row_count, byte_count
 	
 	
 	Exceptions:
@@ -73,15 +105,10 @@ package com.tibco.ps.utils.text;
 import com.compositesw.common.logging.Logger;
 import com.compositesw.extension.CustomProcedure;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
-import java.util.StringTokenizer;
 
 import com.compositesw.extension.CustomProcedureException;
 import com.compositesw.extension.ParameterInfo;
@@ -89,7 +116,7 @@ import com.compositesw.extension.ParameterInfo;
 public class FixedFromCISQueryToFile extends TextUtilTemplate implements CustomProcedure {
   String loginfo = "Done.";
   int error = 1;
-  ResultSet rs = null;
+  ExportFileSet files = null;
   final String NL = System.getProperty("line.separator");
 
   static {
@@ -106,7 +133,7 @@ public class FixedFromCISQueryToFile extends TextUtilTemplate implements CustomP
   }
 
   public Object[] getOutputValues() {
-    return new Object[] { error };
+    return new Object[] { error, (files == null) ? null : files.getFilesCursor() };
   }
 
   public ParameterInfo[] getParameterInfo() {
@@ -118,7 +145,14 @@ public class FixedFromCISQueryToFile extends TextUtilTemplate implements CustomP
       new ParameterInfo("file_Path", Types.VARCHAR, DIRECTION_IN),
       new ParameterInfo("append", Types.SMALLINT, DIRECTION_IN),
       new ParameterInfo("buffer_size", Types.INTEGER, DIRECTION_IN),
-      new ParameterInfo("result", Types.INTEGER, DIRECTION_OUT) 
+      new ParameterInfo("compression", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("flush_bytes", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo("max_rows_per_file", Types.BIGINT, DIRECTION_IN),
+      new ParameterInfo("max_bytes_per_file", Types.BIGINT, DIRECTION_IN),
+      new ParameterInfo("checkpoint_rows", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo("resume_key_column", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("result", Types.INTEGER, DIRECTION_OUT),
+      new ParameterInfo("files", TYPED_CURSOR, DIRECTION_OUT, ExportFileSet.FILES_CURSOR)
     };
   }
 
@@ -132,6 +166,12 @@ public class FixedFromCISQueryToFile extends TextUtilTemplate implements CustomP
       int appendNum = 0;
       boolean append = false;
       int bufferSize = 1000;
+      String compression = null;
+      int flushBytes = ChannelTextWriter.DEFAULT_FLUSH_BYTES;
+      long maxRowsPerFile = 0;
+      long maxBytesPerFile = 0;
+      int checkpointRows = 0;
+      String resumeKeyColumn = null;
  
       /*
        * VALIDATE Input parameters for null
@@ -184,6 +224,26 @@ public class FixedFromCISQueryToFile extends TextUtilTemplate implements CustomP
       if (inputs[6] != null) {
     	  bufferSize = (Integer)inputs[6];
       }
+      // Get compression from input
+      compression = ExportCompression.parse ((String) inputs[7]);
+      // Get flush bytes from input
+      if (inputs[8] != null) {
+    	  flushBytes = (Integer)inputs[8];
+      }
+      // Get the rollover limits from input
+      if (inputs[9] != null) {
+    	  maxRowsPerFile = ((Number)inputs[9]).longValue();
+      }
+      if (inputs[10] != null) {
+    	  maxBytesPerFile = ((Number)inputs[10]).longValue();
+      }
+      // Get the checkpoint settings from input
+      if (inputs[11] != null) {
+    	  checkpointRows = (Integer)inputs[11];
+      }
+      if (inputs[12] != null) {
+    	  resumeKeyColumn = ((String)inputs[12]).trim();
+      }
       loginfo += "DEBUG: \nARGS" +
            "\nQuery: " + queryString + 
            "\nFormat String: " + format_string +
@@ -192,6 +252,12 @@ public class FixedFromCISQueryToFile extends TextUtilTemplate implements CustomP
            "\nFile Path: " + filePath +
            "\nAppend: " + append +
            "\nBuffer Size: " + bufferSize +
+           "\nCompression: " + compression +
+           "\nFlush Bytes: " + flushBytes +
+           "\nMax Rows Per File: " + maxRowsPerFile +
+           "\nMax Bytes Per File: " + maxBytesPerFile +
+           "\nCheckpoint Rows: " + checkpointRows +
+           "\nResume Key Column: " + resumeKeyColumn +
            "\n";
  
       /*
@@ -201,108 +267,37 @@ public class FixedFromCISQueryToFile extends TextUtilTemplate implements CustomP
       if (format_string.length() == 0) {
           throw new IllegalArgumentException ("The Format String must contain a format as follows: col1_Size|col2_Size|...|coln_Size");
       }
+      if (flushBytes <= 0) {
+    	  throw new IllegalArgumentException ("The flush bytes must be a positive integer");
+      }
       if (bufferSize <= 0) {
     	  throw new IllegalArgumentException ("The buffer size must be a positive integer");
       }
 
       // Validate the number of widths in the format_string vs. the Total Number of Columns passed in and expected.  They should be equal.
-      int tokenCount = getTokenCount(format_string);
+      int tokenCount = FixedWidthLayout.compile(format_string).getColumnCount();
       if (totalColumns > 0 && tokenCount != totalColumns) {
           throw new IllegalArgumentException ("The number of sizes(widths) in the format string ["+tokenCount+"] does not match the expected total_columns ["+totalColumns+"].");
       }
 
-      rs = qenv.executeQuery (queryString, null);
-      ResultSetMetaData rsmd = rs.getMetaData();
-      int numColumns = rsmd.getColumnCount();
-      loginfo += "QUERY COLUMN COUNT: " + numColumns;
-            
-      // Validate the number of columns queried vs. the Total Number of Columns passed in and expected.  They should be equal
-      if (numColumns != totalColumns) {
-          throw new IllegalArgumentException ("The Number of columns selected in the query ["+numColumns+"] does not match the expected total_columns ["+totalColumns+"].");
-      }
-      
-      if (createHeaders) {
-        StringBuffer sb = new StringBuffer();
-        for (int x = 0; x < numColumns; x++) {
-          String token = getToken(x, format_string);
-          if (token != null) {
-        	  int size = Integer.parseInt(token);
-
-        	  String columnHeader = (rsmd.getColumnLabel (x + 1)).toString().trim();
-        	  if (columnHeader.length() > size) {
-        		  columnHeader = columnHeader.substring(0, size);
-        	  }
-        	  sb.append (rpad(columnHeader, size, " "));
-          }
-        }
-        // Write the column header line to the file
-        createFileAscii(filePath, append, sb.toString() + NL);
-        //Now that the file has been written to make sure that additional writes are appended within the context of this procedure.
-        append = true;
+      files = new ExportFileSet (filePath, append, compression, flushBytes, maxRowsPerFile, maxBytesPerFile);
 
-        if (logger.isDebug()) logger.debug ("createHeaders::"+sb.toString());
-        // Comment this line out after debugging is completed
-        //logger.info ("createHeaders::"+sb.toString());
-      } else {
-        createFileAscii(filePath, append, "");
-      }
-
-  		BufferedWriter out = new BufferedWriter(new FileWriter(filePath, append));
-
-      int resultSize = 0;
-      StringBuffer sb = new StringBuffer();
-
-      while (rs.next()) {
-        for (int x = 0; x < numColumns; x++) {
-          
-          String resultTmp = (rs.getString (x + 1)).toString().trim();
-   
-          // Get the next token size from the format string
-          String token = getToken(x, format_string);
-          if (token != null) {
-        	  
-	          int size = Integer.parseInt(token);
-   
-	          // Append if not null
-	          if (resultTmp != null) {
-	
-              // Substring the result if larger than size
-              if (resultTmp.length() > size) {
-                resultTmp = resultTmp.substring(0, size);
-              }
-              // Apply padding on the result if needed
-              resultTmp = rpad(resultTmp,size," ");
-
-              if (logger.isDebug()) logger.debug ("main_loop::x="+x+"  size="+size+"  resultTmp=["+resultTmp+"]");
-              // Comment this line out after debugging is completed
-              //logger.info ("main_loop::x="+x+"  size="+size+"  resultTmp=["+resultTmp+"]");
-
-	            sb.append (resultTmp);
-	          }
-          }
+      ExportCheckpoint checkpoint = null;
+      if (checkpointRows > 0) {
+        if (append || files.isRollover() || !ExportCompression.NONE.equals (compression)) {
+          throw new IllegalArgumentException ("A checkpointed export cannot be combined with append, compression or max rows or bytes per file");
         }
-        sb.append(NL);
-
-        resultSize++;
-
-        // Write the buffer to the file
-        if (resultSize % bufferSize == 0) {
-          out.write(sb.toString());
-          sb = new StringBuffer();
+        checkpoint = new ExportCheckpoint (filePath, queryString, resumeKeyColumn, checkpointRows);
+        if (checkpoint.load()) {
+          loginfo += "RESUMING AFTER ROW " + checkpoint.getRows() + "\n";
         }
-
-        //Now that the file has been written to make sure that additional writes are appended within the context of this procedure.
-        append = true;
+        files.setAtomic (true);
       }
 
-      // Write remaining buffer to the file
-      if (resultSize % bufferSize > 0)
-        out.write(sb.toString());
+      int resultSize = exportToFile (queryString, format_string, createHeaders, totalColumns, bufferSize, files, checkpoint);
+
+      loginfo += "\nROWCOUNT = " + resultSize + "\nFILES = " + files.getFiles().size();
 
-      loginfo += "\nROWCOUNT = " + resultSize;
- 
-  		out.close();
-    
     } catch (Throwable t) {
         error = 0;
         String message = "Exception Occurred:";
@@ -313,73 +308,159 @@ public class FixedFromCISQueryToFile extends TextUtilTemplate implements CustomP
         throw new CustomProcedureException(message+loginfo);
      
       } finally {
-        try{
-            if (rs != null) {
-            	if (! rs.isClosed()) { rs.close(); }
-            }
-        } catch (Throwable t) {
-          error = 0;
-          String message = "Exception Occurred:";
-          if (t.getMessage() != null) message = message + " " + t.getMessage();
-          message = message+"\n";
-          logger.info (message+loginfo);
-          t.printStackTrace();
-          throw new CustomProcedureException(message+loginfo);
-        }
-
         qenv.log (LOG_DEBUG, loginfo);
         
         // Comment this line out after debugging is completed
         //logger.info (loginfo);
       }
   }
-  
-	/**
-	 * @return the nth token for a string value
-	 * Example:
-	 * tokenNum=3
-	 * tokenString=4|5|8|9
-	 * tokenized string= 4 5 8 9
-	 * return the value "8"
-	 */
-	private String getToken(int tokenNum, String tokenString) {
-		String separator = "|";
-		if (tokenString.contains(",")) {
-			separator = ",";
-		}
-		// Tokenize a path based on separator
-	    StringTokenizer st = new StringTokenizer(tokenString, separator);
-	    int i=0;
-	    while (st.hasMoreTokens()) {
-	    	String token = st.nextToken();
-	    	if (i == tokenNum) {
-	    		return token;
-	    	}	
-	    	i++;
-	    }
-	    return null;
-	}
-	
-	/**
-	 * @return the number of tokens in a tokenString
-	 * Example:
-	 * tokenString=4|5|8|9
-	 * return the value "4"
-	 */
-	private int getTokenCount(String tokenString) {
-		String separator = "|";
-		if (tokenString.contains(",")) {
-			separator = ",";
-		}
-		// Tokenize a path based on separator
-	    StringTokenizer st = new StringTokenizer(tokenString, separator);
-	    int i=0;
-	    while (st.hasMoreTokens()) {
-	    	i++;
-	    	st.nextToken();
-	    }
-	    return i;
-	}
+
+  /**
+   * Execute the query and write its result set as fixed width rows to the file(s) of the file set.
+   * Only local state is used here so that FixedFromCISQueryToFileParallel can run several exports at once.
+   * @return the number of rows written, including those written before the checkpoint a resumed export started from
+   */
+  protected int exportToFile (String queryString, String format_string, boolean createHeaders, int totalColumns,
+                              int bufferSize, ExportFileSet files, ExportCheckpoint checkpoint) throws Exception {
+    ResultSet rs = null;
+    ExportMetrics metrics = new ExportMetrics (getName(), files.getFilePath());
+    String status = "FAILED";
+    int resultSize = 0;
+    boolean resuming = (checkpoint != null && checkpoint.isResuming());
+    long resumedRows = (resuming) ? checkpoint.getRows() : 0;
+
+    try {
+      // open the file first so that an unusable path or compression fails before the query is run.
+      // a resumed export continues the file of the failed run from its last checkpoint.
+      //
+      ChannelTextWriter out = (resuming) ? files.resume (checkpoint.getOffset(), resumedRows) : files.open();
+
+      // the execution environment may be shared by the threads of a partitioned export. the queries are
+      // issued one at a time and their rows are then fetched concurrently.
+      long mark = metrics.mark();
+      synchronized (qenv) {
+        rs = qenv.executeQuery ((checkpoint != null) ? checkpoint.getQuery() : queryString, null);
+      }
+      metrics.queried (mark);
+      ResultSetMetaData rsmd = rs.getMetaData();
+      int numColumns = rsmd.getColumnCount();
+      if (logger.isDebug()) logger.debug ("QUERY COLUMN COUNT: " + numColumns);
+
+      // Validate the number of columns queried vs. the Total Number of Columns passed in and expected.  They should be equal
+      if (numColumns != totalColumns) {
+          throw new IllegalArgumentException ("The Number of columns selected in the query ["+numColumns+"] does not match the expected total_columns ["+totalColumns+"].");
+      }
+
+      if (checkpoint != null) {
+        checkpoint.bind (rsmd);
+      }
+
+      // Compile the column widths once. Columns beyond the widths of the format string are not written.
+      //
+      FixedWidthLayout layout = FixedWidthLayout.compile(format_string);
+      int layoutColumns = Math.min(numColumns, layout.getColumnCount());
+      int lineWidth = layout.getRowWidth(layoutColumns);
+      char[] line = layout.newRow();
+
+      // a resumed file already starts with the header
+      if (createHeaders && !resuming) {
+        for (int x = 0; x < layoutColumns; x++) {
+          layout.put(line, x, rsmd.getColumnLabel (x + 1), true);
+        }
+        String header = new String(line, 0, lineWidth);
+        // Write the column header line to the file, and to every file the output rolls over to
+        files.setHeader(header + NL);
+
+        if (logger.isDebug()) logger.debug ("createHeaders::"+header);
+        // Comment this line out after debugging is completed
+        //logger.info ("createHeaders::"+header);
+      }
+
+      int bufferedRows = 0;
+      long checkpointedRows = resumedRows;
+      StringBuilder sb = new StringBuilder();
+
+      // Rows are fetched on a separate thread in batches of buffer_size rows while the previous batches
+      // are formatted and written here.
+      //
+      RowBatchPipeline pipeline = new RowBatchPipeline(rs, numColumns, bufferSize, RowBatchPipeline.STRING_FETCHER, getName());
+
+      try {
+        RowBatchPipeline.RowBatch batch;
+        mark = metrics.mark();
+        while ((batch = pipeline.take()) != null) {
+          mark = metrics.waited (mark);
+          for (int r = 0; r < batch.size(); r++) {
+            Object[] row = batch.getRow(r);
+
+            // Finish the current file once it is full and continue in the next one
+            if (files.isFull(bufferedRows, sb.length())) {
+              mark = metrics.formatted (mark);
+              out.write(sb);
+              sb.setLength(0);
+              files.addRows(bufferedRows);
+              bufferedRows = 0;
+              out = files.next();
+              mark = metrics.wrote (mark);
+            }
+
+            // NULL values are written as blanks
+            for (int x = 0; x < layoutColumns; x++) {
+              layout.put(line, x, (String) row[x], true);
+            }
+            sb.append(line, 0, lineWidth);
+            if (logger.isDebug()) logger.debug ("main_loop::row=["+sb.substring(sb.length() - lineWidth)+"]");
+            sb.append(NL);
+
+            resultSize++;
+            bufferedRows++;
+          }
+          String lastKey = (checkpoint != null) ? checkpoint.keyOf (batch.getRow (batch.size() - 1)) : null;
+          pipeline.release(batch);
+          mark = metrics.formatted (mark);
+
+          // Write the buffer to the file
+          out.write(sb);
+          sb.setLength(0);
+          files.addRows(bufferedRows);
+          bufferedRows = 0;
+
+          // Save a checkpoint once the rows written since the last one are forced to disk
+          if (checkpoint != null && resumedRows + resultSize - checkpointedRows >= checkpoint.getCheckpointRows()) {
+            checkpointedRows = resumedRows + resultSize;
+            checkpoint.save (checkpointedRows, files.sync(), lastKey);
+          }
+          mark = metrics.wrote (mark);
+        }
+        files.commit();
+        if (checkpoint != null) {
+          checkpoint.delete();
+        }
+        metrics.wrote (mark);
+      } finally {
+        pipeline.close();
+        metrics.fetched (pipeline.getFirstRowTime(), pipeline.getFetchNanos());
+      }
+
+      status = "OK";
+      return (int) (resumedRows + resultSize);
+
+    } catch (Exception e) {
+      status = "FAILED: " + e.getMessage();
+      throw e;
+
+    } finally {
+      try {
+        files.close();
+      } finally {
+        metrics.finish (status, resultSize, files);
+        if (rs != null) {
+          if (! rs.isClosed()) { rs.close(); }
+        }
+      }
+    }
+  }
+
 	/**
 	 * Pad to the right of a string for totalPadAmount using padChar
 	 * @param str - string to pad
@@ -399,28 +480,4 @@ public class FixedFromCISQueryToFile extends TextUtilTemplate implements CustomP
 		}
 		return padStr;
 	}
-	
-	private void createFileAscii(String fileName, boolean append, String fileContent) 
-		throws CustomProcedureException, SQLException {
-
-		try {
-			File file = new File(fileName);
-			// if its not there create it
-			if(!file.isFile()){
-				file.createNewFile();
-			}				
-				
-			BufferedWriter out = new BufferedWriter(new FileWriter(fileName, append));
-			if (append) {
-				out.newLine();
-			}
-			out.write(fileContent);
-			out.close();
-			System.out.println("Your file has been written");        	
-		}
-		catch(IOException ex)
-		{
-			throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
-		}	        
-	}
 }
@@ -0,0 +1,314 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+	FixedFromCISQueryToFileParallel:
+	  Partitioned version of FixedFromCISQueryToFile. The query is split into sub-queries on a partition column,
+	  the sub-queries are run concurrently on a bounded pool of threads and each one is written to its own
+	  part file (file_Path with .partNNNNN inserted before the extension.) The part files may then be
+	  concatenated, in part order, into file_Path.
+
+	  A manifest (file_Path.manifest) is always written. It is tab separated with one line per part holding
+	  the part number, file, row count, byte count, byte offset within file_Path (when concatenated), elapsed
+	  milliseconds and the partition predicate, followed by a total line.
+
+	  Rows are written in part order; within a part they are in the order returned by the sub-query.
+
+	Inputs:
+	  query_string          - The query to execute.
+	    values: Any valid CIS query.
+
+	  format_string         - A string of pipe separated sizes (widths) for each column.
+	  	format: col1_Size|col2_Size|...|coln_Size
+	  	A size may be followed by L or R (alignment) and a pad character e.g. 10R0 is right aligned and zero padded.
+	    values: 4|3|10|18
+
+	  create_column_headers - Indicates whether to create a column headers row as the first row of the output.
+	                          When the parts are concatenated only the first part carries the header row.
+	    values: Any boolean value (such as "true" or "false".)
+
+	  total_columns         - Total number of columns to produce.  This is a validation against the number of fields queried
+	    values: Any positive integer.
+
+	  file_Path             - full path to a file that is to be created.
+	    values: Any valid filesystem path to a flat text file (existing or not.)
+
+	  append                - Indicates whether or not to append the concatenated parts to the file at file_Path.
+	                          Only allowed with concatenate_parts=1. Part files are always created new.
+	    values: 0=do not append file, 1=append file.
+
+	  buffer_size           - Number of rows to buffer before they are encoded for writing. The file itself is
+	                          written in blocks of flush_bytes.
+	    values: Any positive integer.
+
+	  partition_column      - The column of the query's result set to partition on.
+	    values: Any column name of the query.
+
+	  partition_boundaries  - Pipe separated list of ascending boundary values, written as SQL literals. N boundaries
+	                          produce N+1 parts. Rows with a NULL partition column are placed in the first part.
+	    values: e.g. 1000000|2000000|3000000 or DATE '2016-01-01'|DATE '2017-01-01' or NULL to use partition_modulus.
+
+	  partition_modulus     - Number of parts to split an integer partition column into by ABS(MOD(column, N)).
+	                          Ignored when partition_boundaries is provided.
+	    values: Any positive integer or NULL.
+
+	  parallelism           - Maximum number of parts exported at the same time.
+	    values: Any positive integer or NULL (defaults to the number of processors.)
+
+	  concatenate_parts     - Indicates whether to concatenate the part files into file_Path and remove them.
+	    values: 0=leave the part files, 1=concatenate.
+
+	  compression           - Compresses each part file as it is written (see ExportCompression.) gzip and
+	                          parallel_gzip parts are concatenated as gzip members; deflate parts cannot be concatenated.
+	    values: none, gzip, deflate, parallel_gzip or NULL (defaults to none.)
+
+	  flush_bytes           - Number of encoded bytes collected before each write to the file (see ChannelTextWriter.)
+	                          Best kept a multiple of the filesystem block size.
+	    values: Any positive integer or NULL (defaults to 1048576.)
+
+
+	Output:
+	  result                - Indicates success or failure
+	    values: 1 or 0
+
+
+	Exceptions:
+	  CustomProcedureException - Thrown when illegal arguments are passed or any part fails.
+
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import com.compositesw.common.logging.Logger;
+import com.compositesw.extension.CustomProcedure;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class FixedFromCISQueryToFileParallel extends FixedFromCISQueryToFile implements CustomProcedure {
+
+  static {
+	className = "FixedFromCISQueryToFileParallel";
+	logger = Logger.getLogger(FixedFromCISQueryToFileParallel.class.getName());
+  }
+
+  public String getDescription() {
+    return "This procedure takes in a CIS query, exports partitions of it to fixed length files in parallel and optionally concatenates them into a single file.";
+  }
+
+  public String getName() {
+    return "FixedFromCISQueryToFileParallel";
+  }
+
+  public Object[] getOutputValues() {
+    return new Object[] { error };
+  }
+
+  public ParameterInfo[] getParameterInfo() {
+    return new ParameterInfo[] {
+      new ParameterInfo("query_string", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("format_string", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("create_column_headers", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("total_columns", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo("file_Path", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("append", Types.SMALLINT, DIRECTION_IN),
+      new ParameterInfo("buffer_size", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo("partition_column", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("partition_boundaries", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("partition_modulus", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo("parallelism", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo("concatenate_parts", Types.SMALLINT, DIRECTION_IN),
+      new ParameterInfo("compression", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("flush_bytes", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo("result", Types.INTEGER, DIRECTION_OUT)
+    };
+  }
+
+  public void invoke(Object[] inputs) throws CustomProcedureException, SQLException {
+    try {
+      String queryString = null;
+      String format_string = null;
+      boolean createHeaders = false;
+      int totalColumns = 0;
+      String filePath = null;
+      boolean append = false;
+      int bufferSize = 1000;
+      String partitionColumn = null;
+      String partitionBoundaries = null;
+      int partitionModulus = 0;
+      int parallelism = Runtime.getRuntime().availableProcessors();
+      boolean concatenate = false;
+      String compression = null;
+      int flushBytes = ChannelTextWriter.DEFAULT_FLUSH_BYTES;
+
+      /*
+       * VALIDATE Input parameters
+       */
+      if (inputs[0] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter query_string must be provided.");
+      }
+      if (inputs[1] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter format_string must be provided.");
+      }
+      if (inputs[3] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter total_columns must be provided.");
+      }
+      if (inputs[4] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter file_Path must be provided.");
+      }
+      if (inputs[5] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter append must be provided.");
+      }
+      if (inputs[7] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter partition_column must be provided.");
+      }
+      if (inputs[8] == null && inputs[9] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": One of the IN Parameters partition_boundaries or partition_modulus must be provided.");
+      }
+      if (inputs[11] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter concatenate_parts must be provided.");
+      }
+
+      /*
+       * RETREIVE Input parameters
+       */
+      queryString = ((String) inputs[0]).trim();
+
+      format_string = ((String) inputs[1]).trim();
+      if (inputs[2] != null) {
+        createHeaders = (Boolean.parseBoolean((((String) inputs[2])).trim()));
+      }
+      totalColumns = (Integer) inputs[3];
+      filePath = inputs[4].toString();
+      append = (Integer.valueOf(inputs[5].toString()) == 1);
+      if (inputs[6] != null) {
+        bufferSize = (Integer) inputs[6];
+      }
+      partitionColumn = ((String) inputs[7]).trim();
+      if (inputs[8] != null) {
+        partitionBoundaries = ((String) inputs[8]).trim();
+      }
+      if (inputs[9] != null) {
+        partitionModulus = (Integer) inputs[9];
+      }
+      if (inputs[10] != null) {
+        parallelism = (Integer) inputs[10];
+      }
+      concatenate = (Integer.valueOf(inputs[11].toString()) == 1);
+      compression = ExportCompression.parse ((String) inputs[12]);
+      if (inputs[13] != null) {
+        flushBytes = (Integer) inputs[13];
+      }
+
+      loginfo += "DEBUG: \nARGS" +
+           "\nQuery: " + queryString +
+           "\nFormat String: " + format_string +
+           "\nCreate Column Headers: " + createHeaders +
+           "\nTotal Columns: " + totalColumns +
+           "\nFile Path: " + filePath +
+           "\nAppend: " + append +
+           "\nBuffer Size: " + bufferSize +
+           "\nPartition Column: " + partitionColumn +
+           "\nPartition Boundaries: " + partitionBoundaries +
+           "\nPartition Modulus: " + partitionModulus +
+           "\nParallelism: " + parallelism +
+           "\nConcatenate Parts: " + concatenate +
+           "\nCompression: " + compression +
+           "\nFlush Bytes: " + flushBytes +
+           "\n";
+
+      /*
+       * VALIDATE parameters for content
+       */
+      // Verify format string is not empty
+      if (format_string.length() == 0) {
+        throw new IllegalArgumentException ("The Format String must contain a format as follows: col1_Size|col2_Size|...|coln_Size");
+      }
+      if (flushBytes <= 0) {
+        throw new IllegalArgumentException ("The flush bytes must be a positive integer");
+      }
+      if (bufferSize <= 0) {
+        throw new IllegalArgumentException ("The buffer size must be a positive integer");
+      }
+      if (parallelism <= 0) {
+        throw new IllegalArgumentException ("The parallelism must be a positive integer");
+      }
+      if (append && !concatenate) {
+        throw new IllegalArgumentException ("Append is only supported when the parts are concatenated (concatenate_parts=1)");
+      }
+      if (concatenate && !ExportCompression.isConcatenable (compression)) {
+        throw new IllegalArgumentException ("Parts compressed with " + compression + " cannot be concatenated");
+      }
+
+      // Validate the number of widths in the format_string vs. the Total Number of Columns passed in and expected.  They should be equal.
+      int tokenCount = FixedWidthLayout.compile(format_string).getColumnCount();
+      if (totalColumns > 0 && tokenCount != totalColumns) {
+        throw new IllegalArgumentException ("The number of sizes(widths) in the format string ["+tokenCount+"] does not match the expected total_columns ["+totalColumns+"].");
+      }
+
+      List<PartitionedExport.Part> parts = PartitionedExport.planParts (queryString, partitionColumn, partitionBoundaries, partitionModulus, filePath);
+      loginfo += "PARTS: " + parts.size();
+
+      final String fFormatString = format_string;
+      final int fTotalColumns = totalColumns;
+      final int fBufferSize = bufferSize;
+      final String fCompression = compression;
+      final int fFlushBytes = flushBytes;
+
+      PartitionedExport.run (parts, parallelism, createHeaders, !concatenate, new PartitionedExport.PartWriter() {
+        public int exportPart (String partQuery, String partFilePath, boolean partHeaders) throws Exception {
+          return exportToFile (partQuery, fFormatString, partHeaders, fTotalColumns, fBufferSize,
+                               new ExportFileSet (partFilePath, false, fCompression, fFlushBytes, 0, 0), null);
+        }
+      }, getName());
+
+      if (concatenate) {
+        PartitionedExport.concatenate (parts, filePath, append);
+      }
+      String manifestPath = PartitionedExport.writeManifest (parts, filePath, concatenate);
+
+      int resultSize = 0;
+      for (PartitionedExport.Part part : parts) {
+        resultSize += part.rows;
+      }
+      loginfo += "\nROWCOUNT = " + resultSize + "\nMANIFEST = " + manifestPath;
+
+    } catch (Throwable t) {
+      error = 0;
+      String message = "Exception Occurred:";
+      if (t.getMessage() != null) message = message + " " + t.getMessage();
+      message = message+"\n";
+      logger.info (message+loginfo);
+      t.printStackTrace();
+      throw new CustomProcedureException(message+loginfo);
+
+    } finally {
+      qenv.log (LOG_DEBUG, loginfo);
+    }
+  }
+}
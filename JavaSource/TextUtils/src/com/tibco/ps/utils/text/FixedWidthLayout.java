@@ -0,0 +1,191 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+/*
+	Description:
+	  The column layout of a fixed width row, compiled once from the format_string of the Fixed* CJP's.
+	  The format string is a list of column widths separated by '|' (or by ',' when it contains a comma.)
+	  Each width may be followed by an alignment and a pad character:
+
+	    10     - 10 characters, left aligned, padded with spaces (the original behavior)
+	    10L    - the same
+	    10R    - 10 characters, right aligned, padded with spaces
+	    10R0   - 10 characters, right aligned, padded with zeros
+
+	  A row is built in a reusable char[] of getRowWidth() characters (see newRow()): put() copies each value
+	  into its column, truncating it to the column width or filling the rest of the column with the pad
+	  character, without creating intermediate Strings. A NULL value leaves the column filled with the pad
+	  character, so the columns after it keep their positions.
+
+	  XMLUtils compiles this source into its jar for FixedFromXMLToFile and FixedFromXMLSourceToFile (see
+	  the shared source directories of its build.xml.)
+
+	Inputs:
+	  N/A
+
+	Outputs:
+	  N/A
+
+	Exceptions:
+	  None
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class FixedWidthLayout {
+
+	private final int[] widths;
+	private final int[] offsets;
+	private final boolean[] rightAligned;
+	private final char[] padChars;
+	private final int rowWidth;
+
+	private FixedWidthLayout(int[] widths, boolean[] rightAligned, char[] padChars) {
+		this.widths = widths;
+		this.rightAligned = rightAligned;
+		this.padChars = padChars;
+		this.offsets = new int[widths.length];
+		int offset = 0;
+		for (int x = 0; x < widths.length; x++) {
+			offsets[x] = offset;
+			offset += widths[x];
+		}
+		this.rowWidth = offset;
+	}
+
+	/**
+	 * Compile a format string such as 4|3|10R|18R0.  Empty entries are ignored.
+	 */
+	public static FixedWidthLayout compile(String formatString) {
+		char separator = (formatString.indexOf(',') >= 0) ? ',' : '|';
+		List<String> tokens = new ArrayList<String>();
+		int start = 0;
+		for (int i = 0; i <= formatString.length(); i++) {
+			if (i == formatString.length() || formatString.charAt(i) == separator) {
+				String token = formatString.substring(start, i).trim();
+				if (token.length() > 0) {
+					tokens.add(token);
+				}
+				start = i + 1;
+			}
+		}
+
+		int[] widths = new int[tokens.size()];
+		boolean[] rightAligned = new boolean[tokens.size()];
+		char[] padChars = new char[tokens.size()];
+		for (int x = 0; x < widths.length; x++) {
+			String token = tokens.get(x);
+			int digits = 0;
+			while (digits < token.length() && Character.isDigit(token.charAt(digits))) {
+				digits++;
+			}
+			if (digits == 0) {
+				throw new IllegalArgumentException("Invalid width [" + token + "] in the format string. Use col1_Size|col2_Size|...|coln_Size e.g. 4|3|10|18");
+			}
+			widths[x] = Integer.parseInt(token.substring(0, digits));
+			padChars[x] = ' ';
+
+			String rest = token.substring(digits);
+			if (rest.length() > 0) {
+				char alignment = Character.toUpperCase(rest.charAt(0));
+				if ((alignment != 'L' && alignment != 'R') || rest.length() > 2) {
+					throw new IllegalArgumentException("Invalid width [" + token + "] in the format string. A width may only be followed by L or R and a pad character e.g. 10R0");
+				}
+				rightAligned[x] = (alignment == 'R');
+				if (rest.length() == 2) {
+					padChars[x] = rest.charAt(1);
+				}
+			}
+		}
+		return new FixedWidthLayout(widths, rightAligned, padChars);
+	}
+
+	/**
+	 * @return the number of columns in the layout
+	 */
+	public int getColumnCount() {
+		return widths.length;
+	}
+
+	public int getWidth(int column) {
+		return widths[column];
+	}
+
+	/**
+	 * @return the total width of a row
+	 */
+	public int getRowWidth() {
+		return rowWidth;
+	}
+
+	/**
+	 * @return the width of the first columns of a row
+	 */
+	public int getRowWidth(int columns) {
+		return (columns < widths.length) ? offsets[columns] : rowWidth;
+	}
+
+	/**
+	 * @return a row buffer for put()
+	 */
+	public char[] newRow() {
+		return new char[rowWidth];
+	}
+
+	/**
+	 * Copy value into its column of the row, truncated or padded to the column width.
+	 * @param trim - ignore leading and trailing whitespace of the value
+	 */
+	public void put(char[] row, int column, String value, boolean trim) {
+		int offset = offsets[column];
+		int width = widths[column];
+		char pad = padChars[column];
+
+		int begin = 0;
+		int end = (value == null) ? 0 : value.length();
+		if (trim) {
+			while (begin < end && value.charAt(begin) <= ' ') {
+				begin++;
+			}
+			while (end > begin && value.charAt(end - 1) <= ' ') {
+				end--;
+			}
+		}
+
+		// values that don't fit are truncated on the right whatever the alignment, as they always have been
+		int length = Math.min(end - begin, width);
+		int padding = width - length;
+		int valueOffset = (rightAligned[column]) ? offset + padding : offset;
+		int padOffset = (rightAligned[column]) ? offset : offset + length;
+
+		if (length > 0) {
+			value.getChars(begin, begin + length, row, valueOffset);
+		}
+		for (int i = padOffset; i < padOffset + padding; i++) {
+			row[i] = pad;
+		}
+	}
+}
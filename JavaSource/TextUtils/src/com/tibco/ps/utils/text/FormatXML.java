@@ -25,7 +25,9 @@ FormatXML
 
 Description:
     Takes an XML string and indent width as input and formats the XML, effectively
-    "pretty printing" it.
+    "pretty printing" it.  The XML is streamed through XMLFormatter instead of being parsed
+    into a DOM, so the only copies held in memory are the input and the output strings.  Use
+    FormatXMLToFile to format a file or a CLOB, and for the formatting options.
 
 
 Inputs:
@@ -51,20 +53,10 @@ import java.sql.SQLException;
 import java.sql.Types;
 
 import com.compositesw.extension.*;
+import com.tibco.ps.utils.xml.XMLFactories;
 
-import org.w3c.dom.Document;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import java.io.IOException;
 import java.io.StringReader;
@@ -102,26 +94,18 @@ public class FormatXML implements CustomProcedure {
         }
     }
   
-    private void format(String unformattedXml) throws TransformerException, SAXException, IOException, ParserConfigurationException {
-        final Document document = parseXmlFile(unformattedXml);
-    
-        Transformer transformer = TransformerFactory.newInstance().newTransformer();
-        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-        transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4");
-        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-        StreamResult result = new StreamResult(new StringWriter());
-        DOMSource source = new DOMSource(document);
-        transformer.transform(source, result);
-        formattedXML = result.getWriter().toString();
+    private void format(String unformattedXml) throws XMLStreamException, IOException {
+        // streamed, so no DOM is built for the document (see XMLFormatter)
+        XMLStreamReader reader = XMLFactories.getInputFactory(false, false).createXMLStreamReader(new StringReader(unformattedXml));
+        try {
+            StringWriter writer = new StringWriter(unformattedXml.length() + unformattedXml.length() / 4);
+            new XMLFormatter(4, 0, XMLFormatter.WHITESPACE_IGNORE).format(reader, writer);
+            formattedXML = writer.toString();
+        } finally {
+            reader.close();
+        }
     }
   
-    private Document parseXmlFile(String in) throws SAXException, IOException, ParserConfigurationException {
-        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-        DocumentBuilder db = dbf.newDocumentBuilder();
-        InputSource is = new InputSource(new StringReader(in));
-        return db.parse(is);
-    }
-    
     public boolean canCommit() {
       return false;
     }
@@ -0,0 +1,229 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+	FormatXMLToFile:
+	  Formats (indents) the XML of a file or of a CLOB and writes it to a file in UTF-8. The XML is streamed
+	  from its source to the file (see XMLFormatter) and is never held in memory as a whole, so there is no
+	  limit on its size.
+
+	Inputs:
+	  xml_file_path         - Full path to a file holding the XML.  The file is read in the encoding of its
+	                          XML declaration (UTF-8 when there is none.)
+	    values: Any valid filesystem path or NULL when xml_clob is provided.
+
+	  xml_clob              - The XML as a CLOB.
+	    values: Any valid XML or NULL when xml_file_path is provided.
+
+	  indent                - The number of spaces to indent each level by.
+	    values: Any integer >= 0 or NULL (defaults to 4.)
+		default=4
+
+	  wrap_attributes       - Write each attribute of an element on its own line when the element has more
+	                          attributes than this.
+	    values: Any integer >= 0 or NULL (defaults to 0, never.)
+		default=0
+
+	  whitespace            - How whitespace in the XML is handled.
+	    values: IGNORE  - whitespace-only text between elements is replaced by the indentation.
+	            TRIM    - as IGNORE, and the leading and trailing whitespace of text is removed.
+	            PRESERVE - whitespace-only text is kept (elements that have it are not indented.)
+	            NULL (defaults to IGNORE.)
+		default=IGNORE
+
+	  file_Path             - Full path to the file that is to be created.
+	    values: Any valid filesystem path. The file is replaced when it exists.
+
+	Output:
+	  result                - 0=success
+	    values: 0
+
+
+	Exceptions:
+	  CustomProcedureException - Thrown when illegal arguments are passed or the XML is not well formed.
+
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import com.compositesw.common.logging.Logger;
+import com.compositesw.extension.CustomProcedure;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+import com.tibco.ps.utils.xml.ClobReader;
+import com.tibco.ps.utils.xml.XMLFactories;
+
+public class FormatXMLToFile extends TextUtilTemplate implements CustomProcedure {
+
+  // number of bytes read from the XML file and characters written to the output file at a time
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private String loginfo = "";
+  private int error = 0;
+
+  static {
+	className = "FormatXMLToFile";
+	logger = Logger.getLogger(FormatXMLToFile.class.getName());
+  }
+
+  public String getDescription() {
+    return "This procedure formats (indents) the XML of a file or a CLOB and writes the result to a file.";
+  }
+
+  public String getName() {
+    return "FormatXMLToFile";
+  }
+
+  public Object[] getOutputValues() {
+    return new Object[] { error };
+  }
+
+  public ParameterInfo[] getParameterInfo() {
+    return new ParameterInfo[] {
+      new ParameterInfo("xml_file_path", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("xml_clob", Types.CLOB, DIRECTION_IN),
+      new ParameterInfo("indent", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo("wrap_attributes", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo("whitespace", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("file_Path", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("result", Types.INTEGER, DIRECTION_OUT)
+    };
+  }
+
+  public void invoke(Object[] inputs) throws CustomProcedureException, SQLException {
+    try {
+      String xmlFilePath = null;
+      int indent = 4;
+      int wrapAttributes = 0;
+      String whitespace = XMLFormatter.WHITESPACE_IGNORE;
+      String filePath = null;
+
+      /*
+       * VALIDATE Input parameters
+       */
+      if (inputs[0] == null && inputs[1] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter xml_file_path or xml_clob must be provided.");
+      }
+      if (inputs[0] != null && inputs[1] != null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": Only one of the IN Parameters xml_file_path and xml_clob may be provided.");
+      }
+      if (inputs[5] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter file_Path must be provided.");
+      }
+
+      /*
+       * RETREIVE Input parameters
+       */
+      if (inputs[0] != null) {
+        xmlFilePath = inputs[0].toString().trim();
+      }
+      if (inputs[2] != null) {
+        indent = (Integer) inputs[2];
+      }
+      if (inputs[3] != null) {
+        wrapAttributes = (Integer) inputs[3];
+      }
+      if (inputs[4] != null) {
+        whitespace = inputs[4].toString();
+      }
+      filePath = inputs[5].toString();
+
+      loginfo += "DEBUG: \nARGS" +
+           "\nXML Source: " + ((xmlFilePath != null) ? xmlFilePath : "CLOB") +
+           "\nIndent: " + indent +
+           "\nWrap Attributes: " + wrapAttributes +
+           "\nWhitespace: " + whitespace +
+           "\nFile Path: " + filePath +
+           "\n";
+
+      XMLFormatter formatter = new XMLFormatter(indent, wrapAttributes, whitespace);
+
+      // namespace prefixes are copied as they are, declared or not (as the DOM parser of FormatXML did)
+      XMLInputFactory factory = XMLFactories.getInputFactory(false, false);
+      Closeable source = null;
+      XMLStreamReader reader = null;
+      Writer writer = null;
+      try {
+        if (xmlFilePath != null) {
+          InputStream in = new BufferedInputStream(new FileInputStream(xmlFilePath), BUFFER_SIZE);
+          source = in;
+          reader = factory.createXMLStreamReader(in);
+        } else {
+          Reader in = ClobReader.open(inputs[1]);
+          source = in;
+          reader = factory.createXMLStreamReader(in);
+        }
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(filePath), "UTF-8"), BUFFER_SIZE);
+        formatter.format(reader, writer);
+      } finally {
+        try {
+          if (reader != null) {
+            reader.close();
+          }
+        } finally {
+          try {
+            if (source != null) {
+              source.close();
+            }
+          } finally {
+            if (writer != null) {
+              writer.close();
+            }
+          }
+        }
+      }
+
+    } catch (Throwable t) {
+      error = 1;
+      String message = "Exception Occurred:";
+      if (t.getMessage() != null) message = message + " " + t.getMessage();
+      message = message+"\n";
+      logger.info (message+loginfo);
+      t.printStackTrace();
+      throw new CustomProcedureException(message+loginfo);
+
+    } finally {
+      if (qenv != null) {
+        qenv.log (LOG_DEBUG, loginfo);
+      }
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+	GetExportMetrics:
+	  Returns the timings and counts of the most recent CSVFromCISQueryToFile and FixedFromCISQueryToFile
+	  runs (including the parts of their partitioned versions) as a cursor, most recent first. The history
+	  is kept in memory (see ExportMetrics) for the last 100 runs of the procedures deployed in the same jar.
+
+	Inputs:
+	  max_runs              - The number of runs to return.
+	    values: Any positive integer, or 0 or NULL for all the runs kept.
+
+
+	Output:
+	  result (              - A cursor with a row per run.
+	    run_number          - Sequence number of the run since the jar was loaded.
+	    procedure_name      - The procedure that ran the export.
+	    file_path           - The file_Path of the export (or of the partition.)
+	    start_time          - When the run started.
+	    status              - OK or FAILED with the reason.
+	    row_count           - Rows written.
+	    byte_count          - Bytes written, as stored on disk.
+	    file_count          - Files written.
+	    total_millis        - Elapsed time of the run.
+	    query_millis        - Time executing the query.
+	    first_row_millis    - Time until the first row was fetched (NULL when there were no rows.)
+	    fetch_millis        - Time in rs.next() and reading column values, on the fetch thread.
+	    wait_millis         - Time the writer waited for rows to be fetched.
+	    format_millis       - Time formatting rows.
+	    write_millis        - Time encoding, compressing and writing.
+	    rows_per_second     - row_count / total time.
+	    bytes_per_second    - byte_count / total time.
+	  )
+
+
+	Exceptions:
+	  CustomProcedureException - Thrown when illegal arguments are passed.
+
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import com.compositesw.common.logging.Logger;
+import com.compositesw.extension.CustomCursor;
+import com.compositesw.extension.CustomProcedure;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class GetExportMetrics extends TextUtilTemplate implements CustomProcedure {
+  private List<Object[]> rows = new ArrayList<Object[]>();
+
+  static {
+	className = "GetExportMetrics";
+	logger = Logger.getLogger(GetExportMetrics.class.getName());
+  }
+
+  private static final ParameterInfo[] OUTPUT_CURSOR = new ParameterInfo[] {
+    new ParameterInfo("run_number", Types.BIGINT, DIRECTION_NONE),
+    new ParameterInfo("procedure_name", Types.VARCHAR, DIRECTION_NONE),
+    new ParameterInfo("file_path", Types.VARCHAR, DIRECTION_NONE),
+    new ParameterInfo("start_time", Types.TIMESTAMP, DIRECTION_NONE),
+    new ParameterInfo("status", Types.VARCHAR, DIRECTION_NONE),
+    new ParameterInfo("row_count", Types.BIGINT, DIRECTION_NONE),
+    new ParameterInfo("byte_count", Types.BIGINT, DIRECTION_NONE),
+    new ParameterInfo("file_count", Types.INTEGER, DIRECTION_NONE),
+    new ParameterInfo("total_millis", Types.BIGINT, DIRECTION_NONE),
+    new ParameterInfo("query_millis", Types.BIGINT, DIRECTION_NONE),
+    new ParameterInfo("first_row_millis", Types.BIGINT, DIRECTION_NONE),
+    new ParameterInfo("fetch_millis", Types.BIGINT, DIRECTION_NONE),
+    new ParameterInfo("wait_millis", Types.BIGINT, DIRECTION_NONE),
+    new ParameterInfo("format_millis", Types.BIGINT, DIRECTION_NONE),
+    new ParameterInfo("write_millis", Types.BIGINT, DIRECTION_NONE),
+    new ParameterInfo("rows_per_second", Types.DOUBLE, DIRECTION_NONE),
+    new ParameterInfo("bytes_per_second", Types.DOUBLE, DIRECTION_NONE)
+  };
+
+  public String getDescription() {
+    return "This procedure returns the timings and counts of the most recent query-to-file exports.";
+  }
+
+  public String getName() {
+    return "GetExportMetrics";
+  }
+
+  public Object[] getOutputValues() {
+    return new Object[] { new ResultCursor (rows) };
+  }
+
+  public ParameterInfo[] getParameterInfo() {
+    return new ParameterInfo[] {
+      new ParameterInfo("max_runs", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo("result", TYPED_CURSOR, DIRECTION_OUT, OUTPUT_CURSOR)
+    };
+  }
+
+  public void invoke(Object[] inputs) throws CustomProcedureException, SQLException {
+    int maxRuns = 0;
+
+    if (inputs[0] != null) {
+      maxRuns = (Integer) inputs[0];
+    }
+    if (maxRuns < 0) {
+      throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter max_runs must not be negative.");
+    }
+
+    for (ExportMetrics run : ExportMetrics.getRecent (maxRuns)) {
+      rows.add (run.toRow());
+    }
+  }
+
+  private class ResultCursor implements CustomCursor {
+    private List<Object[]> _rows;
+    private int i = 0;
+
+    public ResultCursor(List<Object[]> rows) {
+      _rows = rows;
+    }
+
+    public ParameterInfo[] getColumnInfo() {
+      return OUTPUT_CURSOR;
+    }
+
+    public Object[] next() throws CustomProcedureException, SQLException {
+      if (_rows != null && i < _rows.size()) {
+        return _rows.get(i++);
+      } else
+        return null;
+    }
+
+    public void close() throws CustomProcedureException, SQLException {
+    }
+  }
+}
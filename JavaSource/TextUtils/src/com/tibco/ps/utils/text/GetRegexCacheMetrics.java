@@ -0,0 +1,126 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+	GetRegexCacheMetrics:
+	  Returns the counts of the cache of compiled regular expressions shared by the Regex* procedures
+	  deployed in the same jar (see RegexPatternCache) and the number of evaluations stopped by their
+	  limits, and optionally changes the maximum size of the cache. The limits themselves are set with
+	  SetRegexLimits. The counts are those since the jar was loaded.
+
+	Inputs:
+	  new_max_entries       - Sets the maximum number of cached patterns before the counts are returned.
+	    values: Any positive integer, or NULL to leave it as it is.
+
+
+	Output:
+	  entries               - The number of cached patterns.
+	  max_entries           - The maximum number of cached patterns.
+	  hits                  - Lookups of a cached pattern.
+	  misses                - Lookups of a pattern that had to be compiled.
+	  failures              - Patterns that could not be compiled (and are cached as such.)
+	  evictions             - Patterns removed from the cache to keep it within its maximum.
+	  compile_millis        - Time spent compiling patterns.
+	  aborted               - Evaluations stopped for going over max_char_accesses or max_millis.
+	  max_char_accesses     - The maximum number of characters an evaluation may read (0 for no limit.)
+	  max_millis            - The maximum time an evaluation may take (0 for no limit.)
+
+
+	Exceptions:
+	  CustomProcedureException - Thrown when illegal arguments are passed.
+
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import com.compositesw.common.logging.Logger;
+import com.compositesw.extension.CustomProcedure;
+
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class GetRegexCacheMetrics extends TextUtilTemplate implements CustomProcedure {
+  private Object[] outputValues = null;
+
+  static {
+	className = "GetRegexCacheMetrics";
+	logger = Logger.getLogger(GetRegexCacheMetrics.class.getName());
+  }
+
+  public String getDescription() {
+    return "This procedure returns the hit, miss and eviction counts of the regular expression pattern cache and the evaluations stopped by their limits.";
+  }
+
+  public String getName() {
+    return "GetRegexCacheMetrics";
+  }
+
+  public Object[] getOutputValues() {
+    return outputValues;
+  }
+
+  public ParameterInfo[] getParameterInfo() {
+    return new ParameterInfo[] {
+      new ParameterInfo("new_max_entries", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo("entries", Types.INTEGER, DIRECTION_OUT),
+      new ParameterInfo("max_entries", Types.INTEGER, DIRECTION_OUT),
+      new ParameterInfo("hits", Types.BIGINT, DIRECTION_OUT),
+      new ParameterInfo("misses", Types.BIGINT, DIRECTION_OUT),
+      new ParameterInfo("failures", Types.BIGINT, DIRECTION_OUT),
+      new ParameterInfo("evictions", Types.BIGINT, DIRECTION_OUT),
+      new ParameterInfo("compile_millis", Types.BIGINT, DIRECTION_OUT),
+      new ParameterInfo("aborted", Types.BIGINT, DIRECTION_OUT),
+      new ParameterInfo("max_char_accesses", Types.BIGINT, DIRECTION_OUT),
+      new ParameterInfo("max_millis", Types.BIGINT, DIRECTION_OUT)
+    };
+  }
+
+  public void invoke(Object[] inputs) throws CustomProcedureException, SQLException {
+    RegexPatternCache cache = RegexPatternFactory.getPatternCache();
+
+    if (inputs[0] != null) {
+      int maxEntries = (Integer) inputs[0];
+      if (maxEntries <= 0) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter new_max_entries must be a positive integer.");
+      }
+      cache.setMaxEntries (maxEntries);
+    }
+
+    outputValues = new Object[] {
+      new Integer (cache.size()),
+      new Integer (cache.getMaxEntries()),
+      new Long (cache.getHits()),
+      new Long (cache.getMisses()),
+      new Long (cache.getFailures()),
+      new Long (cache.getEvictions()),
+      new Long (cache.getCompileNanos() / 1000000L),
+      new Long (BudgetedCharSequence.getAborted()),
+      new Long (BudgetedCharSequence.getMaxCharAccesses()),
+      new Long (BudgetedCharSequence.getMaxMillis())
+    };
+  }
+}
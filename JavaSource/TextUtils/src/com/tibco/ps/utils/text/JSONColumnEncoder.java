@@ -0,0 +1,349 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+Description:
+  This utility class turns a single result set column into a JSON member. As with CSVColumnEncoder,
+  the JSON CJP's build an encoder plan once from the ResultSetMetaData of the query using compile()
+  and then encode every row through it, so each row becomes one JSON object:
+
+    {"id":1,"name":"Smith","balance":1520.25,"active":true,"created":"2026-10-18T09:30:00.000"}
+
+  The member name of each column is its column label, escaped once when the plan is compiled. The
+  values are written according to the column type:
+
+    TINYINT, SMALLINT, INTEGER, BIGINT  - a number, read with getLong()
+    DECIMAL, NUMERIC                    - a number, without an exponent
+    REAL, FLOAT, DOUBLE                 - a number (NaN and the infinities, which JSON doesn't have, are null)
+    BIT, BOOLEAN                        - true or false
+    DATE                                - "yyyy-MM-dd"
+    TIME                                - "HH:mm:ss.SSS"
+    TIMESTAMP                           - "yyyy-MM-ddTHH:mm:ss.SSS" (ISO 8601, in the JVM's default time zone)
+    anything else                       - a string, read with getString()
+
+  NULL values are written as null. Strings are escaped in a single pass that copies runs of characters
+  that need no escaping directly to the output buffer.
+
+  An encoder plan holds a Calendar and is therefore not thread-safe. Compile one plan per result set.
+  fetch() does not use the Calendar, so one thread may fetch rows (fetchRow) while another encodes them
+  (encodeRow.)
+
+Inputs:
+  N/A
+
+Outputs:
+  N/A
+
+Exceptions:
+  None
+
+Date:        10/18/2026
+CSW Version: 8.0.0
+
+*/
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+public abstract class JSONColumnEncoder {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // the escaped member name and separator of the column, e.g. "id":
+    //
+    protected final String member;
+
+    protected JSONColumnEncoder (String member) {
+        this.member = member;
+    }
+
+    // read the value of the column from the current row of the result set. a NULL column value
+    // is returned as null.
+    //
+    public abstract Object fetch (ResultSet rs, int column) throws SQLException;
+
+    // append a non-NULL value previously returned by fetch() to the output buffer.
+    //
+    protected abstract void encodeValue (Object value, StringBuilder out);
+
+    // append a value previously returned by fetch() to the output buffer.
+    //
+    public void encode (Object value, StringBuilder out) {
+        if (value == null) {
+            out.append ("null");
+        } else {
+            encodeValue (value, out);
+        }
+    }
+
+    // build an encoder plan for all the columns of a result set.
+    //
+    public static JSONColumnEncoder[] compile (ResultSetMetaData rsmd) throws SQLException {
+        DateTimeWriter dtw = DateTimeWriter.iso8601();
+
+        JSONColumnEncoder[] plan = new JSONColumnEncoder[rsmd.getColumnCount()];
+
+        for (int x = 0; x < plan.length; x++) {
+            StringBuilder sb = new StringBuilder();
+            appendString (rsmd.getColumnLabel (x + 1), sb);
+            sb.append (':');
+            String member = sb.toString();
+
+            switch (rsmd.getColumnType (x + 1)) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                    plan[x] = new IntegerEncoder (member);
+                    break;
+
+                case Types.DECIMAL:
+                case Types.NUMERIC:
+                    plan[x] = new DecimalEncoder (member);
+                    break;
+
+                case Types.REAL:
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    plan[x] = new DoubleEncoder (member);
+                    break;
+
+                case Types.BIT:
+                case Types.BOOLEAN:
+                    plan[x] = new BooleanEncoder (member);
+                    break;
+
+                case Types.DATE:
+                    plan[x] = new DateEncoder (member, dtw);
+                    break;
+
+                case Types.TIME:
+                    plan[x] = new TimeEncoder (member, dtw);
+                    break;
+
+                case Types.TIMESTAMP:
+                    plan[x] = new TimestampEncoder (member, dtw);
+                    break;
+
+                default:
+                    plan[x] = new StringEncoder (member);
+                    break;
+            }
+        }
+
+        return plan;
+    }
+
+    // read an entire row into a row array using an encoder plan, for encoding later (possibly on
+    // another thread) with encodeRow().
+    //
+    public static void fetchRow (JSONColumnEncoder[] plan, ResultSet rs, Object[] row) throws SQLException {
+        for (int x = 0; x < plan.length; x++) {
+            row[x] = plan[x].fetch (rs, x + 1);
+        }
+    }
+
+    // append a row previously read with fetchRow() as a JSON object. the row is not terminated.
+    //
+    public static void encodeRow (JSONColumnEncoder[] plan, Object[] row, StringBuilder out) {
+        out.append ('{');
+        for (int x = 0; x < plan.length; x++) {
+            if (x > 0) {
+                out.append (',');
+            }
+            out.append (plan[x].member);
+            plan[x].encode (row[x], out);
+        }
+        out.append ('}');
+    }
+
+    // append a string as a quoted JSON string. '"', '\' and the control characters are escaped, as are
+    // \u2028 and \u2029, which JavaScript doesn't allow in a string literal.
+    //
+    public static void appendString (String value, StringBuilder out) {
+        int len = value.length();
+        int start = 0;
+
+        out.append ('"');
+        for (int i = 0; i < len; i++) {
+            char c = value.charAt (i);
+            if (c >= ' ' && c != '"' && c != '\\' && c != '\u2028' && c != '\u2029') {
+                continue;
+            }
+
+            // copy the run of characters before this one in one go
+            //
+            out.append (value, start, i);
+            start = i + 1;
+            switch (c) {
+                case '"':  out.append ("\\\""); break;
+                case '\\': out.append ("\\\\"); break;
+                case '\n': out.append ("\\n"); break;
+                case '\r': out.append ("\\r"); break;
+                case '\t': out.append ("\\t"); break;
+                case '\b': out.append ("\\b"); break;
+                case '\f': out.append ("\\f"); break;
+                default:
+                    out.append ("\\u").append (HEX[(c >> 12) & 0xF]).append (HEX[(c >> 8) & 0xF]).append (HEX[(c >> 4) & 0xF]).append (HEX[c & 0xF]);
+                    break;
+            }
+        }
+        out.append (value, start, len);
+        out.append ('"');
+    }
+
+    /*
+     * Default encoder. Reads the column as a String and writes it as a JSON string.
+     */
+    static class StringEncoder extends JSONColumnEncoder {
+        StringEncoder (String member) {
+            super (member);
+        }
+
+        public Object fetch (ResultSet rs, int column) throws SQLException {
+            return rs.getString (column);
+        }
+
+        protected void encodeValue (Object value, StringBuilder out) {
+            appendString (value.toString(), out);
+        }
+    }
+
+    static class IntegerEncoder extends JSONColumnEncoder {
+        IntegerEncoder (String member) {
+            super (member);
+        }
+
+        public Object fetch (ResultSet rs, int column) throws SQLException {
+            long value = rs.getLong (column);
+            return (rs.wasNull()) ? null : new Long (value);
+        }
+
+        protected void encodeValue (Object value, StringBuilder out) {
+            out.append (((Long) value).longValue());
+        }
+    }
+
+    static class DecimalEncoder extends JSONColumnEncoder {
+        DecimalEncoder (String member) {
+            super (member);
+        }
+
+        public Object fetch (ResultSet rs, int column) throws SQLException {
+            return rs.getBigDecimal (column);
+        }
+
+        protected void encodeValue (Object value, StringBuilder out) {
+            out.append (((BigDecimal) value).toPlainString());
+        }
+    }
+
+    static class DoubleEncoder extends JSONColumnEncoder {
+        DoubleEncoder (String member) {
+            super (member);
+        }
+
+        public Object fetch (ResultSet rs, int column) throws SQLException {
+            double value = rs.getDouble (column);
+            return (rs.wasNull() || Double.isNaN (value) || Double.isInfinite (value)) ? null : new Double (value);
+        }
+
+        protected void encodeValue (Object value, StringBuilder out) {
+            out.append (((Double) value).doubleValue());
+        }
+    }
+
+    static class BooleanEncoder extends JSONColumnEncoder {
+        BooleanEncoder (String member) {
+            super (member);
+        }
+
+        public Object fetch (ResultSet rs, int column) throws SQLException {
+            boolean value = rs.getBoolean (column);
+            return (rs.wasNull()) ? null : Boolean.valueOf (value);
+        }
+
+        protected void encodeValue (Object value, StringBuilder out) {
+            out.append (((Boolean) value).booleanValue());
+        }
+    }
+
+    static class DateEncoder extends JSONColumnEncoder {
+        private final DateTimeWriter dtw;
+
+        DateEncoder (String member, DateTimeWriter dtw) {
+            super (member);
+            this.dtw = dtw;
+        }
+
+        public Object fetch (ResultSet rs, int column) throws SQLException {
+            return rs.getDate (column);
+        }
+
+        protected void encodeValue (Object value, StringBuilder out) {
+            out.append ('"');
+            dtw.appendDate (((java.util.Date) value).getTime(), out);
+            out.append ('"');
+        }
+    }
+
+    static class TimeEncoder extends JSONColumnEncoder {
+        private final DateTimeWriter dtw;
+
+        TimeEncoder (String member, DateTimeWriter dtw) {
+            super (member);
+            this.dtw = dtw;
+        }
+
+        public Object fetch (ResultSet rs, int column) throws SQLException {
+            return rs.getTime (column);
+        }
+
+        protected void encodeValue (Object value, StringBuilder out) {
+            out.append ('"');
+            dtw.appendTime (((java.util.Date) value).getTime(), out);
+            out.append ('"');
+        }
+    }
+
+    static class TimestampEncoder extends JSONColumnEncoder {
+        private final DateTimeWriter dtw;
+
+        TimestampEncoder (String member, DateTimeWriter dtw) {
+            super (member);
+            this.dtw = dtw;
+        }
+
+        public Object fetch (ResultSet rs, int column) throws SQLException {
+            return rs.getTimestamp (column);
+        }
+
+        protected void encodeValue (Object value, StringBuilder out) {
+            out.append ('"');
+            dtw.appendTimestamp (((java.util.Date) value).getTime(), out);
+            out.append ('"');
+        }
+    }
+}
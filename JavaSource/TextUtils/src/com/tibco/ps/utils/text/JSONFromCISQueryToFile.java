@@ -0,0 +1,314 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+	JSONFromCISQueryToFile:
+	  Function to execute a CIS query and write the result set to a file as JSON Lines: one JSON object per
+	  row, with a member per column named by its column label, each on its own line (see JSONColumnEncoder
+	  for how the column types are written.)
+
+	    {"id":1,"name":"Smith","balance":1520.25,"active":true,"created":"2026-10-18T09:30:00.000"}
+	    {"id":2,"name":"Jones","balance":null,"active":false,"created":"2026-10-18T09:31:12.500"}
+
+	Inputs:
+	  query_string          - The query to execute.
+	    values: Any valid CIS query.
+
+	  file_Path             - full path to a file that is to be created.
+	    values: Any valid filesystem path to a flat text file (existing or not.)
+
+	  append                - Indicates whether or not to append to the file at filePath. Appended rows follow the
+	                          last line of the file without an empty line in between.
+	    values: 0=do not append file, 1=append file.
+
+	  buffer_size           - Number of rows to buffer before they are encoded for writing. The rows are fetched
+	                          on a separate thread in batches of this many rows, up to 4 batches ahead of the
+	                          writer (see RowBatchPipeline.) The file itself is written in blocks of flush_bytes.
+	    values: Any positive integer or NULL (defaults to 1000.)
+
+	  compression           - Compresses the file as it is written (see ExportCompression.) parallel_gzip compresses
+	                          blocks of the output on several threads. A deflate file cannot be appended to.
+	    values: none, gzip, deflate, parallel_gzip or NULL (defaults to none.)
+
+	  flush_bytes           - Number of encoded bytes collected before each write to the file (see ChannelTextWriter.)
+	                          Best kept a multiple of the filesystem block size.
+	    values: Any positive integer or NULL (defaults to 1048576.)
+
+	  max_rows_per_file     - Rolls the output over to numbered files (export.00001.jsonl, export.00002.jsonl, ...) of
+	                          at most this many rows each (see ExportFileSet.)
+	    values: Any positive integer, or 0 or NULL for no row limit.
+
+	  max_bytes_per_file    - Rolls the output over to a new numbered file once a file holds this many uncompressed bytes.
+	                          A file may exceed the limit by less than one row.  Cannot be combined with append.
+	    values: Any positive integer, or 0 or NULL for no size limit.
+
+
+	Output:
+	  result                - Indicates success or failure
+	    values: 1 or 0
+
+	  files                 - The files written, in order, with their row counts and sizes on disk.
+	    values: file_number, file_path, row_count, byte_count
+
+
+	Exceptions:
+	  CustomProcedureException - Thrown when illegal arguments are passed.
+
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import com.compositesw.common.logging.Logger;
+import com.compositesw.extension.CustomProcedure;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class JSONFromCISQueryToFile extends TextUtilTemplate implements CustomProcedure {
+  String loginfo = "Done.";
+  int error = 1;
+  ExportFileSet files = null;
+
+  static {
+	className = "JSONFromCISQueryToFile";
+	logger = Logger.getLogger(JSONFromCISQueryToFile.class.getName());
+  }
+
+  public String getDescription() {
+    return "This procedure takes in a CIS query and writes the results to a file as JSON Lines, one JSON object per row.";
+  }
+
+  public String getName() {
+    return "JSONFromCISQueryToFile";
+  }
+
+  public Object[] getOutputValues() {
+    return new Object[] { error, (files == null) ? null : files.getFilesCursor() };
+  }
+
+  public ParameterInfo[] getParameterInfo() {
+    return new ParameterInfo[] {
+      new ParameterInfo("query_string", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("file_Path", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("append", Types.SMALLINT, DIRECTION_IN),
+      new ParameterInfo("buffer_size", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo("compression", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("flush_bytes", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo("max_rows_per_file", Types.BIGINT, DIRECTION_IN),
+      new ParameterInfo("max_bytes_per_file", Types.BIGINT, DIRECTION_IN),
+      new ParameterInfo("result", Types.INTEGER, DIRECTION_OUT),
+      new ParameterInfo("files", TYPED_CURSOR, DIRECTION_OUT, ExportFileSet.FILES_CURSOR)
+    };
+  }
+
+  public void invoke(Object[] inputs) throws CustomProcedureException, SQLException {
+    try {
+      String queryString = null;
+      String filePath = null;
+      boolean append = false;
+      int bufferSize = 1000;
+      String compression = null;
+      int flushBytes = ChannelTextWriter.DEFAULT_FLUSH_BYTES;
+      long maxRowsPerFile = 0;
+      long maxBytesPerFile = 0;
+
+      /*
+       * VALIDATE Input parameters
+       */
+      if (inputs[0] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter query_string must be provided.");
+      }
+      if (inputs[1] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter file_Path must be provided.");
+      }
+      if (inputs[2] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter append must be provided.");
+      }
+
+      /*
+       * RETREIVE Input parameters
+       */
+      queryString = ((String) inputs[0]).trim();
+      filePath = inputs[1].toString();
+      append = (Integer.valueOf(inputs[2].toString()) == 1);
+      if (inputs[3] != null) {
+        bufferSize = (Integer)inputs[3];
+      }
+      compression = ExportCompression.parse ((String) inputs[4]);
+      if (inputs[5] != null) {
+        flushBytes = (Integer)inputs[5];
+      }
+      if (inputs[6] != null) {
+        maxRowsPerFile = ((Number)inputs[6]).longValue();
+      }
+      if (inputs[7] != null) {
+        maxBytesPerFile = ((Number)inputs[7]).longValue();
+      }
+      loginfo += "DEBUG: \nARGS" +
+           "\nQuery: " + queryString +
+           "\nFile Path: " + filePath +
+           "\nAppend: " + append +
+           "\nBuffer Size: " + bufferSize +
+           "\nCompression: " + compression +
+           "\nFlush Bytes: " + flushBytes +
+           "\nMax Rows Per File: " + maxRowsPerFile +
+           "\nMax Bytes Per File: " + maxBytesPerFile +
+           "\n";
+
+      /*
+       * VALIDATE parameters for content
+       */
+      if (flushBytes <= 0) {
+        throw new IllegalArgumentException ("The flush bytes must be a positive integer");
+      }
+      if (bufferSize <= 0) {
+        throw new IllegalArgumentException ("The buffer size must be a positive integer");
+      }
+
+      files = new ExportFileSet (filePath, append, compression, flushBytes, maxRowsPerFile, maxBytesPerFile);
+
+      int resultSize = exportToFile (queryString, bufferSize, files);
+
+      loginfo += "\nROWCOUNT = " + resultSize + "\nFILES = " + files.getFiles().size();
+
+    } catch (Throwable t) {
+      error = 0;
+      String message = "Exception Occurred:";
+      if (t.getMessage() != null) message = message + " " + t.getMessage();
+      message = message+"\n";
+      logger.info (message+loginfo);
+      t.printStackTrace();
+      throw new CustomProcedureException(message+loginfo);
+
+    } finally {
+      qenv.log (LOG_DEBUG, loginfo);
+    }
+  }
+
+  /**
+   * Execute the query and write its result set as JSON Lines to the file(s) of the file set.
+   * @return the number of rows written
+   */
+  protected int exportToFile (String queryString, int bufferSize, ExportFileSet files) throws Exception {
+    ResultSet rs = null;
+    ExportMetrics metrics = new ExportMetrics (getName(), files.getFilePath());
+    String status = "FAILED";
+    int resultSize = 0;
+
+    try {
+      // open the file first so that an unusable path or compression fails before the query is run.
+      // every row already ends with '\n', so appended rows don't start with a line separator.
+      //
+      ChannelTextWriter out = files.open (false);
+
+      long mark = metrics.mark();
+      synchronized (qenv) {
+        rs = qenv.executeQuery (queryString, null);
+      }
+      metrics.queried (mark);
+      ResultSetMetaData rsmd = rs.getMetaData();
+      if (logger.isDebug()) logger.debug ("COLUMN COUNT: " + rsmd.getColumnCount());
+
+      int bufferedRows = 0;
+      StringBuilder sb = new StringBuilder();
+
+      // Build the column encoders, with the escaped member name of each column, once for the whole result set.
+      //
+      final JSONColumnEncoder[] encoders = JSONColumnEncoder.compile (rsmd);
+
+      // Rows are fetched on a separate thread in batches of buffer_size rows while the previous batches
+      // are formatted and written here.
+      //
+      RowBatchPipeline pipeline = new RowBatchPipeline (rs, encoders.length, bufferSize, new RowBatchPipeline.RowFetcher() {
+        public void fetchRow (ResultSet rs, Object[] row) throws SQLException {
+          JSONColumnEncoder.fetchRow (encoders, rs, row);
+        }
+      }, getName());
+
+      try {
+        RowBatchPipeline.RowBatch batch;
+        mark = metrics.mark();
+        while ((batch = pipeline.take()) != null) {
+          mark = metrics.waited (mark);
+          for (int r = 0; r < batch.size(); r++) {
+
+            // Finish the current file once it is full and continue in the next one
+            if (files.isFull (bufferedRows, sb.length())) {
+              mark = metrics.formatted (mark);
+              out.write (sb);
+              sb.setLength (0);
+              files.addRows (bufferedRows);
+              bufferedRows = 0;
+              out = files.next();
+              mark = metrics.wrote (mark);
+            }
+
+            // JSON Lines are terminated by \n whatever the platform
+            JSONColumnEncoder.encodeRow (encoders, batch.getRow (r), sb);
+            sb.append ('\n');
+
+            resultSize++;
+            bufferedRows++;
+          }
+          pipeline.release (batch);
+          mark = metrics.formatted (mark);
+
+          // Write the buffer to the file
+          out.write (sb);
+          sb.setLength (0);
+          files.addRows (bufferedRows);
+          bufferedRows = 0;
+          mark = metrics.wrote (mark);
+        }
+        files.commit();
+        metrics.wrote (mark);
+      } finally {
+        pipeline.close();
+        metrics.fetched (pipeline.getFirstRowTime(), pipeline.getFetchNanos());
+      }
+
+      status = "OK";
+      return resultSize;
+
+    } catch (Exception e) {
+      status = "FAILED: " + e.getMessage();
+      throw e;
+
+    } finally {
+      try {
+        files.close();
+      } finally {
+        metrics.finish (status, resultSize, files);
+        if (rs != null) {
+          if (! rs.isClosed()) { rs.close(); }
+        }
+      }
+    }
+  }
+}
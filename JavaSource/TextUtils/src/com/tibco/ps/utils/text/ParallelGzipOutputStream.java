@@ -0,0 +1,206 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+/*
+	Description:
+	  An OutputStream that gzip compresses its data on several threads. The data is cut into fixed size
+	  blocks, each block is compressed into a complete gzip member on a shared pool of daemon threads, and
+	  the members are written to the underlying stream in order. The result is a multi-member gzip file,
+	  which gunzip, zcat and java.util.zip.GZIPInputStream read as a single stream.
+
+	  The number of blocks in flight is bounded, so a slow disk throttles the writer rather than letting
+	  compressed blocks pile up in memory. Input blocks are recycled once their member has been written.
+
+	  The pool is shared by every open stream (for instance the parts of a partitioned export) and is
+	  sized to the number of processors.
+
+	Inputs:
+	  N/A
+
+	Outputs:
+	  N/A
+
+	Exceptions:
+	  None
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.GZIPOutputStream;
+
+public class ParallelGzipOutputStream extends OutputStream {
+
+	// uncompressed size of each gzip member
+	private static final int BLOCK_SIZE = 1024 * 1024;
+
+	private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+	private static ExecutorService pool = null;
+
+	private final OutputStream out;
+	private final int maxInFlight;
+	private final LinkedList<Block> pending = new LinkedList<Block>();
+	private final LinkedList<byte[]> free = new LinkedList<byte[]>();
+	private byte[] block;
+	private int count = 0;
+	private boolean membersWritten = false;
+	private boolean closed = false;
+
+	private static class Block {
+		byte[] data;
+		Future<byte[]> member;
+	}
+
+	public ParallelGzipOutputStream(OutputStream out) {
+		this.out = out;
+		this.maxInFlight = THREADS * 2;
+		this.block = new byte[BLOCK_SIZE];
+	}
+
+	private static synchronized ExecutorService getPool() {
+		if (pool == null) {
+			pool = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+				private int count = 0;
+				public synchronized Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "ParallelGzipOutputStream-" + (++count));
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return pool;
+	}
+
+	public void write(int b) throws IOException {
+		if (count == block.length) {
+			submitBlock();
+		}
+		block[count++] = (byte) b;
+	}
+
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (count == block.length) {
+				submitBlock();
+			}
+			int n = Math.min(len, block.length - count);
+			System.arraycopy(b, off, block, count, n);
+			count += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * Flushing ends the current member early, so it should only be done when the data really has to reach the file.
+	 */
+	public void flush() throws IOException {
+		submitBlock();
+		while (!pending.isEmpty()) {
+			writeFirst();
+		}
+		out.flush();
+	}
+
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			flush();
+			// an empty file is still written as a valid (empty) gzip stream
+			if (!membersWritten) {
+				out.write(compress(new byte[0], 0));
+			}
+		} finally {
+			for (Block b : pending) {
+				b.member.cancel(true);
+			}
+			pending.clear();
+			out.close();
+		}
+	}
+
+	private void submitBlock() throws IOException {
+		if (count == 0) {
+			return;
+		}
+		final Block b = new Block();
+		final byte[] data = block;
+		final int length = count;
+		b.data = data;
+		b.member = getPool().submit(new Callable<byte[]>() {
+			public byte[] call() throws Exception {
+				return compress(data, length);
+			}
+		});
+		pending.add(b);
+
+		block = free.isEmpty() ? new byte[BLOCK_SIZE] : free.removeFirst();
+		count = 0;
+
+		// back-pressure: wait for the oldest member once enough blocks are queued
+		while (pending.size() > maxInFlight) {
+			writeFirst();
+		}
+	}
+
+	private void writeFirst() throws IOException {
+		Block b = pending.removeFirst();
+		byte[] member;
+		try {
+			member = b.member.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while compressing: " + e.toString());
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException("Error compressing block: " + cause);
+		}
+		out.write(member);
+		membersWritten = true;
+		free.add(b.data);
+	}
+
+	private static byte[] compress(byte[] data, int length) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(length / 2 + 64);
+		GZIPOutputStream gzip = new GZIPOutputStream(bytes, 65536);
+		gzip.write(data, 0, length);
+		gzip.close();
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,792 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+/*
+	Description:
+	  Minimal Apache Parquet file writer used by ParquetFromCISQueryToFile. It needs no third party jars.
+
+	  Rows are read from a ResultSet into one typed column vector per column. Each vector is cut into
+	  data pages (version 1, PLAIN values with RLE definition levels) of about PAGE_SIZE bytes, and a
+	  row group is written once the requested number of rows has been collected, or earlier once the
+	  buffered pages reach MAX_ROW_GROUP_BYTES. The file footer (FileMetaData) is written with the Thrift
+	  compact protocol when the writer is closed.
+
+	  The file is written as <path>.inprogress and only renamed to <path> once the footer has been
+	  written, so a failed export leaves any previous file at <path> in place. abort() deletes the
+	  incomplete file.
+
+	  Every column is OPTIONAL. Column types are derived from the ResultSetMetaData:
+
+	    BIT, BOOLEAN                      -> BOOLEAN
+	    TINYINT, SMALLINT, INTEGER        -> INT32 (INT_8, INT_16)
+	    BIGINT                            -> INT64
+	    REAL                              -> FLOAT
+	    FLOAT, DOUBLE                     -> DOUBLE
+	    DECIMAL, NUMERIC                  -> BYTE_ARRAY DECIMAL(precision, scale) when precision is 1 to 38,
+	                                         otherwise a UTF8 string. A value that would have to be rounded
+	                                         to the scale or that has more digits than the precision is
+	                                         rejected with an ArithmeticException.
+	    DATE                              -> INT32 DATE (days since 1970-01-01)
+	    TIMESTAMP                         -> INT64 TIMESTAMP_MILLIS (UTC)
+	    BINARY, VARBINARY, LONGVARBINARY,
+	    BLOB                              -> BYTE_ARRAY
+	    anything else (including TIME)    -> BYTE_ARRAY UTF8 from getString()
+
+	  Data pages are optionally gzip compressed. The compression is parsed with ExportCompression.parse(),
+	  and of its compressions only none and gzip are supported.
+
+	Inputs:
+	  N/A
+
+	Outputs:
+	  N/A
+
+	Exceptions:
+	  None
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.sql.Blob;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.zip.GZIPOutputStream;
+
+public class ParquetFileWriter {
+
+	// approximate number of value bytes buffered before a data page is cut
+	private static final int PAGE_SIZE = 1024 * 1024;
+
+	// approximate number of page bytes buffered for all columns before a row group is written regardless of its row count
+	private static final long MAX_ROW_GROUP_BYTES = 128L * 1024 * 1024;
+
+	private static final byte[] MAGIC = { 'P', 'A', 'R', '1' };
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+	// parquet physical types
+	private static final int BOOLEAN = 0;
+	private static final int INT32 = 1;
+	private static final int INT64 = 2;
+	private static final int FLOAT = 4;
+	private static final int DOUBLE = 5;
+	private static final int BYTE_ARRAY = 6;
+
+	// parquet converted types
+	private static final int NO_CONVERTED_TYPE = -1;
+	private static final int UTF8_TYPE = 0;
+	private static final int DECIMAL_TYPE = 5;
+	private static final int DATE_TYPE = 6;
+	private static final int TIMESTAMP_MILLIS_TYPE = 9;
+	private static final int INT_8_TYPE = 15;
+	private static final int INT_16_TYPE = 16;
+
+	// parquet encodings, codecs and page types
+	private static final int PLAIN = 0;
+	private static final int RLE = 3;
+	private static final int UNCOMPRESSED = 0;
+	private static final int GZIP = 2;
+	private static final int DATA_PAGE = 0;
+	private static final int OPTIONAL = 1;
+
+	private final File target;
+	private final File written;
+	private final OutputStream out;
+	private final ColumnWriter[] columns;
+	private final int codec;
+	private final int rowsPerRowGroup;
+	private final List<RowGroup> rowGroups = new ArrayList<RowGroup>();
+	private final ByteSink scratch = new ByteSink(PAGE_SIZE);
+	private long position = 0;
+	private long totalRows = 0;
+	private int rowsInGroup = 0;
+	private boolean closed = false;
+
+	/**
+	 * Create filePath.inprogress for the columns described by rsmd.  It replaces any existing filePath when the writer is closed.
+	 */
+	public ParquetFileWriter(String filePath, ResultSetMetaData rsmd, int rowsPerRowGroup, String compression) throws SQLException, IOException {
+		if (rowsPerRowGroup <= 0) {
+			throw new IllegalArgumentException("The rows per row group must be a positive integer");
+		}
+		compression = ExportCompression.parse(compression);
+		if (compression.equals(ExportCompression.NONE)) {
+			this.codec = UNCOMPRESSED;
+		} else if (compression.equals(ExportCompression.GZIP)) {
+			this.codec = GZIP;
+		} else {
+			throw new IllegalArgumentException("Parquet data pages can only be compressed with " + ExportCompression.NONE + " or " + ExportCompression.GZIP + ": " + compression);
+		}
+		this.rowsPerRowGroup = rowsPerRowGroup;
+
+		int numColumns = rsmd.getColumnCount();
+		this.columns = new ColumnWriter[numColumns];
+		for (int x = 0; x < numColumns; x++) {
+			columns[x] = new ColumnWriter(x + 1, rsmd.getColumnLabel(x + 1), rsmd.getColumnType(x + 1), rsmd.getPrecision(x + 1), rsmd.getScale(x + 1));
+		}
+
+		this.target = new File(filePath);
+		this.written = new File(filePath + ExportFileSet.IN_PROGRESS_SUFFIX);
+		this.out = new BufferedOutputStream(new FileOutputStream(written, false), 65536);
+		try {
+			writeBytes(MAGIC, 0, MAGIC.length);
+		} catch (IOException e) {
+			abort();
+			throw e;
+		}
+	}
+
+	/**
+	 * Add the current row of rs.
+	 */
+	public void writeRow(ResultSet rs) throws SQLException, IOException {
+		for (int x = 0; x < columns.length; x++) {
+			columns[x].append(rs);
+		}
+		totalRows++;
+		if (++rowsInGroup == rowsPerRowGroup || bufferedBytes() >= MAX_ROW_GROUP_BYTES) {
+			writeRowGroup();
+		}
+	}
+
+	private long bufferedBytes() {
+		long bytes = 0;
+		for (int x = 0; x < columns.length; x++) {
+			bytes += columns[x].chunk.size() + columns[x].values.size();
+		}
+		return bytes;
+	}
+
+	public long getRowCount() {
+		return totalRows;
+	}
+
+	/**
+	 * @return the number of bytes written to the file so far (the current row group is not included until it is written.)
+	 */
+	public long getBytesWritten() {
+		return position;
+	}
+
+	/**
+	 * Write the last row group and the file footer, and rename the file to its final name.
+	 */
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		boolean complete = false;
+		try {
+			if (rowsInGroup > 0) {
+				writeRowGroup();
+			}
+			ThriftWriter footer = new ThriftWriter(scratch);
+			scratch.reset();
+			writeFileMetaData(footer);
+			int footerLength = scratch.size();
+			scratch.writeTo(out);
+			position += footerLength;
+
+			byte[] tail = new byte[8];
+			tail[0] = (byte) footerLength;
+			tail[1] = (byte) (footerLength >>> 8);
+			tail[2] = (byte) (footerLength >>> 16);
+			tail[3] = (byte) (footerLength >>> 24);
+			System.arraycopy(MAGIC, 0, tail, 4, 4);
+			writeBytes(tail, 0, tail.length);
+			out.close();
+			complete = true;
+		} finally {
+			if (!complete) {
+				abort();
+			}
+		}
+
+		if (!written.renameTo(target)) {
+			// File.renameTo does not replace an existing file on all platforms
+			target.delete();
+			if (!written.renameTo(target)) {
+				throw new IOException("Unable to rename " + written.getPath() + " to " + target.getPath());
+			}
+		}
+	}
+
+	/**
+	 * Close and delete the incomplete file without writing the footer, e.g. after a failure.  Any existing file at the final path is kept.
+	 */
+	public void abort() {
+		closed = true;
+		try {
+			out.close();
+		} catch (IOException e) {
+			// the file is deleted below anyway
+		}
+		written.delete();
+	}
+
+	private void writeBytes(byte[] b, int off, int len) throws IOException {
+		out.write(b, off, len);
+		position += len;
+	}
+
+	private void writeRowGroup() throws IOException {
+		RowGroup group = new RowGroup();
+		group.numRows = rowsInGroup;
+		group.chunks = new ColumnChunk[columns.length];
+		for (int x = 0; x < columns.length; x++) {
+			ColumnWriter column = columns[x];
+			column.flushPage();
+			ColumnChunk chunk = new ColumnChunk();
+			chunk.dataPageOffset = position;
+			chunk.numValues = column.chunkValues;
+			chunk.uncompressedSize = column.chunkUncompressedSize;
+			chunk.compressedSize = column.chunk.size();
+			writeBytes(column.chunk.buffer(), 0, column.chunk.size());
+			column.resetChunk();
+			group.chunks[x] = chunk;
+			group.totalByteSize += chunk.uncompressedSize;
+		}
+		rowGroups.add(group);
+		rowsInGroup = 0;
+	}
+
+	private void writeFileMetaData(ThriftWriter t) {
+		t.i32(1, 1);
+
+		// schema: the root element followed by one element per column
+		t.listField(2, ThriftWriter.STRUCT, columns.length + 1);
+		t.beginListStruct();
+		t.string(4, "schema");
+		t.i32(5, columns.length);
+		t.endStruct();
+		for (int x = 0; x < columns.length; x++) {
+			ColumnWriter column = columns[x];
+			t.beginListStruct();
+			t.i32(1, column.physicalType);
+			t.i32(3, OPTIONAL);
+			t.string(4, column.name);
+			if (column.convertedType != NO_CONVERTED_TYPE) {
+				t.i32(6, column.convertedType);
+			}
+			if (column.convertedType == DECIMAL_TYPE) {
+				t.i32(7, column.scale);
+				t.i32(8, column.precision);
+			}
+			t.endStruct();
+		}
+
+		t.i64(3, totalRows);
+
+		t.listField(4, ThriftWriter.STRUCT, rowGroups.size());
+		for (RowGroup group : rowGroups) {
+			t.beginListStruct();
+			t.listField(1, ThriftWriter.STRUCT, columns.length);
+			for (int x = 0; x < columns.length; x++) {
+				ColumnWriter column = columns[x];
+				ColumnChunk chunk = group.chunks[x];
+				t.beginListStruct();
+				t.i64(2, chunk.dataPageOffset);
+				t.beginStruct(3);
+				t.i32(1, column.physicalType);
+				t.listField(2, ThriftWriter.I32, 2);
+				t.listI32(PLAIN);
+				t.listI32(RLE);
+				t.listField(3, ThriftWriter.BINARY, 1);
+				t.listString(column.name);
+				t.i32(4, codec);
+				t.i64(5, chunk.numValues);
+				t.i64(6, chunk.uncompressedSize);
+				t.i64(7, chunk.compressedSize);
+				t.i64(9, chunk.dataPageOffset);
+				t.endStruct();
+				t.endStruct();
+			}
+			t.i64(2, group.totalByteSize);
+			t.i64(3, group.numRows);
+			t.endStruct();
+		}
+
+		t.string(6, "ParquetFromCISQueryToFile");
+		t.stop();
+	}
+
+	private static class RowGroup {
+		long numRows;
+		long totalByteSize;
+		ColumnChunk[] chunks;
+	}
+
+	private static class ColumnChunk {
+		long dataPageOffset;
+		long numValues;
+		long uncompressedSize;
+		long compressedSize;
+	}
+
+	/*
+	 * The values of one column.  Values for the current page are encoded PLAIN into values as they arrive, definition
+	 * levels are kept one byte per row, and finished pages (header and body) are collected in chunk until the row group is written.
+	 */
+	private class ColumnWriter {
+		final int index;
+		final String name;
+		final int jdbcType;
+		final int physicalType;
+		final int convertedType;
+		final int precision;
+		final int scale;
+
+		final ByteSink values = new ByteSink(8192);
+		final ByteSink page = new ByteSink(8192);
+		final ByteSink chunk = new ByteSink(8192);
+		byte[] definitionLevels = new byte[1024];
+		int pageValues = 0;
+		int booleanBits = 0;
+		int booleanCount = 0;
+		long chunkValues = 0;
+		long chunkUncompressedSize = 0;
+
+		ColumnWriter(int index, String name, int jdbcType, int precision, int scale) {
+			this.index = index;
+			this.name = name;
+			this.jdbcType = jdbcType;
+
+			switch (jdbcType) {
+			case Types.BIT:
+			case Types.BOOLEAN:
+				physicalType = BOOLEAN;
+				convertedType = NO_CONVERTED_TYPE;
+				break;
+			case Types.TINYINT:
+				physicalType = INT32;
+				convertedType = INT_8_TYPE;
+				break;
+			case Types.SMALLINT:
+				physicalType = INT32;
+				convertedType = INT_16_TYPE;
+				break;
+			case Types.INTEGER:
+				physicalType = INT32;
+				convertedType = NO_CONVERTED_TYPE;
+				break;
+			case Types.BIGINT:
+				physicalType = INT64;
+				convertedType = NO_CONVERTED_TYPE;
+				break;
+			case Types.REAL:
+				physicalType = FLOAT;
+				convertedType = NO_CONVERTED_TYPE;
+				break;
+			case Types.FLOAT:
+			case Types.DOUBLE:
+				physicalType = DOUBLE;
+				convertedType = NO_CONVERTED_TYPE;
+				break;
+			case Types.DECIMAL:
+			case Types.NUMERIC:
+				physicalType = BYTE_ARRAY;
+				convertedType = (precision > 0 && precision <= 38 && scale >= 0 && scale <= precision) ? DECIMAL_TYPE : UTF8_TYPE;
+				break;
+			case Types.DATE:
+				physicalType = INT32;
+				convertedType = DATE_TYPE;
+				break;
+			case Types.TIMESTAMP:
+				physicalType = INT64;
+				convertedType = TIMESTAMP_MILLIS_TYPE;
+				break;
+			case Types.BINARY:
+			case Types.VARBINARY:
+			case Types.LONGVARBINARY:
+			case Types.BLOB:
+				physicalType = BYTE_ARRAY;
+				convertedType = NO_CONVERTED_TYPE;
+				break;
+			default:
+				physicalType = BYTE_ARRAY;
+				convertedType = UTF8_TYPE;
+				break;
+			}
+			this.precision = precision;
+			this.scale = scale;
+		}
+
+		void append(ResultSet rs) throws SQLException, IOException {
+			boolean isNull = false;
+
+			switch (physicalType) {
+			case BOOLEAN: {
+				boolean v = rs.getBoolean(index);
+				if (rs.wasNull()) {
+					isNull = true;
+				} else {
+					if (v) {
+						booleanBits |= 1 << booleanCount;
+					}
+					if (++booleanCount == 8) {
+						values.write(booleanBits);
+						booleanBits = 0;
+						booleanCount = 0;
+					}
+				}
+				break;
+			}
+			case INT32:
+				if (convertedType == DATE_TYPE) {
+					java.sql.Date v = rs.getDate(index);
+					if (v == null) {
+						isNull = true;
+					} else {
+						values.writeIntLE(daysSinceEpoch(v.getTime()));
+					}
+				} else {
+					int v = rs.getInt(index);
+					if (rs.wasNull()) {
+						isNull = true;
+					} else {
+						values.writeIntLE(v);
+					}
+				}
+				break;
+			case INT64:
+				if (convertedType == TIMESTAMP_MILLIS_TYPE) {
+					java.sql.Timestamp v = rs.getTimestamp(index);
+					if (v == null) {
+						isNull = true;
+					} else {
+						values.writeLongLE(v.getTime());
+					}
+				} else {
+					long v = rs.getLong(index);
+					if (rs.wasNull()) {
+						isNull = true;
+					} else {
+						values.writeLongLE(v);
+					}
+				}
+				break;
+			case FLOAT: {
+				float v = rs.getFloat(index);
+				if (rs.wasNull()) {
+					isNull = true;
+				} else {
+					values.writeIntLE(Float.floatToRawIntBits(v));
+				}
+				break;
+			}
+			case DOUBLE: {
+				double v = rs.getDouble(index);
+				if (rs.wasNull()) {
+					isNull = true;
+				} else {
+					values.writeLongLE(Double.doubleToRawLongBits(v));
+				}
+				break;
+			}
+			default: {
+				byte[] v;
+				if (convertedType == DECIMAL_TYPE) {
+					BigDecimal d = rs.getBigDecimal(index);
+					v = (d == null) ? null : unscaledBytes(d);
+				} else if (convertedType == UTF8_TYPE) {
+					String s = rs.getString(index);
+					v = (s == null) ? null : s.getBytes(UTF8);
+				} else if (jdbcType == Types.BLOB) {
+					Blob b = rs.getBlob(index);
+					v = (b == null) ? null : b.getBytes(1, (int) b.length());
+				} else {
+					v = rs.getBytes(index);
+				}
+				if (v == null) {
+					isNull = true;
+				} else {
+					values.writeIntLE(v.length);
+					values.write(v, 0, v.length);
+				}
+				break;
+			}
+			}
+
+			if (pageValues == definitionLevels.length) {
+				byte[] grown = new byte[definitionLevels.length * 2];
+				System.arraycopy(definitionLevels, 0, grown, 0, pageValues);
+				definitionLevels = grown;
+			}
+			definitionLevels[pageValues++] = (byte) (isNull ? 0 : 1);
+
+			if (values.size() >= PAGE_SIZE) {
+				flushPage();
+			}
+		}
+
+		/*
+		 * Encode the buffered values as a data page and add it to the column chunk.
+		 */
+		void flushPage() throws IOException {
+			if (pageValues == 0) {
+				return;
+			}
+			if (booleanCount > 0) {
+				values.write(booleanBits);
+				booleanBits = 0;
+				booleanCount = 0;
+			}
+
+			// definition levels: RLE runs of the bit width 1 hybrid encoding, prefixed by their length
+			page.reset();
+			page.writeIntLE(0);
+			int i = 0;
+			while (i < pageValues) {
+				byte level = definitionLevels[i];
+				int run = 1;
+				while (i + run < pageValues && definitionLevels[i + run] == level) {
+					run++;
+				}
+				page.writeVarint(run << 1);
+				page.write(level);
+				i += run;
+			}
+			page.setIntLE(0, page.size() - 4);
+			values.writeTo(page);
+
+			int uncompressedSize = page.size();
+			ByteSink body = page;
+			if (codec == GZIP) {
+				scratch.reset();
+				GZIPOutputStream gzip = new GZIPOutputStream(scratch, 8192);
+				gzip.write(page.buffer(), 0, page.size());
+				gzip.close();
+				body = scratch;
+			}
+
+			int headerStart = chunk.size();
+			ThriftWriter t = new ThriftWriter(chunk);
+			t.i32(1, DATA_PAGE);
+			t.i32(2, uncompressedSize);
+			t.i32(3, body.size());
+			t.beginStruct(5);
+			t.i32(1, pageValues);
+			t.i32(2, PLAIN);
+			t.i32(3, RLE);
+			t.i32(4, RLE);
+			t.endStruct();
+			t.stop();
+			int headerSize = chunk.size() - headerStart;
+			body.writeTo(chunk);
+
+			chunkValues += pageValues;
+			chunkUncompressedSize += headerSize + uncompressedSize;
+			values.reset();
+			pageValues = 0;
+		}
+
+		/*
+		 * The two's complement unscaled value of d at the column's scale.  Rounding d, or writing more digits than the
+		 * precision declared in the schema, would silently change the value or make it unreadable, so both are rejected.
+		 */
+		byte[] unscaledBytes(BigDecimal d) {
+			BigDecimal scaled;
+			try {
+				scaled = d.setScale(scale);
+			} catch (ArithmeticException e) {
+				throw new ArithmeticException("The value " + d.toPlainString() + " of column " + name + " has more than the " + scale + " decimal places of DECIMAL(" + precision + "," + scale + ")");
+			}
+			if (scaled.precision() > precision) {
+				throw new ArithmeticException("The value " + d.toPlainString() + " of column " + name + " has more digits than DECIMAL(" + precision + "," + scale + ")");
+			}
+			return scaled.unscaledValue().toByteArray();
+		}
+
+		void resetChunk() {
+			chunk.reset();
+			chunkValues = 0;
+			chunkUncompressedSize = 0;
+		}
+	}
+
+	// java.sql.Date values are midnight in the server's time zone
+	private static int daysSinceEpoch(long millis) {
+		long local = millis + TimeZone.getDefault().getOffset(millis);
+		long days = local / MILLIS_PER_DAY;
+		if (local % MILLIS_PER_DAY < 0) {
+			days--;
+		}
+		return (int) days;
+	}
+
+	/*
+	 * Growable byte buffer with the little endian and varint writes the format needs.
+	 */
+	private static class ByteSink extends ByteArrayOutputStream {
+		ByteSink(int size) {
+			super(size);
+		}
+
+		byte[] buffer() {
+			return buf;
+		}
+
+		void writeIntLE(int v) {
+			write(v);
+			write(v >>> 8);
+			write(v >>> 16);
+			write(v >>> 24);
+		}
+
+		void writeLongLE(long v) {
+			writeIntLE((int) v);
+			writeIntLE((int) (v >>> 32));
+		}
+
+		void setIntLE(int offset, int v) {
+			buf[offset] = (byte) v;
+			buf[offset + 1] = (byte) (v >>> 8);
+			buf[offset + 2] = (byte) (v >>> 16);
+			buf[offset + 3] = (byte) (v >>> 24);
+		}
+
+		void writeVarint(long v) {
+			while ((v & ~0x7FL) != 0) {
+				write((int) ((v & 0x7F) | 0x80));
+				v >>>= 7;
+			}
+			write((int) v);
+		}
+
+		public void writeTo(OutputStream out) throws IOException {
+			out.write(buf, 0, count);
+		}
+	}
+
+	/*
+	 * Just enough of the Thrift compact protocol to write the parquet page headers and file footer.
+	 */
+	private static class ThriftWriter {
+		static final int I32 = 5;
+		static final int I64 = 6;
+		static final int BINARY = 8;
+		static final int LIST = 9;
+		static final int STRUCT = 12;
+
+		private final ByteSink out;
+		private final int[] fieldStack = new int[16];
+		private int depth = 0;
+		private int lastField = 0;
+
+		ThriftWriter(ByteSink out) {
+			this.out = out;
+		}
+
+		void i32(int id, int v) {
+			fieldHeader(I32, id);
+			out.writeVarint(zigzag(v));
+		}
+
+		void i64(int id, long v) {
+			fieldHeader(I64, id);
+			out.writeVarint(zigzag(v));
+		}
+
+		void string(int id, String v) {
+			fieldHeader(BINARY, id);
+			writeString(v);
+		}
+
+		void beginStruct(int id) {
+			fieldHeader(STRUCT, id);
+			fieldStack[depth++] = lastField;
+			lastField = 0;
+		}
+
+		void beginListStruct() {
+			fieldStack[depth++] = lastField;
+			lastField = 0;
+		}
+
+		void endStruct() {
+			out.write(0);
+			lastField = fieldStack[--depth];
+		}
+
+		void stop() {
+			out.write(0);
+		}
+
+		void listField(int id, int elementType, int size) {
+			fieldHeader(LIST, id);
+			if (size < 15) {
+				out.write((size << 4) | elementType);
+			} else {
+				out.write(0xF0 | elementType);
+				out.writeVarint(size);
+			}
+		}
+
+		void listI32(int v) {
+			out.writeVarint(zigzag(v));
+		}
+
+		void listString(String v) {
+			writeString(v);
+		}
+
+		private void writeString(String v) {
+			byte[] b = v.getBytes(UTF8);
+			out.writeVarint(b.length);
+			out.write(b, 0, b.length);
+		}
+
+		private void fieldHeader(int type, int id) {
+			int delta = id - lastField;
+			if (delta > 0 && delta <= 15) {
+				out.write((delta << 4) | type);
+			} else {
+				out.write(type);
+				out.writeVarint(zigzag(id));
+			}
+			lastField = id;
+		}
+
+		private static long zigzag(int v) {
+			return ((v << 1) ^ (v >> 31)) & 0xFFFFFFFFL;
+		}
+
+		private static long zigzag(long v) {
+			return (v << 1) ^ (v >> 63);
+		}
+	}
+}
@@ -0,0 +1,216 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+	ParquetFromCISQueryToFile:
+	  Function to execute a CIS query and write the result set to an Apache Parquet file.
+
+	  The columns are written as typed column vectors derived from the query's ResultSetMetaData (see
+	  ParquetFileWriter for the type mapping), in row groups of rows_per_row_group rows. The file can be
+	  read directly by Spark, Hive, Impala, pandas and other Parquet readers without any text parsing.
+
+	Inputs:
+	  query_string          - The query to execute.
+	    values: Any valid CIS query.
+
+	  total_columns         - Total number of columns to produce.  This is a validation against the number of fields queried.
+	                          When a non-positive number is used the validation is bypassed.
+	    values: Any integer.
+
+	  file_Path             - full path to the Parquet file that is to be created. The file is written as
+	                          <file_Path>.inprogress and renamed to file_Path when it is complete, so an existing
+	                          file is only replaced by a complete one.
+	    values: Any valid filesystem path (existing or not.)
+
+	  append                - Accepted for compatibility with CSVFromCISQueryToFile. A Parquet file ends with a footer
+	                          describing all of its row groups, so it cannot be appended to; write another file to
+	                          the same directory instead.
+	    values: 0=do not append file.
+
+	  rows_per_row_group    - Number of rows collected in memory before a row group is written. A row group is
+	                          written earlier once about 128 MB of column data has been collected.
+	    values: Any positive integer or NULL (defaults to 100000.)
+
+	  compression           - Compression of the data pages.
+	    values: none, gzip or NULL (defaults to none.)
+
+
+	Output:
+	  result                - Indicates success or failure
+	    values: 1 or 0
+
+
+	Exceptions:
+	  CustomProcedureException - Thrown when illegal arguments are passed, or when a DECIMAL value would have to be
+	                             rounded to the column's scale or has more digits than its precision.
+
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import com.compositesw.common.logging.Logger;
+import com.compositesw.extension.CustomProcedure;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class ParquetFromCISQueryToFile extends TextUtilTemplate implements CustomProcedure {
+  String loginfo = "Done.";
+  int error = 1;
+  ResultSet rs = null;
+
+  static {
+	className = "ParquetFromCISQueryToFile";
+	logger = Logger.getLogger(ParquetFromCISQueryToFile.class.getName());
+  }
+
+  public String getDescription() {
+    return "This procedure takes in a CIS query and writes the results to an Apache Parquet file.";
+  }
+
+  public String getName() {
+    return "ParquetFromCISQueryToFile";
+  }
+
+  public Object[] getOutputValues() {
+    return new Object[] { error };
+  }
+
+  public ParameterInfo[] getParameterInfo() {
+    return new ParameterInfo[] {
+      new ParameterInfo("query_string", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("total_columns", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo("file_Path", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("append", Types.SMALLINT, DIRECTION_IN),
+      new ParameterInfo("rows_per_row_group", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo("compression", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("result", Types.INTEGER, DIRECTION_OUT)
+    };
+  }
+
+  public void invoke(Object[] inputs) throws CustomProcedureException, SQLException {
+    ParquetFileWriter writer = null;
+
+    try {
+      String queryString = null;
+      int totalColumns = 0;
+      String filePath = null;
+      boolean append = false;
+      int rowsPerRowGroup = 100000;
+      String compression = null;
+
+      /*
+       * VALIDATE Input parameters
+       */
+      if (inputs[0] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter query_string must be provided.");
+      }
+      if (inputs[1] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter total_columns must be provided.");
+      }
+      if (inputs[2] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter file_Path must be provided.");
+      }
+      if (inputs[3] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter append must be provided.");
+      }
+
+      /*
+       * RETREIVE Input parameters
+       */
+      queryString = ((String) inputs[0]).trim();
+      totalColumns = (Integer) inputs[1];
+      filePath = inputs[2].toString();
+      append = (Integer.valueOf(inputs[3].toString()) == 1);
+      if (inputs[4] != null) {
+        rowsPerRowGroup = (Integer) inputs[4];
+      }
+      compression = ExportCompression.parse((String) inputs[5]);
+
+      loginfo += "DEBUG: \nARGS" +
+           "\nQuery: " + queryString +
+           "\nTotal Columns: " + totalColumns +
+           "\nFile Path: " + filePath +
+           "\nAppend: " + append +
+           "\nRows Per Row Group: " + rowsPerRowGroup +
+           "\nCompression: " + compression +
+           "\n";
+
+      /*
+       * VALIDATE parameters for content
+       */
+      if (append) {
+        throw new IllegalArgumentException ("A Parquet file cannot be appended to. Write a new file to the same directory instead.");
+      }
+      if (rowsPerRowGroup <= 0) {
+        throw new IllegalArgumentException ("The rows per row group must be a positive integer");
+      }
+
+      rs = qenv.executeQuery (queryString, null);
+      ResultSetMetaData rsmd = rs.getMetaData();
+      int numColumns = rsmd.getColumnCount();
+      loginfo += "COLUMN COUNT: " + numColumns;
+
+      // Validate the number of columns queried vs. the Total Number of Columns passed in and expected.  They should be equal
+      if (totalColumns > 0 && numColumns != totalColumns) {
+        throw new IllegalArgumentException ("The Number of columns selected in the query [" + numColumns + "] does not match the expected Total Columns in the format [" + totalColumns + "].");
+      }
+
+      writer = new ParquetFileWriter (filePath, rsmd, rowsPerRowGroup, compression);
+      while (rs.next()) {
+        writer.writeRow (rs);
+      }
+      writer.close();
+
+      loginfo += "\nROWCOUNT = " + writer.getRowCount() + "\nBYTES = " + writer.getBytesWritten();
+
+    } catch (Throwable t) {
+      error = 0;
+      if (writer != null) {
+        writer.abort();
+      }
+      String message = "Exception Occurred:";
+      if (t.getMessage() != null) message = message + " " + t.getMessage();
+      message = message+"\n";
+      logger.info (message+loginfo);
+      t.printStackTrace();
+      throw new CustomProcedureException(message+loginfo);
+
+    } finally {
+      try {
+        if (rs != null) {
+          if (! rs.isClosed()) { rs.close(); }
+        }
+      } catch (Throwable t) {
+        logger.info ("Exception Occurred closing result set: " + t.getMessage());
+      }
+      qenv.log (LOG_DEBUG, loginfo);
+    }
+  }
+}
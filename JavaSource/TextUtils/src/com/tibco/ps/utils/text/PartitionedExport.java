@@ -0,0 +1,286 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+/*
+	Description:
+	  Splits an export query into partition sub-queries on a single column, runs them on a bounded
+	  thread pool, and optionally concatenates the part files back into one file with a manifest.
+	  Used by CSVFromCISQueryToFileParallel and FixedFromCISQueryToFileParallel.
+
+	  A partition is either a range between two consecutive boundary values or a remainder of the
+	  partition column modulo N. NULL partition values are always placed in the first part so that
+	  every row of the original query is exported exactly once.
+
+	Inputs:
+	  N/A
+
+	Outputs:
+	  N/A
+
+	Exceptions:
+	  None
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+public class PartitionedExport {
+
+	private static final String NL = System.getProperty("line.separator");
+
+	/**
+	 * Writes one partition sub-query to one file.
+	 */
+	public interface PartWriter {
+		/**
+		 * @return the number of rows written
+		 */
+		int exportPart(String queryString, String filePath, boolean createHeaders) throws Exception;
+	}
+
+	/**
+	 * One partition of the export and, once it has run, its statistics.
+	 */
+	public static class Part {
+		public final int partNumber;
+		public final String predicate;
+		public final String queryString;
+		public final String filePath;
+		public int rows = 0;
+		public long bytes = 0;
+		public long offset = 0;
+		public long millis = 0;
+
+		Part(int partNumber, String predicate, String queryString, String filePath) {
+			this.partNumber = partNumber;
+			this.predicate = predicate;
+			this.queryString = queryString;
+			this.filePath = filePath;
+		}
+	}
+
+	/**
+	 * Build the list of partitions for a query.  Exactly one of partitionBoundaries or partitionModulus is used.
+	 *
+	 * @param queryString - the export query
+	 * @param partitionColumn - a column of the export query's result set
+	 * @param partitionBoundaries - pipe separated list of ascending SQL literals e.g. 1000|2000|3000 or DATE '2017-01-01'|DATE '2018-01-01'.
+	 *                              N boundaries produce N+1 parts: < b1, >= b1 and < b2, ..., >= bN
+	 * @param partitionModulus - number of parts to split an integer column into using ABS(MOD(column, N))
+	 * @param filePath - the export file.  part files are created next to it.
+	 */
+	public static List<Part> planParts(String queryString, String partitionColumn, String partitionBoundaries, int partitionModulus, String filePath) {
+		List<String> predicates = new ArrayList<String>();
+
+		if (partitionBoundaries != null && partitionBoundaries.trim().length() > 0) {
+			List<String> boundaries = new ArrayList<String>();
+			StringTokenizer st = new StringTokenizer(partitionBoundaries, "|");
+			while (st.hasMoreTokens()) {
+				String boundary = st.nextToken().trim();
+				if (boundary.length() > 0) {
+					boundaries.add(boundary);
+				}
+			}
+			if (boundaries.isEmpty()) {
+				throw new IllegalArgumentException("The partition boundaries must contain at least one value: " + partitionBoundaries);
+			}
+
+			predicates.add(partitionColumn + " < " + boundaries.get(0) + " OR " + partitionColumn + " IS NULL");
+			for (int i = 1; i < boundaries.size(); i++) {
+				predicates.add(partitionColumn + " >= " + boundaries.get(i - 1) + " AND " + partitionColumn + " < " + boundaries.get(i));
+			}
+			predicates.add(partitionColumn + " >= " + boundaries.get(boundaries.size() - 1));
+
+		} else {
+			if (partitionModulus < 1) {
+				throw new IllegalArgumentException("The partition modulus must be a positive integer");
+			}
+			predicates.add("ABS(MOD(" + partitionColumn + ", " + partitionModulus + ")) = 0 OR " + partitionColumn + " IS NULL");
+			for (int i = 1; i < partitionModulus; i++) {
+				predicates.add("ABS(MOD(" + partitionColumn + ", " + partitionModulus + ")) = " + i);
+			}
+		}
+
+		List<Part> parts = new ArrayList<Part>(predicates.size());
+		for (int i = 0; i < predicates.size(); i++) {
+			String predicate = predicates.get(i);
+			String partQuery = "SELECT * FROM (" + queryString + ") partitioned_query WHERE (" + predicate + ")";
+			parts.add(new Part(i + 1, predicate, partQuery, ExportFileSet.numberedFilePath(filePath, "part", i + 1)));
+		}
+		return parts;
+	}
+
+	/**
+	 * Run every part on a pool of at most parallelism threads.  If a part fails the parts that have not started are
+	 * cancelled and the first failure is thrown once the running parts have been interrupted and have finished, so
+	 * that none of them still uses the execution environment, a result set or a part file after the export has failed.
+	 *
+	 * @param headersInEveryPart - when false only part 1 is written with column headers (the parts are to be concatenated.)
+	 */
+	public static void run(List<Part> parts, int parallelism, final boolean createHeaders, final boolean headersInEveryPart,
+			final PartWriter writer, final String threadName) throws Exception {
+
+		final int threads = Math.max(1, Math.min(parallelism, parts.size()));
+		ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private int count = 0;
+			public synchronized Thread newThread(Runnable r) {
+				Thread t = new Thread(r, threadName + "-part-" + (++count));
+				t.setDaemon(true);
+				return t;
+			}
+		});
+
+		boolean finished = false;
+		try {
+			CompletionService<Part> completion = new ExecutorCompletionService<Part>(pool);
+			for (final Part part : parts) {
+				completion.submit(new Callable<Part>() {
+					public Part call() throws Exception {
+						long start = System.currentTimeMillis();
+						part.rows = writer.exportPart(part.queryString, part.filePath, createHeaders && (headersInEveryPart || part.partNumber == 1));
+						part.bytes = new File(part.filePath).length();
+						part.millis = System.currentTimeMillis() - start;
+						return part;
+					}
+				});
+			}
+
+			// wait in completion order so that a failing part is noticed straight away
+			for (int i = 0; i < parts.size(); i++) {
+				try {
+					completion.take().get();
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof Exception) {
+						throw (Exception) cause;
+					}
+					throw e;
+				}
+			}
+			finished = true;
+		} finally {
+			if (finished) {
+				pool.shutdown();
+			} else {
+				stop(pool);
+			}
+		}
+	}
+
+	/**
+	 * Interrupt the running parts and wait until they have stopped.  Each part closes its own result set and files
+	 * as it stops (see exportToFile.)
+	 */
+	private static void stop(ExecutorService pool) {
+		pool.shutdownNow();
+		boolean interrupted = false;
+		while (true) {
+			try {
+				if (pool.awaitTermination(1, TimeUnit.SECONDS)) {
+					break;
+				}
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Copy the part files, in part order, into filePath and delete them.  The offset of each part within filePath is recorded on the part.
+	 */
+	public static void concatenate(List<Part> parts, String filePath, boolean append) throws IOException {
+		File file = new File(filePath);
+		long offset = (append && file.isFile()) ? file.length() : 0;
+
+		FileOutputStream fos = new FileOutputStream(file, append);
+		try {
+			FileChannel out = fos.getChannel();
+			for (Part part : parts) {
+				FileInputStream fis = new FileInputStream(part.filePath);
+				try {
+					FileChannel in = fis.getChannel();
+					long size = in.size();
+					long position = 0;
+					while (position < size) {
+						position += in.transferTo(position, size - position, out);
+					}
+				} finally {
+					fis.close();
+				}
+				part.offset = offset;
+				offset += part.bytes;
+				new File(part.filePath).delete();
+			}
+		} finally {
+			fos.close();
+		}
+	}
+
+	/**
+	 * Write a tab separated manifest with one line per part.  When the parts were concatenated the file column holds filePath
+	 * and the offset column holds the byte offset of the part within it.
+	 *
+	 * @return the path of the manifest file
+	 */
+	public static String writeManifest(List<Part> parts, String filePath, boolean concatenated) throws IOException {
+		String manifestPath = filePath + ".manifest";
+		int totalRows = 0;
+		long totalBytes = 0;
+
+		BufferedWriter out = new BufferedWriter(new FileWriter(manifestPath, false));
+		try {
+			out.write("part\tfile\trows\tbytes\toffset\tmillis\tpredicate" + NL);
+			for (Part part : parts) {
+				out.write(part.partNumber + "\t" + (concatenated ? filePath : part.filePath) + "\t" + part.rows + "\t" + part.bytes + "\t" +
+						(concatenated ? part.offset : 0) + "\t" + part.millis + "\t" + part.predicate + NL);
+				totalRows += part.rows;
+				totalBytes += part.bytes;
+			}
+			out.write("total\t" + filePath + "\t" + totalRows + "\t" + totalBytes + NL);
+		} finally {
+			out.close();
+		}
+		return manifestPath;
+	}
+}
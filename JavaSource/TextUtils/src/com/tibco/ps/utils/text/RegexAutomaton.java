@@ -0,0 +1,1207 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+Description:
+  This utility class finds which of a set of regular expressions match a text in a single pass over
+  the text. The expressions are combined into one NFA (a Thompson construction of each expression,
+  with the start of every expression added again at each position of the text, so an expression may
+  match anywhere as with Matcher.find()) and the NFA is run as a DFA whose states are built as the
+  texts need them. Each DFA state records the expressions a match of which ends there.
+
+  Only whether an expression matches is decided, not where, so greedy and reluctant quantifiers and
+  the order of alternatives make no difference. The automaton supports literals and escapes, ., the
+  classes [...] (without nested classes or &&), \d \D \s \S \w \W, groups, alternation, the quantifiers
+  * + ? {n} {n,} {n,m} and their reluctant forms, ^ or \A at the start and $, \Z or \z at the end of
+  a top level alternative, and the embedded flags i (for ASCII), s, d and m (without ^ and $.) An
+  expression that uses anything else (such as back references, lookaround, \b, possessive quantifiers
+  or Unicode classes) is left out, and isSupported() returns false for it, so that the caller can
+  evaluate it with java.util.regex.
+
+  Texts that hold surrogate pairs are not evaluated (match() returns false), as java.util.regex
+  matches . and negated classes against whole code points.
+
+  The DFA states are built under a lock and shared by all threads. The number of transitions kept is
+  bounded by MAX_TRANSITIONS; when it is reached the states are dropped and built again, and
+  isOverflowing() returns true. Expressions such as a.{0,20}b need many states each, and together
+  many more, so the caller may then split the expressions over several automata.
+
+Inputs:
+  N/A
+
+Outputs:
+  N/A
+
+Exceptions:
+  None
+
+Date:        10/18/2026
+CSW Version: 8.0.0
+
+*/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+public class RegexAutomaton {
+
+    // the kinds of NFA state
+    //
+    private static final int SET = 0;           // reads a character of the set sets[arg]
+    private static final int SPLIT = 1;         // continues at both out and out2
+    private static final int ACCEPT = 2;        // a match of the expression arg ends here
+    private static final int END = 3;           // \z: a match if at the end of the text
+    private static final int DOLLAR = 4;        // $ or \Z: a match if at the end of the text or before a final line terminator
+    private static final int UNIX_DOLLAR = 5;   // $ with UNIX_LINES: a match if at the end of the text or before a final \n
+
+    // the maximum number of NFA states of an expression, which bounds the expansion of {n,m}
+    //
+    private static final int MAX_EXPRESSION_STATES = 10000;
+
+    // the maximum number of DFA transitions (states * character classes) kept
+    //
+    private static final int MAX_TRANSITIONS = 1 << 20;
+
+    // Pattern.UNICODE_CHARACTER_CLASS, which is not in Java 6
+    //
+    private static final int UNICODE_CHARACTER_CLASS = 0x100;
+
+    private static final int[] DIGIT = { '0', '9' };
+    private static final int[] SPACE = { '\t', '\r', ' ', ' ' };
+    private static final int[] WORD = { '0', '9', 'A', 'Z', '_', '_', 'a', 'z' };
+    private static final int[] ANY = { 0, 0xFFFF };
+
+    // the NFA
+    //
+    private int[] kind = new int[256];
+    private int[] out = new int[256];
+    private int[] out2 = new int[256];
+    private int[] arg = new int[256];
+    private int numStates = 0;
+
+    private final List<int[]> sets = new ArrayList<int[]>();
+    private final Map<SetKey, Integer> setIndex = new HashMap<SetKey, Integer>();
+
+    private final boolean[] supported;
+    private final int[] anchoredStarts;
+    private final int[] startClosure;
+    private final int[] rules;
+    private final int firstSupported;
+    private boolean hasEnds = false;
+
+    // the character classes: characters that are in the same sets take the same transitions
+    //
+    private final char[] classOf = new char[0x10000];
+    private final char[] classFirst;
+
+    // the DFA
+    //
+    private final Map<SetKey, State> states = new HashMap<SetKey, State>();
+    private final int maxStates;
+    private volatile State initial;
+    private volatile boolean overflowing = false;
+    private int[] mark;
+    private int generation = 0;
+
+    private static class State {
+        final int[] nfa;            // the SET, ACCEPT and end states of the NFA
+        final int[] accepts;        // the expressions a match of which ends here, or null
+        final boolean ends;         // true when nfa holds end states
+        final State[] next;         // the state after each character class, once built
+
+        State (int[] nfa, int[] accepts, boolean ends, int numClasses) {
+            this.nfa = nfa;
+            this.accepts = accepts;
+            this.ends = ends;
+            this.next = new State[numClasses];
+        }
+    }
+
+    // a key for an int[] in a HashMap
+    //
+    private static class SetKey {
+        final int[] values;
+        final int hash;
+
+        SetKey (int[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode (values);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals (Object o) {
+            return (o instanceof SetKey) && Arrays.equals (values, ((SetKey) o).values);
+        }
+    }
+
+    // combine the expressions for which include is true (or all of them if include is null.) the
+    // expressions must compile with Pattern.compile(); the ones the automaton can't evaluate are left
+    // out (see isSupported().)
+    //
+    public RegexAutomaton (String[] regexes, boolean[] include) {
+        supported = new boolean[regexes.length];
+        List<Integer> anchored = new ArrayList<Integer>();
+        List<Integer> unanchored = new ArrayList<Integer>();
+        List<Integer> included = new ArrayList<Integer>();
+
+        for (int r = 0; r < regexes.length; r++) {
+            if (include != null && ! include[r]) {
+                continue;
+            }
+            int base = numStates;
+            int numSets = sets.size();
+            int numAnchored = anchored.size();
+            int numUnanchored = unanchored.size();
+            try {
+                List<Branch> branches = new Parser (regexes[r]).parse();
+                for (int b = 0; b < branches.size(); b++) {
+                    Branch branch = branches.get (b);
+                    int start = compile (branch.node, newState (branch.end, -1, -1, r), base);
+                    ((branch.anchored) ? anchored : unanchored).add (start);
+                    hasEnds |= branch.end != ACCEPT;
+                }
+                supported[r] = true;
+                included.add (r);
+            } catch (Unsupported u) {
+                // drop what was built for the expression
+                //
+                numStates = base;
+                truncate (anchored, numAnchored);
+                truncate (unanchored, numUnanchored);
+                while (sets.size() > numSets) {
+                    setIndex.remove (new SetKey (sets.remove (sets.size() - 1)));
+                }
+            }
+        }
+
+        rules = toArray (included);
+        firstSupported = (rules.length > 0) ? rules[0] : -1;
+        anchoredStarts = toArray (anchored);
+        mark = new int[numStates];
+
+        // the states the expressions that aren't anchored start from, which are added at every position
+        //
+        generation++;
+        IntList list = new IntList();
+        for (int i = 0; i < unanchored.size(); i++) {
+            closure (unanchored.get (i), list);
+        }
+        startClosure = Arrays.copyOf (list.values, list.size);
+
+        classFirst = buildClasses();
+        maxStates = Math.max (16, MAX_TRANSITIONS / classFirst.length);
+        initial = newInitial();
+    }
+
+    public boolean isSupported (int rule) {
+        return supported[rule];
+    }
+
+    public int getSupportedCount() {
+        return rules.length;
+    }
+
+    // the supported expressions, in order
+    //
+    public int[] getRules() {
+        return rules.clone();
+    }
+
+    public int getFirstRule() {
+        return firstSupported;
+    }
+
+    // true once the DFA states have filled their cache. the automaton goes on working, building the
+    // states again as needed, but had better be replaced by automata for fewer expressions.
+    //
+    public boolean isOverflowing() {
+        return overflowing;
+    }
+
+    // set matched[r], which starts out false, for each supported expression r that matches the text.
+    // when first is true it may stop once the first supported expression has matched. returns false,
+    // with matched incomplete, when the text holds surrogate characters.
+    //
+    public boolean match (String text, boolean[] matched, boolean first) {
+        int remaining = rules.length;
+        int len = text.length();
+        int tail = len - 2;
+        State[] last = (hasEnds) ? new State[3] : null;
+        State s = initial;
+
+        if (s.accepts != null) {
+            remaining = accept (s.accepts, matched, remaining);
+        }
+        if (remaining == 0 || first && firstSupported >= 0 && matched[firstSupported]) {
+            return true;
+        }
+        if (last != null && tail <= 0) {
+            last[-tail] = s;
+        }
+
+        for (int i = 0; i < len; i++) {
+            char c = text.charAt (i);
+            if ((c & 0xF800) == 0xD800) {
+                return false;
+            }
+            int cls = classOf[c];
+            State n = s.next[cls];
+            if (n == null) {
+                n = step (s, cls);
+            }
+            s = n;
+            if (s.accepts != null) {
+                remaining = accept (s.accepts, matched, remaining);
+                if (remaining == 0 || first && matched[firstSupported]) {
+                    return true;
+                }
+            }
+            if (last != null && i + 1 >= tail) {
+                last[i + 1 - tail] = s;
+            }
+        }
+
+        // the expressions that end in $, \Z or \z
+        //
+        if (last != null) {
+            for (int p = Math.max (0, tail); p <= len; p++) {
+                State e = last[p - tail];
+                if (! e.ends) {
+                    continue;
+                }
+                for (int j = 0; j < e.nfa.length; j++) {
+                    int id = e.nfa[j];
+                    if (kind[id] >= END && ! matched[arg[id]] && endMatches (kind[id], text, p)) {
+                        matched[arg[id]] = true;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int accept (int[] accepts, boolean[] matched, int remaining) {
+        for (int j = 0; j < accepts.length; j++) {
+            if (! matched[accepts[j]]) {
+                matched[accepts[j]] = true;
+                remaining--;
+            }
+        }
+        return remaining;
+    }
+
+    // true when an end state matches at position p of the text, as java.util.regex's $, \Z and \z do.
+    //
+    private static boolean endMatches (int kind, String text, int p) {
+        int len = text.length();
+        if (p == len) {
+            return true;
+        }
+        if (kind == UNIX_DOLLAR) {
+            return p == len - 1 && text.charAt (p) == '\n';
+        }
+        if (kind == DOLLAR) {
+            char c = text.charAt (p);
+            if (p == len - 2) {
+                return c == '\r' && text.charAt (p + 1) == '\n';
+            }
+            if (c == '\n') {
+                return p == 0 || text.charAt (p - 1) != '\r';
+            }
+            return c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+        }
+        return false;
+    }
+
+    //
+    // the NFA
+    //
+
+    private int newState (int k, int o, int o2, int a) {
+        if (numStates == kind.length) {
+            int size = numStates * 2;
+            kind = Arrays.copyOf (kind, size);
+            out = Arrays.copyOf (out, size);
+            out2 = Arrays.copyOf (out2, size);
+            arg = Arrays.copyOf (arg, size);
+        }
+        kind[numStates] = k;
+        out[numStates] = o;
+        out2[numStates] = o2;
+        arg[numStates] = a;
+        return numStates++;
+    }
+
+    // compile a node to states that continue at next, and return the first of them.
+    //
+    private int compile (Node n, int next, int mark) {
+        if (numStates - mark > MAX_EXPRESSION_STATES) {
+            throw Unsupported.INSTANCE;
+        }
+        switch (n.type) {
+            case Node.SET:
+                return newState (SET, next, -1, set (n.set));
+
+            case Node.CAT:
+                for (int i = n.kids.length - 1; i >= 0; i--) {
+                    next = compile (n.kids[i], next, mark);
+                }
+                return next;
+
+            case Node.ALT: {
+                int s = compile (n.kids[n.kids.length - 1], next, mark);
+                for (int i = n.kids.length - 2; i >= 0; i--) {
+                    s = newState (SPLIT, compile (n.kids[i], next, mark), s, -1);
+                }
+                return s;
+            }
+
+            case Node.REPEAT: {
+                int s;
+                if (n.max < 0) {
+                    // (compiling the body may grow out[], so it is assigned afterwards)
+                    //
+                    s = newState (SPLIT, -1, next, -1);
+                    int body = compile (n.kids[0], s, mark);
+                    out[s] = body;
+                } else {
+                    s = next;
+                    for (int i = n.min; i < n.max; i++) {
+                        s = newState (SPLIT, compile (n.kids[0], s, mark), next, -1);
+                    }
+                }
+                for (int i = 0; i < n.min; i++) {
+                    s = compile (n.kids[0], s, mark);
+                }
+                return s;
+            }
+
+            default:
+                return next;
+        }
+    }
+
+    private int set (int[] ranges) {
+        SetKey key = new SetKey (ranges);
+        Integer i = setIndex.get (key);
+        if (i == null) {
+            i = sets.size();
+            sets.add (ranges);
+            setIndex.put (key, i);
+        }
+        return i;
+    }
+
+    private static void truncate (List<Integer> list, int size) {
+        while (list.size() > size) {
+            list.remove (list.size() - 1);
+        }
+    }
+
+    private static int[] toArray (List<Integer> list) {
+        int[] a = new int[list.size()];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = list.get (i);
+        }
+        return a;
+    }
+
+    // split the characters into the classes whose characters are in the same sets, and
+    // return the first character of each class.
+    //
+    private char[] buildClasses() {
+        boolean[] cut = new boolean[0x10001];
+        cut[0] = true;
+        for (int s = 0; s < sets.size(); s++) {
+            int[] ranges = sets.get (s);
+            for (int i = 0; i < ranges.length; i += 2) {
+                cut[ranges[i]] = true;
+                cut[ranges[i + 1] + 1] = true;
+            }
+        }
+
+        Map<BitSet, Integer> ids = new HashMap<BitSet, Integer>();
+        StringBuilder first = new StringBuilder();
+        int cls = 0;
+        for (int c = 0; c < 0x10000; c++) {
+            if (cut[c]) {
+                BitSet in = new BitSet (sets.size());
+                for (int s = 0; s < sets.size(); s++) {
+                    if (contains (sets.get (s), c)) {
+                        in.set (s);
+                    }
+                }
+                Integer id = ids.get (in);
+                if (id == null) {
+                    id = ids.size();
+                    ids.put (in, id);
+                    first.append ((char) c);
+                }
+                cls = id;
+            }
+            classOf[c] = (char) cls;
+        }
+        return first.toString().toCharArray();
+    }
+
+    //
+    // the DFA
+    //
+
+    private synchronized State newInitial() {
+        generation++;
+        IntList list = new IntList();
+        for (int i = 0; i < anchoredStarts.length; i++) {
+            closure (anchoredStarts[i], list);
+        }
+        addStarts (list);
+        return intern (list);
+    }
+
+    // build the state that follows a state on a character class.
+    //
+    private synchronized State step (State s, int cls) {
+        State n = s.next[cls];
+        if (n != null) {
+            return n;
+        }
+
+        generation++;
+        IntList list = new IntList();
+        char c = classFirst[cls];
+        for (int i = 0; i < s.nfa.length; i++) {
+            int id = s.nfa[i];
+            if (kind[id] == SET && contains (sets.get (arg[id]), c)) {
+                closure (out[id], list);
+            }
+        }
+        addStarts (list);
+
+        n = intern (list);
+        s.next[cls] = n;
+        return n;
+    }
+
+    private void addStarts (IntList list) {
+        for (int i = 0; i < startClosure.length; i++) {
+            int id = startClosure[i];
+            if (mark[id] != generation) {
+                mark[id] = generation;
+                list.add (id);
+            }
+        }
+    }
+
+    // add the states reached from an NFA state without reading a character.
+    //
+    private void closure (int id, IntList list) {
+        while (mark[id] != generation) {
+            mark[id] = generation;
+            if (kind[id] != SPLIT) {
+                list.add (id);
+                return;
+            }
+            closure (out[id], list);
+            id = out2[id];
+        }
+    }
+
+    private State intern (IntList list) {
+        int[] nfa = list.toSortedArray();
+        SetKey key = new SetKey (nfa);
+        State s = states.get (key);
+        if (s != null) {
+            return s;
+        }
+
+        if (states.size() >= maxStates) {
+            // drop the states; the ones still in use by a match() go on working and are then collected.
+            //
+            states.clear();
+            overflowing = true;
+            if (initial != null) {
+                initial = null;
+                initial = newInitial();
+                s = states.get (key);
+                if (s != null) {
+                    return s;
+                }
+            }
+        }
+
+        IntList accepts = new IntList();
+        boolean ends = false;
+        for (int i = 0; i < nfa.length; i++) {
+            if (kind[nfa[i]] == ACCEPT) {
+                accepts.add (arg[nfa[i]]);
+            } else if (kind[nfa[i]] >= END) {
+                ends = true;
+            }
+        }
+        s = new State (nfa, (accepts.size == 0) ? null : accepts.toSortedArray(), ends, classFirst.length);
+        states.put (key, s);
+        return s;
+    }
+
+    private static boolean contains (int[] ranges, int c) {
+        int lo = 0;
+        int hi = ranges.length / 2 - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (c < ranges[mid * 2]) {
+                hi = mid - 1;
+            } else if (c > ranges[mid * 2 + 1]) {
+                lo = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class IntList {
+        int[] values = new int[16];
+        int size = 0;
+
+        void add (int v) {
+            if (size == values.length) {
+                values = Arrays.copyOf (values, size * 2);
+            }
+            values[size++] = v;
+        }
+
+        int[] toSortedArray() {
+            int[] a = Arrays.copyOf (values, size);
+            Arrays.sort (a);
+            return a;
+        }
+    }
+
+    //
+    // the parser
+    //
+
+    // thrown by the parser and compiler for an expression the automaton can't evaluate
+    //
+    private static class Unsupported extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        static final Unsupported INSTANCE = new Unsupported();
+
+        public Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private static class Node {
+        static final int SET = 1;
+        static final int CAT = 2;
+        static final int ALT = 3;
+        static final int REPEAT = 4;
+
+        final int type;
+        int[] set;
+        Node[] kids;
+        int min;
+        int max;
+
+        Node (int type) {
+            this.type = type;
+        }
+    }
+
+    // a top level alternative, optionally anchored at the start and/or the end of the text
+    //
+    private static class Branch {
+        boolean anchored = false;
+        Node node;
+        int end = ACCEPT;
+    }
+
+    private static class Parser {
+        private final String re;
+        private final int len;
+        private int pos = 0;
+        private int flags = 0;
+        private int end;
+
+        Parser (String re) {
+            this.re = re;
+            this.len = re.length();
+        }
+
+        List<Branch> parse() {
+            List<Branch> branches = new ArrayList<Branch>();
+            for (;;) {
+                branches.add (parseBranch());
+                if (pos == len) {
+                    return branches;
+                }
+                if (re.charAt (pos) != '|') {
+                    throw Unsupported.INSTANCE;
+                }
+                pos++;
+            }
+        }
+
+        private Branch parseBranch() {
+            Branch b = new Branch();
+
+            // flags and an anchor at the start
+            //
+            for (;;) {
+                if (parseFlagGroup()) {
+                    continue;
+                }
+                if (! b.anchored && pos < len && re.charAt (pos) == '^') {
+                    if ((flags & Pattern.MULTILINE) != 0) {
+                        throw Unsupported.INSTANCE;
+                    }
+                    pos++;
+                    b.anchored = true;
+                    continue;
+                }
+                if (! b.anchored && re.startsWith ("\\A", pos)) {
+                    pos += 2;
+                    b.anchored = true;
+                    continue;
+                }
+                break;
+            }
+
+            end = ACCEPT;
+            b.node = parseSequence (true);
+            b.end = end;
+            return b;
+        }
+
+        // parse an inline modifier such as (?i) at pos. the flags stay set to the end of the enclosing group.
+        //
+        private boolean parseFlagGroup() {
+            if (! re.startsWith ("(?", pos)) {
+                return false;
+            }
+            int savePos = pos;
+            int saveFlags = flags;
+            pos += 2;
+            if (parseFlags() == ')') {
+                return true;
+            }
+            pos = savePos;
+            flags = saveFlags;
+            return false;
+        }
+
+        // parse flag letters up to and including a ')' or ':' and return it, or 0 if there are none.
+        //
+        private char parseFlags() {
+            boolean on = true;
+            while (pos < len) {
+                char c = re.charAt (pos++);
+                int f;
+                switch (c) {
+                    case 'i': f = Pattern.CASE_INSENSITIVE; break;
+                    case 'm': f = Pattern.MULTILINE; break;
+                    case 's': f = Pattern.DOTALL; break;
+                    case 'd': f = Pattern.UNIX_LINES; break;
+                    case 'u': f = Pattern.UNICODE_CASE; break;
+                    case 'x': f = Pattern.COMMENTS; break;
+                    case 'U': f = UNICODE_CHARACTER_CLASS; break;
+                    case '-': on = false; continue;
+                    case ')':
+                    case ':':
+                        if ((flags & (Pattern.COMMENTS | UNICODE_CHARACTER_CLASS)) != 0) {
+                            throw Unsupported.INSTANCE;
+                        }
+                        return c;
+                    default:
+                        return 0;
+                }
+                flags = (on) ? flags | f : flags & ~f;
+            }
+            return 0;
+        }
+
+        // parse a sequence up to a '|' or ')'. at the top level it may end with $, \Z or \z.
+        //
+        private Node parseSequence (boolean top) {
+            List<Node> items = new ArrayList<Node>();
+            while (pos < len) {
+                char c = re.charAt (pos);
+                if (c == '|' || c == ')') {
+                    break;
+                }
+                if (top && parseEnd()) {
+                    if (pos < len && re.charAt (pos) != '|') {
+                        throw Unsupported.INSTANCE;
+                    }
+                    break;
+                }
+                Node atom = parseAtom();
+                if (atom != null) {
+                    items.add (parseQuantifier (atom));
+                }
+            }
+            if (items.size() == 1) {
+                return items.get (0);
+            }
+            Node n = new Node (Node.CAT);
+            n.kids = items.toArray (new Node[items.size()]);
+            return n;
+        }
+
+        private boolean parseEnd() {
+            if (re.charAt (pos) == '$') {
+                if ((flags & Pattern.MULTILINE) != 0) {
+                    throw Unsupported.INSTANCE;
+                }
+                end = ((flags & Pattern.UNIX_LINES) != 0) ? UNIX_DOLLAR : DOLLAR;
+            } else if (re.startsWith ("\\Z", pos)) {
+                end = ((flags & Pattern.UNIX_LINES) != 0) ? UNIX_DOLLAR : DOLLAR;
+                pos++;
+            } else if (re.startsWith ("\\z", pos)) {
+                end = END;
+                pos++;
+            } else {
+                return false;
+            }
+            pos++;
+            return true;
+        }
+
+        // parse an atom, or return null for an inline modifier.
+        //
+        private Node parseAtom() {
+            char c = re.charAt (pos++);
+            switch (c) {
+                case '(':
+                    return parseGroup();
+                case '[':
+                    return set (parseClass());
+                case '.':
+                    return set (dot());
+                case '\\':
+                    return parseEscape();
+                case '^':
+                case '$':
+                case '*':
+                case '+':
+                case '?':
+                case '{':
+                    throw Unsupported.INSTANCE;
+                default:
+                    return set (literal (c));
+            }
+        }
+
+        private Node parseGroup() {
+            int save = flags;
+            if (pos < len && re.charAt (pos) == '?') {
+                pos++;
+                char c = (pos < len) ? re.charAt (pos) : 0;
+                if (c == ':') {
+                    pos++;
+                } else if (c == '<' && pos + 1 < len && Character.isLetter (re.charAt (pos + 1))) {
+                    // a named group
+                    //
+                    int close = re.indexOf ('>', pos);
+                    if (close < 0) {
+                        throw Unsupported.INSTANCE;
+                    }
+                    pos = close + 1;
+                } else {
+                    // lookaround and atomic groups aren't supported
+                    //
+                    char t = parseFlags();
+                    if (t == ')') {
+                        return null;
+                    }
+                    if (t != ':') {
+                        throw Unsupported.INSTANCE;
+                    }
+                }
+            }
+
+            Node n = parseSequence (false);
+            if (pos < len && re.charAt (pos) == '|') {
+                List<Node> alts = new ArrayList<Node>();
+                alts.add (n);
+                while (pos < len && re.charAt (pos) == '|') {
+                    pos++;
+                    alts.add (parseSequence (false));
+                }
+                n = new Node (Node.ALT);
+                n.kids = alts.toArray (new Node[alts.size()]);
+            }
+            if (pos >= len || re.charAt (pos) != ')') {
+                throw Unsupported.INSTANCE;
+            }
+            pos++;
+            flags = save;
+            return n;
+        }
+
+        private Node parseQuantifier (Node atom) {
+            if (pos >= len) {
+                return atom;
+            }
+            int min;
+            int max;
+            char c = re.charAt (pos);
+            if (c == '*') {
+                min = 0;
+                max = -1;
+            } else if (c == '+') {
+                min = 1;
+                max = -1;
+            } else if (c == '?') {
+                min = 0;
+                max = 1;
+            } else if (c == '{') {
+                int close = re.indexOf ('}', pos);
+                if (close < 0) {
+                    throw Unsupported.INSTANCE;
+                }
+                String bounds = re.substring (pos + 1, close);
+                int comma = bounds.indexOf (',');
+                try {
+                    if (comma < 0) {
+                        min = max = Integer.parseInt (bounds);
+                    } else {
+                        min = Integer.parseInt (bounds.substring (0, comma));
+                        max = (comma == bounds.length() - 1) ? -1 : Integer.parseInt (bounds.substring (comma + 1));
+                    }
+                } catch (NumberFormatException nfe) {
+                    throw Unsupported.INSTANCE;
+                }
+                if (min > MAX_EXPRESSION_STATES || max > MAX_EXPRESSION_STATES || max >= 0 && max < min) {
+                    throw Unsupported.INSTANCE;
+                }
+                pos = close;
+            } else {
+                return atom;
+            }
+            pos++;
+
+            // reluctant quantifiers match the same texts. possessive quantifiers don't.
+            //
+            if (pos < len && re.charAt (pos) == '?') {
+                pos++;
+            } else if (pos < len && re.charAt (pos) == '+') {
+                throw Unsupported.INSTANCE;
+            }
+
+            Node n = new Node (Node.REPEAT);
+            n.kids = new Node[] { atom };
+            n.min = min;
+            n.max = max;
+            return n;
+        }
+
+        private Node parseEscape() {
+            if (pos >= len) {
+                throw Unsupported.INSTANCE;
+            }
+            char c = re.charAt (pos);
+            int[] predefined = predefined (c);
+            if (predefined != null) {
+                pos++;
+                return set (predefined);
+            }
+            if (c == 'Q') {
+                int close = re.indexOf ("\\E", pos + 1);
+                String quoted = (close < 0) ? re.substring (pos + 1) : re.substring (pos + 1, close);
+                pos = (close < 0) ? len : close + 2;
+
+                // a quantifier after \Q...\E applies to its last character only
+                //
+                if (pos < len && "*+?{".indexOf (re.charAt (pos)) >= 0) {
+                    throw Unsupported.INSTANCE;
+                }
+                List<Node> items = new ArrayList<Node>();
+                for (int i = 0; i < quoted.length(); i++) {
+                    items.add (set (literal (quoted.charAt (i))));
+                }
+                Node n = new Node (Node.CAT);
+                n.kids = items.toArray (new Node[items.size()]);
+                return n;
+            }
+            return set (literal (parseEscapedChar()));
+        }
+
+        // \d \D \s \S \w \W, as java.util.regex defines them without UNICODE_CHARACTER_CLASS
+        //
+        private static int[] predefined (char c) {
+            switch (c) {
+                case 'd': return DIGIT;
+                case 'D': return negate (DIGIT);
+                case 's': return SPACE;
+                case 'S': return negate (SPACE);
+                case 'w': return WORD;
+                case 'W': return negate (WORD);
+                default: return null;
+            }
+        }
+
+        // parse the character of an escape after the backslash.
+        //
+        private char parseEscapedChar() {
+            char c = re.charAt (pos++);
+            int v;
+            switch (c) {
+                case 't': return '\t';
+                case 'n': return '\n';
+                case 'r': return '\r';
+                case 'f': return '\f';
+                case 'a': return '\u0007';
+                case 'e': return '\u001B';
+                case 'c':
+                    if (pos >= len) {
+                        throw Unsupported.INSTANCE;
+                    }
+                    return (char) (re.charAt (pos++) ^ 64);
+                case '0':
+                    v = octal();
+                    if (v < 0) {
+                        throw Unsupported.INSTANCE;
+                    }
+                    pos++;
+                    if (octal() >= 0) {
+                        int v2 = v * 8 + octal();
+                        pos++;
+                        if (octal() >= 0 && v <= 3) {
+                            v2 = v2 * 8 + octal();
+                            pos++;
+                        }
+                        v = v2;
+                    }
+                    return checkChar (v);
+                case 'x':
+                    if (pos < len && re.charAt (pos) == '{') {
+                        int close = re.indexOf ('}', pos);
+                        if (close < 0 || close - pos > 8) {
+                            throw Unsupported.INSTANCE;
+                        }
+                        v = hex (pos + 1, close);
+                        pos = close + 1;
+                    } else {
+                        v = hex (pos, pos + 2);
+                        pos += 2;
+                    }
+                    return checkChar (v);
+                case 'u':
+                    v = hex (pos, pos + 4);
+                    pos += 4;
+                    return checkChar (v);
+                default:
+                    // a backslash before a character that isn't a letter or digit quotes it
+                    //
+                    if (c < 128 && ! Character.isLetterOrDigit (c)) {
+                        return c;
+                    }
+                    throw Unsupported.INSTANCE;
+            }
+        }
+
+        private int octal() {
+            if (pos < len && re.charAt (pos) >= '0' && re.charAt (pos) <= '7') {
+                return re.charAt (pos) - '0';
+            }
+            return -1;
+        }
+
+        private int hex (int from, int to) {
+            if (to > len || from == to) {
+                throw Unsupported.INSTANCE;
+            }
+            try {
+                return Integer.parseInt (re.substring (from, to), 16);
+            } catch (NumberFormatException nfe) {
+                throw Unsupported.INSTANCE;
+            }
+        }
+
+        private static char checkChar (int v) {
+            if (v > 0xFFFF || v >= Character.MIN_SURROGATE && v <= Character.MAX_SURROGATE) {
+                throw Unsupported.INSTANCE;
+            }
+            return (char) v;
+        }
+
+        // parse a class after the '['.
+        //
+        private int[] parseClass() {
+            boolean negated = false;
+            if (pos < len && re.charAt (pos) == '^') {
+                negated = true;
+                pos++;
+            }
+
+            int[] set = new int[0];
+            boolean first = true;
+            for (;;) {
+                if (pos >= len) {
+                    throw Unsupported.INSTANCE;
+                }
+                char c = re.charAt (pos);
+                if (c == ']' && ! first) {
+                    pos++;
+                    break;
+                }
+                if (c == ']' || c == '[' || c == '&' && re.startsWith ("&&", pos)) {
+                    throw Unsupported.INSTANCE;
+                }
+                first = false;
+
+                if (c == '\\' && pos + 1 < len && predefined (re.charAt (pos + 1)) != null) {
+                    set = union (set, predefined (re.charAt (pos + 1)));
+                    pos += 2;
+                    if (pos + 1 < len && re.charAt (pos) == '-' && re.charAt (pos + 1) != ']') {
+                        throw Unsupported.INSTANCE;
+                    }
+                    continue;
+                }
+
+                char lo = classChar();
+                char hi = lo;
+                if (pos + 1 < len && re.charAt (pos) == '-' && re.charAt (pos + 1) != ']') {
+                    pos++;
+                    if (re.charAt (pos) == '[' || re.charAt (pos) == '\\' && pos + 1 < len && predefined (re.charAt (pos + 1)) != null) {
+                        throw Unsupported.INSTANCE;
+                    }
+                    hi = classChar();
+                    if (hi < lo) {
+                        throw Unsupported.INSTANCE;
+                    }
+                }
+                set = union (set, fold (new int[] { lo, hi }));
+            }
+            return (negated) ? negate (set) : set;
+        }
+
+        private char classChar() {
+            char c = re.charAt (pos++);
+            if (c == '\\') {
+                if (pos >= len || re.charAt (pos) == 'Q') {
+                    throw Unsupported.INSTANCE;
+                }
+                c = parseEscapedChar();
+            }
+            return checkChar (c);
+        }
+
+        private int[] dot() {
+            if ((flags & Pattern.DOTALL) != 0) {
+                return ANY;
+            }
+            if ((flags & Pattern.UNIX_LINES) != 0) {
+                return negate (new int[] { '\n', '\n' });
+            }
+            return negate (new int[] { '\n', '\n', '\r', '\r', 0x85, 0x85, 0x2028, 0x2029 });
+        }
+
+        private int[] literal (char c) {
+            checkChar (c);
+            return fold (new int[] { c, c });
+        }
+
+        // add the other case of the ASCII letters of a set when the expression is case insensitive.
+        //
+        private int[] fold (int[] set) {
+            if ((flags & Pattern.CASE_INSENSITIVE) == 0) {
+                return set;
+            }
+            if ((flags & Pattern.UNICODE_CASE) != 0) {
+                throw Unsupported.INSTANCE;
+            }
+            int[] folded = set;
+            for (char c = 'A'; c <= 'Z'; c++) {
+                char lower = (char) (c + ('a' - 'A'));
+                if (contains (set, c) != contains (set, lower)) {
+                    folded = union (folded, new int[] { c, c, lower, lower });
+                }
+            }
+            return folded;
+        }
+
+        private static Node set (int[] set) {
+            Node n = new Node (Node.SET);
+            n.set = set;
+            return n;
+        }
+    }
+
+    //
+    // sets of characters, as sorted and disjoint ranges {lo, hi, lo, hi, ...}
+    //
+
+    private static int[] union (int[] a, int[] b) {
+        int n = (a.length + b.length) / 2;
+        long[] ranges = new long[n];
+        for (int i = 0; i < a.length; i += 2) {
+            ranges[i / 2] = ((long) a[i] << 32) | a[i + 1];
+        }
+        for (int i = 0; i < b.length; i += 2) {
+            ranges[(a.length + i) / 2] = ((long) b[i] << 32) | b[i + 1];
+        }
+        Arrays.sort (ranges);
+
+        int[] merged = new int[n * 2];
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            int lo = (int) (ranges[i] >>> 32);
+            int hi = (int) ranges[i];
+            if (m > 0 && lo <= merged[m - 1] + 1) {
+                merged[m - 1] = Math.max (merged[m - 1], hi);
+            } else {
+                merged[m++] = lo;
+                merged[m++] = hi;
+            }
+        }
+        return Arrays.copyOf (merged, m);
+    }
+
+    private static int[] negate (int[] set) {
+        int[] negated = new int[set.length + 2];
+        int m = 0;
+        int next = 0;
+        for (int i = 0; i < set.length; i += 2) {
+            if (set[i] > next) {
+                negated[m++] = next;
+                negated[m++] = set[i] - 1;
+            }
+            next = set[i + 1] + 1;
+        }
+        if (next <= 0xFFFF) {
+            negated[m++] = next;
+            negated[m++] = 0xFFFF;
+        }
+        return Arrays.copyOf (negated, m);
+    }
+}
@@ -34,6 +34,8 @@ Description:
 Inputs:
   Input Text         - The text to search
   Regular Expression - The regular expression to search for
+  Flags              - Optional flags: any of i (case insensitive), m (multiline), s (dotall),
+                       u (unicode case), x (comments) and d (unix lines.) NULL for none.
 
 Outputs:
   result             - The count of the matched text (starting from 1.) 0 if no match found.
@@ -76,6 +78,7 @@ public class RegexCount implements CustomProcedure {
     return new ParameterInfo[] {
       new ParameterInfo ("Input Text", Types.VARCHAR, DIRECTION_IN),
       new ParameterInfo ("Regular Expression", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo ("Flags", Types.VARCHAR, DIRECTION_IN),
       new ParameterInfo ("result", Types.INTEGER, DIRECTION_OUT)
     };
   }
@@ -86,15 +89,28 @@ public class RegexCount implements CustomProcedure {
    * SQLException if there is an error during invoke.
    */
   public void invoke (Object[] inputValues) throws CustomProcedureException, SQLException {
+    // the text is matched through a BudgetedCharSequence, which stops an evaluation that
+    // goes over the limits set with SetRegexLimits (there are none by default.)
+    //
+    try {
+      evaluate (inputValues);
+    } catch (BudgetedCharSequence.BudgetExceededException bee) {
+      throw new CustomProcedureException (bee.getMessage());
+    }
+  }
+
+  private void evaluate (Object[] inputValues) throws CustomProcedureException, SQLException {
   
     // make sure we have the correct number of arguments
     //
-    if (inputValues.length == 0 || inputValues.length > 2)
+    if (inputValues.length == 0 || inputValues.length > 3)
       throw new CustomProcedureException ("Invalid number of arguments");
 
     String inputText;
     String regex;
+    int    flags;
     
+    RegexPatternCache.Entry compiled;
     Pattern p;
     Matcher m;
     
@@ -128,13 +144,33 @@ public class RegexCount implements CustomProcedure {
       throw new CustomProcedureException ("Input value for \"Regular Expression\" is not a VARCHAR type.");
     }
     
+    // get the flags
+    //
     try {
-      p = RegexPatternFactory.getPattern (regex);
+      flags = RegexPatternFactory.parseFlags ((String) inputValues[2]);
+    } catch (ClassCastException cce) {
+      // this shouldn't happen
+      //
+      throw new CustomProcedureException ("Input value for \"Flags\" is not a VARCHAR type.");
+    } catch (IllegalArgumentException iae) {
+      throw new CustomProcedureException (iae.getMessage());
+    }
+
+    try {
+      compiled = RegexPatternFactory.getCompiled (regex, flags);
     } catch (PatternSyntaxException pse) {
       throw new CustomProcedureException ("The supplied regular expression cannot be compiled: " + pse.getMessage());
     }
     
-    m = p.matcher (inputText);
+    // a regular expression that is only a literal string is counted with a plain text search.
+    //
+    if (compiled.literal != null) {
+      result = compiled.literal.count (inputText);
+      return;
+    }
+    
+    p = compiled.pattern;
+    m = p.matcher (BudgetedCharSequence.wrap (inputText));
 
     // Use the Matcher object to find out how many occurrences there are.
     //      
@@ -37,6 +37,8 @@ Inputs:
   Input Text         - The text to search
   Regular Expression - The regular expression to search for
   Occurrence         - The occurrance of the match (starting from 1 left to right or -1 right to left)
+  Flags              - Optional flags: any of i (case insensitive), m (multiline), s (dotall),
+                       u (unicode case), x (comments) and d (unix lines.) NULL for none.
 
 Outputs:
   result             - The matched text. NULL if no match found.
@@ -80,6 +82,7 @@ public class RegexFind implements CustomProcedure {
       new ParameterInfo ("Input Text", Types.VARCHAR, DIRECTION_IN),
       new ParameterInfo ("Regular Expression", Types.VARCHAR, DIRECTION_IN),
       new ParameterInfo ("Occurrence", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo ("Flags", Types.VARCHAR, DIRECTION_IN),
       new ParameterInfo ("result", Types.VARCHAR, DIRECTION_OUT)
     };
   }
@@ -90,14 +93,26 @@ public class RegexFind implements CustomProcedure {
    * SQLException if there is an error during invoke.
    */
   public void invoke (Object[] inputValues) throws CustomProcedureException, SQLException {
+    // the text is matched through a BudgetedCharSequence, which stops an evaluation that
+    // goes over the limits set with SetRegexLimits (there are none by default.)
+    //
+    try {
+      evaluate (inputValues);
+    } catch (BudgetedCharSequence.BudgetExceededException bee) {
+      throw new CustomProcedureException (bee.getMessage());
+    }
+  }
+
+  private void evaluate (Object[] inputValues) throws CustomProcedureException, SQLException {
   
     // make sure we have the correct number of arguments
     //
-    if (inputValues.length == 0 || inputValues.length > 3)
+    if (inputValues.length == 0 || inputValues.length > 4)
       throw new CustomProcedureException ("Invalid number of arguments");
 
     String inputText;
     String regex;
+    int    flags;
     int    occurrence;
     
     Pattern p;
@@ -154,14 +169,26 @@ public class RegexFind implements CustomProcedure {
       throw new CustomProcedureException (e.getMessage());
     }
 
+    // get the flags
+    //
+    try {
+      flags = RegexPatternFactory.parseFlags ((String) inputValues[3]);
+    } catch (ClassCastException cce) {
+      // this shouldn't happen
+      //
+      throw new CustomProcedureException ("Input value for \"Flags\" is not a VARCHAR type.");
+    } catch (IllegalArgumentException iae) {
+      throw new CustomProcedureException (iae.getMessage());
+    }
+
     try {
-      p = RegexPatternFactory.getPattern (regex);
+      p = RegexPatternFactory.getPattern (regex, flags);
     } catch (PatternSyntaxException pse) {
       throw new CustomProcedureException ("The supplied regular expression cannot be compiled: " + pse.getMessage());
     }
     
     boolean found = false;
-    m = p.matcher (inputText);
+    m = p.matcher (BudgetedCharSequence.wrap (inputText));
 
     // the Matcher object doesn't allow for starting at the end of the text and
     // working backwards, so we'll have to find out how many occurrences there
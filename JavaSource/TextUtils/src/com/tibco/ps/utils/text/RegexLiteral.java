@@ -0,0 +1,258 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+Description:
+  This utility class searches text for a regular expression that is only a literal string, without
+  going through a java.util.regex Matcher. RegexPatternCache classifies each expression when it is
+  compiled (see compile()) and the Regex* CJP's that only need the positions of the matches use the
+  literal, when there is one, instead of the Pattern.
+
+  An expression is a literal when it has no metacharacters other than escaped characters (such as
+  \. or \$) and \Q...\E quotes, or when it was compiled with the LITERAL flag. The MULTILINE, DOTALL
+  and UNIX_LINES flags don't change what a literal matches. A literal of ASCII characters may be
+  CASE_INSENSITIVE (without UNICODE_CASE), which in Java only folds the case of ASCII letters.
+
+  Case sensitive literals are found with String.indexOf(). Case insensitive literals are found with
+  a Boyer-Moore-Horspool search over the lower case of the text. The matches are found as Matcher.find()
+  finds them: from left to right, and not overlapping.
+
+Inputs:
+  N/A
+
+Outputs:
+  N/A
+
+Exceptions:
+  None
+
+Date:        10/18/2026
+CSW Version: 8.0.0
+
+*/
+
+import java.util.regex.Pattern;
+
+public class RegexLiteral {
+
+    // the Pattern flags that don't change what a literal matches
+    //
+    private static final int NEUTRAL_FLAGS = Pattern.MULTILINE | Pattern.DOTALL | Pattern.UNIX_LINES;
+
+    private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+
+    private final String literal;
+    private final boolean caseInsensitive;
+
+    // the Boyer-Moore-Horspool shift for each ASCII character of a case insensitive literal
+    //
+    private final int[] shifts;
+
+    private RegexLiteral (String literal, boolean caseInsensitive) {
+        this.literal = (caseInsensitive) ? toLowerAscii (literal) : literal;
+        this.caseInsensitive = caseInsensitive;
+        if (caseInsensitive) {
+            int len = literal.length();
+            shifts = new int[128];
+            for (int i = 0; i < shifts.length; i++) {
+                shifts[i] = len;
+            }
+            for (int i = 0; i < len - 1; i++) {
+                shifts[this.literal.charAt (i)] = len - 1 - i;
+            }
+        } else {
+            shifts = null;
+        }
+    }
+
+    // return the literal an expression matches, or null when it is not a literal.
+    //
+    public static RegexLiteral compile (String regex, int flags) {
+        boolean caseInsensitive = (flags & Pattern.CASE_INSENSITIVE) != 0;
+        flags &= ~(NEUTRAL_FLAGS | Pattern.CASE_INSENSITIVE);
+
+        String literal;
+        if (flags == Pattern.LITERAL) {
+            literal = regex;
+        } else if (flags == 0 || flags == Pattern.UNICODE_CASE && ! caseInsensitive) {
+            literal = unescape (regex);
+        } else {
+            return null;
+        }
+
+        if (literal == null || literal.length() == 0) {
+            return null;
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt (i);
+            if ((c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) || (caseInsensitive && c >= 128)) {
+                return null;
+            }
+        }
+        return new RegexLiteral (literal, caseInsensitive);
+    }
+
+    // return the text an expression matches, or null when it has metacharacters.
+    //
+    private static String unescape (String regex) {
+        StringBuilder sb = null;
+        int len = regex.length();
+
+        for (int i = 0; i < len; i++) {
+            char c = regex.charAt (i);
+            if (METACHARACTERS.indexOf (c) < 0) {
+                if (sb != null) {
+                    sb.append (c);
+                }
+                continue;
+            }
+            if (c != '\\' || i + 1 == len) {
+                return null;
+            }
+            if (sb == null) {
+                sb = new StringBuilder (len);
+                sb.append (regex, 0, i);
+            }
+            char next = regex.charAt (++i);
+            if (next == 'Q') {
+                int end = regex.indexOf ("\\E", i + 1);
+                if (end < 0) {
+                    end = len;
+                }
+                sb.append (regex, i + 1, end);
+                i = end + 1;
+            } else if (next < 128 && ! Character.isLetterOrDigit (next)) {
+                // a backslash before a character that isn't a letter or digit quotes it
+                sb.append (next);
+            } else {
+                return null;
+            }
+        }
+
+        return (sb == null) ? regex : sb.toString();
+    }
+
+    private static String toLowerAscii (String s) {
+        char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = toLowerAscii (chars[i]);
+        }
+        return new String (chars);
+    }
+
+    private static char toLowerAscii (char c) {
+        return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    public int length() {
+        return literal.length();
+    }
+
+    // return the position of the first match at or after from, or -1 if there is none.
+    //
+    public int indexOf (String text, int from) {
+        if (! caseInsensitive) {
+            return text.indexOf (literal, from);
+        }
+
+        int len = literal.length();
+        int last = len - 1;
+        int end = text.length() - len;
+        char lastChar = literal.charAt (last);
+
+        for (int i = from; i <= end; ) {
+            char c = toLowerAscii (text.charAt (i + last));
+            if (c == lastChar) {
+                int j = last - 1;
+                while (j >= 0 && toLowerAscii (text.charAt (i + j)) == literal.charAt (j)) {
+                    j--;
+                }
+                if (j < 0) {
+                    return i;
+                }
+            }
+            i += (c < 128) ? shifts[c] : len;
+        }
+        return -1;
+    }
+
+    // return the number of matches in the text.
+    //
+    public int count (String text) {
+        int count = 0;
+        for (int i = indexOf (text, 0); i >= 0; i = indexOf (text, i + literal.length())) {
+            count++;
+        }
+        return count;
+    }
+
+    // return the position of a match, numbered starting at 1 from left to right or at -1 from right
+    // to left, or -1 if there is no such match.
+    //
+    public int find (String text, int occurrence) {
+        if (occurrence < 0) {
+            occurrence = count (text) + occurrence + 1;
+        }
+        if (occurrence <= 0) {
+            return -1;
+        }
+        int i = indexOf (text, 0);
+        for (int n = 1; n < occurrence && i >= 0; n++) {
+            i = indexOf (text, i + literal.length());
+        }
+        return i;
+    }
+
+    // replace a match, numbered as for find(), or all the matches when occurrence is 0. the replacement
+    // is inserted as is; it must not hold the group references and escapes of Matcher replacements.
+    //
+    public String replace (String text, String replacement, int occurrence) {
+        if (occurrence != 0) {
+            int i = find (text, occurrence);
+            if (i < 0) {
+                return text;
+            }
+            StringBuilder sb = new StringBuilder (text.length() - literal.length() + replacement.length());
+            sb.append (text, 0, i).append (replacement).append (text, i + literal.length(), text.length());
+            return sb.toString();
+        }
+
+        int i = indexOf (text, 0);
+        if (i < 0) {
+            return text;
+        }
+        StringBuilder sb = new StringBuilder (text.length());
+        int start = 0;
+        for (; i >= 0; i = indexOf (text, start)) {
+            sb.append (text, start, i).append (replacement);
+            start = i + literal.length();
+        }
+        sb.append (text, start, text.length());
+        return sb.toString();
+    }
+
+    // true when a replacement text is inserted as is by Matcher, i.e. has no $ group references or \ escapes.
+    //
+    public static boolean isPlainReplacement (String replacement) {
+        return replacement.indexOf ('$') < 0 && replacement.indexOf ('\\') < 0;
+    }
+}
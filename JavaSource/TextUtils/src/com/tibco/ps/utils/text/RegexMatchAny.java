@@ -0,0 +1,298 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+Description:
+  Finds which of the rules of a rule set match a text. A rule set is a named set of regular
+  expressions in the RegexRules.properties file (in $CIS_HOME/conf/customjars; see
+  RegexRulesPropertiesFactory for how the file is located. An example file is written when there
+  is none.) The rules of the set "name" are the properties "name.<rule name>", in the order of
+  their rule names. The file is read again when it changes.
+
+  The rules are evaluated together in a single pass over the text by an automaton built from all
+  of them (see RegexAutomaton), instead of once for each rule. The rules that need java.util.regex,
+  such as rules with back references, lookaround or \b, are evaluated with it. A rule matches when
+  Matcher.find() would find a match of it in the text.
+
+  If a NULL value is passed in as the value of the text or the rule set, no rows are returned.
+
+Inputs:
+  Input Text         - The text to classify
+  Rule Set           - The name of the rule set
+  Mode               - ALL to return every rule that matches, FIRST to return only the first
+                       rule (in rule name order) that matches. NULL for ALL.
+
+Outputs:
+  result (           - A cursor of the rules that match, in rule name order.
+    ruleName         -   The name of a rule (without the rule set name)
+  )
+
+Exceptions:
+  CustomProcedureException - Thrown when the rule set has no rules or a rule can't be compiled.
+
+Date:        10/18/2026
+CSW Version: 8.0.0
+
+*/
+
+import com.compositesw.extension.*;
+
+import java.sql.SQLException;
+import java.sql.Types;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RegexMatchAny implements CustomProcedure {
+  protected ExecutionEnvironment qenv;
+  private List<Object[]> rows = new ArrayList<Object[]>();
+
+  public RegexMatchAny() {}
+
+  /**
+   * This is called once just after constructing the class.  The
+   * environment contains methods used to interact with the server.
+   */
+  public void initialize (ExecutionEnvironment qenv) throws SQLException {
+    this.qenv = qenv;
+  }
+
+  /**
+   * Called during introspection to get the description of the input
+   * and output parameters.  Should not return null.
+   */
+  public ParameterInfo[] getParameterInfo() {
+    return new ParameterInfo[] {
+      new ParameterInfo ("Input Text", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo ("Rule Set", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo ("Mode", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo ("result", TYPED_CURSOR, DIRECTION_OUT,
+        new ParameterInfo[] {
+          new ParameterInfo("ruleName", Types.VARCHAR, DIRECTION_OUT)
+        }
+      )
+    };
+  }
+
+  /**
+   * Called to invoke the stored procedure.  Will only be called a
+   * single time per instance.  Can throw CustomProcedureException or
+   * SQLException if there is an error during invoke.
+   */
+  public void invoke (Object[] inputValues) throws CustomProcedureException, SQLException {
+    // the rules the automaton can't evaluate are matched through a BudgetedCharSequence, which
+    // stops an evaluation that goes over the limits set with SetRegexLimits (none by default.)
+    //
+    try {
+      evaluate (inputValues);
+    } catch (BudgetedCharSequence.BudgetExceededException bee) {
+      throw new CustomProcedureException (bee.getMessage());
+    }
+  }
+
+  private void evaluate (Object[] inputValues) throws CustomProcedureException, SQLException {
+  
+    // make sure we have the correct number of arguments
+    //
+    if (inputValues.length == 0 || inputValues.length > 3)
+      throw new CustomProcedureException ("Invalid number of arguments");
+
+    String       inputText;
+    String       ruleSetName;
+    boolean      first;
+    RegexRuleSet ruleSet;
+    
+    // get the input text
+    //
+    try {
+      if (inputValues[0] == null) {
+        return;
+      }
+
+      inputText = (String) inputValues[0];
+    } catch (ClassCastException cce) {
+      // this shouldn't happen
+      //
+      throw new CustomProcedureException ("Input value for \"Input Text\" is not a VARCHAR type.");
+    }
+    
+    // get the rule set name
+    //
+    try {
+      if (inputValues[1] == null) {
+        return;
+      }
+
+      ruleSetName = (String) inputValues[1];
+    } catch (ClassCastException cce) {
+      // this shouldn't happen
+      //
+      throw new CustomProcedureException ("Input value for \"Rule Set\" is not a VARCHAR type.");
+    }
+    
+    // get the mode
+    //
+    try {
+      String mode = (String) inputValues[2];
+      
+      if (mode == null || mode.trim().equalsIgnoreCase ("ALL")) {
+        first = false;
+      } else if (mode.trim().equalsIgnoreCase ("FIRST")) {
+        first = true;
+      } else {
+        throw new CustomProcedureException ("Input value for \"Mode\" must be ALL or FIRST.");
+      }
+    } catch (ClassCastException cce) {
+      // this shouldn't happen
+      //
+      throw new CustomProcedureException ("Input value for \"Mode\" is not a VARCHAR type.");
+    }
+
+    RegexRulesPropertiesFactory.setCisLogger();
+    try {
+      ruleSet = RegexRuleSet.getRuleSet (ruleSetName);
+    } catch (IllegalArgumentException iae) {
+      throw new CustomProcedureException (iae.getMessage());
+    } catch (Exception e) {
+      throw new CustomProcedureException ("Unable to load the rule set \"" + ruleSetName + "\": " + e.getMessage());
+    }
+    
+    List<String> result = ruleSet.match (inputText, first);
+    for (int i = 0; i < result.size(); i++) {
+      Object[] row = new Object[1];
+      row[0] = result.get (i);
+      rows.add (row);
+    }
+  }
+
+  /**
+   * Called to retrieve the number of rows that were inserted,
+   * updated, or deleted during the execution of the procedure. A
+   * return value of -1 indicates that the number of affected rows is
+   * unknown.  Can throw CustomProcedureException or SQLException if
+   * there is an error when getting the number of affected rows.
+   */
+  public int getNumAffectedRows() {
+    return 0;
+  }
+
+  /**
+   * Called to retrieve the output values.  The returned objects
+   * should obey the Java to SQL typing conventions as defined in the
+   * table above.  Output cursors can be returned as either
+   * CustomCursor or java.sql.ResultSet.  Can throw
+   * CustomProcedureException or SQLException if there is an error
+   * when getting the output values.  Should not return null.
+   */
+  public Object[] getOutputValues() {
+    ResultCursor rc = new ResultCursor (rows);
+    return new Object[] {rc};
+  }
+
+  /**
+   * Called when the procedure reference is no longer needed.  Close
+   * may be called without retrieving any of the output values (such
+   * as cursors) or even invoking, so this needs to do any remaining
+   * cleanup.  Close may be called concurrently with any other call
+   * such as "invoke" or "getOutputValues".  In this case, any pending
+   * methods should immediately throw a CustomProcedureException.
+   */
+  public void close() throws SQLException {}
+
+  //
+  // Introspection methods
+  //
+
+  /**
+   * Called during introspection to get the short name of the stored
+   * procedure.  This name may be overridden during configuration.
+   * Should not return null.
+   */
+  public String getName() {
+    return "RegexMatchAny";
+  }
+
+  /**
+   * Called during introspection to get the description of the stored
+   * procedure.  Should not return null.
+   */
+  public String getDescription() {
+    return "Custom procedure to find the rules of a rule set of regular expressions that match a text";
+  }
+
+  //
+  // Transaction methods
+  //
+
+  /**
+   * Returns true if the custom procedure uses transactions.  If this
+   * method returns false then commit and rollback will not be called.
+   */
+  public boolean canCommit() {
+    return false;
+  }
+
+  /**
+   * Commit any open transactions.
+   */
+  public void commit() throws SQLException {}
+
+  /**
+   * Rollback any open transactions.
+   */
+  public void rollback() throws SQLException {}
+
+  /**
+   * Returns true if the transaction can be compensated.
+   */
+  public boolean canCompensate() {
+    return false;
+  }
+
+  /**
+   * Compensate any committed transactions (if supported).
+   */
+  public void compensate (ExecutionEnvironment qenv) throws SQLException {}
+
+  private class ResultCursor implements CustomCursor {
+    private List<Object[]> _rows;
+    private int i = 0;
+
+    public ResultCursor(List<Object[]> rows) {
+      _rows = rows;
+    }
+
+    public ParameterInfo[] getColumnInfo() {
+      return null;
+    }
+
+    public Object[] next() throws CustomProcedureException, SQLException {
+      if (_rows != null && i < _rows.size()) {
+        return _rows.get(i++);
+      } else
+        return null;
+    }
+
+    public void close() throws CustomProcedureException, SQLException {
+    }
+  }
+}
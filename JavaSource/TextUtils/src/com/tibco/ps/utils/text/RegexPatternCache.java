@@ -22,9 +22,30 @@ package com.tibco.ps.utils.text;
 
 /*
 Description:
-  This utility class extends LinkedHashMap to provide a sorted hash map of regex patterns to
-  to RegexPatternFactory. Overrides the removeEldestEntry() method to limit the number of
-  cached patterns to the initial capacity specifed when the class is instantiated.
+  This utility class is the cache of compiled regex patterns of RegexPatternFactory. It is
+  safe for concurrent use without a global lock: the patterns are held in a ConcurrentHashMap,
+  so a lookup of a cached pattern never blocks, and each entry records when it was last used
+  instead of being moved in an access ordered list. The time is a count of misses, which only
+  changes when a pattern is added, so hits on the patterns in use don't write to them.
+
+  Eviction is an approximate LRU. Once a new pattern takes the cache over its maximum size,
+  the thread that added it removes the least recently used entries down to 7/8 of the maximum
+  (unless another thread is already doing so), so the cost of finding them is paid once per
+  maxEntries/8 new patterns rather than on every one.
+
+  The patterns are keyed on the regular expression and its compile flags. An expression that
+  can't be compiled is cached as well, with its PatternSyntaxException, so that it isn't
+  compiled again (and again fails) for every row it is applied to.
+
+  The hit, miss, failure and eviction counts and the time spent compiling are kept for
+  GetRegexCacheMetrics.
+
+  Each pattern is also classified when it is compiled: an expression that only matches a
+  literal string is cached with a RegexLiteral, which the Regex* CJP's search with instead
+  of a Matcher where they can.
+
+  The hit count is incremented on every lookup, so it is striped over several counters to keep
+  the threads from contending on one.
 
 Inputs:
   N/A
@@ -41,24 +62,244 @@ CSW Version: 5.1.0
 
 */
 
-import java.util.LinkedHashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+public class RegexPatternCache {
+
+    // the cache key: a regular expression and its compile flags.
+    //
+    static final class Key {
+        final String regex;
+        final int flags;
+        private final int hash;
+
+        Key (String regex, int flags) {
+            this.regex = regex;
+            this.flags = flags;
+            this.hash = regex.hashCode() * 31 + flags;
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals (Object o) {
+            if (! (o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return flags == other.flags && regex.equals (other.regex);
+        }
+    }
+
+    // a cached pattern (with its literal, when it only matches a literal string) or the error
+    // compiling it, and the time it was last used. the time is written without synchronization;
+    // a lost update only makes the eviction order less exact.
+    //
+    static class Entry {
+        final Pattern pattern;
+        final RegexLiteral literal;
+        final PatternSyntaxException error;
+        volatile long lastUsed;
+
+        Entry (Pattern pattern, RegexLiteral literal, PatternSyntaxException error, long lastUsed) {
+            this.pattern = pattern;
+            this.literal = literal;
+            this.error = error;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    // a counter split over several cells, each on its own cache line, chosen by thread id.
+    //
+    static class StripedCounter {
+        private static final int STRIPES = 16;
+        private static final int PAD = 8;
+        private final AtomicLongArray cells = new AtomicLongArray (STRIPES * PAD);
+
+        void increment() {
+            cells.incrementAndGet ((int) (Thread.currentThread().getId() & (STRIPES - 1)) * PAD);
+        }
+
+        long get() {
+            long sum = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                sum += cells.get (i * PAD);
+            }
+            return sum;
+        }
+    }
+
+    // an entry considered for eviction, ordered least recently used first.
+    //
+    private static class Candidate implements Comparable<Candidate> {
+        final Key key;
+        final Entry entry;
+        final long lastUsed;
+
+        Candidate (Key key, Entry entry) {
+            this.key = key;
+            this.entry = entry;
+            this.lastUsed = entry.lastUsed;
+        }
+
+        public int compareTo (Candidate other) {
+            return (lastUsed < other.lastUsed) ? -1 : ((lastUsed == other.lastUsed) ? 0 : 1);
+        }
+    }
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<Key, Entry>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private volatile int maxEntries;
+
+    // the time of the entries: the number of misses so far. it only moves on a miss, so a hit
+    // on an entry already used since the last miss doesn't write to it.
+    //
+    private volatile long clock = 0;
+
+    private final StripedCounter hits = new StripedCounter();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong compileNanos = new AtomicLong();
+
+    RegexPatternCache (int maxEntries) {
+        setMaxEntries (maxEntries);
+    }
+
+    // return the compiled pattern of a regular expression with the given Pattern flags, compiling
+    // and caching it if it isn't cached yet. two threads that miss on the same expression at once
+    // may both compile it; the first one cached is kept.
+    //
+    // an expression that can't be compiled is cached too, and the same PatternSyntaxException is
+    // thrown again on every lookup, so a bad expression applied to every row of a result set fails
+    // without being compiled again for each row.
+    //
+    public Pattern getPattern (String regex, int flags) throws PatternSyntaxException {
+        return getEntry (regex, flags).pattern;
+    }
 
-public class RegexPatternCache extends LinkedHashMap {
+    // as getPattern(), returning the entry of the pattern, which also holds its literal.
+    //
+    Entry getEntry (String regex, int flags) throws PatternSyntaxException {
+        Key key = new Key (regex, flags);
+        Entry entry = entries.get (key);
+        if (entry != null) {
+            hits.increment();
+            long now = clock;
+            if (entry.lastUsed != now) {
+                entry.lastUsed = now;
+            }
+            if (entry.error != null) {
+                throw entry.error;
+            }
+            return entry;
+        }
 
-    private int maxEntries;
+        clock = misses.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            Pattern p = Pattern.compile (regex, flags);
+            entry = new Entry (p, RegexLiteral.compile (regex, flags), null, clock);
+        } catch (PatternSyntaxException pse) {
+            failures.incrementAndGet();
+            entry = new Entry (null, null, pse, clock);
+        }
+        compileNanos.addAndGet (System.nanoTime() - start);
 
-    RegexPatternCache (int i, float f, boolean b) {
-        super (i, f, b);
-        maxEntries = i; // set max capacity to initial capacity
+        Entry previous = entries.putIfAbsent (key, entry);
+        if (previous != null) {
+            entry = previous;
+        } else if (entries.size() > maxEntries) {
+            evict();
+        }
+        if (entry.error != null) {
+            throw entry.error;
+        }
+        return entry;
     }
 
-    // override the removeEldestEntry() method to create a size constrained container.
-    // the put() method will call this to determine if the oldest entry in the map needs
-    // to be removed.
+    // remove the least recently used entries down to 7/8 of the maximum. only one thread evicts at
+    // a time and the others carry on.
     //
-    @Override
-    protected boolean removeEldestEntry (Map.Entry eldest) {
-        return this.size() > this.maxEntries;
+    private void evict() {
+        if (! evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            int target = maxEntries - maxEntries / 8;
+            int excess = entries.size() - target;
+            if (excess <= 0) {
+                return;
+            }
+            // the times are read once, as other threads may update them while the entries are sorted
+            //
+            List<Candidate> candidates = new ArrayList<Candidate> (entries.size());
+            for (Map.Entry<Key, Entry> e : entries.entrySet()) {
+                candidates.add (new Candidate (e.getKey(), e.getValue()));
+            }
+            Collections.sort (candidates);
+            for (int i = 0; i < excess && i < candidates.size(); i++) {
+                Candidate c = candidates.get (i);
+                if (entries.remove (c.key, c.entry)) {
+                    evictions.incrementAndGet();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // set the maximum number of cached patterns. a smaller maximum takes effect at once.
+    //
+    public void setMaxEntries (int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException ("The maximum number of cached patterns must be a positive integer");
+        }
+        this.maxEntries = maxEntries;
+        if (entries.size() > maxEntries) {
+            evict();
+        }
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getCompileNanos() {
+        return compileNanos.get();
     }
 }
@@ -30,9 +30,14 @@ Description:
   to one or more columns of a result set, the performance impact of repeatedly compiling
   the same regex pattern is eliminated.)
 
-  A synchronized (thread-safe) LinkedHashMap is used to contain the patterns. When the max
-  number of patterns is reached, the least recently used pattern is replaced in the map
-  with the new pattern.
+  The patterns are held in a RegexPatternCache, which the Regex* CJP's of all the request
+  threads can read concurrently. When the max number of patterns is exceeded, the least
+  recently used patterns are removed from the cache. The max defaults to 256 patterns and
+  can be set with the system property com.tibco.ps.utils.text.RegexPatternFactory.maxEntries
+  or, while CIS is running, through GetRegexCacheMetrics.
+
+  Patterns are cached per set of flags (see parseFlags), and an expression that can't be
+  compiled is remembered as such.
 
 Inputs:
   N/A
@@ -49,35 +54,66 @@ CSW Version: 5.1.0
 
 */
 
-import java.util.Collections;
-import java.util.Map;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 public class RegexPatternFactory {
     
-    // establish the max capacity of the pattern cache
+    // the default max capacity of the pattern cache
     //
-    protected static final int MAX_ENTRIES = 256;
+    protected static final int DEFAULT_MAX_ENTRIES = 256;
     
-    // create a thread-safe LinkedHashMap that removes patterns in a LRU manner when max capacity is reached.
-    // NOTE: the RegexPatternCache class uses initial capacity as its max capacity.
+    // a thread-safe cache that removes patterns in a LRU manner when max capacity is exceeded.
     //
-    protected static Map<String, Pattern> patternCache = Collections.synchronizedMap (new RegexPatternCache(MAX_ENTRIES, 0.75f, true));
+    protected static final RegexPatternCache patternCache = new RegexPatternCache (
+        Integer.getInteger ("com.tibco.ps.utils.text.RegexPatternFactory.maxEntries", DEFAULT_MAX_ENTRIES));
     
-    // shouldn't need to synchronize here as we're doing simple lookups, not iterations.
-    //
     protected static Pattern getPattern (String patternString) throws PatternSyntaxException {
-        Pattern p;
-
-        p = patternCache.get (patternString);
+        return patternCache.getPattern (patternString, 0);
+    }
+    
+    protected static Pattern getPattern (String patternString, int flags) throws PatternSyntaxException {
+        return patternCache.getPattern (patternString, flags);
+    }
+    
+    // return the cache entry of an expression, which holds both its pattern and, when the expression
+    // only matches a literal string, its literal (see RegexLiteral.)
+    //
+    protected static RegexPatternCache.Entry getCompiled (String patternString, int flags) throws PatternSyntaxException {
+        return patternCache.getEntry (patternString, flags);
+    }
+    
+    // convert the Flags input of the Regex* CJP's, the letters of the embedded flags of a regular
+    // expression (as in (?im)), to Pattern flags. NULL or an empty string is no flags.
+    //
+    //   i - CASE_INSENSITIVE     m - MULTILINE      s - DOTALL
+    //   u - UNICODE_CASE         x - COMMENTS       d - UNIX_LINES
+    //
+    protected static int parseFlags (String flagString) throws IllegalArgumentException {
+        int flags = 0;
         
-        if (p == null) {
-            p = Pattern.compile (patternString);
-            patternCache.put (patternString, p);
+        if (flagString == null) {
+            return flags;
         }
-
-        return p;
-    };
+        
+        for (int i = 0; i < flagString.length(); i++) {
+            switch (flagString.charAt (i)) {
+                case 'i': flags |= Pattern.CASE_INSENSITIVE; break;
+                case 'm': flags |= Pattern.MULTILINE; break;
+                case 's': flags |= Pattern.DOTALL; break;
+                case 'u': flags |= Pattern.UNICODE_CASE; break;
+                case 'x': flags |= Pattern.COMMENTS; break;
+                case 'd': flags |= Pattern.UNIX_LINES; break;
+                case ' ': break;
+                default:
+                    throw new IllegalArgumentException ("Invalid regular expression flag '" + flagString.charAt (i) + "'. Use any of i, m, s, u, x and d.");
+            }
+        }
+        
+        return flags;
+    }
     
+    public static RegexPatternCache getPatternCache() {
+        return patternCache;
+    }
 }
@@ -38,6 +38,8 @@ Inputs:
   Input Text         - The text to search
   Regular Expression - The regular expression to search for
   Occurrence         - The occurrance of the match (starting from 1 left to right or -1 right to left)
+  Flags              - Optional flags: any of i (case insensitive), m (multiline), s (dotall),
+                       u (unicode case), x (comments) and d (unix lines.) NULL for none.
 
 Outputs:
   result             - The starting position of the matched text (starting from 1.) 0 if no match found.
@@ -81,6 +83,7 @@ public class RegexPosition implements CustomProcedure {
       new ParameterInfo ("Input Text", Types.VARCHAR, DIRECTION_IN),
       new ParameterInfo ("Regular Expression", Types.VARCHAR, DIRECTION_IN),
       new ParameterInfo ("Occurrence", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo ("Flags", Types.VARCHAR, DIRECTION_IN),
       new ParameterInfo ("result", Types.INTEGER, DIRECTION_OUT)
     };
   }
@@ -91,16 +94,29 @@ public class RegexPosition implements CustomProcedure {
    * SQLException if there is an error during invoke.
    */
   public void invoke (Object[] inputValues) throws CustomProcedureException, SQLException {
+    // the text is matched through a BudgetedCharSequence, which stops an evaluation that
+    // goes over the limits set with SetRegexLimits (there are none by default.)
+    //
+    try {
+      evaluate (inputValues);
+    } catch (BudgetedCharSequence.BudgetExceededException bee) {
+      throw new CustomProcedureException (bee.getMessage());
+    }
+  }
+
+  private void evaluate (Object[] inputValues) throws CustomProcedureException, SQLException {
   
     // make sure we have the correct number of arguments
     //
-    if (inputValues.length == 0 || inputValues.length > 3)
+    if (inputValues.length == 0 || inputValues.length > 4)
       throw new CustomProcedureException ("Invalid number of arguments");
 
     String inputText;
     String regex;
+    int    flags;
     int    occurrence;
     
+    RegexPatternCache.Entry compiled;
     Pattern p;
     Matcher m;
     
@@ -155,14 +171,34 @@ public class RegexPosition implements CustomProcedure {
       throw new CustomProcedureException (e.getMessage());
     }
 
+    // get the flags
+    //
     try {
-      p = RegexPatternFactory.getPattern (regex);
+      flags = RegexPatternFactory.parseFlags ((String) inputValues[3]);
+    } catch (ClassCastException cce) {
+      // this shouldn't happen
+      //
+      throw new CustomProcedureException ("Input value for \"Flags\" is not a VARCHAR type.");
+    } catch (IllegalArgumentException iae) {
+      throw new CustomProcedureException (iae.getMessage());
+    }
+
+    try {
+      compiled = RegexPatternFactory.getCompiled (regex, flags);
     } catch (PatternSyntaxException pse) {
       throw new CustomProcedureException ("The supplied regular expression cannot be compiled: " + pse.getMessage());
     }
     
+    // a regular expression that is only a literal string is found with a plain text search.
+    //
+    if (compiled.literal != null) {
+      result = compiled.literal.find (inputText, occurrence) + 1;
+      return;
+    }
+    
     boolean found = false;
-    m = p.matcher (inputText);
+    p = compiled.pattern;
+    m = p.matcher (BudgetedCharSequence.wrap (inputText));
 
     // the Matcher object doesn't allow for starting at the end of the text and
     // working backwards, so we'll have to find out how many occurrences there
@@ -41,6 +41,8 @@ Inputs:
   Regular Expression - The regular expression to search for
   Replacement Text   - The expression to use for replacing the match
   Occurrence         - The occurrance of the match (starting from 1 left to right or -1 right to left.) 0 means replace ALL occurrences.
+  Flags              - Optional flags: any of i (case insensitive), m (multiline), s (dotall),
+                       u (unicode case), x (comments) and d (unix lines.) NULL for none.
 
 Outputs:
   result             - The input text with the matche(s) replaced.
@@ -85,6 +87,7 @@ public class RegexReplace implements CustomProcedure {
       new ParameterInfo ("Regular Expression", Types.LONGVARCHAR, DIRECTION_IN),
       new ParameterInfo ("Replacement Text", Types.LONGVARCHAR, DIRECTION_IN),
       new ParameterInfo ("Occurrence", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo ("Flags", Types.VARCHAR, DIRECTION_IN),
       new ParameterInfo ("result", Types.LONGVARCHAR, DIRECTION_OUT)
     };
   }
@@ -95,17 +98,30 @@ public class RegexReplace implements CustomProcedure {
    * SQLException if there is an error during invoke.
    */
   public void invoke (Object[] inputValues) throws CustomProcedureException, SQLException {
+    // the text is matched through a BudgetedCharSequence, which stops an evaluation that
+    // goes over the limits set with SetRegexLimits (there are none by default.)
+    //
+    try {
+      evaluate (inputValues);
+    } catch (BudgetedCharSequence.BudgetExceededException bee) {
+      throw new CustomProcedureException (bee.getMessage());
+    }
+  }
+
+  private void evaluate (Object[] inputValues) throws CustomProcedureException, SQLException {
   
     // make sure we have the correct number of arguments
     //
-    if (inputValues.length == 0 || inputValues.length > 4)
+    if (inputValues.length == 0 || inputValues.length > 5)
       throw new CustomProcedureException ("Invalid number of arguments");
 
     String inputText;
     String regex;
+    int    flags;
     String replacementText;
     int    occurrence;
     
+    RegexPatternCache.Entry compiled;
     Pattern p;
     Matcher m;
     
@@ -170,14 +186,35 @@ public class RegexReplace implements CustomProcedure {
       throw new CustomProcedureException ("Input value \"Occurrence\" is not a INTEGER type.");
     }
 
+    // get the flags
+    //
     try {
-      p = RegexPatternFactory.getPattern (regex);
+      flags = RegexPatternFactory.parseFlags ((String) inputValues[4]);
+    } catch (ClassCastException cce) {
+      // this shouldn't happen
+      //
+      throw new CustomProcedureException ("Input value for \"Flags\" is not a VARCHAR type.");
+    } catch (IllegalArgumentException iae) {
+      throw new CustomProcedureException (iae.getMessage());
+    }
+
+    try {
+      compiled = RegexPatternFactory.getCompiled (regex, flags);
     } catch (PatternSyntaxException pse) {
       throw new CustomProcedureException ("The supplied regular expression cannot be compiled: " + pse.getMessage());
     }
     
+    // a regular expression that is only a literal string is replaced with a plain text search, unless
+    // the replacement text refers to groups or has escapes.
+    //
+    if (compiled.literal != null && RegexLiteral.isPlainReplacement (replacementText)) {
+      result = compiled.literal.replace (inputText, replacementText, occurrence);
+      return;
+    }
+    
     StringBuffer sb = new StringBuffer();
-    m = p.matcher (inputText);
+    p = compiled.pattern;
+    m = p.matcher (BudgetedCharSequence.wrap (inputText));
 
     if (occurrence == 0) {
 
@@ -0,0 +1,283 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+Description:
+  This utility class is a named set of regular expression rules for RegexMatchAny(). The rules of
+  the set "name" are the properties "name.<rule name>" of RegexRules.properties (see
+  RegexRulesPropertiesFactory), in the order of their rule names.
+
+  A rule set is compiled once and kept until the properties file changes. The compiled rule sets are
+  published as one immutable snapshot, so getRuleSet(), which RegexMatchAny() calls for every row,
+  returns a rule set without a lock or a file system call. The properties file is checked for changes
+  at most once every RELOAD_CHECK_MILLIS (5 seconds), by the first call after that time.
+
+  The rules are combined
+  into a RegexAutomaton, which finds the rules that match a text in a single pass over it. When the
+  states of an automaton don't fit in its cache (see RegexAutomaton.isOverflowing()), it is replaced
+  by two automata for half of its rules each, and a rule that doesn't fit by itself is left to
+  java.util.regex. The rules no automaton can evaluate (such as rules with back references or
+  lookaround), and all the rules for a text the automata can't evaluate, are matched with
+  java.util.regex through a BudgetedCharSequence.
+
+Inputs:
+  N/A
+
+Outputs:
+  N/A
+
+Exceptions:
+  None
+
+Date:        10/18/2026
+CSW Version: 8.0.0
+
+*/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+public class RegexRuleSet {
+
+    // how long the compiled rule sets are used before the properties file is checked for changes
+    //
+    private static final long RELOAD_CHECK_MILLIS = 5000L;
+
+    // the rule sets compiled from the current properties. replaced as a whole, under the class lock, when
+    // the properties are checked or a rule set is added.
+    //
+    private static volatile Snapshot snapshot = null;
+
+    private final String name;
+    private final String[] ruleNames;
+    private final String[] regexes;
+    private final Pattern[] patterns;
+    private volatile Plan plan;
+
+    // the automata and the rules they evaluate. replaced as a whole when an automaton is split.
+    //
+    private static class Plan {
+        final RegexAutomaton[] automata;
+        final boolean[] byAutomaton;
+
+        Plan (List<RegexAutomaton> automata, int numRules) {
+            this.automata = automata.toArray (new RegexAutomaton[automata.size()]);
+            this.byAutomaton = new boolean[numRules];
+            for (int i = 0; i < this.automata.length; i++) {
+                for (int r = 0; r < numRules; r++) {
+                    byAutomaton[r] |= this.automata[i].isSupported (r);
+                }
+            }
+        }
+    }
+
+    // the properties, the rule sets compiled from them and when the properties file was last checked
+    //
+    private static class Snapshot {
+        final Properties props;
+        final Map<String, RegexRuleSet> ruleSets;
+        final long checkedAt;
+
+        Snapshot (Properties props, Map<String, RegexRuleSet> ruleSets, long checkedAt) {
+            this.props = props;
+            this.ruleSets = ruleSets;
+            this.checkedAt = checkedAt;
+        }
+    }
+
+    // return a rule set. the rule sets are compiled again when the properties file has changed.
+    //
+    // throws an IllegalArgumentException when the rule set has no rules or a rule can't be compiled.
+    //
+    public static RegexRuleSet getRuleSet (String name) throws Exception {
+        Snapshot s = snapshot;
+        if (s != null && System.nanoTime() - s.checkedAt < RELOAD_CHECK_MILLIS * 1000000L) {
+            RegexRuleSet ruleSet = s.ruleSets.get (name);
+            if (ruleSet != null) {
+                return ruleSet;
+            }
+        }
+        return loadRuleSet (name);
+    }
+
+    // check the properties file when it is due and compile the rule set when it isn't in the snapshot
+    //
+    private static synchronized RegexRuleSet loadRuleSet (String name) throws Exception {
+        Snapshot s = snapshot;
+        long now = System.nanoTime();
+        if (s == null || now - s.checkedAt >= RELOAD_CHECK_MILLIS * 1000000L) {
+            Properties props = RegexRulesPropertiesFactory.getProperties();
+            Map<String, RegexRuleSet> ruleSets = (s != null && props == s.props) ? s.ruleSets : new HashMap<String, RegexRuleSet>();
+            s = new Snapshot (props, ruleSets, now);
+            snapshot = s;
+        }
+
+        RegexRuleSet ruleSet = s.ruleSets.get (name);
+        if (ruleSet == null) {
+            ruleSet = new RegexRuleSet (name, s.props);
+            Map<String, RegexRuleSet> ruleSets = new HashMap<String, RegexRuleSet>(s.ruleSets);
+            ruleSets.put (name, ruleSet);
+            snapshot = new Snapshot (s.props, ruleSets, s.checkedAt);
+        }
+        return ruleSet;
+    }
+
+    private RegexRuleSet (String name, Properties props) {
+        this.name = name;
+
+        String prefix = name + ".";
+        List<String> names = new ArrayList<String>();
+        for (Enumeration<?> e = props.propertyNames(); e.hasMoreElements(); ) {
+            String k = (String) e.nextElement();
+            if (k.startsWith (prefix) && k.length() > prefix.length()) {
+                names.add (k.substring (prefix.length()));
+            }
+        }
+        if (names.size() == 0) {
+            throw new IllegalArgumentException ("The rule set \"" + name + "\" has no rules.");
+        }
+        Collections.sort (names);
+
+        ruleNames = names.toArray (new String[names.size()]);
+        patterns = new Pattern[ruleNames.length];
+        regexes = new String[ruleNames.length];
+        for (int r = 0; r < ruleNames.length; r++) {
+            regexes[r] = props.getProperty (prefix + ruleNames[r]);
+            try {
+                patterns[r] = Pattern.compile (regexes[r]);
+            } catch (PatternSyntaxException pse) {
+                throw new IllegalArgumentException ("The rule \"" + prefix + ruleNames[r] + "\" cannot be compiled: " + pse.getMessage());
+            }
+        }
+
+        List<RegexAutomaton> automata = new ArrayList<RegexAutomaton>();
+        RegexAutomaton automaton = new RegexAutomaton (regexes, null);
+        if (automaton.getSupportedCount() > 0) {
+            automata.add (automaton);
+        }
+        plan = new Plan (automata, ruleNames.length);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getRuleCount() {
+        return ruleNames.length;
+    }
+
+    // the number of rules evaluated by the automata
+    //
+    public int getAutomatonRuleCount() {
+        Plan plan = this.plan;
+        int count = 0;
+        for (int i = 0; i < plan.automata.length; i++) {
+            count += plan.automata[i].getSupportedCount();
+        }
+        return count;
+    }
+
+    public int getAutomatonCount() {
+        return plan.automata.length;
+    }
+
+    // return the names of the rules that match the text in rule order, or only the first of them.
+    //
+    public List<String> match (String text, boolean first) {
+        Plan plan = this.plan;
+        boolean[] matched = new boolean[ruleNames.length];
+        boolean scanned = true;
+        int best = ruleNames.length;
+
+        for (int i = 0; i < plan.automata.length && scanned; i++) {
+            RegexAutomaton automaton = plan.automata[i];
+
+            // only the first match is needed, so an automaton whose rules all come after it is skipped
+            //
+            if (first && automaton.getFirstRule() > best) {
+                continue;
+            }
+            scanned = automaton.match (text, matched, first);
+            if (automaton.isOverflowing()) {
+                split (automaton);
+            }
+            if (first) {
+                for (int r = automaton.getFirstRule(); r < best; r++) {
+                    if (matched[r]) {
+                        best = r;
+                    }
+                }
+            }
+        }
+
+        CharSequence budgeted = null;
+        List<String> result = new ArrayList<String>();
+
+        for (int r = 0; r < ruleNames.length; r++) {
+            if (! scanned || ! plan.byAutomaton[r]) {
+                if (budgeted == null) {
+                    budgeted = BudgetedCharSequence.wrap (text);
+                }
+                matched[r] = patterns[r].matcher (budgeted).find();
+            }
+            if (matched[r]) {
+                result.add (ruleNames[r]);
+                if (first) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    // replace an automaton that overflows by two automata for half of its rules each. a rule that
+    // overflows by itself is evaluated with java.util.regex.
+    //
+    private synchronized void split (RegexAutomaton automaton) {
+        List<RegexAutomaton> automata = new ArrayList<RegexAutomaton>(Arrays.asList (plan.automata));
+        int i = automata.indexOf (automaton);
+        if (i < 0) {
+            return;
+        }
+        automata.remove (i);
+
+        int[] rules = automaton.getRules();
+        if (rules.length > 1) {
+            boolean[] lower = new boolean[ruleNames.length];
+            boolean[] upper = new boolean[ruleNames.length];
+            for (int j = 0; j < rules.length; j++) {
+                ((j < rules.length / 2) ? lower : upper)[rules[j]] = true;
+            }
+            automata.add (i, new RegexAutomaton (regexes, upper));
+            automata.add (i, new RegexAutomaton (regexes, lower));
+        }
+        plan = new Plan (automata, ruleNames.length);
+    }
+}
@@ -0,0 +1,112 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+    RegexRulesPropertiesFactory:
+
+    This factory class is used to either locate an existing RegexRules properties file
+    (in $CIS_HOME/conf/customjars) or create a new one if a properties file does not
+    already exist. The properties file holds the rule sets of the RegexMatchAny() CJP.
+    
+    When the getProperties() method is called, the method will look to see if the
+    properties file was updated since it was last loaded and will reload it if
+    changes have been made.
+
+    The file is located, loaded and parsed by the PropertiesFileFactory of RepoUtils
+    (build.xml compiles it into this jar), in the same way as RepoUtils.properties.
+    The values are regular expressions, so the $ and \ of a ${key} value are taken
+    literally when it is substituted.
+
+    Date:        10/18/2026
+    CSW Version: 8.0.0
+
+ */
+
+import java.util.Properties;
+
+import com.compositesw.extension.*;
+import com.tibco.ps.utils.repository.PropertiesFileFactory;
+
+public class RegexRulesPropertiesFactory {
+    
+    private static final String DEFAULT_PROPERTIES = 
+        "## RegexRules Properties\n" + 
+        "#\n" + 
+        "# Rule sets for the RegexMatchAny() CJP.\n" + 
+        "#\n" + 
+        "# Each rule is a property named <rule set>.<rule name> whose value is the regular expression of\n" + 
+        "# the rule (see the javadoc for java.util.regex.Pattern.) The rules of a rule set are evaluated\n" + 
+        "# in the order of their names, so a prefix such as 010_ may be used to give the rules a priority.\n" + 
+        "# An expression may start with embedded flags, such as (?i) for a case insensitive match. Note\n" + 
+        "# that a backslash in an expression is written as two backslashes (\\\\) in this file.\n" + 
+        "#\n" + 
+        "# Properties whose names have no dot don't belong to a rule set. They can hold the parts of\n" + 
+        "# expressions that several rules share (see referencing properties below.)\n" + 
+        "#\n" + 
+        "# Properties can be made to include the next line by using the backslash character (\\) at the end of\n" + 
+        "# the first line. The property value will continue at the first non-whitespace character of the next\n" + 
+        "# line. Example:\n" + 
+        "#\n" + 
+        "# my.prop = this is a \\\n" + 
+        "#           single property\n" + 
+        "#\n" + 
+        "# Results in a single property \"my.prop\" with the value \"this is a single property\"\n" + 
+        "#\n" + 
+        "# Properties can also be referenced in other properties:\n" + 
+        "#\n" + 
+        "# prop01 = this is a\n" + 
+        "# prop02 = ${prop01} single property\n" + 
+        "#\n" + 
+        "# The value of \"prop02\" resolves to  the value \"this is a single property\"\n" + 
+        "#\n" + 
+        "example.010_email=[A-Za-z0-9._%+-]+@[A-Za-z0-9-]+(?:\\\\.[A-Za-z0-9-]+)*\\\\.[A-Za-z]{2,}\n" + 
+        "example.020_phone=(?:\\\\+1[-. ]?)?\\\\(?[0-9]{3}\\\\)?[-. ]?[0-9]{3}[-. ][0-9]{4}\n" + 
+        "example.030_ssn=\\\\b[0-9]{3}-[0-9]{2}-[0-9]{4}\\\\b\n" + 
+        "example.040_url=(?i)(?:https?|ftp)://[^\\\\s/$.?#][^\\\\s]*\n";
+
+    private static final PropertiesFileFactory factory =
+        new PropertiesFileFactory ("RegexRules.properties", DEFAULT_PROPERTIES, RegexRulesPropertiesFactory.class.getName(), true);
+
+    // Write out the RegexRules properties.
+    //
+    public static void writeProperties() throws Exception {
+        factory.writeProperties();
+    }
+    
+    // returns the RegexRules properties.
+    //
+    // loads the properties if they haven't been loaded before (and writes
+    // an example if there is no properties file.) if the properties have been
+    // loaded, it looks to see if the properties file has been updated and
+    // reloads the properties.
+    //
+    public static Properties getProperties() throws Exception {
+        return factory.getProperties();
+    }
+    
+    // used in a CJP to set a logger to write to the cs_server.log file.
+    // this will throw a CustomProcedureException if not used in a CJP.
+    //
+    public static void setCisLogger () throws CustomProcedureException {
+        factory.setCisLogger();
+    }
+}
@@ -54,6 +54,8 @@ Inputs:
   Input Text         - The text to search
   Regular Expression - The regular expression to search for
   Limit              - The upper limit to the number of times to apply the split
+  Flags              - Optional flags: any of i (case insensitive), m (multiline), s (dotall),
+                       u (unicode case), x (comments) and d (unix lines.) NULL for none.
 
 Outputs:
   result (           - A cursor containing a result set of the split string.
@@ -101,6 +103,7 @@ public class RegexSplit implements CustomProcedure {
       new ParameterInfo ("Input Text", Types.VARCHAR, DIRECTION_IN),
       new ParameterInfo ("Regular Expression", Types.VARCHAR, DIRECTION_IN),
       new ParameterInfo ("Limit", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo ("Flags", Types.VARCHAR, DIRECTION_IN),
       new ParameterInfo ("result", TYPED_CURSOR, DIRECTION_OUT,
         new ParameterInfo[] {
           new ParameterInfo("splitElement", Types.VARCHAR, DIRECTION_OUT)
@@ -115,14 +118,26 @@ public class RegexSplit implements CustomProcedure {
    * SQLException if there is an error during invoke.
    */
   public void invoke (Object[] inputValues) throws CustomProcedureException, SQLException {
+    // the text is matched through a BudgetedCharSequence, which stops an evaluation that
+    // goes over the limits set with SetRegexLimits (there are none by default.)
+    //
+    try {
+      evaluate (inputValues);
+    } catch (BudgetedCharSequence.BudgetExceededException bee) {
+      throw new CustomProcedureException (bee.getMessage());
+    }
+  }
+
+  private void evaluate (Object[] inputValues) throws CustomProcedureException, SQLException {
   
     // make sure we have the correct number of arguments
     //
-    if (inputValues.length == 0 || inputValues.length > 3)
+    if (inputValues.length == 0 || inputValues.length > 4)
       throw new CustomProcedureException ("Invalid number of arguments");
 
     String  inputText;
     String  regex;
+    int     flags;
     int     limit;
     Pattern p;
     
@@ -171,13 +186,25 @@ public class RegexSplit implements CustomProcedure {
       throw new CustomProcedureException (e.getMessage());
     }
 
+    // get the flags
+    //
+    try {
+      flags = RegexPatternFactory.parseFlags ((String) inputValues[3]);
+    } catch (ClassCastException cce) {
+      // this shouldn't happen
+      //
+      throw new CustomProcedureException ("Input value for \"Flags\" is not a VARCHAR type.");
+    } catch (IllegalArgumentException iae) {
+      throw new CustomProcedureException (iae.getMessage());
+    }
+
     try {
-      p = RegexPatternFactory.getPattern (regex);
+      p = RegexPatternFactory.getPattern (regex, flags);
     } catch (PatternSyntaxException pse) {
       throw new CustomProcedureException ("The supplied regular expression cannot be compiled: " + pse.getMessage());
     }
     
-    String[] result = p.split (inputText, limit);
+    String[] result = p.split (BudgetedCharSequence.wrap (inputText), limit);
     for (int i = 0; i < result.length; i++) {
       Object[] row = new Object[1];
       row[0] = result[i];
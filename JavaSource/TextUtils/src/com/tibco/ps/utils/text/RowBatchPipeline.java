@@ -0,0 +1,221 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+/*
+	Description:
+	  Overlaps fetching a result set with formatting and writing it. A fetch thread drains rs.next() into
+	  row batches and the invoking thread takes the batches, in order, to format and write them:
+
+	    RowBatchPipeline pipeline = new RowBatchPipeline (rs, numColumns, batchRows, fetcher, name);
+	    try {
+	      RowBatch batch;
+	      while ((batch = pipeline.take()) != null) {
+	        ... format and write batch.getRow(0) .. batch.getRow(batch.size() - 1) ...
+	        pipeline.release (batch);
+	      }
+	    } finally {
+	      pipeline.close();
+	    }
+
+	  There is a fixed pool of BATCHES batches whose row arrays are reused, so the fetch thread waits
+	  (back-pressure) once it is that far ahead of the writer, and memory use is bounded by BATCHES * batchRows rows.
+
+	  An exception on the fetch thread is rethrown by take() once the batches fetched before it have been
+	  written. close() stops the fetch thread and waits for it, so the result set may be closed afterwards.
+
+	  The fetch thread times itself: getFetchNanos() is the time spent in rs.next() and the RowFetcher, not
+	  counting the time it waited for a free batch.
+
+	Inputs:
+	  N/A
+
+	Outputs:
+	  N/A
+
+	Exceptions:
+	  None
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+public class RowBatchPipeline {
+
+	// number of batches in the pool: one being fetched, one being written and two in reserve
+	public static final int BATCHES = 4;
+
+	/**
+	 * Copies the current row of a result set into a row array.  Called on the fetch thread.
+	 */
+	public interface RowFetcher {
+		void fetchRow(ResultSet rs, Object[] row) throws SQLException;
+	}
+
+	/**
+	 * Fetches every column with getString().
+	 */
+	public static final RowFetcher STRING_FETCHER = new RowFetcher() {
+		public void fetchRow(ResultSet rs, Object[] row) throws SQLException {
+			for (int x = 0; x < row.length; x++) {
+				row[x] = rs.getString(x + 1);
+			}
+		}
+	};
+
+	/**
+	 * A reusable batch of rows.
+	 */
+	public static class RowBatch {
+		private final Object[][] rows;
+		private int size = 0;
+
+		RowBatch(int batchRows, int columns) {
+			rows = new Object[batchRows][columns];
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public Object[] getRow(int index) {
+			return rows[index];
+		}
+	}
+
+	// marks the end of the result set (or a failure) on the queue of fetched batches
+	private static final RowBatch END = new RowBatch(0, 0);
+
+	private final BlockingQueue<RowBatch> free;
+	private final BlockingQueue<RowBatch> fetched = new LinkedBlockingQueue<RowBatch>();
+	private final Thread fetchThread;
+	private volatile boolean cancelled = false;
+	private volatile Throwable failure = null;
+	private volatile long firstRowTime = -1;
+	private volatile long fetchNanos = 0;
+	private boolean finished = false;
+
+	/**
+	 * Start fetching rs on a new thread.
+	 * @param batchRows - the number of rows in a batch
+	 */
+	public RowBatchPipeline(final ResultSet rs, int columns, int batchRows, final RowFetcher fetcher, String name) {
+		if (batchRows <= 0) {
+			throw new IllegalArgumentException("The rows per batch must be a positive integer");
+		}
+		free = new ArrayBlockingQueue<RowBatch>(BATCHES);
+		for (int i = 0; i < BATCHES; i++) {
+			free.add(new RowBatch(batchRows, columns));
+		}
+
+		fetchThread = new Thread(new Runnable() {
+			public void run() {
+				long nanos = 0;
+				try {
+					boolean more = true;
+					while (more && !cancelled) {
+						RowBatch batch = free.take();
+						batch.size = 0;
+						long start = System.nanoTime();
+						while (batch.size < batch.rows.length && !cancelled && (more = rs.next())) {
+							fetcher.fetchRow(rs, batch.rows[batch.size]);
+							if (firstRowTime < 0) {
+								firstRowTime = System.nanoTime();
+							}
+							batch.size++;
+						}
+						nanos += System.nanoTime() - start;
+						fetchNanos = nanos;
+						if (batch.size > 0) {
+							fetched.add(batch);
+						}
+					}
+				} catch (InterruptedException e) {
+					// cancelled by close()
+				} catch (Throwable t) {
+					failure = t;
+				} finally {
+					fetched.add(END);
+				}
+			}
+		}, name + " fetch");
+		fetchThread.setDaemon(true);
+		fetchThread.start();
+	}
+
+	/**
+	 * @return the next batch of rows, or null at the end of the result set
+	 * @throws Exception - the exception thrown while fetching, if any
+	 */
+	public RowBatch take() throws Exception {
+		if (finished) {
+			return null;
+		}
+		RowBatch batch = fetched.take();
+		if (batch != END) {
+			return batch;
+		}
+		finished = true;
+		if (failure instanceof Exception) {
+			throw (Exception) failure;
+		}
+		if (failure != null) {
+			throw new Exception(failure);
+		}
+		return null;
+	}
+
+	/**
+	 * Hand a batch returned by take() back to the fetch thread for reuse.
+	 */
+	public void release(RowBatch batch) {
+		free.add(batch);
+	}
+
+	/**
+	 * @return System.nanoTime() when the first row was fetched, or -1 when no row has been fetched
+	 */
+	public long getFirstRowTime() {
+		return firstRowTime;
+	}
+
+	/**
+	 * @return the time the fetch thread has spent fetching rows, in nanoseconds
+	 */
+	public long getFetchNanos() {
+		return fetchNanos;
+	}
+
+	/**
+	 * Stop fetching and wait for the fetch thread to finish.
+	 */
+	public void close() throws InterruptedException {
+		cancelled = true;
+		fetchThread.interrupt();
+		fetchThread.join();
+	}
+}
@@ -0,0 +1,116 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+	SetRegexLimits:
+	  Sets the limits of an evaluation of a regular expression by the Regex* procedures deployed in the same
+	  jar (see BudgetedCharSequence), and returns the limits in effect. An evaluation that reads more characters
+	  of its text or takes longer than these is stopped and its procedure fails. There are no limits until they
+	  are set, and they apply to the whole server until it is restarted or they are set again. The number of
+	  evaluations stopped is reported by GetRegexCacheMetrics.
+
+	Inputs:
+	  new_max_char_accesses - The maximum number of characters an evaluation of a regular expression may read.
+	    values: Any positive integer, 0 for no limit, or NULL to leave it as it is.
+
+	  new_max_millis        - The maximum time, in milliseconds, an evaluation of a regular expression may take.
+	    values: Any positive integer, 0 for no limit, or NULL to leave it as it is.
+
+
+	Output:
+	  max_char_accesses     - The maximum number of characters an evaluation may read (0 for no limit.)
+	  max_millis            - The maximum time an evaluation may take (0 for no limit.)
+
+
+	Exceptions:
+	  CustomProcedureException - Thrown when illegal arguments are passed.
+
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import com.compositesw.common.logging.Logger;
+import com.compositesw.extension.CustomProcedure;
+
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class SetRegexLimits extends TextUtilTemplate implements CustomProcedure {
+  private Object[] outputValues = null;
+
+  static {
+	className = "SetRegexLimits";
+	logger = Logger.getLogger(SetRegexLimits.class.getName());
+  }
+
+  public String getDescription() {
+    return "This procedure sets the maximum number of characters read and the maximum time of an evaluation of a regular expression.";
+  }
+
+  public String getName() {
+    return "SetRegexLimits";
+  }
+
+  public Object[] getOutputValues() {
+    return outputValues;
+  }
+
+  public ParameterInfo[] getParameterInfo() {
+    return new ParameterInfo[] {
+      new ParameterInfo("new_max_char_accesses", Types.BIGINT, DIRECTION_IN),
+      new ParameterInfo("new_max_millis", Types.BIGINT, DIRECTION_IN),
+      new ParameterInfo("max_char_accesses", Types.BIGINT, DIRECTION_OUT),
+      new ParameterInfo("max_millis", Types.BIGINT, DIRECTION_OUT)
+    };
+  }
+
+  public void invoke(Object[] inputs) throws CustomProcedureException, SQLException {
+    if (inputs[0] != null) {
+      long maxCharAccesses = ((Number) inputs[0]).longValue();
+      if (maxCharAccesses < 0) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter new_max_char_accesses must not be negative.");
+      }
+      BudgetedCharSequence.setMaxCharAccesses (maxCharAccesses);
+    }
+    if (inputs[1] != null) {
+      long maxMillis = ((Number) inputs[1]).longValue();
+      if (maxMillis < 0) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter new_max_millis must not be negative.");
+      }
+      BudgetedCharSequence.setMaxMillis (maxMillis);
+    }
+
+    if (qenv != null) {
+      qenv.log (LOG_INFO, getName() + ": max_char_accesses=" + BudgetedCharSequence.getMaxCharAccesses() + " max_millis=" + BudgetedCharSequence.getMaxMillis());
+    }
+
+    outputValues = new Object[] {
+      new Long (BudgetedCharSequence.getMaxCharAccesses()),
+      new Long (BudgetedCharSequence.getMaxMillis())
+    };
+  }
+}
@@ -0,0 +1,426 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+/*
+	Description:
+	  Streaming XML pretty printer used by FormatXML and FormatXMLToFile. The events of a StAX reader are
+	  written to a Writer as they are read, so only the state of the open elements (two flags per element)
+	  and the current run of whitespace are held in memory, whatever the size of the document.
+
+	  Each child element, comment and processing instruction is written on its own line, indented by one
+	  level per open element. An element with text only stays on one line (<a>text</a>) and an element
+	  without content is written as <a/>. Once an element has text other than whitespace nothing more
+	  is indented inside it, so the text of mixed content is not changed.
+
+	  Whitespace handling:
+	    IGNORE   - whitespace-only text between elements is replaced by the indentation (the default)
+	    TRIM     - as IGNORE, and the leading and trailing whitespace of text is removed
+	    PRESERVE - whitespace-only text is kept, so elements that have it are not indented
+
+	  Attributes are written on the line of their element, or each on its own line when the element has
+	  more than wrap_attributes attributes (including namespace declarations.)
+
+	  The XML declaration is not written. The output is in the encoding of the Writer.
+
+	Inputs:
+	  N/A
+
+	Outputs:
+	  N/A
+
+	Exceptions:
+	  None
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import java.io.IOException;
+import java.io.Writer;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+public class XMLFormatter {
+
+	public static final String WHITESPACE_IGNORE = "IGNORE";
+	public static final String WHITESPACE_TRIM = "TRIM";
+	public static final String WHITESPACE_PRESERVE = "PRESERVE";
+
+	private static final int IGNORE = 0;
+	private static final int TRIM = 1;
+	private static final int PRESERVE = 2;
+
+	private Writer out;
+	private final String indent;
+	private final int wrapAttributes;
+	private final int whitespace;
+
+	// by depth: whether the open element has child elements (or comments...) and whether it has text
+	private boolean[] hasChildren = new boolean[16];
+	private boolean[] hasText = new boolean[16];
+	private int depth = -1;
+	// the '>' of the last start tag is written when its content starts, so that an empty element is <a/>
+	private boolean startTagOpen = false;
+	private boolean written = false;
+
+	// the text since the last markup: whether it had text other than whitespace, and its trailing whitespace
+	private boolean runHasText = false;
+	private final StringBuilder pendingSpace = new StringBuilder();
+	private char[] spaceBuffer = new char[256];
+
+	/**
+	 * @param indent - number of spaces per level
+	 * @param wrapAttributes - the number of attributes above which each attribute is written on its own line, 0 for never
+	 * @param whitespace - IGNORE, TRIM or PRESERVE (case insensitive), or null for IGNORE
+	 */
+	public XMLFormatter(int indent, int wrapAttributes, String whitespace) {
+		if (indent < 0) {
+			throw new IllegalArgumentException("The indent must not be negative: " + indent);
+		}
+		if (wrapAttributes < 0) {
+			throw new IllegalArgumentException("The number of attributes to wrap at must not be negative: " + wrapAttributes);
+		}
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < indent; i++) {
+			sb.append(' ');
+		}
+		this.indent = sb.toString();
+		this.wrapAttributes = wrapAttributes;
+
+		if (whitespace == null || whitespace.trim().equalsIgnoreCase(WHITESPACE_IGNORE)) {
+			this.whitespace = IGNORE;
+		} else if (whitespace.trim().equalsIgnoreCase(WHITESPACE_TRIM)) {
+			this.whitespace = TRIM;
+		} else if (whitespace.trim().equalsIgnoreCase(WHITESPACE_PRESERVE)) {
+			this.whitespace = PRESERVE;
+		} else {
+			throw new IllegalArgumentException("The whitespace handling must be " + WHITESPACE_IGNORE + ", " + WHITESPACE_TRIM + " or " + WHITESPACE_PRESERVE + ": " + whitespace);
+		}
+	}
+
+	/**
+	 * Write the rest of the document of the reader. The reader and the writer are not closed.
+	 */
+	public void format(XMLStreamReader in, Writer out) throws XMLStreamException, IOException {
+		this.out = out;
+		depth = -1;
+		startTagOpen = false;
+		written = false;
+		runHasText = false;
+		pendingSpace.setLength(0);
+
+		while (in.hasNext()) {
+			switch (in.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					endText(false);
+					startElement(in);
+					break;
+
+				case XMLStreamConstants.END_ELEMENT:
+					endText(true);
+					endElement(in);
+					break;
+
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.SPACE:
+					text(in.getTextCharacters(), in.getTextStart(), in.getTextLength());
+					break;
+
+				case XMLStreamConstants.CDATA:
+					cdata(in.getTextCharacters(), in.getTextStart(), in.getTextLength());
+					break;
+
+				case XMLStreamConstants.ENTITY_REFERENCE:
+					// only reported when the reader doesn't replace entity references
+					writeSpace();
+					out.write('&');
+					out.write(in.getLocalName());
+					out.write(';');
+					break;
+
+				case XMLStreamConstants.COMMENT:
+					endText(false);
+					startMarkup();
+					out.write("<!--");
+					out.write(in.getText());
+					out.write("-->");
+					break;
+
+				case XMLStreamConstants.PROCESSING_INSTRUCTION:
+					endText(false);
+					startMarkup();
+					out.write("<?");
+					out.write(in.getPITarget());
+					String data = in.getPIData();
+					if (data != null && data.length() > 0) {
+						out.write(' ');
+						out.write(data);
+					}
+					out.write("?>");
+					break;
+
+				case XMLStreamConstants.DTD:
+					endText(false);
+					startMarkup();
+					out.write(in.getText());
+					break;
+
+				default:
+					break;
+			}
+		}
+		if (written) {
+			out.write('\n');
+		}
+	}
+
+	private void startElement(XMLStreamReader in) throws IOException {
+		startMarkup();
+		depth++;
+		if (depth == hasChildren.length) {
+			boolean[] children = new boolean[depth * 2];
+			System.arraycopy(hasChildren, 0, children, 0, depth);
+			hasChildren = children;
+			boolean[] text = new boolean[depth * 2];
+			System.arraycopy(hasText, 0, text, 0, depth);
+			hasText = text;
+		}
+		hasChildren[depth] = false;
+		hasText[depth] = false;
+
+		out.write('<');
+		writeName(in.getPrefix(), in.getLocalName());
+
+		int namespaces = in.getNamespaceCount();
+		int attributes = in.getAttributeCount();
+		boolean wrap = (wrapAttributes > 0 && namespaces + attributes > wrapAttributes);
+		for (int i = 0; i < namespaces; i++) {
+			attributeSeparator(wrap);
+			writeName("xmlns", in.getNamespacePrefix(i));
+			writeValue(in.getNamespaceURI(i));
+		}
+		for (int i = 0; i < attributes; i++) {
+			attributeSeparator(wrap);
+			writeName(in.getAttributePrefix(i), in.getAttributeLocalName(i));
+			writeValue(in.getAttributeValue(i));
+		}
+		startTagOpen = true;
+	}
+
+	private void endElement(XMLStreamReader in) throws IOException {
+		if (startTagOpen) {
+			out.write("/>");
+			startTagOpen = false;
+		} else {
+			if (hasChildren[depth] && !hasText[depth]) {
+				newLine(depth);
+			}
+			out.write("</");
+			writeName(in.getPrefix(), in.getLocalName());
+			out.write('>');
+		}
+		depth--;
+	}
+
+	/**
+	 * Start a child element, comment, processing instruction or DTD on a new line, unless its parent has text.
+	 */
+	private void startMarkup() throws IOException {
+		if (depth >= 0) {
+			closeStartTag();
+			hasChildren[depth] = true;
+			if (!hasText[depth]) {
+				newLine(depth + 1);
+			}
+		} else if (written) {
+			newLine(0);
+		}
+		written = true;
+	}
+
+	private void text(char[] chars, int start, int length) throws IOException {
+		// whitespace outside the root element is not kept
+		if (depth < 0) {
+			return;
+		}
+		int end = start + length;
+		int first = start;
+		while (first < end && isSpace(chars[first])) {
+			first++;
+		}
+		if (first == end) {
+			pendingSpace.append(chars, start, length);
+			return;
+		}
+		int last = end;
+		while (isSpace(chars[last - 1])) {
+			last--;
+		}
+		pendingSpace.append(chars, start, first - start);
+		writeSpace();
+		writeEscaped(chars, first, last - first);
+		pendingSpace.append(chars, last, end - last);
+	}
+
+	private void cdata(char[] chars, int start, int length) throws IOException {
+		writeSpace();
+		out.write("<![CDATA[");
+		out.write(chars, start, length);
+		out.write("]]>");
+	}
+
+	/**
+	 * Write the whitespace that comes before text: dropped at the start of the text when trimming.
+	 */
+	private void writeSpace() throws IOException {
+		if (!runHasText) {
+			startText();
+			if (whitespace == TRIM) {
+				pendingSpace.setLength(0);
+			}
+		}
+		writeEscaped(pendingSpace);
+		pendingSpace.setLength(0);
+	}
+
+	private void startText() throws IOException {
+		closeStartTag();
+		hasText[depth] = true;
+		runHasText = true;
+		written = true;
+	}
+
+	/**
+	 * End the text before markup.
+	 * @param endOfElement - whether the markup is the end tag of the element the text is in
+	 */
+	private void endText(boolean endOfElement) throws IOException {
+		if (runHasText) {
+			if (whitespace != TRIM) {
+				writeEscaped(pendingSpace);
+			}
+		} else if (pendingSpace.length() > 0 && depth >= 0) {
+			// whitespace-only text is kept when preserving it, and as the value of an element that has nothing else
+			if (whitespace == PRESERVE || (whitespace == IGNORE && endOfElement && !hasChildren[depth])) {
+				startText();
+				writeEscaped(pendingSpace);
+			}
+		}
+		pendingSpace.setLength(0);
+		runHasText = false;
+	}
+
+	private void closeStartTag() throws IOException {
+		if (startTagOpen) {
+			out.write('>');
+			startTagOpen = false;
+		}
+	}
+
+	private void newLine(int level) throws IOException {
+		out.write('\n');
+		for (int i = 0; i < level; i++) {
+			out.write(indent);
+		}
+	}
+
+	private void attributeSeparator(boolean wrap) throws IOException {
+		if (wrap) {
+			newLine(depth + 1);
+		} else {
+			out.write(' ');
+		}
+	}
+
+	private void writeName(String prefix, String localName) throws IOException {
+		if (prefix != null && prefix.length() > 0) {
+			out.write(prefix);
+			if (localName != null && localName.length() > 0) {
+				out.write(':');
+			}
+		}
+		if (localName != null) {
+			out.write(localName);
+		}
+	}
+
+	private void writeValue(String value) throws IOException {
+		out.write("=\"");
+		int start = 0;
+		int length = (value == null) ? 0 : value.length();
+		for (int i = 0; i < length; i++) {
+			String ref = null;
+			switch (value.charAt(i)) {
+				case '&':  ref = "&amp;";  break;
+				case '<':  ref = "&lt;";   break;
+				case '>':  ref = "&gt;";   break;
+				case '"':  ref = "&quot;"; break;
+				case '\t': ref = "&#9;";   break;
+				case '\n': ref = "&#10;";  break;
+				case '\r': ref = "&#13;";  break;
+				default:   break;
+			}
+			if (ref != null) {
+				out.write(value, start, i - start);
+				out.write(ref);
+				start = i + 1;
+			}
+		}
+		out.write(value, start, length - start);
+		out.write('"');
+	}
+
+	private void writeEscaped(StringBuilder text) throws IOException {
+		if (text.length() > spaceBuffer.length) {
+			spaceBuffer = new char[Math.max(text.length(), spaceBuffer.length * 2)];
+		}
+		text.getChars(0, text.length(), spaceBuffer, 0);
+		writeEscaped(spaceBuffer, 0, text.length());
+	}
+
+	private void writeEscaped(char[] chars, int start, int length) throws IOException {
+		int end = start + length;
+		int from = start;
+		for (int i = start; i < end; i++) {
+			String ref = null;
+			switch (chars[i]) {
+				case '&':  ref = "&amp;"; break;
+				case '<':  ref = "&lt;";  break;
+				case '>':  ref = "&gt;";  break;
+				case '\r': ref = "&#13;"; break;
+				default:   break;
+			}
+			if (ref != null) {
+				out.write(chars, from, i - from);
+				out.write(ref);
+				from = i + 1;
+			}
+		}
+		out.write(chars, from, end - from);
+	}
+
+	private static boolean isSpace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+	}
+}
@@ -0,0 +1,450 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+	Description:
+	  Tests of ParquetFileWriter, run by the test target of build.xml. The files written are read back
+	  by a minimal reader (ParquetReader below) that decodes the footer, the page headers, the
+	  definition levels and the values, and the rows are compared with the rows written. It also tests
+	  the rename of the .inprogress file when the writer is closed, abort() keeping a previous file, the
+	  DECIMAL values that are rejected, and the compressions that are accepted.
+
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+public class ParquetFileWriterTest {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static int failures = 0;
+
+	// the columns id INTEGER, name VARCHAR and amount DECIMAL(5, 2)
+	private static final String[] LABELS = { "id", "name", "amount" };
+	private static final int[] TYPES = { Types.INTEGER, Types.VARCHAR, Types.DECIMAL };
+	private static final int[] PRECISIONS = { 10, 20, 5 };
+	private static final int[] SCALES = { 0, 0, 2 };
+
+	// the rows the ResultSet returns, and the current one
+	private static Object[][] rows;
+	private static int row;
+
+	private static final ResultSetMetaData METADATA = (ResultSetMetaData) Proxy.newProxyInstance(
+		ParquetFileWriterTest.class.getClassLoader(), new Class<?>[] { ResultSetMetaData.class }, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				String name = method.getName();
+				if (name.equals("getColumnCount")) {
+					return LABELS.length;
+				}
+				int x = (Integer) args[0] - 1;
+				if (name.equals("getColumnLabel")) {
+					return LABELS[x];
+				} else if (name.equals("getColumnType")) {
+					return TYPES[x];
+				} else if (name.equals("getPrecision")) {
+					return PRECISIONS[x];
+				} else if (name.equals("getScale")) {
+					return SCALES[x];
+				}
+				throw new UnsupportedOperationException(name);
+			}
+		});
+
+	// a ResultSet of which only the getters by column index and wasNull() are used
+	private static final ResultSet RESULT_SET = (ResultSet) Proxy.newProxyInstance(
+		ParquetFileWriterTest.class.getClassLoader(), new Class<?>[] { ResultSet.class }, new InvocationHandler() {
+			private Object last;
+
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				String name = method.getName();
+				if (name.equals("wasNull")) {
+					return last == null;
+				}
+				last = rows[row][(Integer) args[0] - 1];
+				if (name.equals("getInt")) {
+					return (last == null) ? 0 : last;
+				}
+				return last;
+			}
+		});
+
+	public static void main(String[] args) throws Exception {
+		File dir = File.createTempFile("parquet", "");
+		dir.delete();
+		dir.mkdir();
+		File file = new File(dir, "orders.parquet");
+		File inProgress = new File(file.getPath() + ExportFileSet.IN_PROGRESS_SUFFIX);
+
+		try {
+			rows = new Object[][] {
+				{ 1, "Smith", new BigDecimal("1.5") },
+				{ 2, null, null },
+				{ 3, "Jones", new BigDecimal("-999.99") },
+				{ null, "", new BigDecimal("0") },
+				{ 5, "Brown", new BigDecimal("123.40") } };
+
+			// rows per row group 2, so that the file has 3 row groups
+			ParquetFileWriter writer = new ParquetFileWriter(file.getPath(), METADATA, 2, null);
+			writeRows(writer);
+			check("in progress before close", "true false", inProgress.exists() + " " + file.exists());
+			writer.close();
+			check("renamed on close", "false true", inProgress.exists() + " " + file.exists());
+			check("row count", "5", String.valueOf(writer.getRowCount()));
+			checkFile("uncompressed", file, writer.getBytesWritten());
+			long uncompressed = file.length();
+
+			writer = new ParquetFileWriter(file.getPath(), METADATA, 2, "gzip");
+			writeRows(writer);
+			writer.close();
+			checkFile("gzip", file, writer.getBytesWritten());
+			if (file.length() == uncompressed) {
+				fail("gzip", "another length than " + uncompressed, String.valueOf(file.length()));
+			}
+			long previous = file.length();
+
+			// 1.555 would have to be rounded to the scale 2, and 1000.00 has more than 5 digits
+			for (String amount : new String[] { "1.555", "1000.00" }) {
+				rows = new Object[][] { { 1, "Smith", new BigDecimal(amount) } };
+				writer = new ParquetFileWriter(file.getPath(), METADATA, 2, ExportCompression.NONE);
+				try {
+					writeRows(writer);
+					fail("rejects " + amount, "ArithmeticException", "no error");
+				} catch (ArithmeticException e) {
+					// expected
+				}
+				writer.abort();
+				check("abort keeps the previous file after " + amount, "false " + previous, inProgress.exists() + " " + file.length());
+			}
+
+			for (String compression : new String[] { "deflate", "zip" }) {
+				try {
+					new ParquetFileWriter(file.getPath(), METADATA, 2, compression).abort();
+					fail("rejects " + compression, "IllegalArgumentException", "no error");
+				} catch (IllegalArgumentException e) {
+					// expected
+				}
+			}
+		} finally {
+			file.delete();
+			inProgress.delete();
+			dir.delete();
+		}
+
+		if (failures > 0) {
+			System.out.println(ParquetFileWriterTest.class.getName() + ": " + failures + " failed");
+			System.exit(1);
+		}
+		System.out.println(ParquetFileWriterTest.class.getName() + ": passed");
+	}
+
+	private static void writeRows(ParquetFileWriter writer) throws Exception {
+		for (row = 0; row < rows.length; row++) {
+			writer.writeRow(RESULT_SET);
+		}
+	}
+
+	// PAR1, the row groups, the footer, its length and PAR1 again; the footer and the pages are decoded and the rows
+	// read are compared with the rows written
+	@SuppressWarnings("unchecked")
+	private static void checkFile(String name, File file, long bytesWritten) throws IOException {
+		byte[] bytes = new byte[(int) file.length()];
+		FileInputStream in = new FileInputStream(file);
+		try {
+			int n = 0;
+			while (n < bytes.length) {
+				n += in.read(bytes, n, bytes.length - n);
+			}
+		} finally {
+			in.close();
+		}
+
+		check(name + " length", String.valueOf(bytesWritten), String.valueOf(bytes.length));
+		check(name + " leading magic", "PAR1", new String(bytes, 0, 4, "US-ASCII"));
+		check(name + " trailing magic", "PAR1", new String(bytes, bytes.length - 4, 4, "US-ASCII"));
+
+		ParquetReader reader;
+		List<Object[]> read;
+		try {
+			reader = new ParquetReader(bytes);
+			read = reader.readRows();
+		} catch (RuntimeException e) {
+			fail(name + " decodes", "the rows", e.toString());
+			return;
+		}
+
+		// the schema: the root, then name, physical type (INT32 1, BYTE_ARRAY 6), converted type (UTF8 0, DECIMAL 5),
+		// scale and precision of each column, all OPTIONAL (1)
+		StringBuilder schema = new StringBuilder();
+		for (Object e : (List<Object>) reader.metaData.get(2)) {
+			Map<Integer, Object> element = (Map<Integer, Object>) e;
+			schema.append(element.get(4)).append(' ').append(element.get(1)).append(' ').append(element.get(3)).append(' ')
+				.append(element.get(6)).append(' ').append(element.get(7)).append(' ').append(element.get(8)).append(';');
+		}
+		check(name + " schema", "schema null null null null null;id 1 1 null null null;name 6 1 0 null null;amount 6 1 5 2 5;", schema.toString());
+		check(name + " rows", "5", String.valueOf(reader.metaData.get(3)));
+		check(name + " row groups", "3", String.valueOf(((List<Object>) reader.metaData.get(4)).size()));
+
+		List<Object[]> expected = new ArrayList<Object[]>();
+		for (Object[] r : rows) {
+			expected.add(new Object[] { r[0], r[1], (r[2] == null) ? null : ((BigDecimal) r[2]).setScale(2) });
+		}
+		check(name + " values", Arrays.deepToString(expected.toArray()), Arrays.deepToString(read.toArray()));
+	}
+
+	private static void check(String name, String expected, String actual) {
+		if (!expected.equals(actual)) {
+			fail(name, expected, actual);
+		}
+	}
+
+	private static void fail(String name, String expected, String actual) {
+		failures++;
+		System.out.println("FAILED " + name + ": expected " + expected + " but was " + actual);
+	}
+
+	/*
+	 * A minimal Parquet reader for the files of the test: it decodes the FileMetaData and the page headers (Thrift
+	 * compact protocol), the RLE/bit-packed definition levels and the PLAIN INT32 and BYTE_ARRAY values, and returns the
+	 * rows with the columns as Integer, String (UTF8) or BigDecimal (DECIMAL) values and null for a missing value.
+	 */
+	private static class ParquetReader {
+		// Thrift compact protocol types
+		private static final int TRUE = 1;
+		private static final int FALSE = 2;
+		private static final int BYTE = 3;
+		private static final int I16 = 4;
+		private static final int I32 = 5;
+		private static final int I64 = 6;
+		private static final int DOUBLE = 7;
+		private static final int BINARY = 8;
+		private static final int LIST = 9;
+		private static final int SET = 10;
+		private static final int STRUCT = 12;
+
+		private final byte[] bytes;
+		private int pos;
+
+		// the decoded FileMetaData, a struct of field id to value
+		final Map<Integer, Object> metaData;
+
+		ParquetReader(byte[] bytes) {
+			this.bytes = bytes;
+			int footerLength = (bytes[bytes.length - 8] & 0xFF) | (bytes[bytes.length - 7] & 0xFF) << 8
+				| (bytes[bytes.length - 6] & 0xFF) << 16 | (bytes[bytes.length - 5] & 0xFF) << 24;
+			pos = bytes.length - 8 - footerLength;
+			metaData = readStruct();
+			if (pos != bytes.length - 8) {
+				throw new IllegalStateException("The footer ends at " + pos + " instead of " + (bytes.length - 8));
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		List<Object[]> readRows() throws IOException {
+			List<Object> schema = (List<Object>) metaData.get(2);
+			int numColumns = schema.size() - 1;
+			List<Object[]> rows = new ArrayList<Object[]>();
+			for (Object g : (List<Object>) metaData.get(4)) {
+				Map<Integer, Object> group = (Map<Integer, Object>) g;
+				int first = rows.size();
+				long numRows = (Long) group.get(3);
+				for (long r = 0; r < numRows; r++) {
+					rows.add(new Object[numColumns]);
+				}
+				List<Object> chunks = (List<Object>) group.get(1);
+				for (int x = 0; x < numColumns; x++) {
+					Map<Integer, Object> element = (Map<Integer, Object>) schema.get(x + 1);
+					Map<Integer, Object> column = (Map<Integer, Object>) ((Map<Integer, Object>) chunks.get(x)).get(3);
+					readChunk(column, element, rows, first, x);
+				}
+			}
+			return rows;
+		}
+
+		@SuppressWarnings("unchecked")
+		private void readChunk(Map<Integer, Object> column, Map<Integer, Object> element, List<Object[]> rows, int row, int x) throws IOException {
+			long numValues = (Long) column.get(5);
+			boolean gzip = ((Long) column.get(4)) == 2;
+			pos = (int) (long) (Long) column.get(9);
+			while (numValues > 0) {
+				Map<Integer, Object> header = readStruct();
+				int compressedSize = (int) (long) (Long) header.get(3);
+				int pageValues = (int) (long) (Long) ((Map<Integer, Object>) header.get(5)).get(1);
+				byte[] page = Arrays.copyOfRange(bytes, pos, pos + compressedSize);
+				pos += compressedSize;
+				if (gzip) {
+					page = gunzip(page);
+				}
+				if (page.length != (int) (long) (Long) header.get(2)) {
+					throw new IllegalStateException("The page is " + page.length + " bytes instead of " + header.get(2));
+				}
+
+				// the definition levels: their length, then RLE runs and bit-packed groups of 1 bit values
+				ByteBuffer in = ByteBuffer.wrap(page).order(ByteOrder.LITTLE_ENDIAN);
+				int levelsEnd = in.getInt() + 4;
+				boolean[] defined = new boolean[pageValues];
+				int n = 0;
+				while (in.position() < levelsEnd) {
+					int runHeader = readVarint(in);
+					if ((runHeader & 1) == 0) {
+						boolean value = in.get() != 0;
+						for (int i = 0; i < runHeader >>> 1; i++) {
+							defined[n++] = value;
+						}
+					} else {
+						for (int i = 0; i < runHeader >>> 1; i++) {
+							int b = in.get();
+							for (int bit = 0; bit < 8 && n < pageValues; bit++) {
+								defined[n++] = (b & (1 << bit)) != 0;
+							}
+						}
+					}
+				}
+
+				// the PLAIN values of the rows that have one
+				for (int i = 0; i < pageValues; i++, row++) {
+					if (defined[i]) {
+						rows.get(row)[x] = readValue(in, element);
+					}
+				}
+				if (in.hasRemaining()) {
+					throw new IllegalStateException(in.remaining() + " bytes are left in a page of " + element.get(4));
+				}
+				numValues -= pageValues;
+			}
+		}
+
+		private static Object readValue(ByteBuffer in, Map<Integer, Object> element) throws IOException {
+			long type = (Long) element.get(1);
+			if (type == 1) {
+				return in.getInt();
+			}
+			byte[] value = new byte[in.getInt()];
+			in.get(value);
+			Long convertedType = (Long) element.get(6);
+			if (convertedType != null && convertedType == 5) {
+				return new BigDecimal(new BigInteger(value), (int) (long) (Long) element.get(7));
+			}
+			return new String(value, "UTF-8");
+		}
+
+		private static byte[] gunzip(byte[] compressed) throws IOException {
+			GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed));
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+				out.write(buffer, 0, n);
+			}
+			in.close();
+			return out.toByteArray();
+		}
+
+		private static int readVarint(ByteBuffer in) {
+			int value = 0;
+			for (int shift = 0; ; shift += 7) {
+				int b = in.get();
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+		}
+
+		private Map<Integer, Object> readStruct() {
+			Map<Integer, Object> struct = new HashMap<Integer, Object>();
+			int id = 0;
+			for (int b = bytes[pos++] & 0xFF; b != 0; b = bytes[pos++] & 0xFF) {
+				int delta = b >>> 4;
+				id = (delta == 0) ? (int) zigzag(readVarlong()) : id + delta;
+				int type = b & 0x0F;
+				struct.put(id, (type == TRUE || type == FALSE) ? Boolean.valueOf(type == TRUE) : readValue(type));
+			}
+			return struct;
+		}
+
+		private Object readValue(int type) {
+			switch (type) {
+			case BYTE:
+				return (long) bytes[pos++];
+			case I16:
+			case I32:
+			case I64:
+				return zigzag(readVarlong());
+			case DOUBLE:
+				pos += 8;
+				return null;
+			case BINARY:
+				int length = (int) readVarlong();
+				pos += length;
+				return new String(bytes, pos - length, length, UTF8);
+			case LIST:
+			case SET:
+				int header = bytes[pos++] & 0xFF;
+				long size = (header >>> 4 == 15) ? readVarlong() : header >>> 4;
+				List<Object> list = new ArrayList<Object>();
+				for (long i = 0; i < size; i++) {
+					list.add(((header & 0x0F) == TRUE) ? Boolean.valueOf(bytes[pos++] == TRUE) : readValue(header & 0x0F));
+				}
+				return list;
+			case STRUCT:
+				return readStruct();
+			default:
+				throw new IllegalStateException("Unexpected Thrift type " + type + " at " + (pos - 1));
+			}
+		}
+
+		private long readVarlong() {
+			long value = 0;
+			for (int shift = 0; ; shift += 7) {
+				int b = bytes[pos++];
+				value |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+		}
+
+		private static long zigzag(long n) {
+			return (n >>> 1) ^ -(n & 1);
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+Description:
+  Tests of RegexAutomaton and RegexRuleSet, run by the test target of build.xml. The expressions
+  the automaton supports are matched against a set of texts and the result is compared with
+  Matcher.find(); the expressions it doesn't support must be reported by isSupported(). The rule set
+  test uses the example rule set of the default RegexRules.properties, which it writes to the
+  working directory when no RegexRules.properties is found.
+
+*/
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+public class RegexAutomatonTest {
+
+    private static int failures = 0;
+
+    private static final String[] SUPPORTED = {
+        "abc", "a.c", "a|bc|", "^ab", "\\Aab", "bc$", "bc\\Z", "bc\\z", "^abc$", "x*", "a+b?c",
+        "(ab){2}", "(ab){2,}", "a{1,3}b", "a.{0,4}z", "[a-c]+x", "[^a-z0-9]", "[\\d.]+", "\\d{3}-\\d{4}",
+        "\\s\\S", "\\w+@\\w+", "\\W", "(?i)HeLLo", "(?s)a.b", "(?m)abc", "(?d)a.b", "a+?b", "(?:x|y)z",
+        "[A-Za-z0-9._%+-]+@[A-Za-z0-9-]+(?:\\.[A-Za-z0-9-]+)*\\.[A-Za-z]{2,}", "\\t", "\\x41", "\\u00e9",
+        "\\.", "[\\]]", "a{0}b" };
+
+    private static final String[] UNSUPPORTED = { "(a)\\1", "a(?=b)", "(?<!a)b", "\\bword\\b", "a*+", "\\p{L}", "[a-z&&[^b]]", "(?m)c$" };
+
+    private static final String[] TEXTS = {
+        "", "a", "abc", "xabcx", "abcabc", "ab\n", "bc\n", "c\nx", "abab", "ababab", "aaab", "az",
+        "a1234z", "a12345z", "ccx", "A-1", "3.14", "555-1234", " x", "bob@example.com", "mail bob@example.co.uk today",
+        "hello", "HELLO", "a\nb", "a\rb", "xz", "yz", "tab\there", "A", "\u00e9t\u00e9", "1.2", "]", "b", "\u00c9" };
+
+    public static void main (String[] args) throws Exception {
+        String[] regexes = concat (SUPPORTED, UNSUPPORTED);
+        RegexAutomaton automaton = new RegexAutomaton (regexes, null);
+        for (int r = 0; r < regexes.length; r++) {
+            check ("supports " + regexes[r], String.valueOf (r < SUPPORTED.length), String.valueOf (automaton.isSupported (r)));
+        }
+        check ("supported count", String.valueOf (SUPPORTED.length), String.valueOf (automaton.getSupportedCount()));
+
+        for (String text : TEXTS) {
+            boolean[] matched = new boolean[regexes.length];
+            check ("scans " + text, "true", String.valueOf (automaton.match (text, matched, false)));
+            for (int r = 0; r < SUPPORTED.length; r++) {
+                boolean expected = Pattern.compile (regexes[r]).matcher (text).find();
+                check (regexes[r] + " finds in \"" + text + "\"", String.valueOf (expected), String.valueOf (matched[r]));
+            }
+            for (int r = SUPPORTED.length; r < regexes.length; r++) {
+                check (regexes[r] + " is not evaluated on \"" + text + "\"", "false", String.valueOf (matched[r]));
+            }
+        }
+
+        // only the included expressions are combined
+        //
+        boolean[] include = new boolean[SUPPORTED.length];
+        include[1] = true;
+        include[3] = true;
+        RegexAutomaton some = new RegexAutomaton (SUPPORTED, include);
+        check ("included rules", "[1, 3]", Arrays.toString (some.getRules()));
+        check ("first rule", "1", String.valueOf (some.getFirstRule()));
+
+        // a text with a surrogate pair is left to java.util.regex
+        //
+        check ("surrogates", "false", String.valueOf (automaton.match ("a\ud83d\ude00c", new boolean[regexes.length], false)));
+
+        RegexRuleSet ruleSet = RegexRuleSet.getRuleSet ("example");
+        check ("example rules", "4", String.valueOf (ruleSet.getRuleCount()));
+        check ("compiled once", "true", String.valueOf (RegexRuleSet.getRuleSet ("example") == ruleSet));
+        check ("all matches", "[010_email, 020_phone]", ruleSet.match ("mail bob@example.com or call 555-123-4567", false).toString());
+        check ("first match", "[010_email]", ruleSet.match ("mail bob@example.com or call 555-123-4567", true).toString());
+        check ("\\b rule", "[030_ssn]", ruleSet.match ("ssn 123-45-6789", false).toString());
+        check ("case insensitive rule", "[040_url]", ruleSet.match ("see HTTPS://example.com/x", false).toString());
+        check ("no match", "[]", ruleSet.match ("nothing here", false).toString());
+        check ("surrogates in a rule set", "[010_email]", ruleSet.match ("\ud83d\ude00 bob@example.com", false).toString());
+        try {
+            RegexRuleSet.getRuleSet ("no_such_rule_set");
+            fail ("unknown rule set", "IllegalArgumentException", "no error");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        if (failures > 0) {
+            System.out.println (RegexAutomatonTest.class.getName() + ": " + failures + " failed");
+            System.exit (1);
+        }
+        System.out.println (RegexAutomatonTest.class.getName() + ": passed");
+    }
+
+    private static String[] concat (String[] a, String[] b) {
+        String[] result = Arrays.copyOf (a, a.length + b.length);
+        System.arraycopy (b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    private static void check (String name, String expected, String actual) {
+        if (!expected.equals (actual)) {
+            fail (name, expected, actual);
+        }
+    }
+
+    private static void fail (String name, String expected, String actual) {
+        failures++;
+        System.out.println ("FAILED " + name + ": expected " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,96 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+	Description:
+	  Tests of XMLFormatter, run by the test target of build.xml: the indentation of child elements,
+	  the three ways of handling whitespace, mixed content, the wrapping of attributes, and the
+	  escaping of text and attribute values.
+
+ */
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import com.tibco.ps.utils.xml.XMLFactories;
+
+public class XMLFormatterTest {
+
+	private static int failures = 0;
+
+	public static void main(String[] args) throws Exception {
+		String ignore = XMLFormatter.WHITESPACE_IGNORE;
+		String trim = XMLFormatter.WHITESPACE_TRIM;
+		String preserve = XMLFormatter.WHITESPACE_PRESERVE;
+		String spaced = "<a>  <b>  t  </b>\n <c x='1' y=\"2\"/></a>";
+
+		check("indent", "<a>\n  <b>t</b>\n  <c/>\n</a>\n", format("<a><b>t</b><c/></a>", 2, 0, ignore));
+		check("indent by 4", "<a>\n    <b>\n        <c/>\n    </b>\n</a>\n", format("<a><b><c/></b></a>", 4, 0, null));
+		check("ignore", "<a>\n  <b>  t  </b>\n  <c x=\"1\" y=\"2\"/>\n</a>\n", format(spaced, 2, 0, ignore));
+		check("trim", "<a>\n  <b>t</b>\n  <c x=\"1\" y=\"2\"/>\n</a>\n", format(spaced, 2, 0, trim));
+		check("preserve", "<a>  <b>  t  </b>\n <c x=\"1\" y=\"2\"/></a>\n", format(spaced, 2, 0, preserve));
+		check("mixed content", "<a>mixed <b>b</b> text</a>\n", format("<a>mixed <b>b</b> text</a>", 2, 0, ignore));
+		check("mixed content trimmed", "<a>mixed<b>b</b>text</a>\n", format("<a>mixed <b>b</b> text</a>", 2, 0, trim));
+		check("comments and instructions", "<!--c-->\n<a>\n  <b>x &amp; &lt;y&gt;</b><![CDATA[<z>]]><?pi d?></a>\n",
+			format("<?xml version=\"1.0\"?><!--c--><a><b>x &amp; &lt;y&gt;</b><![CDATA[<z>]]><?pi d?></a>", 2, 0, ignore));
+		check("wrapped attributes", "<a\n  x=\"1\"\n  y=\"2\"\n  z=\"3\"/>\n", format("<a x='1' y='2' z='3'/>", 2, 2, ignore));
+		check("attributes not wrapped", "<a x=\"1\" y=\"2\"/>\n", format("<a x='1' y='2'/>", 2, 2, ignore));
+		check("namespaces", "<a xmlns=\"urn:x\" xmlns:p=\"urn:p\">\n  <p:b p:q=\"&quot;\"/>\n</a>\n",
+			format("<a xmlns='urn:x' xmlns:p='urn:p'><p:b p:q='&quot;'/></a>", 2, 0, ignore));
+
+		checkRejected("negative indent", -1, 0, ignore);
+		checkRejected("negative wrap", 2, -1, ignore);
+		checkRejected("unknown whitespace handling", 2, 0, "KEEP");
+
+		if (failures > 0) {
+			System.out.println(XMLFormatterTest.class.getName() + ": " + failures + " failed");
+			System.exit(1);
+		}
+		System.out.println(XMLFormatterTest.class.getName() + ": passed");
+	}
+
+	private static String format(String xml, int indent, int wrapAttributes, String whitespace) throws Exception {
+		StringWriter out = new StringWriter();
+		new XMLFormatter(indent, wrapAttributes, whitespace).format(XMLFactories.getInputFactory(false, false).createXMLStreamReader(new StringReader(xml)), out);
+		return out.toString();
+	}
+
+	private static void checkRejected(String name, int indent, int wrapAttributes, String whitespace) {
+		try {
+			new XMLFormatter(indent, wrapAttributes, whitespace);
+			fail(name, "IllegalArgumentException", "no error");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	private static void check(String name, String expected, String actual) {
+		if (!expected.equals(actual)) {
+			fail(name, expected, actual);
+		}
+	}
+
+	private static void fail(String name, String expected, String actual) {
+		failures++;
+		System.out.println("FAILED " + name + ": expected " + expected + " but was " + actual);
+	}
+}
@@ -24,6 +24,8 @@ package com.tibco.ps.utils.xml;
 	CSVFromXMLToFile:
 	  Function to parse an XML string and convert the result set to a CSV string.
 	  Write the result to a file.
+	  The XML is streamed (see XMLRowReader): each row is written as soon as it has been read, so the
+	  size of the XML is not limited by memory.
 	
 	  Note:  For best results, the XML string should be formatted with repeated rows 
 	  		 containing all expected columns in each row.   Deviation from this pattern may result
@@ -110,19 +112,15 @@ import com.compositesw.common.logging.Logger;
 import com.compositesw.extension.CustomProcedure;
 
 import java.io.BufferedWriter;
-import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.StringReader;
+import java.io.Writer;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
-import java.util.List;
-import org.jdom.Document;
-import org.jdom.Element;
-import org.jdom.JDOMException;
-import org.jdom.input.SAXBuilder;
-import org.xml.sax.InputSource;
+
+import javax.xml.stream.XMLStreamException;
 
 import com.compositesw.extension.CustomProcedureException;
 import com.compositesw.extension.ParameterInfo;
@@ -131,6 +129,8 @@ public class CSVFromXMLToFile extends XMLUtilTemplate implements CustomProcedure
   String loginfo = "Done.";
   int error = 0;
   ResultSet rs = null;
+  private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+  private final String NL = System.getProperty("line.separator");
 
   static {
 	className = "CSVFromXMLToFile";
@@ -231,32 +231,16 @@ public class CSVFromXMLToFile extends XMLUtilTemplate implements CustomProcedure
            "\nTotal Columns: " + totalColumns +
            "\nFile Path: " + filePath +
            "\nAppend: " + append +
-           "\nXML String: " + xmlString + 
+           "\nXML String Length: " + xmlString.length() +
            "\n";
      
       /*
        * VALIDATE parameters for content
        */
-      if (separator.length() > 1) {
-    	  throw new IllegalArgumentException ("The separator character must be either null (defaults to ',') or a single character like ','");
-      }
-      if (qualifier.length() > 1) {
-    	  throw new IllegalArgumentException ("The qualifier character must be either null (defaults to '\"') or a single character like '\"'");
-      }
-      if (separator == qualifier) {
-    	  throw new IllegalArgumentException ("The separator and qualifier characters may not be the same: " + separator);
-      }
-
-      // if "append" input is false, zero out the input file and change "append"
-      // to true so that all subsequent calls to createFileAscii DO append to the file.
-      // (otherwise all you get is a file with the last written line, i.e. "")
-      //
-      if (! append) {
-        createFileAscii (filePath, false, "");
-        append = true;
-      }
+      validateCharacters(separator, qualifier);
 
-      processXMLStringDelimited(xmlString, separator, qualifier, createHeaders, totalColumns, filePath, append);
+      int rowCount = processXMLDelimited(new XMLRowReader(new StringReader(xmlString)), separator, qualifier, createHeaders, totalColumns, filePath, append);
+      loginfo += "\nROWCOUNT = " + rowCount;
       
     } catch (Throwable t) {
       error = 1;
@@ -282,200 +266,117 @@ public class CSVFromXMLToFile extends XMLUtilTemplate implements CustomProcedure
 	 ****************************************************************/
   
 	/****************************************************************
-	 * processXMLStringDelimited - parse the XML string and write it to a CSV formatted file 
+	 * validateCharacters - check the separator and qualifier characters
 	 * 
-	 * @param xmlString - The XML string to parse
+	 * @param separator - The character used to separate values.
+	 * @param qualifier - The character used to qualify values when they contain a separator character.
+	 * @throws IllegalArgumentException when either is longer than one character or they are the same.
+	 ****************************************************************/
+	protected void validateCharacters(String separator, String qualifier) {
+		if (separator.length() > 1) {
+			throw new IllegalArgumentException ("The separator character must be either null (defaults to ',') or a single character like ','");
+		}
+		if (qualifier.length() > 1) {
+			throw new IllegalArgumentException ("The qualifier character must be either null (defaults to '\"') or a single character like '\"'");
+		}
+		if (separator.equals(qualifier)) {
+			throw new IllegalArgumentException ("The separator and qualifier characters may not be the same: " + separator);
+		}
+	}
+
+	/****************************************************************
+	 * processXMLDelimited - parse the XML and write it to a CSV formatted file 
+	 * 
+	 * The XML is read with XMLRowReader and each row is written through one open writer as soon as
+	 * the end tag of its element is read, so the document is never held in memory as a whole.
+	 * Each row, and the end of the file, starts on a new line.
+	 * 
+	 * @param rows - The XML to convert.  It is closed when the conversion ends.
 	 * @param separator - The character used to separate values.
 	 * @param qualifier - The character used to qualify values when they contain a separator character.
 	 * @param createHeaders - Indicates whether to create a column headers row as the first row of the output.
 	 * @param totalColumns - Total number of columns to produce.  This is a validation against the number of fields discovered in the XML.
 	 * @param outputFilePath - Full path to a file that is to be created.	
 	 * @param append - 0=do not append file, 1=append file.
+	 * @return the number of rows written
 	 * @throws CustomProcedureException 
-	 * @throws SQLException 
 	 ****************************************************************/
-	@SuppressWarnings("unchecked")
-	private void processXMLStringDelimited(String xmlString, String separator, String qualifier, boolean createHeaders, int totalColumns, String outputFilePath, boolean append) throws CustomProcedureException, SQLException {
-	
-		Element rootElement = null;
-		try {
-			rootElement = getDocumentFromString(xmlString);
-        
-			if(rootElement != null){
-				
-				try {
-					List<Element> nodes = rootElement.getChildren();
-					StringBuffer sb = new StringBuffer();
-					
-					if (createHeaders) {
-						sb = processHeaderDelimited(nodes, sb, separator, qualifier, totalColumns, outputFilePath, append);
-						append = true;					
-					}
+	protected int processXMLDelimited(XMLRowReader rows, String separator, String qualifier, boolean createHeaders, int totalColumns, String outputFilePath, boolean append) throws CustomProcedureException {
 	
-					int rowCount = 0;
-					sb = new StringBuffer();
-					sb = processChildNodesDelimited(nodes, sb, separator, qualifier, totalColumns, outputFilePath, append, rowCount);
-					if (sb.toString() != null) {
-						// Add a blank line for the last line in the file.
-						createFileAscii(outputFilePath, append, "");					
-					}
-		
-				} catch (Exception ex) {
-					throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
-				}
-			}
-		} catch (SQLException ex) {
-			throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
-		}
-	}
-
-	@SuppressWarnings("unchecked")
-	private StringBuffer processHeaderDelimited(List<Element> childNodes, StringBuffer sb, String separator, String qualifier, int totalColumns, String outputFilePath, boolean append) throws CustomProcedureException{
-		
-		int elementCount = 0;
 		int rowCount = 0;
-		
-		for (Element element : childNodes) {
-			// Break out of the loop once the first row header is constructed
-			if (rowCount == 1) {
-				break;
-			}
-			if(element.getChildren() == null || element.getChildren().isEmpty()){
-				
-				if (elementCount > 0) {
-					sb.append (separator);
-				}
-				sb.append (element.getName());
+		Writer out = null;
+		try {
+			out = new BufferedWriter(new FileWriter(outputFilePath, append), WRITE_BUFFER_SIZE);
 
-				elementCount++;
-				// Break out of the loop once the total number of columns is met from the current column list
-				if (elementCount == totalColumns) {
-					try {
-						createFileAscii(outputFilePath, append, sb.toString());
-					} catch (Exception ex) {
-						throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
+			while (rows.next()) {
+				if (rowCount == 0 && createHeaders) {
+					checkColumnCount(rows, totalColumns, "Header");
+					out.write(NL);
+					for (int x = 0; x < rows.getColumnCount(); x++) {
+						if (x > 0) {
+							out.write(separator);
+						}
+						out.write(rows.getName(x));
 					}
 				}
-				// Throw an exception if the number of elements retrieved is greater than the total number of elements expected
-				if (elementCount > totalColumns) {
-					throw new CustomProcedureException("Header::The Number of elements extracted from the XML ["+elementCount+"] is greater than the expected total elements ["+totalColumns+"].");
-				}
+				checkColumnCount(rows, totalColumns, "ROW["+rows.getRowNumber()+"]");
 
-			}else{
-				rowCount++;
-				sb = processHeaderDelimited(element.getChildren(), sb, separator, qualifier, totalColumns, outputFilePath, append);
-			}
-		}
-		if (elementCount > 0) {
-			if (elementCount < totalColumns) {
-				throw new CustomProcedureException("Header::The Number of elements extracted from the XML ["+elementCount+"] is less than the expected total elements ["+totalColumns+"].");
-			}
-		}
-		return sb;
-	}
-	
-	@SuppressWarnings("unchecked")
-	private StringBuffer processChildNodesDelimited(List<Element> childNodes, StringBuffer sb, String separator, String qualifier, int totalColumns, String outputFilePath, boolean append, int rowCount) throws CustomProcedureException{
-		
-		sb = new StringBuffer();	
-		String resultTmp = "";
-		int elementCount = 0;
-
-		for (Element element : childNodes) {
-			if(element.getChildren() == null || element.getChildren().isEmpty()){
-				
-				if (elementCount > 0) {
-					sb.append (separator);
-				}
-				
-				resultTmp = element.getValue();
-				
-				if(resultTmp != null){
-			              
+				out.write(NL);
+				for (int x = 0; x < rows.getColumnCount(); x++) {
+					if (x > 0) {
+						out.write(separator);
+					}
+					String resultTmp = rows.getValue(x);
 					// If the string representation of the result contains a separator, then it needs to be qualified. Any existing
 					// qualifier characters in the result string need to be escaped (doubled). 
 					//
-					if (element.getValue().contains (separator)) {
+					if (resultTmp.contains (separator)) {
 						resultTmp = resultTmp.replace (qualifier, qualifier + qualifier);
 						resultTmp = qualifier + resultTmp + qualifier;
-					}        
-					sb.append (resultTmp);
-
-					elementCount++;
-					// Write the row to the file once the number of elements extracted matches the total number of elements expected
-					if (elementCount == totalColumns) {
-						try {
-							createFileAscii(outputFilePath, append, sb.toString());
-						} catch (Exception ex) {
-							throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
-						}
-					}
-					// Throw an exception if the number of elements retrieved is greater than the total number of elements expected
-					if (elementCount > totalColumns) {
-						throw new CustomProcedureException("ROW["+rowCount+"]::The Number of elements extracted from the XML ["+elementCount+"] is more than the expected total elements ["+totalColumns+"].");
 					}
+					out.write(resultTmp);
 				}
-
-			}else{
 				rowCount++;
-				sb = processChildNodesDelimited(element.getChildren(), sb, separator, qualifier, totalColumns, outputFilePath, append, rowCount);
 			}
-		}
-		if (elementCount > 0) {
-			if (elementCount < totalColumns) {
-				throw new CustomProcedureException("ROW["+rowCount+"]::The Number of elements extracted from the XML ["+elementCount+"] is less than the expected total elements ["+totalColumns+"].");
+			// Add a blank line for the last line in the file.
+			out.write(NL);
+
+			// -- flush and close here rather than in finally, so that an error writing the buffered rows fails the procedure
+			out.flush();
+			out.close();
+			out = null;
+
+		} catch (XMLStreamException ex) {
+			throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
+		} catch (IOException ex) {
+			throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
+		} finally {
+			// -- clean up only: out is still open here when the conversion failed
+			try {
+				rows.close();
+			} catch (Exception ex) {
+				logger.info ("Error closing the XML of "+outputFilePath+": "+ex.toString());
+			}
+			if (out != null) {
+				try {
+					out.close();
+				} catch (Exception ex) {
+					logger.info ("Error closing "+outputFilePath+": "+ex.toString());
+				}
 			}
 		}
-		return sb;
+		return rowCount;
 	}
-	
-	/****************************************************************
-	 * COMMON METHODS
-	 ****************************************************************/
 
-	// -- returns root element of XML document
-	private Element getDocumentFromString(String xmlString) throws CustomProcedureException, SQLException  {
-		
-		Element retval=null;	
-		InputSource inStream = new InputSource();
-		inStream.setCharacterStream(new StringReader(xmlString));
-		Document document = null;
-		try {
-			document = (new SAXBuilder()).build(inStream);
-	        retval = document.getRootElement();
-		} catch(JDOMException e) {
-			throw new CustomProcedureException(e);
-		} catch (IOException e) {
-			throw new CustomProcedureException(e);
+	// -- the number of elements in a row must match the total number of columns expected
+	private void checkColumnCount(XMLRowReader rows, int totalColumns, String row) throws CustomProcedureException {
+		if (rows.getColumnCount() > totalColumns) {
+			throw new CustomProcedureException(row+"::The Number of elements extracted from the XML ["+rows.getColumnCount()+"] is more than the expected total elements ["+totalColumns+"].");
 		}
-		
-		return retval;
-	}
-
-	private void createFileAscii(String fileName, boolean append, String fileContent) 
-	throws CustomProcedureException, SQLException {
-    loginfo += "writing to file \"" + fileName + "\": " + fileContent + "\n";
-    
-		try {
-			File file = new File(fileName);
-			// if its not there create it
-			if(!file.isFile()){
-				file.createNewFile();
-			}				
-				
-			BufferedWriter out = new BufferedWriter(new FileWriter(fileName, append));
-			if (append) {
-				out.newLine();
-			}
-			out.write(fileContent);
-			out.close();
-			//System.out.println("Your file has been written");        	
+		if (rows.getColumnCount() < totalColumns) {
+			throw new CustomProcedureException(row+"::The Number of elements extracted from the XML ["+rows.getColumnCount()+"] is less than the expected total elements ["+totalColumns+"].");
 		}
-		catch(IOException ex)
-		{
-			throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
-		}	        
-	}  
+	}
 	
 	public static void main(String[] args) {
 		int xmlChoice = 1; //1=correct XML, 2=extra column, 3=one less column (1st row), 4=one less column (2nd row), 4=one less column (3rd row)
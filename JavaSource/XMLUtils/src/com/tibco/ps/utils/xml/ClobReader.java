@@ -0,0 +1,107 @@
+package com.tibco.ps.utils.xml;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+/*
+	Description:
+	  Reader over a CLOB input parameter that fetches the CLOB a chunk at a time with Clob.getSubString(),
+	  so the value is never copied into memory as a whole. The streams of CLOB/BLOB values are not
+	  implemented by every driver (see Blob2Varchar), getSubString() is.
+
+	  TextUtils compiles this source into its jar for FormatXMLToFile (see the shared source directories of
+	  its build.xml.)
+
+	Inputs:
+	  N/A
+
+	Outputs:
+	  N/A
+
+	Exceptions:
+	  None
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.sql.Clob;
+import java.sql.SQLException;
+
+public class ClobReader extends Reader {
+
+	// number of characters fetched from the CLOB at a time
+	private static final int CHUNK_SIZE = 64 * 1024;
+
+	private final Clob clob;
+	private final long length;
+	private long position = 1;
+	private String chunk = "";
+	private int chunkOffset = 0;
+
+	public ClobReader(Clob clob) throws SQLException {
+		this.clob = clob;
+		this.length = clob.length();
+	}
+
+	/**
+	 * @return a reader over a CLOB parameter value, which may also be passed as a String
+	 */
+	public static Reader open(Object value) throws SQLException {
+		if (value instanceof Clob) {
+			return new ClobReader((Clob) value);
+		}
+		return new StringReader(value.toString());
+	}
+
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (chunkOffset == chunk.length()) {
+			if (position > length) {
+				return -1;
+			}
+			try {
+				chunk = clob.getSubString(position, (int) Math.min(CHUNK_SIZE, length - position + 1));
+			} catch (SQLException e) {
+				throw new IOException("Unable to read the CLOB at position " + position + ": " + e.getMessage());
+			}
+			if (chunk.length() == 0) {
+				return -1;
+			}
+			position += chunk.length();
+			chunkOffset = 0;
+		}
+		int n = Math.min(len, chunk.length() - chunkOffset);
+		chunk.getChars(chunkOffset, chunkOffset + n, cbuf, off);
+		chunkOffset += n;
+		return n;
+	}
+
+	public void close() throws IOException {
+		chunk = "";
+		chunkOffset = 0;
+		position = length + 1;
+	}
+}
@@ -66,11 +66,9 @@ import java.sql.Types;
 import java.util.ArrayList;
 
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 
@@ -141,14 +139,11 @@ public class DeleteElement implements CustomProcedure {
       throw new CustomProcedureException (className + ": value of \"occurrance\" argument may not be zero.");
     }
 
-    qenv.log (LOG_DEBUG, className + ": Creating DocumentBuilderFactory");
-    DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-    qenv.log (LOG_DEBUG, className + ": Setting DocumentBuilderFactory namespace awareness to true");
-    dbf.setNamespaceAware (true);
-
     try {
-      qenv.log (LOG_DEBUG, className + ": Creating DocumentBuilder");
-      DocumentBuilder db = dbf.newDocumentBuilder();
+      // the builder and transformer are reused by every invocation on this thread (see XMLFactories)
+      //
+      qenv.log (LOG_DEBUG, className + ": Getting namespace aware DocumentBuilder");
+      DocumentBuilder db = XMLFactories.getDocumentBuilder (true);
 
       // the parser won't take a String as input so we have to convert it to an InputStream
       //
@@ -197,11 +192,11 @@ public class DeleteElement implements CustomProcedure {
       //
       qenv.log (LOG_DEBUG, className + ": Serializing resulting XML");
       StringWriter sw = new StringWriter();
-      TransformerFactory xformFactory = TransformerFactory.newInstance();
-      Transformer idTransform = xformFactory.newTransformer();
+      Transformer idTransform = XMLFactories.getTransformer();
       Source input = new DOMSource (doc);
       Result output = new StreamResult (sw);
       idTransform.transform (input, output);
+      qenv.log (LOG_DEBUG, className + ": " + XMLFactories.getStatistics());
       
       result = sw.toString();
     } catch (Exception e) {
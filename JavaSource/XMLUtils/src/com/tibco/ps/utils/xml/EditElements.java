@@ -0,0 +1,736 @@
+package com.tibco.ps.utils.xml;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+	EditElements:
+
+	This CJP applies a list of the edits of DeleteElement, DeleteElementSpareChildren and InsertElementDemoteChildren
+	to an XML structure in a single streaming pass, instead of parsing and serializing the document once per edit.
+
+	Each edit is one line (or is separated from the next by a ';') of the form:
+
+	  DeleteElement               <element> <occurrence>
+	  DeleteElementSpareChildren  <element> <occurrence>
+	  InsertElementDemoteChildren <parent element> <occurrence> <new element>
+
+	where an element is written as {namespace URI}name, or just name for an element without a namespace. The
+	namespace and the name may be * to match any. Operation names are not case sensitive. For example:
+
+	  DeleteElement {http://www.compositesw.com/ps/FileProcessor}faxNumber 1;
+	  InsertElementDemoteChildren {http://www.compositesw.com/ps/FileProcessor}row -1 {http://www.compositesw.com/ps/FileProcessor}detail
+
+	The edits are applied in order, each to the result of the edits before it, so occurrences are counted
+	in the document as the earlier edits left it and the result is the same as calling the single-edit
+	procedures one after another. The edits are chained on the events of the document, so it is still read
+	and written once. A negative occurrence counts from the end of the document; for each edit with one, the
+	document is read an extra time (without being written) to count the elements that edit sees. An edit
+	whose occurrence is not found is ignored, and when no edit applies the input XML is returned as is.
+
+	The children of an element deleted with DeleteElementSpareChildren take its place among its siblings, where
+	the DeleteElementSpareChildren procedure appends them after the last child of the parent.
+
+	As with DeleteElementSpareChildren, deleting the tags of the root element fails with HIERARCHY_REQUEST_ERR
+	unless it has exactly one child element (and no text other than whitespace) to take its place.
+
+
+	Input:
+	  inXml - The XML structure to modify.
+	    Values: Any XML document
+
+	  inEdits - The edits to apply.
+	    Values: One or more edits as described above
+
+
+	Output:
+	  result - The XML document with the edits applied.
+	    Values: Any XML document
+
+
+	Exceptions:  none
+
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+*/
+
+import com.compositesw.extension.*;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import java.sql.SQLException;
+import java.sql.Types;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.StartDocument;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.util.XMLEventConsumer;
+
+import org.w3c.dom.DOMException;
+
+public class EditElements implements CustomProcedure {
+  protected static String className;
+  private ExecutionEnvironment qenv;
+  private String result = null;
+
+  private static final String DELETE_ELEMENT = "DeleteElement";
+  private static final String DELETE_ELEMENT_SPARE_CHILDREN = "DeleteElementSpareChildren";
+  private static final String INSERT_ELEMENT_DEMOTE_CHILDREN = "InsertElementDemoteChildren";
+
+  static {
+    className = EditElements.class.getName();
+  }
+
+  /**
+   * One edit of the inEdits list.
+   */
+  private static class Edit {
+    String operation;
+    String namespace;
+    String name;
+    int occurrance;
+    String newNamespace;
+    String newName;
+
+    // the occurrence, counted in the document as the edits before this one left it, the edit applies to
+    int target;
+
+    boolean matches (StartElement e) {
+      QName qname = e.getName();
+      return ("*".equals (name) || name.equals (qname.getLocalPart()))
+          && ("*".equals (namespace) || namespace.equals (qname.getNamespaceURI()));
+    }
+
+    public String toString() {
+      return operation + " {" + namespace + "}" + name + " " + occurrance + ((newName != null) ? " {" + newNamespace + "}" + newName : "");
+    }
+  }
+
+  /**
+   * An element that is being copied: whether its own tags are dropped and the element inserted inside it.
+   */
+  private static class OpenElement {
+    boolean dropTags = false;
+    QName inserted = null;
+    // namespace declarations of deleted ancestors still to be added to the elements written inside this one
+    List<Namespace> carried = null;
+  }
+
+  /**
+   * The namespace declarations of the open elements, innermost last.
+   */
+  private static class Scope {
+    private LinkedList<List<Namespace>> declarations = new LinkedList<List<Namespace>>();
+
+    void push (Iterator<?> namespaces) {
+      declarations.addLast (merge (null, namespaces));
+    }
+
+    void pop() {
+      declarations.removeLast();
+    }
+
+    // -- the namespace a prefix is bound to, or "" when it isn't bound
+    String getNamespaceURI (String prefix) {
+      if (XMLConstants.XML_NS_PREFIX.equals (prefix)) {
+        return XMLConstants.XML_NS_URI;
+      }
+      for (Iterator<List<Namespace>> i = declarations.descendingIterator(); i.hasNext(); ) {
+        for (Namespace ns : i.next()) {
+          if (ns.getPrefix().equals (prefix)) {
+            // xmlns="" may be reported without a namespace URI
+            return (ns.getNamespaceURI() != null) ? ns.getNamespaceURI() : XMLConstants.NULL_NS_URI;
+          }
+        }
+      }
+      return XMLConstants.NULL_NS_URI;
+    }
+
+    // -- a prefix bound to a namespace that isn't hidden by an inner declaration, or null when there is none
+    String getPrefix (String namespace) {
+      for (Iterator<List<Namespace>> i = declarations.descendingIterator(); i.hasNext(); ) {
+        for (Namespace ns : i.next()) {
+          if (namespace.equals (ns.getNamespaceURI()) && getNamespaceURI (ns.getPrefix()).equals (namespace)) {
+            return ns.getPrefix();
+          }
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * One edit, applied to the events passed on by the edit before it (or read from the input document for
+   * the first edit) and passing its own result on to the next consumer.
+   */
+  private static class Stage implements XMLEventConsumer {
+    private final Edit edit;
+    private final XMLEventConsumer next;
+    private final XMLEventFactory events;
+
+    private int count = 0;
+    private int deletedDepth = 0;
+    private boolean edited = false;
+    private LinkedList<OpenElement> open = new LinkedList<OpenElement>();
+    private Scope scope = new Scope();
+
+    // the elements written at the top level, which must stay one when the root element's tags are dropped
+    private int depth = 0;
+    private int rootElements = 0;
+    private boolean rootDropped = false;
+
+    Stage (Edit edit, XMLEventConsumer next, XMLEventFactory events) {
+      this.edit = edit;
+      this.next = next;
+      this.events = events;
+    }
+
+    public void add (XMLEvent event) throws XMLStreamException {
+      if (event.isStartElement()) {
+        if (deletedDepth > 0) {
+          deletedDepth++;
+          return;
+        }
+        StartElement start = event.asStartElement();
+        boolean target = edit.matches (start) && ++count == edit.target;
+        if (target && edit.operation == DELETE_ELEMENT) {
+          edited = true;
+          deletedDepth = 1;
+          return;
+        }
+
+        scope.push (start.getNamespaces());
+        OpenElement element = new OpenElement();
+        List<Namespace> carried = (open.isEmpty()) ? null : open.getLast().carried;
+        if (target && edit.operation == DELETE_ELEMENT_SPARE_CHILDREN) {
+          // the element's namespace declarations move down to the elements written in its place
+          element.dropTags = true;
+          element.carried = merge (carried, start.getNamespaces());
+          rootDropped = rootDropped || open.isEmpty();
+        } else {
+          element.carried = carried;
+          write (declare (events, start, element));
+        }
+        if (target && edit.operation == INSERT_ELEMENT_DEMOTE_CHILDREN) {
+          insertElement (element);
+        }
+        edited = edited || target;
+        open.addLast (element);
+
+      } else if (event.isEndElement()) {
+        if (deletedDepth > 0) {
+          deletedDepth--;
+          return;
+        }
+        scope.pop();
+        OpenElement element = open.removeLast();
+        if (element.inserted != null) {
+          write (events.createEndElement (element.inserted, null));
+        }
+        if (!element.dropTags) {
+          write (event);
+        }
+
+      } else if (deletedDepth == 0) {
+        if (event.isEndDocument() && rootDropped && rootElements != 1) {
+          throw hierarchyRequestError();
+        }
+        write (event);
+      }
+    }
+
+    /**
+     * Write the start tag of the element inserted into an element.  The namespace of the new element keeps
+     * the prefix it has where it is inserted, and is otherwise declared on the new element with a new prefix.
+     */
+    private void insertElement (OpenElement element) throws XMLStreamException {
+      String namespace = edit.newNamespace;
+      List<Namespace> namespaces = new ArrayList<Namespace>();
+      String prefix = null;
+      String redeclare = null;
+
+      if (namespace.length() == 0) {
+        // no namespace. if there is a default namespace it is undeclared, and declared again for the children
+        prefix = "";
+        String defaultNamespace = scope.getNamespaceURI ("");
+        if (defaultNamespace.length() > 0) {
+          namespaces.add (events.createNamespace (""));
+          redeclare = defaultNamespace;
+        }
+      } else {
+        prefix = scope.getPrefix (namespace);
+      }
+      if (prefix == null) {
+        int n = 1;
+        while (scope.getNamespaceURI ("ns" + n).length() > 0) {
+          n++;
+        }
+        prefix = "ns" + n;
+        namespaces.add (events.createNamespace (prefix, namespace));
+      }
+
+      QName name = new QName (namespace, edit.newName, prefix);
+      namespaces = merge (takeCarried (element, name, null), namespaces.iterator());
+      if (redeclare != null) {
+        element.carried = merge (element.carried, Collections.singletonList (events.createNamespace (redeclare)).iterator());
+      }
+      element.inserted = name;
+      write (events.createStartElement (name, null, namespaces.iterator()));
+    }
+
+    private void write (XMLEvent event) throws XMLStreamException {
+      if (event.isStartElement()) {
+        if (depth++ == 0 && ++rootElements > 1 && rootDropped) {
+          throw hierarchyRequestError();
+        }
+      } else if (event.isEndElement()) {
+        depth--;
+      } else if (rootDropped && depth == 0 && event.isCharacters() && event.asCharacters().getData().trim().length() > 0) {
+        throw hierarchyRequestError();
+      }
+      next.add (event);
+    }
+  }
+
+  /**
+   * Counts the elements an edit matches in the events passed on by the edits before it.
+   */
+  private static class Counter implements XMLEventConsumer {
+    private final Edit edit;
+    private int count = 0;
+
+    Counter (Edit edit) {
+      this.edit = edit;
+    }
+
+    public void add (XMLEvent event) {
+      if (event.isStartElement() && edit.matches (event.asStartElement())) {
+        count++;
+      }
+    }
+  }
+
+  public EditElements() {}
+
+  /**
+   * This is called once just after constructing the class.  The
+   * environment contains methods used to interact with the server.
+   */
+  public void initialize (ExecutionEnvironment qenv) throws SQLException {
+    this.qenv = qenv;
+  }
+
+  /**
+   * Called during introspection to get the description of the input
+   * and output parameters.  Should not return null.
+   */
+  public ParameterInfo[] getParameterInfo() {
+    return new ParameterInfo[] {
+      new ParameterInfo ("inXML", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo ("inEdits", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo ("result", Types.VARCHAR, DIRECTION_OUT)
+    };
+  }
+
+  /**
+   * Called to invoke the stored procedure.  Will only be called a
+   * single time per instance.  Can throw CustomProcedureException or
+   * SQLException if there is an error during invoke.
+   */
+  public void invoke (Object[] inputValues) throws CustomProcedureException, SQLException {
+    String inXMLString = null;
+    String inEdits = null;
+
+    if (inputValues.length != 2) {
+      throw new CustomProcedureException (className + ": invalid number of arguments to invoke() method.");
+    }
+
+    inXMLString = (String) inputValues[0];
+    inEdits = (String) inputValues[1];
+
+    if (inXMLString == null || inEdits == null) {
+      result = inXMLString;
+      return;
+    }
+
+    List<Edit> edits = parseEdits (inEdits);
+    if (edits.isEmpty()) {
+      result = inXMLString;
+      return;
+    }
+
+    XMLInputFactory inputFactory = XMLFactories.getInputFactory (false);
+    XMLOutputFactory outputFactory = XMLFactories.getOutputFactory();
+
+    try {
+      // negative occurrences count from the end, so the elements the edit sees have to be counted first
+      //
+      for (int i = 0; i < edits.size(); i++) {
+        Edit edit = edits.get (i);
+        if (edit.occurrance > 0) {
+          edit.target = edit.occurrance;
+        } else {
+          qenv.log (LOG_DEBUG, className + ": Counting elements for " + edit);
+          int count = countElements (inputFactory, inXMLString, edits.subList (0, i), edit);
+          edit.target = count + edit.occurrance + 1;
+          if (edit.target <= 0) {
+            qenv.log (LOG_DEBUG, className + ": " + edit + " falls outside of range of located elements (" + count + ")");
+          }
+        }
+      }
+
+      qenv.log (LOG_DEBUG, className + ": Applying " + edits.size() + " edits");
+      result = applyEdits (inputFactory, outputFactory, inXMLString, edits);
+      if (result == null) {
+        qenv.log (LOG_DEBUG, className + ": Did not find any element to edit. Returning original XML");
+        result = inXMLString;
+      }
+    } catch (Exception e) {
+      throw new CustomProcedureException (e);
+    }
+  }
+
+  /**
+   * Parse the inEdits list.
+   */
+  private List<Edit> parseEdits (String inEdits) throws CustomProcedureException {
+    List<Edit> edits = new ArrayList<Edit>();
+    for (String line : inEdits.split ("[;\\r\\n]+")) {
+      String[] tokens = line.trim().split ("\\s+");
+      if (tokens.length == 1 && tokens[0].length() == 0) {
+        continue;
+      }
+
+      Edit edit = new Edit();
+      if (DELETE_ELEMENT.equalsIgnoreCase (tokens[0]) && tokens.length == 3) {
+        edit.operation = DELETE_ELEMENT;
+      } else if (DELETE_ELEMENT_SPARE_CHILDREN.equalsIgnoreCase (tokens[0]) && tokens.length == 3) {
+        edit.operation = DELETE_ELEMENT_SPARE_CHILDREN;
+      } else if (INSERT_ELEMENT_DEMOTE_CHILDREN.equalsIgnoreCase (tokens[0]) && tokens.length == 4) {
+        edit.operation = INSERT_ELEMENT_DEMOTE_CHILDREN;
+        String[] newElement = parseElement (tokens[3], line);
+        if ("*".equals (newElement[0]) || "*".equals (newElement[1])) {
+          throw new CustomProcedureException (className + ": the element to insert may not be a wildcard: \"" + line.trim() + "\"");
+        }
+        edit.newNamespace = newElement[0];
+        edit.newName = newElement[1];
+      } else {
+        throw new CustomProcedureException (className + ": invalid edit \"" + line.trim() + "\". Use " + DELETE_ELEMENT + " <element> <occurrence>, "
+            + DELETE_ELEMENT_SPARE_CHILDREN + " <element> <occurrence> or " + INSERT_ELEMENT_DEMOTE_CHILDREN + " <parent element> <occurrence> <new element>");
+      }
+
+      String[] element = parseElement (tokens[1], line);
+      edit.namespace = element[0];
+      edit.name = element[1];
+      try {
+        edit.occurrance = Integer.parseInt (tokens[2]);
+      } catch (NumberFormatException e) {
+        throw new CustomProcedureException (className + ": invalid occurrence in edit \"" + line.trim() + "\"");
+      }
+      if (edit.occurrance == 0) {
+        throw new CustomProcedureException (className + ": value of \"occurrance\" may not be zero: \"" + line.trim() + "\"");
+      }
+      edits.add (edit);
+    }
+    return edits;
+  }
+
+  // -- {namespace}name or name.  returns { namespace, name }
+  private String[] parseElement (String token, String line) throws CustomProcedureException {
+    String namespace = "";
+    String name = token;
+    if (token.startsWith ("{")) {
+      int close = token.indexOf ('}');
+      if (close < 0) {
+        throw new CustomProcedureException (className + ": invalid element \"" + token + "\" in edit \"" + line.trim() + "\"");
+      }
+      namespace = token.substring (1, close);
+      name = token.substring (close + 1);
+    }
+    if (name.length() == 0) {
+      throw new CustomProcedureException (className + ": invalid element \"" + token + "\" in edit \"" + line.trim() + "\"");
+    }
+    return new String[] { namespace, name };
+  }
+
+  /**
+   * Count the elements an edit matches once the edits before it are applied, without writing anything.
+   */
+  private int countElements (XMLInputFactory inputFactory, String inXMLString, List<Edit> before, Edit edit) throws XMLStreamException {
+    Counter counter = new Counter (edit);
+    copy (inputFactory, inXMLString, chain (before, counter, null));
+    return counter.count;
+  }
+
+  /**
+   * Copy the document, applying the edits on the way.
+   * @return the edited document or null when no edit applied
+   */
+  private String applyEdits (XMLInputFactory inputFactory, XMLOutputFactory outputFactory, String inXMLString, List<Edit> edits) throws XMLStreamException {
+    StringWriter sw = new StringWriter();
+    XMLEventWriter out = outputFactory.createXMLEventWriter (sw);
+    List<Stage> stages = new ArrayList<Stage>();
+
+    try {
+      copy (inputFactory, inXMLString, chain (edits, out, stages));
+      out.flush();
+    } finally {
+      out.close();
+    }
+
+    boolean edited = false;
+    for (Stage stage : stages) {
+      edited = edited || stage.edited;
+    }
+    return (edited) ? sw.toString() : null;
+  }
+
+  // -- the stages of the edits, in order, ending with last. returns the first consumer
+  private static XMLEventConsumer chain (List<Edit> edits, XMLEventConsumer last, List<Stage> stages) {
+    XMLEventFactory events = XMLFactories.getEventFactory();
+    XMLEventConsumer next = last;
+    for (int i = edits.size() - 1; i >= 0; i--) {
+      Stage stage = new Stage (edits.get (i), next, events);
+      if (stages != null) {
+        stages.add (0, stage);
+      }
+      next = stage;
+    }
+    return next;
+  }
+
+  // -- pass the events of the document to a consumer
+  private static void copy (XMLInputFactory inputFactory, String inXMLString, XMLEventConsumer consumer) throws XMLStreamException {
+    XMLEventReader in = inputFactory.createXMLEventReader (new StringReader (inXMLString));
+    try {
+      while (in.hasNext()) {
+        XMLEvent event = in.nextEvent();
+        if (event.isStartDocument()) {
+          // the result is a string, so the encoding of the input doesn't apply to it
+          event = XMLFactories.getEventFactory().createStartDocument ("UTF-8", ((StartDocument) event).getVersion());
+        }
+        consumer.add (event);
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  // -- the error of DeleteElementSpareChildren when the children of the root element can't take its place
+  private static DOMException hierarchyRequestError() {
+    return new DOMException (DOMException.HIERARCHY_REQUEST_ERR, "HIERARCHY_REQUEST_ERR: An attempt was made to insert a node where it is not permitted.");
+  }
+
+  // -- outer namespace declarations followed by the inner ones, the inner ones replacing outer ones with the same prefix
+  private static List<Namespace> merge (List<Namespace> outer, Iterator<?> inner) {
+    List<Namespace> merged = new ArrayList<Namespace>();
+    List<Namespace> innerList = new ArrayList<Namespace>();
+    while (inner.hasNext()) {
+      innerList.add ((Namespace) inner.next());
+    }
+    if (outer != null) {
+      for (Namespace ns : outer) {
+        if (!isDeclared (innerList, ns.getPrefix())) {
+          merged.add (ns);
+        }
+      }
+    }
+    merged.addAll (innerList);
+    return merged;
+  }
+
+  private static boolean isDeclared (List<Namespace> namespaces, String prefix) {
+    for (Namespace ns : namespaces) {
+      if (ns.getPrefix().equals (prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // -- the start tag with the namespace declarations carried down from deleted ancestors that it uses added
+  private static StartElement declare (XMLEventFactory events, StartElement start, OpenElement element) {
+    if (element.carried == null) {
+      return start;
+    }
+    // the element's own declarations replace carried ones with the same prefix
+    List<Namespace> own = merge (null, start.getNamespaces());
+    for (Namespace ns : own) {
+      element.carried = remove (element.carried, ns.getPrefix());
+    }
+    List<Namespace> used = takeCarried (element, start.getName(), start.getAttributes());
+    if (used.isEmpty()) {
+      return start;
+    }
+    QName name = start.getName();
+    return events.createStartElement (name.getPrefix(), name.getNamespaceURI(), name.getLocalPart(),
+        start.getAttributes(), merge (used, own.iterator()).iterator(), start.getNamespaceContext());
+  }
+
+  /**
+   * Remove the carried declarations of the prefixes of an element name and its attributes.  The others
+   * are left for the element's children.
+   * @return the declarations removed
+   */
+  private static List<Namespace> takeCarried (OpenElement element, QName name, Iterator<?> attributes) {
+    List<Namespace> used = new ArrayList<Namespace>();
+    List<String> prefixes = new ArrayList<String>();
+    prefixes.add (name.getPrefix());
+    while (attributes != null && attributes.hasNext()) {
+      String prefix = ((Attribute) attributes.next()).getName().getPrefix();
+      // unprefixed attributes are in no namespace, whatever the default namespace
+      if (prefix.length() > 0) {
+        prefixes.add (prefix);
+      }
+    }
+    if (element.carried != null) {
+      for (Namespace ns : element.carried) {
+        if (prefixes.contains (ns.getPrefix())) {
+          used.add (ns);
+        }
+      }
+      for (Namespace ns : used) {
+        element.carried = remove (element.carried, ns.getPrefix());
+      }
+    }
+    return used;
+  }
+
+  // -- namespaces without the declaration of prefix, or null when none are left
+  private static List<Namespace> remove (List<Namespace> namespaces, String prefix) {
+    if (namespaces == null) {
+      return null;
+    }
+    List<Namespace> remaining = new ArrayList<Namespace>();
+    for (Namespace ns : namespaces) {
+      if (!ns.getPrefix().equals (prefix)) {
+        remaining.add (ns);
+      }
+    }
+    return (remaining.isEmpty()) ? null : remaining;
+  }
+
+  /**
+   * Called to retrieve the number of rows that were inserted,
+   * updated, or deleted during the execution of the procedure. A
+   * return value of -1 indicates that the number of affected rows is
+   * unknown.  Can throw CustomProcedureException or SQLException if
+   * there is an error when getting the number of affected rows.
+   */
+  public int getNumAffectedRows() {
+    return 0;
+  }
+
+  /**
+   * Called to retrieve the output values.  The returned objects
+   * should obey the Java to SQL typing conventions as defined in the
+   * table above.  Output cursors can be returned as either
+   * CustomCursor or java.sql.ResultSet.  Can throw
+   * CustomProcedureException or SQLException if there is an error
+   * when getting the output values.  Should not return null.
+   */
+  public Object[] getOutputValues() {
+    return new Object[] {result};
+  }
+
+  /**
+   * Called when the procedure reference is no longer needed.  Close
+   * may be called without retrieving any of the output values (such
+   * as cursors) or even invoking, so this needs to do any remaining
+   * cleanup.  Close may be called concurrently with any other call
+   * such as "invoke" or "getOutputValues".  In this case, any pending
+   * methods should immediately throw a CustomProcedureException.
+   */
+  public void close() throws SQLException {}
+
+  //
+  // Introspection methods
+  //
+
+  /**
+   * Called during introspection to get the short name of the stored
+   * procedure.  This name may be overridden during configuration.
+   * Should not return null.
+   */
+  public String getName() {
+    return "EditElements";
+  }
+
+  /**
+   * Called during introspection to get the description of the stored
+   * procedure.  Should not return null.
+   */
+  public String getDescription() {
+    return "Custom procedure to apply a list of element deletes and inserts to an XML structure in a single pass.";
+  }
+
+  //
+  // Transaction methods
+  //
+
+  /**
+   * Returns true if the custom procedure uses transactions.  If this
+   * method returns false then commit and rollback will not be called.
+   */
+  public boolean canCommit() {
+    return false;
+  }
+
+  /**
+   * Commit any open transactions.
+   */
+  public void commit() throws SQLException {}
+
+  /**
+   * Rollback any open transactions.
+   */
+  public void rollback() throws SQLException {}
+
+  /**
+   * Returns true if the transaction can be compensated.
+   */
+  public boolean canCompensate() {
+    return false;
+  }
+
+  /**
+   * Compensate any committed transactions (if supported).
+   */
+  public void compensate (ExecutionEnvironment qenv) throws SQLException {}
+}
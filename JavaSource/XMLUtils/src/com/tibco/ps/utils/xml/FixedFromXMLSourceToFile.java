@@ -0,0 +1,208 @@
+package com.tibco.ps.utils.xml;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+	FixedFromXMLSourceToFile:
+	  Version of FixedFromXMLToFile that reads the XML from a file or a CLOB instead of a string. The XML is
+	  streamed from its source (see XMLRowReader) and is never held in memory as a whole, so there is no
+	  limit on its size.
+
+	  The rows are found and written exactly as FixedFromXMLToFile does.
+
+	Inputs:
+	  xml_file_path   - Full path to a file holding the XML.  The file is read in the encoding of its
+	                    XML declaration (UTF-8 when there is none.)
+	    values: Any valid filesystem path or NULL when xml_clob is provided.
+
+	  xml_clob        - The XML as a CLOB, e.g. the response of a web service.
+	    values: Any valid XML or NULL when xml_file_path is provided.
+
+	  format_string   - A string of pipe separated sizes (widths) for each column.
+	  	format: col1_Size|col2_Size|...|coln_Size
+	  	A size may be followed by L or R (alignment) and a pad character e.g. 10R0 is right aligned and zero padded.
+	    values: 4|3|10|18
+
+	  create_column_headers - Indicates whether to create a column headers row as the first row of the output.
+	    values: Any boolean value (such as "true" or "false".)
+		default=false
+
+	  total_columns    - Total number of columns to produce.  This is a validation against the number of fields queried
+	    values: Any integer value
+
+	  filePath - full path to a file that is to be created.				Types.VARCHAR, DIRECTION_IN
+
+	  append - 0=do not append file, 1=append file.						Types.SMALLINT, DIRECTION_IN
+		default=false
+
+	Output:
+	  error  - 0=success, 1=error
+	    values: 0 or 1
+
+
+	Exceptions:
+	  CustomProcedureException - Thrown when illegal arguments are passed.
+
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import com.compositesw.common.logging.Logger;
+import com.compositesw.extension.CustomProcedure;
+
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+import com.tibco.ps.utils.text.FixedWidthLayout;
+
+public class FixedFromXMLSourceToFile extends FixedFromXMLToFile implements CustomProcedure {
+
+  static {
+    className = "FixedFromXMLSourceToFile";
+    logger = Logger.getLogger(FixedFromXMLSourceToFile.class.getName());
+  }
+
+  public String getDescription() {
+    return "This procedure reads XML from a file or a CLOB, parses it and converts the results to a Fixed length (variable column) string and writes the result to a file.";
+  }
+
+  public String getName() {
+    return "FixedFromXMLSourceToFile";
+  }
+
+  public ParameterInfo[] getParameterInfo() {
+    return new ParameterInfo[] {
+      new ParameterInfo("xml_file_path", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("xml_clob", Types.CLOB, DIRECTION_IN),
+      new ParameterInfo("format_string", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("create_column_headers", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("total_columns", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo("file_Path", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("append", Types.SMALLINT, DIRECTION_IN),
+      new ParameterInfo("result", Types.INTEGER, DIRECTION_OUT)
+    };
+  }
+
+  public void invoke(Object[] inputs) throws CustomProcedureException, SQLException {
+    try {
+      String xmlFilePath = null;
+      String formatString = null;
+      boolean createHeaders = false;
+      int totalColumns = 0;
+      String filePath = null;
+      int appendNum = 0;
+      boolean append = false;
+
+      /*
+       * VALIDATE Input parameters for null
+       */
+  	  if (inputs[0] == null && inputs[1] == null) {
+  		 throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter xml_file_path or xml_clob must be provided.");
+  	  }
+  	  if (inputs[0] != null && inputs[1] != null) {
+  		 throw new CustomProcedureException("Error in CJP "+getName()+": Only one of the IN Parameters xml_file_path and xml_clob may be provided.");
+  	  }
+  	  if (inputs[2] == null) {
+ 		 throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter format_string must be provided.");
+ 	  }
+  	  if (inputs[4] == null) {
+  		 throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter total_columns must be provided.");
+  	  }
+  	  if (inputs[5] == null) {
+		 throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter file_Path must be provided.");
+	  }
+
+      /*
+       * RETREIVE Input parameters
+       */
+      if (inputs[0] != null) {
+    	  xmlFilePath = inputs[0].toString().trim();
+      }
+
+      if (inputs[2] != null) {
+    	  formatString = ((String) inputs[2]).trim();
+      }
+
+      if (inputs[3] != null) {
+          createHeaders = (Boolean.parseBoolean((((String) inputs[3])).trim()));
+      }
+
+      if (inputs[4] != null) {
+    	  totalColumns = (Integer)inputs[4];
+      }
+
+      if (inputs[5] != null) {
+    	  filePath = inputs[5].toString();
+      }
+
+      if (inputs[6] != null) {
+    	  appendNum = Integer.valueOf(inputs[6].toString());
+          append = (appendNum==1)?true:false;
+      }
+
+      loginfo += "DEBUG: \nARGS" +
+           "\nXML Source: " + ((xmlFilePath != null) ? xmlFilePath : "CLOB") +
+           "\nFormat String: " + formatString +
+           "\nCreate Column Headers: " + createHeaders +
+           "\nTotal Columns: " + totalColumns +
+           "\nFile Path: " + filePath +
+           "\nAppend: " + append +
+           "\n";
+
+      /*
+       * VALIDATE parameters for content
+       */
+      // Verify format string is not empty
+      if (formatString.length() == 0) {
+          throw new IllegalArgumentException ("The Format String must contain a format as follows: col1_Size|col2_Size|...|coln_Size");
+      }
+
+      // Validate the number of widths in the format_string vs. the Total Number of Columns passed in and expected.  They should be equal.
+      FixedWidthLayout layout = FixedWidthLayout.compile(formatString);
+      int tokenCount = layout.getColumnCount();
+      if (tokenCount != totalColumns) {
+          throw new IllegalArgumentException ("The number of sizes(widths) in the format string ["+tokenCount+"] does not match the expected total_columns ["+totalColumns+"].");
+      }
+
+      int rowCount = processXMLFixed(XMLRowReader.open(xmlFilePath, inputs[1]), layout, createHeaders, totalColumns, filePath, append);
+      loginfo += "\nROWCOUNT = " + rowCount;
+
+    } catch (Throwable t) {
+      error = 1;
+      String message = "Exception Occurred:";
+      if (t.getMessage() != null) message = message + " " + t.getMessage();
+      message = message+"\n";
+      logger.info (message+loginfo);
+      t.printStackTrace();
+      throw new CustomProcedureException(message+loginfo);
+
+    } finally {
+      if (qenv != null) {
+    	  qenv.log (LOG_DEBUG, loginfo);
+      }
+    }
+  }
+}
@@ -24,6 +24,8 @@ package com.tibco.ps.utils.xml;
 	FixedFromXMLToFile:
 	  Function to parse an XML string and convert the result set to a Fixed length (variable field) string.
 	  Write the result to a file.
+	  The XML is streamed (see XMLRowReader): each row is written as soon as it has been read, so the
+	  size of the XML is not limited by memory.
 	
 	  Note:  For best results, the XML string should be formatted with repeated rows 
 	  		 containing all expected columns in each row.   Deviation from this pattern may result
@@ -68,6 +70,7 @@ package com.tibco.ps.utils.xml;
 	
 	  format_string   - A string of pipe separated sizes (widths) for each column.  
 	  	format: col1_Size|col2_Size|...|coln_Size
+	  	A size may be followed by L or R (alignment) and a pad character e.g. 10R0 is right aligned and zero padded.
 	    values: 4|3|10|18
 	
 	  create_column_headers - Indicates whether to create a column headers row as the first row of the output.
@@ -107,29 +110,27 @@ import com.compositesw.common.logging.Logger;
 import com.compositesw.extension.CustomProcedure;
 
 import java.io.BufferedWriter;
-import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.StringReader;
+import java.io.Writer;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
-import java.util.List;
-import java.util.StringTokenizer;
 
-import org.jdom.Document;
-import org.jdom.Element;
-import org.jdom.JDOMException;
-import org.jdom.input.SAXBuilder;
-import org.xml.sax.InputSource;
+import javax.xml.stream.XMLStreamException;
 
 import com.compositesw.extension.CustomProcedureException;
 import com.compositesw.extension.ParameterInfo;
 
+import com.tibco.ps.utils.text.FixedWidthLayout;
+
 public class FixedFromXMLToFile extends XMLUtilTemplate implements CustomProcedure {
   String loginfo = "Done.";
   int error = 0;
   ResultSet rs = null;
+  private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+  private final String NL = System.getProperty("line.separator");
   
   static {
     className = "FixedFromXMLToFile";
@@ -220,7 +221,7 @@ public class FixedFromXMLToFile extends XMLUtilTemplate implements CustomProcedu
            "\nTotal Columns: " + totalColumns +
            "\nFile Path: " + filePath +
            "\nAppend: " + append +
-           "\nXML String: " + xmlString + 
+           "\nXML String Length: " + xmlString.length() +
            "\n";
  
       /*
@@ -232,21 +233,14 @@ public class FixedFromXMLToFile extends XMLUtilTemplate implements CustomProcedu
       }
 
       // Validate the number of widths in the format_string vs. the Total Number of Columns passed in and expected.  They should be equal.
-      int tokenCount = getTokenCount(formatString);
+      FixedWidthLayout layout = FixedWidthLayout.compile(formatString);
+      int tokenCount = layout.getColumnCount();
       if (tokenCount != totalColumns) {
           throw new IllegalArgumentException ("The number of sizes(widths) in the format string ["+tokenCount+"] does not match the expected total_columns ["+totalColumns+"].");
       }
 
-      // if "append" input is false, zero out the input file and change "append"
-      // to true so that all subsequent calls to createFileAscii DO append to the file.
-      // (otherwise all you get is a file with the last written line, i.e. "")
-      //
-      if (! append) {
-        createFileAscii (filePath, false, "");
-        append = true;
-      }
-
-      processXMLStringFixed(xmlString, formatString, createHeaders, totalColumns, filePath, append);		
+      int rowCount = processXMLFixed(new XMLRowReader(new StringReader(xmlString)), layout, createHeaders, totalColumns, filePath, append);
+      loginfo += "\nROWCOUNT = " + rowCount;
       
     } catch (Throwable t) {
         error = 1;
@@ -272,211 +266,90 @@ public class FixedFromXMLToFile extends XMLUtilTemplate implements CustomProcedu
 	 ****************************************************************/
 
   	/****************************************************************
-  	 * processXMLStringFixed - 
+  	 * processXMLFixed - 
   	 * 
-	 * @param xmlString - The XML string to parse
-	 * @param formatString - A string of pipe separated sizes (widths) for each column.  format: col1_Size|col2_Size|...|coln_Size
+	 * The XML is read with XMLRowReader and each row is written through one open writer as soon as
+	 * the end tag of its element is read, so the document is never held in memory as a whole.
+	 * Each row, and the end of the file, starts on a new line.
+	 * 
+	 * @param rows - The XML to convert.  It is closed when the conversion ends.
+	 * @param layout - The compiled format_string.  A string of pipe separated sizes (widths) for each column.  format: col1_Size|col2_Size|...|coln_Size
 	 * @param createHeaders - Indicates whether to create a column headers row as the first row of the output.
 	 * @param totalColumns - Total number of columns to produce.  This is a validation against the number of fields discovered in the XML.
 	 * @param outputFilePath - Full path to a file that is to be created.	
 	 * @param append - 0=do not append file, 1=append file.
+	 * @return the number of rows written
 	 * @throws CustomProcedureException 
-	 * @throws SQLException 
 	 ****************************************************************/
-	@SuppressWarnings("unchecked")
-	private void processXMLStringFixed(String xmlString, String formatString, boolean createHeaders, int totalColumns, String outputFilePath, boolean append) throws CustomProcedureException {
+	protected int processXMLFixed(XMLRowReader rows, FixedWidthLayout layout, boolean createHeaders, int totalColumns, String outputFilePath, boolean append) throws CustomProcedureException {
 	
-		Element rootElement = null;
+		int rowCount = 0;
+		Writer out = null;
 		try {
-			rootElement = getDocumentFromString(xmlString);
-			if(rootElement != null){
-				
-				try {
-					List<Element> nodes = rootElement.getChildren();
-					StringBuffer sb = new StringBuffer();
-					
-					if (createHeaders) {
-						sb = processHeaderFixed(nodes, sb, formatString, totalColumns, outputFilePath, append);
-						append = true;					
+			out = new BufferedWriter(new FileWriter(outputFilePath, append), WRITE_BUFFER_SIZE);
+			// one row buffer is reused for every row
+			char[] line = layout.newRow();
+			int lineWidth = layout.getRowWidth(totalColumns);
+
+			while (rows.next()) {
+				if (rowCount == 0 && createHeaders) {
+					checkColumnCount(rows, totalColumns, "Header");
+					for (int x = 0; x < totalColumns; x++) {
+						layout.put(line, x, rows.getName(x), false);
 					}
-
-					int rowCount = 0;
-					sb = new StringBuffer();
-					sb = processChildNodesFixed(nodes, sb, formatString, totalColumns, outputFilePath, append, rowCount);
-					if (sb.toString() != null) {
-						// Add a blank line for the last line in the file.
-						createFileAscii(outputFilePath, append, "");					
-					}
-		
-				} catch (Exception ex) {
-					throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
-				}
-			}
-		} catch (SQLException ex) {
-			throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
-		}
-	}
-
-	@SuppressWarnings("unchecked")
-	private StringBuffer processHeaderFixed(List<Element> childNodes, StringBuffer sb, String formatString, int totalColumns, String outputFilePath, boolean append) throws CustomProcedureException{
-		
-		int elementCount = 0;
-		int rowCount = 0;
-		
-		for (Element element : childNodes) {
-			// Break out of the loop once the first row header is constructed
-			if (rowCount == 1) {
-				break;
-			}
-			
-			if(element.getChildren() == null || element.getChildren().isEmpty()){
-				
-				String token = getToken(elementCount, formatString);
-				if (token != null) {
-						int size = Integer.parseInt(token);
-
-						String columnHeader = (element.getName());
-						if (columnHeader.length() > size) {
-							columnHeader = columnHeader.substring(0, size);
-						}
-						sb.append (rpad(columnHeader, size, " "));
+					out.write(NL);
+					out.write(line, 0, lineWidth);
 				}
+				checkColumnCount(rows, totalColumns, "ROW["+rows.getRowNumber()+"]");
 
-				elementCount++;
-				// Break out of the loop once the total number of columns is met from the current column list
-				if (elementCount == totalColumns) {
-					try {
-						createFileAscii(outputFilePath, append, sb.toString());
-					} catch (Exception ex) {
-						throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
-					}
+				// Truncate or pad each value into its column of the row buffer
+				for (int x = 0; x < totalColumns; x++) {
+					layout.put(line, x, rows.getValue(x), false);
 				}
-				// Throw an exception if the number of elements retrieved is greater than the total number of elements expected
-				if (elementCount > totalColumns) {
-					throw new CustomProcedureException("Header::The Number of elements extracted from the XML ["+elementCount+"] is more than the expected total elements ["+totalColumns+"].");
-				}
-
-			}else{
+				out.write(NL);
+				out.write(line, 0, lineWidth);
 				rowCount++;
-				sb = processHeaderFixed(element.getChildren(), sb, formatString, totalColumns, outputFilePath, append);
-			}
-		}
-		if (elementCount > 0) {
-			if (elementCount < totalColumns) {
-				throw new CustomProcedureException("Header::The Number of elements extracted from the XML ["+elementCount+"] is less than the expected total elements ["+totalColumns+"].");
 			}
-		}
-		return sb;
-	}
-	
-	@SuppressWarnings("unchecked")
-	private StringBuffer processChildNodesFixed(List<Element> childNodes, StringBuffer sb, String formatString, int totalColumns, String outputFilePath, boolean append, int rowCount) throws CustomProcedureException{
-		
-		sb = new StringBuffer();	
-		String resultTmp = "";
-		int elementCount = 0;
+			// Add a blank line for the last line in the file.
+			out.write(NL);
 
-		for (Element element : childNodes) {
-			if(element.getChildren() == null || element.getChildren().isEmpty()){
-
-				resultTmp = element.getValue();
-	
-				// Get the next token size from the format string
-				String token = getToken(elementCount, formatString);
-				if (token != null) {
-		        	  
-					int size = Integer.parseInt(token);
-		   
-					// Append if not null
-					if (resultTmp != null) {
-			
-						// Substring the result if larger than size
-						if (resultTmp.length() > size) {
-			        		resultTmp = resultTmp.substring(0, size);
-			        	}
-			        	// Apply padding on the result if needed
-			        	resultTmp = rpad(resultTmp,size," ");
-				        //if (logger.isDebug()) logger.debug ("main_loop::x="+formatString+"  size="+size+"  resultTmp=["+resultTmp+"]");
-				        // Comment this line out after debugging is completed
-				        //logger.info ("main_loop::x="+x+"  size="+size+"  resultTmp=["+resultTmp+"]");
-			            sb.append (resultTmp);
+			// -- flush and close here rather than in finally, so that an error writing the buffered rows fails the procedure
+			out.flush();
+			out.close();
+			out = null;
 
-						elementCount++;
-						// Write the row to the file once the number of elements extracted matches the total number of elements expected
-						if (elementCount == totalColumns) {
-							try {
-								createFileAscii(outputFilePath, append, sb.toString());
-							} catch (Exception ex) {
-								throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
-							}
-						}
-						// Throw an exception if the number of elements retrieved is greater than the total number of elements expected
-						if (elementCount > totalColumns) {
-							throw new CustomProcedureException("ROW["+rowCount+"]::The Number of elements extracted from the XML ["+elementCount+"] is more than the expected total elements ["+totalColumns+"].");
-						}
-					}
-				}
-		          
-			}else{
-				rowCount++;
-				sb = processChildNodesFixed(element.getChildren(), sb, formatString, totalColumns, outputFilePath, append, rowCount);
+		} catch (XMLStreamException ex) {
+			throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
+		} catch (IOException ex) {
+			throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
+		} finally {
+			// -- clean up only: out is still open here when the conversion failed
+			try {
+				rows.close();
+			} catch (Exception ex) {
+				logger.info ("Error closing the XML of "+outputFilePath+": "+ex.toString());
 			}
-		}
-		if (elementCount > 0) {
-			if (elementCount < totalColumns) {
-				throw new CustomProcedureException("ROW["+rowCount+"]::The Number of elements extracted from the XML ["+elementCount+"] is less than the expected total elements ["+totalColumns+"].");
+			if (out != null) {
+				try {
+					out.close();
+				} catch (Exception ex) {
+					logger.info ("Error closing "+outputFilePath+": "+ex.toString());
+				}
 			}
 		}
-		return sb;
+		return rowCount;
 	}
-	
 
-	/**
-	 * @return the nth token for a string value
-	 * Example:
-	 * tokenNum=3
-	 * tokenString=4|5|8|9
-	 * tokenized string= 4 5 8 9
-	 * return the value "8"
-	 */
-	private String getToken(int tokenNum, String tokenString) {
-		String separator = "|";
-		if (tokenString.contains(",")) {
-			separator = ",";
+	// -- the number of elements in a row must match the total number of columns expected
+	private void checkColumnCount(XMLRowReader rows, int totalColumns, String row) throws CustomProcedureException {
+		if (rows.getColumnCount() > totalColumns) {
+			throw new CustomProcedureException(row+"::The Number of elements extracted from the XML ["+rows.getColumnCount()+"] is more than the expected total elements ["+totalColumns+"].");
 		}
-		// Tokenize a path based on separator
-	    StringTokenizer st = new StringTokenizer(tokenString, separator);
-	    int i=0;
-	    while (st.hasMoreTokens()) {
-	    	String token = st.nextToken();
-	    	if (i == tokenNum) {
-	    		return token;
-	    	}	
-	    	i++;
-	    }
-	    return null;
-	}
-	
-	/**
-	 * @return the number of tokens in a tokenString
-	 * Example:
-	 * tokenString=4|5|8|9
-	 * return the value "4"
-	 */
-	private int getTokenCount(String tokenString) {
-		String separator = "|";
-		if (tokenString.contains(",")) {
-			separator = ",";
+		if (rows.getColumnCount() < totalColumns) {
+			throw new CustomProcedureException(row+"::The Number of elements extracted from the XML ["+rows.getColumnCount()+"] is less than the expected total elements ["+totalColumns+"].");
 		}
-		// Tokenize a path based on separator
-	    StringTokenizer st = new StringTokenizer(tokenString, separator);
-	    int i=0;
-	    while (st.hasMoreTokens()) {
-	    	i++;
-	    	st.nextToken();
-	    }
-	    return i;
 	}
+
 	/**
 	 * Pad to the right of a string for totalPadAmount using padChar
 	 * @param str - string to pad
@@ -497,53 +370,6 @@ public class FixedFromXMLToFile extends XMLUtilTemplate implements CustomProcedu
 		return padStr;
 	}
 	
-	/****************************************************************
-	 * COMMON METHODS
-	 ****************************************************************/
-
-	// -- returns root element of XML document
-	private Element getDocumentFromString(String xmlString) throws CustomProcedureException, SQLException  {
-		
-		Element retval=null;
-		InputSource inStream = new InputSource();
-		inStream.setCharacterStream(new StringReader(xmlString));
-		Document document = null;
-		try {
-			document = (new SAXBuilder()).build(inStream);
-	        retval = document.getRootElement();
-		} catch(JDOMException e) {
-			throw new CustomProcedureException(e);
-		} catch (IOException e) {
-			throw new CustomProcedureException(e);
-		}
-		
-		return retval;
-	}
-
-	private void createFileAscii(String fileName, boolean append, String fileContent) 
-		throws CustomProcedureException, SQLException {
-
-		try {
-			File file = new File(fileName);
-			// if its not there create it
-			if(!file.isFile()){
-				file.createNewFile();
-			}				
-				
-			BufferedWriter out = new BufferedWriter(new FileWriter(fileName, append));
-			if (append) {
-				out.newLine();
-			}
-			out.write(fileContent);
-			out.close();
-			//System.out.println("Your file has been written");        	
-		}
-		catch(IOException ex)
-		{
-			throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
-		}	        
-	}
-	
 	public static void main(String[] args) {
 		int xmlChoice = 1; //1=correct XML, 2=extra column, 3=one less column (1st row), 4=one less column (2nd row), 4=one less column (3rd row)
 		
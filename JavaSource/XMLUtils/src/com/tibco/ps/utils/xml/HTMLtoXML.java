@@ -23,7 +23,9 @@ package com.tibco.ps.utils.xml;
 /* 
 	HTMLtoXML:
 	
-	This custom procedure invokes JTidy to convert HTML into well formed XML/XHTML
+	This custom procedure invokes JTidy to convert HTML into well formed XML/XHTML.
+	The Tidy instance is configured once per thread and reused (see HTMLtoXMLBatch
+	to convert many documents in parallel.)
 	
 	
 	Input:
@@ -60,6 +62,8 @@ public class HTMLtoXML
   private ProcedureReference proc;
   private String result;
 
+  private static final ThreadLocal<Tidy> tidies = new ThreadLocal<Tidy>();
+
   public HTMLtoXML() { }
 
   /**
@@ -122,18 +126,32 @@ public class HTMLtoXML
   {
      String arg1 =
 	      (inputValues[0] != null ? ((String)inputValues[0]).toString() : "");
-     Tidy tidy = new Tidy();
-     tidy.setXmlOut(true);
-     tidy.setShowErrors(0);
-     tidy.setQuiet(true);
-     tidy.setShowWarnings(false);
-     tidy.setDocType("omit");
      StringWriter writer = new StringWriter();
-     tidy.parseDOM(new StringReader(arg1), writer);
+     convert(new StringReader(arg1), writer);
 
      result = writer.toString();
   }
 
+  /**
+   * Convert HTML to XML with the Tidy of the calling thread.  A Tidy is
+   * configured once per thread and reused by every conversion on it, as
+   * it is not thread safe.  Used by HTMLtoXMLBatch as well.
+   */
+  static void convert(Reader in, Writer out)
+  {
+     Tidy tidy = tidies.get();
+     if (tidy == null) {
+        tidy = new Tidy();
+        tidy.setXmlOut(true);
+        tidy.setShowErrors(0);
+        tidy.setQuiet(true);
+        tidy.setShowWarnings(false);
+        tidy.setDocType("omit");
+        tidies.set(tidy);
+     }
+     tidy.parseDOM(in, out);
+  }
+
   /**
    * Called to retrieve the number of rows that were inserted,
    * updated, or deleted during the execution of the procedure. A
@@ -0,0 +1,431 @@
+package com.tibco.ps.utils.xml;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+	HTMLtoXMLBatch:
+	  Converts many HTML documents to well formed XML/XHTML with JTidy, as HTMLtoXML does for one. The documents
+	  are the rows of a query or the files of a directory, and are converted in parallel on a pool of worker
+	  threads, each of which configures one Tidy and reuses it for all of its documents.
+
+	  The results are returned as a cursor, in the order of the documents. Documents are only read as the
+	  cursor is read, and at most two per thread are being converted or waiting to be returned at any time,
+	  so memory use does not depend on the number of documents (apart from the names of the output files.)
+
+	  A document that cannot be converted doesn't stop the batch: its row has a status of FAILED with the reason.
+
+
+	Inputs:
+	  query_string          - A query whose first column is the id of a document and second column its HTML.
+	    values: Any valid CIS query or NULL when html_directory is provided.
+
+	  html_directory        - A directory whose files (not its subdirectories) are converted, in the order of
+	                          their names. The id of a document is its file name. The files are read as UTF-8.
+	    values: Any valid filesystem path or NULL when query_string is provided.
+
+	  output_directory      - When provided, each XML document is written to <id>.xml in this directory (in UTF-8)
+	                          instead of being returned in the cursor. The extension of a file name is replaced,
+	                          and characters other than letters, digits, '.', '-' and '_' are replaced by '_'.
+	                          When that name (ignoring case) is already used by an earlier document of the batch,
+	                          a number is added to it (<id>_2.xml, <id>_3.xml, ...) so no output is overwritten.
+	    values: Any valid filesystem path or NULL.
+
+	  threads               - The number of documents to convert at a time.
+	    values: Any positive integer or NULL (defaults to the number of processors.)
+
+
+	Output:
+	  result (              - A cursor with a row per document.
+	    id                  - The id of the document.
+	    xml                 - The XML document, or NULL when written to a file or when the conversion failed.
+	    file_path           - The file the XML document was written to, or NULL.
+	    status              - OK or FAILED with the reason.
+	  )
+
+
+	Exceptions:
+	  CustomProcedureException - Thrown when illegal arguments are passed.
+
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import com.compositesw.common.logging.Logger;
+import com.compositesw.extension.CustomCursor;
+import com.compositesw.extension.CustomProcedure;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class HTMLtoXMLBatch extends XMLUtilTemplate implements CustomProcedure {
+
+  // number of characters written to an output file at a time
+  private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+  private String loginfo = "";
+  private ResultSet rs = null;
+  private BatchCursor outputCursor = null;
+
+  static {
+	className = "HTMLtoXMLBatch";
+	logger = Logger.getLogger(HTMLtoXMLBatch.class.getName());
+  }
+
+  private static final ParameterInfo[] OUTPUT_CURSOR = new ParameterInfo[] {
+    new ParameterInfo("id", Types.VARCHAR, DIRECTION_NONE),
+    new ParameterInfo("xml", Types.LONGVARCHAR, DIRECTION_NONE),
+    new ParameterInfo("file_path", Types.VARCHAR, DIRECTION_NONE),
+    new ParameterInfo("status", Types.VARCHAR, DIRECTION_NONE)
+  };
+
+  public String getDescription() {
+    return "This procedure converts the HTML documents of a query or a directory to well formed XML/XHTML in parallel";
+  }
+
+  public String getName() {
+    return "HTMLtoXMLBatch";
+  }
+
+  public Object[] getOutputValues() {
+    return new Object[] { outputCursor };
+  }
+
+  public ParameterInfo[] getParameterInfo() {
+    return new ParameterInfo[] {
+      new ParameterInfo("query_string", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("html_directory", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("output_directory", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("threads", Types.INTEGER, DIRECTION_IN),
+      new ParameterInfo("result", TYPED_CURSOR, DIRECTION_OUT, OUTPUT_CURSOR)
+    };
+  }
+
+  public void invoke(Object[] inputs) throws CustomProcedureException, SQLException {
+    try {
+      String queryString = null;
+      String htmlDirectory = null;
+      String outputDirectory = null;
+      int threads = Runtime.getRuntime().availableProcessors();
+
+      /*
+       * VALIDATE Input parameters
+       */
+      if (inputs[0] == null && inputs[1] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter query_string or html_directory must be provided.");
+      }
+      if (inputs[0] != null && inputs[1] != null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": Only one of the IN Parameters query_string and html_directory may be provided.");
+      }
+
+      /*
+       * RETREIVE Input parameters
+       */
+      if (inputs[0] != null) {
+        queryString = inputs[0].toString();
+      }
+      if (inputs[1] != null) {
+        htmlDirectory = inputs[1].toString().trim();
+      }
+      if (inputs[2] != null) {
+        outputDirectory = inputs[2].toString().trim();
+      }
+      if (inputs[3] != null) {
+        threads = (Integer) inputs[3];
+      }
+
+      loginfo += "DEBUG: \nARGS" +
+           "\nQuery String: " + queryString +
+           "\nHTML Directory: " + htmlDirectory +
+           "\nOutput Directory: " + outputDirectory +
+           "\nThreads: " + threads +
+           "\n";
+
+      /*
+       * VALIDATE parameters for content
+       */
+      if (threads <= 0) {
+        throw new IllegalArgumentException ("The number of threads must be a positive integer");
+      }
+      if (outputDirectory != null && !new File(outputDirectory).isDirectory()) {
+        throw new IllegalArgumentException ("The output directory does not exist: " + outputDirectory);
+      }
+
+      File[] files = null;
+      if (htmlDirectory != null) {
+        File directory = new File(htmlDirectory);
+        if (!directory.isDirectory()) {
+          throw new IllegalArgumentException ("The HTML directory does not exist: " + htmlDirectory);
+        }
+        files = directory.listFiles();
+        Arrays.sort(files);
+        loginfo += "FILE COUNT: " + files.length + "\n";
+      } else {
+        rs = qenv.executeQuery (queryString, null);
+        if (rs.getMetaData().getColumnCount() < 2) {
+          throw new IllegalArgumentException ("The query must return the id and the HTML of the documents as its first two columns");
+        }
+      }
+
+      // the result set is handed over to the cursor, which closes it once it has been drained
+      outputCursor = new BatchCursor (rs, files, outputDirectory, threads);
+
+    } catch (Throwable t) {
+      logger.info (t.getMessage() + "\n" + loginfo);
+
+      try {
+        if (rs != null) {
+          if (! rs.isClosed()) { rs.close(); }
+        }
+      } catch (Throwable t2) {
+        logger.info ("Exception Occurred closing result set: " + t2.getMessage());
+      }
+      throw new CustomProcedureException (t);
+
+    } finally {
+      if (qenv != null) {
+        qenv.log (LOG_DEBUG, loginfo);
+      }
+    }
+  }
+
+  public void close() throws SQLException {
+    if (logger.isDebug()) {
+      logger.debug(className + ".close called");
+    }
+    if (outputCursor != null) {
+      outputCursor.close();
+    } else if (rs != null) {
+      if (! rs.isClosed()) { rs.close(); }
+    }
+  }
+
+  /*
+   * Cursor that reads the next documents from the result set (or the list of files) and hands them to the pool
+   * as rows are read, keeping at most two documents per thread in flight.  Rows are returned in the order of
+   * the documents, so a slow document holds back the ones after it but not the conversions.
+   */
+  private class BatchCursor implements CustomCursor {
+    private ResultSet _rs;
+    private File[] _files;
+    private int _fileIndex = 0;
+    private String _outputDirectory;
+    private int _maxInFlight;
+    private ExecutorService _pool;
+    private LinkedList<Future<Object[]>> _inFlight = new LinkedList<Future<Object[]>>();
+    private boolean _inputDone = false;
+    private int _rowCount = 0;
+    // the output file names given to documents so far, in lower case for case insensitive file systems
+    private Set<String> _outputNames = new HashSet<String>();
+
+    public BatchCursor (ResultSet rs, File[] files, String outputDirectory, int threads) {
+      _rs = rs;
+      _files = files;
+      _outputDirectory = outputDirectory;
+      _maxInFlight = threads * 2;
+      _pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+        private int count = 0;
+        public synchronized Thread newThread(Runnable r) {
+          Thread t = new Thread(r, className + "-worker-" + (++count));
+          t.setDaemon(true);
+          return t;
+        }
+      });
+    }
+
+    public ParameterInfo[] getColumnInfo() {
+      return OUTPUT_CURSOR;
+    }
+
+    public Object[] next() throws CustomProcedureException, SQLException {
+      while (!_inputDone && _inFlight.size() < _maxInFlight) {
+        Callable<Object[]> document = nextDocument();
+        if (document == null) {
+          _inputDone = true;
+        } else {
+          _inFlight.add (_pool.submit (document));
+        }
+      }
+
+      if (_inFlight.isEmpty()) {
+        if (logger.isDebug()) logger.debug (className + " ROWCOUNT = " + _rowCount);
+        close();
+        return null;
+      }
+
+      try {
+        Object[] row = _inFlight.removeFirst().get();
+        _rowCount++;
+        return row;
+      } catch (InterruptedException e) {
+        close();
+        throw new CustomProcedureException (e);
+      } catch (ExecutionException e) {
+        close();
+        throw new CustomProcedureException (e.getCause());
+      }
+    }
+
+    /*
+     * The conversion of the next document, or null when there are no more.  The HTML of a row is read here,
+     * as the result set may only be used by the thread reading the cursor.
+     */
+    private Callable<Object[]> nextDocument() throws SQLException {
+      if (_files != null) {
+        while (_fileIndex < _files.length) {
+          final File file = _files[_fileIndex++];
+          if (file.isFile()) {
+            final String outputName = outputName (file.getName(), true);
+            return new Callable<Object[]>() {
+              public Object[] call() throws Exception {
+                Reader in = new InputStreamReader (new FileInputStream (file), "UTF-8");
+                try {
+                  return convert (file.getName(), outputName, in);
+                } finally {
+                  in.close();
+                }
+              }
+            };
+          }
+        }
+        return null;
+      }
+
+      if (!_rs.next()) {
+        _rs.close();
+        return null;
+      }
+      final String id = _rs.getString (1);
+      final String html = _rs.getString (2);
+      final String outputName = outputName (id, false);
+      return new Callable<Object[]>() {
+        public Object[] call() throws Exception {
+          return convert (id, outputName, new StringReader ((html != null) ? html : ""));
+        }
+      };
+    }
+
+    /*
+     * The output file name of the next document, or null when the documents aren't written to files.  The name
+     * is chosen here, before the document is handed to the pool, so no two documents of the batch write the
+     * same file at the same time or overwrite each other's output.
+     */
+    private String outputName (String id, boolean isFile) {
+      if (_outputDirectory == null) {
+        return null;
+      }
+      String name = fileName (id, isFile);
+      String base = name.substring (0, name.length() - 4);
+      for (int n = 2; !_outputNames.add (name.toLowerCase (Locale.ENGLISH)); n++) {
+        name = base + "_" + n + ".xml";
+      }
+      return name;
+    }
+
+    /*
+     * Runs on a worker thread.
+     */
+    private Object[] convert (String id, String outputName, Reader in) {
+      String filePath = null;
+      boolean created = false;
+      try {
+        if (_outputDirectory == null) {
+          StringWriter out = new StringWriter();
+          HTMLtoXML.convert (in, out);
+          return new Object[] { id, out.toString(), null, "OK" };
+        }
+
+        filePath = new File (_outputDirectory, outputName).getPath();
+        Writer out = new BufferedWriter (new OutputStreamWriter (new FileOutputStream (filePath), "UTF-8"), WRITE_BUFFER_SIZE);
+        created = true;
+        try {
+          HTMLtoXML.convert (in, out);
+        } finally {
+          out.close();
+        }
+        return new Object[] { id, null, filePath, "OK" };
+
+      } catch (Throwable t) {
+        logger.info (className + ": Unable to convert document " + id + ": " + t);
+        // don't leave a partial file behind
+        if (created) {
+          new File (filePath).delete();
+        }
+        return new Object[] { id, null, null, "FAILED: " + t };
+      }
+    }
+
+    public void close() throws SQLException {
+      _inputDone = true;
+      for (Future<Object[]> f : _inFlight) {
+        f.cancel (true);
+      }
+      _inFlight.clear();
+      _pool.shutdownNow();
+      if (_rs != null) {
+        if (! _rs.isClosed()) { _rs.close(); }
+      }
+    }
+  }
+
+  /*
+   * The name of the output file of a document: its id (without extension for a file) with only safe characters, plus .xml.
+   */
+  private static String fileName (String id, boolean isFile) {
+    String name = (id != null) ? id : "null";
+    int dot = name.lastIndexOf ('.');
+    if (isFile && dot > 0) {
+      name = name.substring (0, dot);
+    }
+    StringBuilder sb = new StringBuilder (name.length() + 4);
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt (i);
+      sb.append ((Character.isLetterOrDigit (c) || c == '.' || c == '-' || c == '_') ? c : '_');
+    }
+    return sb.append (".xml").toString();
+  }
+}
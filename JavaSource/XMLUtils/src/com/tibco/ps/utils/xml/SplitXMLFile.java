@@ -0,0 +1,410 @@
+package com.tibco.ps.utils.xml;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+	SplitXMLFile:
+	  Splits a large XML document into numbered part files of at most max_records_per_file records or
+	  max_bytes_per_file bytes, so that the parts can be converted (e.g. by CSVFromXMLToFile or
+	  XPathRowsFromXML) concurrently.  The records are the child elements of the root element:
+
+	    <orders xmlns="urn:orders">          /data/orders.xml is split into
+	      <order>...</order>                 /data/orders.00001.xml, /data/orders.00002.xml, ...
+	      <order>...</order>                 each with an <orders xmlns="urn:orders"> root element
+	      ...
+	    </orders>
+
+	  Each part is a well formed document in UTF-8: the root element, with its attributes and namespace
+	  declarations, is copied into every part and holds the records of that part.  Text, comments and
+	  processing instructions between the records, and anything outside of the root element, are not copied.
+
+	  The XML is read once, as a stream, and a part is written each time a row of the result cursor is read,
+	  so a part is complete once its row has been returned and can be processed while the next part is being
+	  written.  A part file that was being written when an error occurred is deleted.
+
+
+	Inputs:
+	  xml_file_path         - Full path to a file holding the XML.  The file is read in the encoding of its
+	                          XML declaration (UTF-8 when there is none.)
+	    values: Any valid filesystem path or NULL when xml_clob is provided.
+
+	  xml_clob              - The XML as a CLOB (or a string.)
+	    values: Any valid XML or NULL when xml_file_path is provided.
+
+	  max_records_per_file  - The number of records of each part (the last part may hold fewer.)
+	    values: Any integer > 0 or NULL when max_bytes_per_file is provided.
+
+	  max_bytes_per_file    - Starts a new part once a part holds this many bytes.  A part may exceed it by
+	                          less than a record (and a few KB of buffered output.)
+	    values: Any integer > 0 or NULL when max_records_per_file is provided.
+
+	  file_Path             - Full path of the parts, numbered as the rolled over files of the TextUtils
+	                          exports (see ExportFileSet): /data/orders.xml gives /data/orders.00001.xml,
+	                          /data/orders.00002.xml, ...
+	    values: Any valid filesystem path. Existing parts are replaced.
+
+
+	Output:
+	  result (              - A cursor with a row per part.
+	    file_number         - The number of the part, starting at 1.
+	    file_path           - The full path of the part.
+	    record_count        - The number of records in the part.
+	    byte_count          - The size of the part.
+	  )
+
+
+	Exceptions:
+	  CustomProcedureException - Thrown when illegal arguments are passed or the XML is not well formed.
+
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import com.compositesw.common.logging.Logger;
+import com.compositesw.extension.CustomCursor;
+import com.compositesw.extension.CustomProcedure;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+import com.tibco.ps.utils.text.ExportFileSet;
+
+public class SplitXMLFile extends XMLUtilTemplate implements CustomProcedure {
+
+  // number of bytes read from the XML file and written to a part at a time
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private String loginfo = "";
+  private PartCursor outputCursor = null;
+
+  static {
+	className = "SplitXMLFile";
+	logger = Logger.getLogger(SplitXMLFile.class.getName());
+  }
+
+  private static final ParameterInfo[] OUTPUT_CURSOR = new ParameterInfo[] {
+    new ParameterInfo("file_number", Types.INTEGER, DIRECTION_NONE),
+    new ParameterInfo("file_path", Types.VARCHAR, DIRECTION_NONE),
+    new ParameterInfo("record_count", Types.BIGINT, DIRECTION_NONE),
+    new ParameterInfo("byte_count", Types.BIGINT, DIRECTION_NONE)
+  };
+
+  public String getDescription() {
+    return "This procedure splits an XML document into part files of a number of records or bytes, each with a copy of the root element.";
+  }
+
+  public String getName() {
+    return "SplitXMLFile";
+  }
+
+  public Object[] getOutputValues() {
+    return new Object[] { outputCursor };
+  }
+
+  public ParameterInfo[] getParameterInfo() {
+    return new ParameterInfo[] {
+      new ParameterInfo("xml_file_path", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("xml_clob", Types.CLOB, DIRECTION_IN),
+      new ParameterInfo("max_records_per_file", Types.BIGINT, DIRECTION_IN),
+      new ParameterInfo("max_bytes_per_file", Types.BIGINT, DIRECTION_IN),
+      new ParameterInfo("file_Path", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("result", TYPED_CURSOR, DIRECTION_OUT, OUTPUT_CURSOR)
+    };
+  }
+
+  public void invoke(Object[] inputs) throws CustomProcedureException, SQLException {
+    Closeable source = null;
+    try {
+      String xmlFilePath = null;
+      long maxRecords = 0;
+      long maxBytes = 0;
+      String filePath = null;
+
+      /*
+       * VALIDATE Input parameters
+       */
+      if (inputs[0] == null && inputs[1] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter xml_file_path or xml_clob must be provided.");
+      }
+      if (inputs[0] != null && inputs[1] != null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": Only one of the IN Parameters xml_file_path and xml_clob may be provided.");
+      }
+      if (inputs[2] == null && inputs[3] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter max_records_per_file or max_bytes_per_file must be provided.");
+      }
+      if (inputs[2] != null && ((Number) inputs[2]).longValue() <= 0) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter max_records_per_file must be > 0.");
+      }
+      if (inputs[3] != null && ((Number) inputs[3]).longValue() <= 0) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter max_bytes_per_file must be > 0.");
+      }
+      if (inputs[4] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter file_Path must be provided.");
+      }
+
+      /*
+       * RETREIVE Input parameters
+       */
+      if (inputs[0] != null) {
+        xmlFilePath = inputs[0].toString().trim();
+      }
+      if (inputs[2] != null) {
+        maxRecords = ((Number) inputs[2]).longValue();
+      }
+      if (inputs[3] != null) {
+        maxBytes = ((Number) inputs[3]).longValue();
+      }
+      filePath = inputs[4].toString().trim();
+
+      loginfo += "DEBUG: \nARGS" +
+           "\nXML Source: " + ((xmlFilePath != null) ? xmlFilePath : "CLOB") +
+           "\nMax Records Per File: " + maxRecords +
+           "\nMax Bytes Per File: " + maxBytes +
+           "\nFile Path: " + filePath +
+           "\n";
+
+      // not coalescing, so that CDATA sections are copied as they are
+      XMLInputFactory factory = XMLFactories.getInputFactory (false);
+      XMLEventReader events;
+      if (xmlFilePath != null) {
+        InputStream in = new BufferedInputStream (new FileInputStream (xmlFilePath), BUFFER_SIZE);
+        source = in;
+        events = factory.createXMLEventReader (in);
+      } else {
+        Reader in = ClobReader.open (inputs[1]);
+        source = in;
+        events = factory.createXMLEventReader (in);
+      }
+
+      StartElement root = null;
+      while (root == null && events.hasNext()) {
+        XMLEvent event = events.nextEvent();
+        if (event.isStartElement()) {
+          root = event.asStartElement();
+        }
+      }
+      if (root == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": The XML has no root element.");
+      }
+
+      // the XML is handed over to the cursor, which closes it once it has been drained
+      outputCursor = new PartCursor (events, source, root, maxRecords, maxBytes, filePath);
+
+    } catch (Throwable t) {
+      logger.info (t.getMessage() + "\n" + loginfo);
+      try {
+        if (source != null) {
+          source.close();
+        }
+      } catch (Throwable t2) {
+        logger.info ("Exception Occurred closing the XML: " + t2.getMessage());
+      }
+      throw (t instanceof CustomProcedureException) ? (CustomProcedureException) t : new CustomProcedureException (t);
+
+    } finally {
+      if (qenv != null) {
+        qenv.log (LOG_DEBUG, loginfo);
+      }
+    }
+  }
+
+  public void close() throws SQLException {
+    if (logger.isDebug()) {
+      logger.debug(className + ".close called");
+    }
+    if (outputCursor != null) {
+      outputCursor.close();
+    }
+  }
+
+  /*
+   * Counts the bytes written to a part.
+   */
+  private static class CountingOutputStream extends FilterOutputStream {
+    long count = 0;
+
+    CountingOutputStream (OutputStream out) {
+      super (out);
+    }
+
+    public void write (int b) throws IOException {
+      out.write (b);
+      count++;
+    }
+
+    public void write (byte[] b, int off, int len) throws IOException {
+      out.write (b, off, len);
+      count += len;
+    }
+  }
+
+  /*
+   * Writes a part per row.
+   */
+  private class PartCursor implements CustomCursor {
+    private XMLEventReader _events;
+    private Closeable _source;
+    private StartElement _root;
+    private long _maxRecords;
+    private long _maxBytes;
+    private String _filePath;
+    private int _fileNumber = 0;
+    private long _recordCount = 0;
+    private boolean _done = false;
+
+    public PartCursor (XMLEventReader events, Closeable source, StartElement root, long maxRecords, long maxBytes, String filePath) {
+      _events = events;
+      _source = source;
+      _root = root;
+      _maxRecords = maxRecords;
+      _maxBytes = maxBytes;
+      _filePath = filePath;
+    }
+
+    public ParameterInfo[] getColumnInfo() {
+      return OUTPUT_CURSOR;
+    }
+
+    public Object[] next() throws CustomProcedureException, SQLException {
+      if (_done) {
+        return null;
+      }
+      File file = null;
+      OutputStream out = null;
+      try {
+        // skip to the next record, so that no part is started after the last one
+        while (!_events.peek().isStartElement()) {
+          if (_events.nextEvent().isEndElement()) {
+            if (logger.isDebug()) logger.debug (className + " FILECOUNT = " + _fileNumber + " RECORDCOUNT = " + _recordCount);
+            close();
+            return null;
+          }
+        }
+
+        _fileNumber++;
+        file = new File (ExportFileSet.numberedFilePath (_filePath, _fileNumber));
+        CountingOutputStream counter = new CountingOutputStream (new BufferedOutputStream (new FileOutputStream (file), BUFFER_SIZE));
+        out = counter;
+        XMLEventWriter writer = XMLFactories.getOutputFactory().createXMLEventWriter (counter, "UTF-8");
+        XMLEventFactory eventFactory = XMLFactories.getEventFactory();
+        writer.add (eventFactory.createStartDocument ("UTF-8", "1.0"));
+        writer.add (_root);
+
+        long records = 0;
+        int depth = 1;
+        while (true) {
+          XMLEvent event = _events.nextEvent();
+          int type = event.getEventType();
+          if (type == XMLStreamConstants.START_ELEMENT) {
+            depth++;
+            writer.add (event);
+          } else if (type == XMLStreamConstants.END_ELEMENT) {
+            depth--;
+            if (depth == 0) {
+              // the end of the root element, and of the last part
+              _done = true;
+              break;
+            }
+            writer.add (event);
+            if (depth == 1) {
+              records++;
+              if (records == _maxRecords || (_maxBytes > 0 && counter.count >= _maxBytes)) {
+                break;
+              }
+            }
+          } else if (depth > 1) {
+            // the content of a record
+            writer.add (event);
+          }
+        }
+
+        writer.add (eventFactory.createEndElement (_root.getName(), null));
+        writer.add (eventFactory.createEndDocument());
+        writer.close();
+        out.close();
+        out = null;
+        _recordCount += records;
+
+        Object[] row = new Object[] { new Integer (_fileNumber), file.getPath(), new Long (records), new Long (file.length()) };
+        if (_done) {
+          if (logger.isDebug()) logger.debug (className + " FILECOUNT = " + _fileNumber + " RECORDCOUNT = " + _recordCount);
+          closeSource();
+        }
+        return row;
+
+      } catch (Exception e) {
+        if (out != null) {
+          try {
+            out.close();
+          } catch (IOException e2) {
+            logger.info ("Exception Occurred closing " + file + ": " + e2.getMessage());
+          }
+          file.delete();
+        }
+        close();
+        throw new CustomProcedureException (e);
+      }
+    }
+
+    public void close() throws SQLException {
+      _done = true;
+      closeSource();
+    }
+
+    private void closeSource() throws SQLException {
+      if (_source == null) {
+        return;
+      }
+      try {
+        _events.close();
+        _source.close();
+      } catch (Exception e) {
+        throw new SQLException ("Unable to close the XML: " + e.getMessage());
+      } finally {
+        _source = null;
+      }
+    }
+  }
+}
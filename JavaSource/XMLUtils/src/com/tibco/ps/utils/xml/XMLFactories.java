@@ -0,0 +1,231 @@
+package com.tibco.ps.utils.xml;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+/*
+	Description:
+	  The XML parser and transformer factories shared by the XML CJP's. The newInstance() methods of the JAXP
+	  factories look up the implementation class (system properties, jaxp.properties and the service loader)
+	  each time they are called, and a new DocumentBuilder or Transformer is costly to create. A CJP that is
+	  invoked once per row of a large result set would otherwise pay for both on every row.
+
+	  TextUtils compiles this source into its jar for FormatXML and FormatXMLToFile (see the shared source
+	  directories of its build.xml.)
+
+	  The factories are created and configured once, and are not changed after that so they can be shared by
+	  all threads. DocumentBuilder and Transformer are not thread safe, so each thread keeps its own, which is
+	  reset() before it is handed out again. Reusing one is counted as a hit and creating one as a miss
+	  (see getStatistics().)
+
+	  The instance returned by getDocumentBuilder() or getTransformer() may only be used by the calling thread
+	  until its next call of the same method.
+
+	Inputs:
+	  N/A
+
+	Outputs:
+	  N/A
+
+	Exceptions:
+	  None
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+
+public class XMLFactories {
+
+	private static final String REPORT_CDATA_EVENT = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+
+	private static DocumentBuilderFactory documentBuilderFactory = null;
+	private static DocumentBuilderFactory namespaceAwareDocumentBuilderFactory = null;
+	private static TransformerFactory transformerFactory = null;
+	// the StAX input factories, by coalescing and namespace awareness (see getInputFactory())
+	private static final XMLInputFactory[] inputFactories = new XMLInputFactory[4];
+	private static XMLOutputFactory outputFactory = null;
+	private static XMLEventFactory eventFactory = null;
+
+	private static final ThreadLocal<DocumentBuilder> documentBuilders = new ThreadLocal<DocumentBuilder>();
+	private static final ThreadLocal<DocumentBuilder> namespaceAwareDocumentBuilders = new ThreadLocal<DocumentBuilder>();
+	private static final ThreadLocal<Transformer> transformers = new ThreadLocal<Transformer>();
+
+	private static final AtomicLong documentBuilderHits = new AtomicLong();
+	private static final AtomicLong documentBuilderMisses = new AtomicLong();
+	private static final AtomicLong transformerHits = new AtomicLong();
+	private static final AtomicLong transformerMisses = new AtomicLong();
+
+	private XMLFactories() {
+	}
+
+	/**
+	 * @return the DocumentBuilder of the calling thread, reset to its initial state
+	 * @param namespaceAware - whether the builder is to be namespace aware
+	 */
+	public static DocumentBuilder getDocumentBuilder(boolean namespaceAware) throws ParserConfigurationException {
+		ThreadLocal<DocumentBuilder> builders = (namespaceAware) ? namespaceAwareDocumentBuilders : documentBuilders;
+		DocumentBuilder builder = builders.get();
+		if (builder != null) {
+			builder.reset();
+			documentBuilderHits.incrementAndGet();
+			return builder;
+		}
+		DocumentBuilderFactory factory = getDocumentBuilderFactory(namespaceAware);
+		// a DocumentBuilderFactory isn't required to be thread safe
+		synchronized (factory) {
+			builder = factory.newDocumentBuilder();
+		}
+		builders.set(builder);
+		documentBuilderMisses.incrementAndGet();
+		return builder;
+	}
+
+	/**
+	 * @return the identity Transformer of the calling thread, reset to its initial state (no output properties set)
+	 */
+	public static Transformer getTransformer() throws TransformerConfigurationException {
+		Transformer transformer = transformers.get();
+		if (transformer != null) {
+			transformer.reset();
+			transformerHits.incrementAndGet();
+			return transformer;
+		}
+		TransformerFactory factory = getTransformerFactory();
+		synchronized (factory) {
+			transformer = factory.newTransformer();
+		}
+		transformers.set(transformer);
+		transformerMisses.incrementAndGet();
+		return transformer;
+	}
+
+	/**
+	 * @return the shared namespace aware StAX input factory. External entities are not resolved.
+	 * @param coalescing - whether adjacent text and CDATA sections are returned as one CHARACTERS event
+	 */
+	public static XMLInputFactory getInputFactory(boolean coalescing) {
+		return getInputFactory(coalescing, true);
+	}
+
+	/**
+	 * @return the shared StAX input factory. External entities are not resolved.
+	 * @param coalescing - whether adjacent text and CDATA sections are returned as one CHARACTERS event.
+	 *                     When they aren't CDATA sections are reported as CDATA events where the parser allows it.
+	 * @param namespaceAware - whether prefixes are resolved. When they aren't an element's local name is its
+	 *                     qualified name and undeclared prefixes are not an error.
+	 */
+	public static synchronized XMLInputFactory getInputFactory(boolean coalescing, boolean namespaceAware) {
+		int index = ((coalescing) ? 2 : 0) + ((namespaceAware) ? 1 : 0);
+		if (inputFactories[index] == null) {
+			inputFactories[index] = newInputFactory(coalescing, namespaceAware);
+		}
+		return inputFactories[index];
+	}
+
+	/**
+	 * @return the shared (non repairing) StAX output factory
+	 */
+	public static synchronized XMLOutputFactory getOutputFactory() {
+		if (outputFactory == null) {
+			outputFactory = XMLOutputFactory.newInstance();
+		}
+		return outputFactory;
+	}
+
+	/**
+	 * @return the shared StAX event factory. Its location must not be set, as it would be seen by other threads.
+	 */
+	public static synchronized XMLEventFactory getEventFactory() {
+		if (eventFactory == null) {
+			eventFactory = XMLEventFactory.newInstance();
+		}
+		return eventFactory;
+	}
+
+	public static long getDocumentBuilderHits() {
+		return documentBuilderHits.get();
+	}
+
+	public static long getDocumentBuilderMisses() {
+		return documentBuilderMisses.get();
+	}
+
+	public static long getTransformerHits() {
+		return transformerHits.get();
+	}
+
+	public static long getTransformerMisses() {
+		return transformerMisses.get();
+	}
+
+	/**
+	 * @return the hit and miss counts, for the debug log
+	 */
+	public static String getStatistics() {
+		return "DocumentBuilder hits=" + documentBuilderHits.get() + " misses=" + documentBuilderMisses.get() +
+			", Transformer hits=" + transformerHits.get() + " misses=" + transformerMisses.get();
+	}
+
+	private static synchronized DocumentBuilderFactory getDocumentBuilderFactory(boolean namespaceAware) {
+		if (namespaceAware) {
+			if (namespaceAwareDocumentBuilderFactory == null) {
+				DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+				factory.setNamespaceAware(true);
+				namespaceAwareDocumentBuilderFactory = factory;
+			}
+			return namespaceAwareDocumentBuilderFactory;
+		}
+		if (documentBuilderFactory == null) {
+			documentBuilderFactory = DocumentBuilderFactory.newInstance();
+		}
+		return documentBuilderFactory;
+	}
+
+	private static synchronized TransformerFactory getTransformerFactory() {
+		if (transformerFactory == null) {
+			transformerFactory = TransformerFactory.newInstance();
+		}
+		return transformerFactory;
+	}
+
+	private static XMLInputFactory newInputFactory(boolean coalescing, boolean namespaceAware) {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.valueOf(coalescing));
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.valueOf(namespaceAware));
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		// the JDK parser reports CDATA sections as CHARACTERS unless asked not to
+		if (!coalescing && factory.isPropertySupported(REPORT_CDATA_EVENT)) {
+			factory.setProperty(REPORT_CDATA_EVENT, Boolean.TRUE);
+		}
+		return factory;
+	}
+}
@@ -0,0 +1,302 @@
+package com.tibco.ps.utils.xml;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+/*
+	Description:
+	  Streaming (StAX) reader of the records of an XML document, used by XPathRowsFromXML. A record is an
+	  element matched by a record path, and is returned as a DOM element so that XPath expressions can be
+	  evaluated against it. Only the record being read is built as DOM: the elements outside of the records
+	  are skipped as they are read, whatever the size of the document.
+
+	  The record path is an absolute XPath location path of element names, e.g.
+
+	    /orders/order          - the order elements of the orders root element
+	    //order                - every order element
+	    /p:feed/p:entry        - with the prefix p in the namespace map
+	    /orders/*              - every child element of the root element
+
+	  A name without prefix is in no namespace, as in XPath. Predicates, attributes and functions are not
+	  supported. An element matched inside a record is part of that record and is not a record itself.
+
+	  The records are built in one reused DOM document, and the element returned by next() is valid until the
+	  next call. Comments and processing instructions are not kept.
+
+	Inputs:
+	  N/A
+
+	Outputs:
+	  N/A
+
+	Exceptions:
+	  None
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+public class XMLRecordReader {
+
+	/**
+	 * A step of the record path: a name test, which may follow a '//'.
+	 */
+	private static class Step {
+		final String namespaceURI;	// null for any namespace (*)
+		final String localName;		// null for any name (* or p:*)
+		final boolean descendant;
+
+		Step(String namespaceURI, String localName, boolean descendant) {
+			this.namespaceURI = namespaceURI;
+			this.localName = localName;
+			this.descendant = descendant;
+		}
+
+		boolean test(String elementNamespaceURI, String elementLocalName) {
+			return (localName == null || localName.equals(elementLocalName)) &&
+				(namespaceURI == null || namespaceURI.equals(elementNamespaceURI));
+		}
+	}
+
+	private final XMLStreamReader reader;
+	private final Closeable source;
+	private final Step[] steps;
+	private final Document document;
+
+	// namespace URI and local name of the open elements
+	private final List<String> namespaceURIs = new ArrayList<String>();
+	private final List<String> localNames = new ArrayList<String>();
+	private int recordNumber = 0;
+
+	/**
+	 * @param reader - positioned at the start of the document
+	 * @param source - the stream the reader reads from, closed by close()
+	 * @param recordPath - path of the record elements (see above)
+	 * @param namespaces - the URI of each prefix used by the record path
+	 */
+	public XMLRecordReader(XMLStreamReader reader, Closeable source, String recordPath, Map<String, String> namespaces) throws ParserConfigurationException {
+		this.reader = reader;
+		this.source = source;
+		this.steps = compile(recordPath, namespaces);
+		DocumentBuilder builder = XMLFactories.getDocumentBuilder(true);
+		this.document = builder.newDocument();
+	}
+
+	private static Step[] compile(String recordPath, Map<String, String> namespaces) {
+		String path = recordPath.trim();
+		if (!path.startsWith("/")) {
+			throw new IllegalArgumentException("The record XPath must be an absolute path of element names, e.g. /orders/order or //order: " + recordPath);
+		}
+		List<Step> steps = new ArrayList<Step>();
+		boolean descendant = false;
+		int start = 1;
+		for (int i = 1; i <= path.length(); i++) {
+			if (i < path.length() && path.charAt(i) != '/') {
+				continue;
+			}
+			String test = path.substring(start, i).trim();
+			start = i + 1;
+			if (test.length() == 0) {
+				if (descendant || i == path.length()) {
+					throw new IllegalArgumentException("Invalid record XPath: " + recordPath);
+				}
+				descendant = true;
+				continue;
+			}
+			for (int c = 0; c < test.length(); c++) {
+				char ch = test.charAt(c);
+				if (!(Character.isLetterOrDigit(ch) || ch == '_' || ch == '-' || ch == '.' || ch == ':' || ch == '*')) {
+					throw new IllegalArgumentException("Only element names are supported in the record XPath (no predicates, attributes or functions): " + recordPath);
+				}
+			}
+
+			String namespaceURI = XMLConstants.NULL_NS_URI;
+			String localName = test;
+			int colon = test.indexOf(':');
+			if (test.equals("*")) {
+				namespaceURI = null;
+				localName = null;
+			} else if (colon > 0) {
+				String prefix = test.substring(0, colon);
+				namespaceURI = namespaces.get(prefix);
+				if (namespaceURI == null) {
+					throw new IllegalArgumentException("The prefix " + prefix + " of the record XPath is not in the namespace map: " + recordPath);
+				}
+				localName = test.substring(colon + 1);
+				if (localName.equals("*")) {
+					localName = null;
+				}
+			}
+			steps.add(new Step(namespaceURI, localName, descendant));
+			descendant = false;
+		}
+		if (steps.isEmpty()) {
+			throw new IllegalArgumentException("Invalid record XPath: " + recordPath);
+		}
+		return steps.toArray(new Step[steps.size()]);
+	}
+
+	/**
+	 * Read up to the end tag of the next record.
+	 * @return the record element, or null at the end of the document
+	 */
+	public Element next() throws XMLStreamException {
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				namespaceURIs.add(namespaceURI(reader.getNamespaceURI()));
+				localNames.add(reader.getLocalName());
+				if (matches(0, 0)) {
+					Node previous = document.getDocumentElement();
+					if (previous != null) {
+						document.removeChild(previous);
+					}
+					Element record = readElement();
+					document.appendChild(record);
+					recordNumber++;
+					return record;
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				namespaceURIs.remove(namespaceURIs.size() - 1);
+				localNames.remove(localNames.size() - 1);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return whether the open elements from index element match the steps from index step
+	 */
+	private boolean matches(int step, int element) {
+		if (step == steps.length) {
+			return element == localNames.size();
+		}
+		Step s = steps[step];
+		if (s.descendant) {
+			for (int e = element; e < localNames.size(); e++) {
+				if (s.test(namespaceURIs.get(e), localNames.get(e)) && matches(step + 1, e + 1)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		return element < localNames.size() &&
+			s.test(namespaceURIs.get(element), localNames.get(element)) &&
+			matches(step + 1, element + 1);
+	}
+
+	/**
+	 * Build the element the reader is at, up to and including its end tag.
+	 */
+	private Element readElement() throws XMLStreamException {
+		Element root = createElement();
+		Element current = root;
+		int depth = 1;
+		while (depth > 0) {
+			switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					Element child = createElement();
+					current.appendChild(child);
+					current = child;
+					depth++;
+					break;
+
+				case XMLStreamConstants.END_ELEMENT:
+					depth--;
+					if (depth > 0) {
+						current = (Element) current.getParentNode();
+					}
+					break;
+
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+					current.appendChild(document.createTextNode(reader.getText()));
+					break;
+
+				default:
+					break;
+			}
+		}
+		// the end tag of the record closes it in the list of open elements too
+		namespaceURIs.remove(namespaceURIs.size() - 1);
+		localNames.remove(localNames.size() - 1);
+		return root;
+	}
+
+	private Element createElement() {
+		Element element = document.createElementNS(domNamespaceURI(reader.getNamespaceURI()), qualifiedName(reader.getPrefix(), reader.getLocalName()));
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			element.setAttributeNS(domNamespaceURI(reader.getAttributeNamespace(i)),
+				qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)), reader.getAttributeValue(i));
+		}
+		return element;
+	}
+
+	private static String qualifiedName(String prefix, String localName) {
+		return (prefix == null || prefix.length() == 0) ? localName : prefix + ":" + localName;
+	}
+
+	private static String namespaceURI(String uri) {
+		return (uri == null) ? XMLConstants.NULL_NS_URI : uri;
+	}
+
+	// DOM uses null for no namespace
+	private static String domNamespaceURI(String uri) {
+		return (uri == null || uri.length() == 0) ? null : uri;
+	}
+
+	/**
+	 * @return the number of the current record, starting at 1
+	 */
+	public int getRecordNumber() {
+		return recordNumber;
+	}
+
+	/**
+	 * Close the reader and the stream it reads from.
+	 */
+	public void close() throws XMLStreamException, IOException {
+		try {
+			reader.close();
+		} finally {
+			if (source != null) {
+				source.close();
+			}
+		}
+	}
+}
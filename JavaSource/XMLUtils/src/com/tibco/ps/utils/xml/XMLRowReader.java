@@ -0,0 +1,224 @@
+package com.tibco.ps.utils.xml;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+/*
+	Description:
+	  Streaming (StAX) reader of the rows of an XML document, used by the CSVFromXML* and FixedFromXML* procedures.
+	  An element without child elements is a column, and the columns of one parent element are a row:
+
+		<rows>
+			<row>
+				<customerID>1</customerID>
+				<companyName>Composite Software</companyName>
+			</row>
+		</rows>
+
+	  is one row with the columns customerID and companyName. This is the same rule the converters applied to
+	  the JDOM document, but each row is returned as soon as the end tag of its element has been read, so only
+	  the row being read is held in memory, whatever the size of the document.
+
+	  The state of each open element is kept in a Level that is reused by the next element at the same depth.
+	  The column names and values returned for a row are valid until the next call to next().
+
+	  The XML may be read from a String, a file (in the encoding of its XML declaration) or a CLOB (see ClobReader.)
+
+	Inputs:
+	  N/A
+
+	Outputs:
+	  N/A
+
+	Exceptions:
+	  None
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+public class XMLRowReader {
+
+	// number of bytes read from an XML file at a time
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * An open element: its text, while it has no child elements, and the columns of its leaf child elements.
+	 */
+	private static class Level {
+		final StringBuilder text = new StringBuilder();
+		final List<String> names = new ArrayList<String>();
+		final List<String> values = new ArrayList<String>();
+		boolean hasChildren = false;
+
+		void reset() {
+			text.setLength(0);
+			names.clear();
+			values.clear();
+			hasChildren = false;
+		}
+	}
+
+	private final XMLStreamReader reader;
+	private final Closeable source;
+	private final List<Level> levels = new ArrayList<Level>();
+	private int depth = -1;
+	private Level row = null;
+	private int rowNumber = 0;
+
+	public XMLRowReader(Reader in) throws XMLStreamException {
+		this.reader = XMLFactories.getInputFactory(true).createXMLStreamReader(in);
+		this.source = in;
+	}
+
+	/**
+	 * Read XML bytes, in the encoding given by the XML declaration (UTF-8 by default.)
+	 */
+	public XMLRowReader(InputStream in) throws XMLStreamException {
+		this.reader = XMLFactories.getInputFactory(true).createXMLStreamReader(in);
+		this.source = in;
+	}
+
+	/**
+	 * Open the XML of a file or of a CLOB, whichever is not null.
+	 * @param xmlFilePath - path of a file holding the XML
+	 * @param xmlClob - CLOB (or String) holding the XML
+	 */
+	public static XMLRowReader open(String xmlFilePath, Object xmlClob) throws XMLStreamException, IOException, SQLException {
+		if ((xmlFilePath == null) == (xmlClob == null)) {
+			throw new IllegalArgumentException("Exactly one of xml_file_path and xml_clob must be provided");
+		}
+		if (xmlFilePath != null) {
+			InputStream in = new BufferedInputStream(new FileInputStream(xmlFilePath), READ_BUFFER_SIZE);
+			try {
+				return new XMLRowReader(in);
+			} catch (XMLStreamException e) {
+				in.close();
+				throw e;
+			}
+		}
+		return new XMLRowReader(ClobReader.open(xmlClob));
+	}
+
+	/**
+	 * Read up to the end tag of the next element that has leaf child elements.
+	 * @return false at the end of the document
+	 */
+	public boolean next() throws XMLStreamException {
+		row = null;
+		while (reader.hasNext()) {
+			switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					if (depth >= 0) {
+						levels.get(depth).hasChildren = true;
+					}
+					depth++;
+					if (depth == levels.size()) {
+						levels.add(new Level());
+					}
+					levels.get(depth).reset();
+					break;
+
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+					// only the text of a leaf element is a value
+					if (depth >= 0 && !levels.get(depth).hasChildren) {
+						levels.get(depth).text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+					}
+					break;
+
+				case XMLStreamConstants.END_ELEMENT:
+					Level level = levels.get(depth);
+					depth--;
+					if (!level.hasChildren) {
+						// a column of the parent element. the root element on its own is not a row.
+						if (depth >= 0) {
+							Level parent = levels.get(depth);
+							parent.names.add(reader.getLocalName());
+							parent.values.add(level.text.toString());
+						}
+					} else if (!level.values.isEmpty()) {
+						row = level;
+						rowNumber++;
+						return true;
+					}
+					break;
+
+				default:
+					break;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the number of the current row, starting at 1
+	 */
+	public int getRowNumber() {
+		return rowNumber;
+	}
+
+	/**
+	 * @return the number of columns in the current row
+	 */
+	public int getColumnCount() {
+		return row.values.size();
+	}
+
+	/**
+	 * @return the element name (without prefix) of a column of the current row
+	 */
+	public String getName(int column) {
+		return row.names.get(column);
+	}
+
+	/**
+	 * @return the text of a column of the current row
+	 */
+	public String getValue(int column) {
+		return row.values.get(column);
+	}
+
+	/**
+	 * Close the reader and the stream it reads from.
+	 */
+	public void close() throws XMLStreamException, IOException {
+		try {
+			reader.close();
+		} finally {
+			source.close();
+		}
+	}
+}
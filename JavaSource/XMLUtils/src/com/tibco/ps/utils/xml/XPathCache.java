@@ -0,0 +1,191 @@
+package com.tibco.ps.utils.xml;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+/*
+	Description:
+	  Cache of compiled XPath expressions, shared by all the calls of the XPath CJP's. An expression is
+	  compiled once for an expression and namespace map and kept in an LRU of the most recently used
+	  MAX_EXPRESSIONS keys.
+
+	  A compiled XPathExpression is not thread safe, so the cache holds a pool of idle instances per key:
+	  borrow() takes one (or compiles a new one when there is none, a miss) and release() returns it when
+	  the caller is done with it. At most MAX_IDLE instances are kept per key.
+
+	Inputs:
+	  N/A
+
+	Outputs:
+	  N/A
+
+	Exceptions:
+	  None
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+public class XPathCache {
+
+	// number of expression and namespace map keys kept
+	public static final int MAX_EXPRESSIONS = 256;
+
+	// number of idle compiled instances kept per key, about the number of concurrent calls expected
+	public static final int MAX_IDLE = 8;
+
+	private static final Map<String, LinkedList<XPathExpression>> cache = new LinkedHashMap<String, LinkedList<XPathExpression>>(64, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry(Map.Entry<String, LinkedList<XPathExpression>> eldest) {
+			return size() > MAX_EXPRESSIONS;
+		}
+	};
+
+	private static XPathFactory xpathFactory = null;
+
+	private static final AtomicLong hits = new AtomicLong();
+	private static final AtomicLong misses = new AtomicLong();
+
+	private XPathCache() {
+	}
+
+	/**
+	 * @return the cache key of an expression and namespace map, for borrow() and release()
+	 */
+	public static String key(String expression, Map<String, String> namespaces) {
+		StringBuilder sb = new StringBuilder();
+		// sorted, so the same map gives the same key whatever its order
+		for (Map.Entry<String, String> namespace : new TreeMap<String, String>(namespaces).entrySet()) {
+			sb.append(namespace.getKey()).append('=').append(namespace.getValue()).append(' ');
+		}
+		return sb.append('\n').append(expression).toString();
+	}
+
+	/**
+	 * @return a compiled instance of the expression for the exclusive use of the caller until it is released
+	 * @param namespaces - the URI of each prefix used by the expression
+	 */
+	public static XPathExpression borrow(String key, String expression, Map<String, String> namespaces) throws XPathExpressionException {
+		synchronized (cache) {
+			LinkedList<XPathExpression> idle = cache.get(key);
+			if (idle != null && !idle.isEmpty()) {
+				hits.incrementAndGet();
+				return idle.removeFirst();
+			}
+		}
+		misses.incrementAndGet();
+		XPath xpath;
+		synchronized (XPathCache.class) {
+			if (xpathFactory == null) {
+				xpathFactory = XPathFactory.newInstance();
+			}
+			xpath = xpathFactory.newXPath();
+		}
+		xpath.setNamespaceContext(new MapNamespaceContext(namespaces));
+		return xpath.compile(expression);
+	}
+
+	/**
+	 * Return an instance obtained from borrow().
+	 */
+	public static void release(String key, XPathExpression compiled) {
+		synchronized (cache) {
+			LinkedList<XPathExpression> idle = cache.get(key);
+			if (idle == null) {
+				idle = new LinkedList<XPathExpression>();
+				cache.put(key, idle);
+			}
+			if (idle.size() < MAX_IDLE) {
+				idle.addFirst(compiled);
+			}
+		}
+	}
+
+	public static long getHits() {
+		return hits.get();
+	}
+
+	public static long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * @return the hit and miss counts, for the debug log
+	 */
+	public static String getStatistics() {
+		int size;
+		synchronized (cache) {
+			size = cache.size();
+		}
+		return "XPath expressions=" + size + " hits=" + hits.get() + " misses=" + misses.get();
+	}
+
+	/**
+	 * NamespaceContext of a prefix to URI map.
+	 */
+	static class MapNamespaceContext implements NamespaceContext {
+		private final Map<String, String> namespaces;
+
+		MapNamespaceContext(Map<String, String> namespaces) {
+			this.namespaces = namespaces;
+		}
+
+		public String getNamespaceURI(String prefix) {
+			if (prefix == null) {
+				throw new IllegalArgumentException("The prefix may not be null");
+			}
+			if (XMLConstants.XML_NS_PREFIX.equals(prefix)) {
+				return XMLConstants.XML_NS_URI;
+			}
+			String uri = namespaces.get(prefix);
+			return (uri != null) ? uri : XMLConstants.NULL_NS_URI;
+		}
+
+		public String getPrefix(String namespaceURI) {
+			for (Map.Entry<String, String> namespace : namespaces.entrySet()) {
+				if (namespace.getValue().equals(namespaceURI)) {
+					return namespace.getKey();
+				}
+			}
+			return null;
+		}
+
+		public Iterator<String> getPrefixes(String namespaceURI) {
+			String prefix = getPrefix(namespaceURI);
+			return (prefix == null) ? Collections.<String>emptyList().iterator() : Collections.singletonList(prefix).iterator();
+		}
+	}
+}
@@ -0,0 +1,653 @@
+package com.tibco.ps.utils.xml;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+	XPathRowsFromXML:
+	  Shreds XML into rows: each element matched by a record XPath is a row, and each column of the row is the
+	  string value of an XPath expression evaluated with the record element as the context node. Unlike
+	  CSVFromXMLToFile, the XML may have any shape, e.g.
+
+	    record_xpath  = /orders/order
+	    column_xpaths = id INTEGER = @id;
+	                    customer = customer/name;
+	                    total DECIMAL = sum(line/amount);
+	                    lines INTEGER = count(line)
+
+	  The XML is read record by record (see XMLRecordReader) as the cursor is read, so only one record is held
+	  in memory. The column expressions are compiled once and cached across calls (see XPathCache), and those
+	  that are only a path of child element names, optionally ending with an attribute (e.g. customer/name or
+	  @id), are evaluated directly on the record, which is many times faster.
+
+	  Since each record is read on its own, a column XPath can only select the record element and its
+	  descendants. An expression with '..', an absolute path ('/...' or '//...') or the parent, ancestor,
+	  ancestor-or-self, preceding, preceding-sibling, following or following-sibling axis is rejected when the
+	  procedure starts, rather than silently returning an empty value.
+
+	  The cursor of a procedure has a fixed set of columns, so the values are returned in the VARCHAR columns
+	  column_1 to column_30, in the order of column_xpaths. A value is converted to the canonical form of the
+	  type of its column, so that it can be CAST to that type in a view, and an error is raised for a value that
+	  isn't of the type. An empty value of a type other than VARCHAR is returned as NULL.
+
+
+	Inputs:
+	  xml_file_path         - Full path to a file holding the XML.  The file is read in the encoding of its
+	                          XML declaration (UTF-8 when there is none.)
+	    values: Any valid filesystem path or NULL when xml_clob is provided.
+
+	  xml_clob              - The XML as a CLOB (or a string.)
+	    values: Any valid XML or NULL when xml_file_path is provided.
+
+	  record_xpath          - Absolute path of the elements that are rows, e.g. /orders/order or //order. Only
+	                          element names (with '*' and '//') are supported, no predicates.
+	    values: Any path of element names.
+
+	  column_xpaths         - The columns, separated by ';' or new lines. Each is <name> [<type>] = <xpath>,
+	                          an XPath relative to the record element (see above.)
+	                          The type is VARCHAR (the default), INTEGER, DECIMAL, DOUBLE, BOOLEAN, DATE,
+	                          TIME or TIMESTAMP (in the JDBC escape formats yyyy-mm-dd, hh:mm:ss and
+	                          yyyy-mm-dd hh:mm:ss[.f...].)
+	    values: 1 to 30 columns.
+
+	  namespaces            - The namespace of each prefix used in the XPaths, separated by spaces, ';' or new lines.
+	    values: prefix=uri ... or NULL.
+
+
+	Output:
+	  result (              - A cursor with a row per record.
+	    record_number       - The number of the record in the document, starting at 1.
+	    column_1 ...        - The value of each column.
+	    column_30
+	  )
+
+
+	Exceptions:
+	  CustomProcedureException - Thrown when illegal arguments are passed, when the XML is not well formed or a
+	                             value is not of the type of its column.
+
+
+	Date:        10/18/2026
+	CSW Version: 8.0.0
+
+ */
+
+import com.compositesw.common.logging.Logger;
+import com.compositesw.extension.CustomCursor;
+import com.compositesw.extension.CustomProcedure;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class XPathRowsFromXML extends XMLUtilTemplate implements CustomProcedure {
+
+  // number of value columns of the cursor
+  public static final int MAX_COLUMNS = 30;
+
+  // number of bytes read from an XML file at a time
+  private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+  private static final String[] TYPES = { "VARCHAR", "INTEGER", "DECIMAL", "DOUBLE", "BOOLEAN", "DATE", "TIME", "TIMESTAMP" };
+
+  private String loginfo = "";
+  private RecordCursor outputCursor = null;
+
+  static {
+	className = "XPathRowsFromXML";
+	logger = Logger.getLogger(XPathRowsFromXML.class.getName());
+  }
+
+  private static final ParameterInfo[] OUTPUT_CURSOR = new ParameterInfo[MAX_COLUMNS + 1];
+  static {
+    OUTPUT_CURSOR[0] = new ParameterInfo("record_number", Types.INTEGER, DIRECTION_NONE);
+    for (int x = 1; x <= MAX_COLUMNS; x++) {
+      OUTPUT_CURSOR[x] = new ParameterInfo("column_" + x, Types.VARCHAR, DIRECTION_NONE);
+    }
+  }
+
+  /*
+   * A column of column_xpaths.
+   */
+  private static class Column {
+    String name;
+    String type;
+    String expression;
+    String key;
+    XPathExpression compiled;
+    ChildPath path;
+  }
+
+  /*
+   * A column expression that is only a relative path of child element names, optionally ending with an
+   * attribute (e.g. customer/name, @id or line/@type), evaluated directly on the record's DOM.  The XPath
+   * engine builds its own model of the document on each evaluation, which costs far more than the lookup
+   * for such paths.  The value is the XPath string value: of the first matching node in document order.
+   */
+  private static class ChildPath {
+    private final String[] namespaceURIs;
+    private final String[] localNames;	// null for *
+    private final String attributeNamespaceURI;
+    private final String attributeLocalName;
+
+    private ChildPath (String[] namespaceURIs, String[] localNames, String attributeNamespaceURI, String attributeLocalName) {
+      this.namespaceURIs = namespaceURIs;
+      this.localNames = localNames;
+      this.attributeNamespaceURI = attributeNamespaceURI;
+      this.attributeLocalName = attributeLocalName;
+    }
+
+    /*
+     * @return the path, or null when the expression is not such a path
+     */
+    static ChildPath compile (String expression, Map<String, String> namespaces) {
+      String[] steps = expression.split ("/", -1);
+      String[] namespaceURIs = new String[steps.length];
+      String[] localNames = new String[steps.length];
+      String attributeNamespaceURI = null;
+      String attributeLocalName = null;
+      int elements = steps.length;
+      for (int x = 0; x < steps.length; x++) {
+        String step = steps[x].trim();
+        boolean attribute = step.startsWith ("@");
+        if (attribute) {
+          if (x != steps.length - 1) {
+            return null;
+          }
+          step = step.substring (1);
+          elements--;
+        }
+        if (step.length() == 0 || step.startsWith (":") || step.endsWith (":")) {
+          return null;
+        }
+        // each name must start with a NameStartChar, e.g. a step 1 is the number 1 rather than an element name
+        int colon = step.indexOf (':');
+        if (!step.equals ("*") && !(isNameStart (step.charAt (0)) && (colon < 0 || isNameStart (step.charAt (colon + 1))))) {
+          return null;
+        }
+        for (int c = 0; c < step.length(); c++) {
+          char ch = step.charAt (c);
+          if (!(Character.isLetterOrDigit (ch) || ch == '_' || ch == '-' || ch == ':' || (ch == '*' && step.length() == 1) || (ch == '.' && c > 0))) {
+            return null;
+          }
+        }
+        String namespaceURI = null;
+        String localName = step;
+        if (colon > 0) {
+          namespaceURI = namespaces.get (step.substring (0, colon));
+          localName = step.substring (colon + 1);
+          if (namespaceURI == null || localName.indexOf (':') >= 0) {
+            return null;
+          }
+        }
+        if (attribute) {
+          if (localName.equals ("*")) {
+            return null;
+          }
+          attributeNamespaceURI = namespaceURI;
+          attributeLocalName = localName;
+        } else {
+          namespaceURIs[x] = namespaceURI;
+          localNames[x] = (step.equals ("*")) ? null : localName;
+        }
+      }
+      String[] elementNamespaceURIs = new String[elements];
+      String[] elementLocalNames = new String[elements];
+      System.arraycopy (namespaceURIs, 0, elementNamespaceURIs, 0, elements);
+      System.arraycopy (localNames, 0, elementLocalNames, 0, elements);
+      return new ChildPath (elementNamespaceURIs, elementLocalNames, attributeNamespaceURI, attributeLocalName);
+    }
+
+    private static boolean isNameStart (char ch) {
+      return Character.isLetter (ch) || ch == '_';
+    }
+
+    String evaluate (Element record) {
+      String value = find (record, 0);
+      return (value != null) ? value : "";
+    }
+
+    /*
+     * The value of the first match below element, whose children are tested against step.  The children are
+     * searched in order, so the first match is the first in document order.
+     */
+    private String find (Element element, int step) {
+      if (step == localNames.length) {
+        if (attributeLocalName == null) {
+          return element.getTextContent();
+        }
+        Attr attr = element.getAttributeNodeNS (attributeNamespaceURI, attributeLocalName);
+        return (attr != null) ? attr.getValue() : null;
+      }
+      for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+        if (child.getNodeType() == Node.ELEMENT_NODE &&
+            (localNames[step] == null || localNames[step].equals (child.getLocalName())) &&
+            (localNames[step] == null && namespaceURIs[step] == null || equal (namespaceURIs[step], child.getNamespaceURI()))) {
+          String value = find ((Element) child, step + 1);
+          if (value != null) {
+            return value;
+          }
+        }
+      }
+      return null;
+    }
+
+    private static boolean equal (String a, String b) {
+      return (a == null) ? (b == null || b.length() == 0) : a.equals (b);
+    }
+  }
+
+  public String getDescription() {
+    return "This procedure returns the records of an XML document matched by an XPath as rows, with a column per XPath expression.";
+  }
+
+  public String getName() {
+    return "XPathRowsFromXML";
+  }
+
+  public Object[] getOutputValues() {
+    return new Object[] { outputCursor };
+  }
+
+  public ParameterInfo[] getParameterInfo() {
+    return new ParameterInfo[] {
+      new ParameterInfo("xml_file_path", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("xml_clob", Types.CLOB, DIRECTION_IN),
+      new ParameterInfo("record_xpath", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("column_xpaths", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("namespaces", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("result", TYPED_CURSOR, DIRECTION_OUT, OUTPUT_CURSOR)
+    };
+  }
+
+  public void invoke(Object[] inputs) throws CustomProcedureException, SQLException {
+    List<Column> columns = null;
+    Closeable source = null;
+    try {
+      String xmlFilePath = null;
+      String recordXPath = null;
+      String columnXPaths = null;
+      String namespaceList = null;
+
+      /*
+       * VALIDATE Input parameters
+       */
+      if (inputs[0] == null && inputs[1] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter xml_file_path or xml_clob must be provided.");
+      }
+      if (inputs[0] != null && inputs[1] != null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": Only one of the IN Parameters xml_file_path and xml_clob may be provided.");
+      }
+      if (inputs[2] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter record_xpath must be provided.");
+      }
+      if (inputs[3] == null) {
+        throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter column_xpaths must be provided.");
+      }
+
+      /*
+       * RETREIVE Input parameters
+       */
+      if (inputs[0] != null) {
+        xmlFilePath = inputs[0].toString().trim();
+      }
+      recordXPath = inputs[2].toString();
+      columnXPaths = inputs[3].toString();
+      if (inputs[4] != null) {
+        namespaceList = inputs[4].toString();
+      }
+
+      loginfo += "DEBUG: \nARGS" +
+           "\nXML Source: " + ((xmlFilePath != null) ? xmlFilePath : "CLOB") +
+           "\nRecord XPath: " + recordXPath +
+           "\nColumn XPaths: " + columnXPaths +
+           "\nNamespaces: " + namespaceList +
+           "\n";
+
+      Map<String, String> namespaces = parseNamespaces (namespaceList);
+      columns = parseColumns (columnXPaths);
+      for (Column column : columns) {
+        column.path = ChildPath.compile (column.expression, namespaces);
+        if (column.path == null) {
+          String outside = findOutsideRecord (column.expression);
+          if (outside != null) {
+            throw new IllegalArgumentException ("The XPath of column " + column.name + " uses " + outside + ", which selects nodes outside of the record. Column XPaths can only select the record element and its descendants");
+          }
+          column.key = XPathCache.key (column.expression, namespaces);
+          column.compiled = XPathCache.borrow (column.key, column.expression, namespaces);
+        }
+      }
+
+      XMLInputFactory factory = XMLFactories.getInputFactory (true);
+      XMLStreamReader reader;
+      if (xmlFilePath != null) {
+        InputStream in = new BufferedInputStream (new FileInputStream (xmlFilePath), READ_BUFFER_SIZE);
+        source = in;
+        reader = factory.createXMLStreamReader (in);
+      } else {
+        Reader in = ClobReader.open (inputs[1]);
+        source = in;
+        reader = factory.createXMLStreamReader (in);
+      }
+      XMLRecordReader records = new XMLRecordReader (reader, source, recordXPath, namespaces);
+
+      // the records and the compiled expressions are handed over to the cursor, which releases them once it has been drained
+      outputCursor = new RecordCursor (records, columns);
+      loginfo += XPathCache.getStatistics() + "\n";
+
+    } catch (Throwable t) {
+      logger.info (t.getMessage() + "\n" + loginfo);
+      if (columns != null) {
+        releaseColumns (columns);
+      }
+      try {
+        if (source != null) {
+          source.close();
+        }
+      } catch (Throwable t2) {
+        logger.info ("Exception Occurred closing the XML: " + t2.getMessage());
+      }
+      throw new CustomProcedureException (t);
+
+    } finally {
+      if (qenv != null) {
+        qenv.log (LOG_DEBUG, loginfo);
+      }
+    }
+  }
+
+  public void close() throws SQLException {
+    if (logger.isDebug()) {
+      logger.debug(className + ".close called");
+    }
+    if (outputCursor != null) {
+      outputCursor.close();
+    }
+  }
+
+  /*
+   * Parse "p=uri q=uri ..."
+   */
+  private static Map<String, String> parseNamespaces (String namespaceList) {
+    Map<String, String> namespaces = new HashMap<String, String>();
+    if (namespaceList == null) {
+      return namespaces;
+    }
+    for (String entry : namespaceList.trim().split ("[\\s;]+")) {
+      if (entry.length() == 0) {
+        continue;
+      }
+      int eq = entry.indexOf ('=');
+      if (eq <= 0) {
+        throw new IllegalArgumentException ("Invalid namespace \"" + entry + "\". Use prefix=uri");
+      }
+      namespaces.put (entry.substring (0, eq), entry.substring (eq + 1));
+    }
+    return namespaces;
+  }
+
+  /*
+   * Parse "<name> [<type>] = <xpath>; ..."
+   */
+  private static List<Column> parseColumns (String columnXPaths) {
+    List<Column> columns = new ArrayList<Column>();
+    for (String entry : columnXPaths.split ("[;\\n]")) {
+      if (entry.trim().length() == 0) {
+        continue;
+      }
+      int eq = entry.indexOf ('=');
+      String[] names = (eq < 0) ? new String[0] : entry.substring (0, eq).trim().split ("\\s+");
+      if (eq < 0 || names.length > 2 || names[0].length() == 0 || entry.substring (eq + 1).trim().length() == 0) {
+        throw new IllegalArgumentException ("Invalid column \"" + entry.trim() + "\". Use <name> [<type>] = <xpath>");
+      }
+      Column column = new Column();
+      column.name = names[0];
+      column.type = (names.length == 2) ? names[1].toUpperCase() : "VARCHAR";
+      column.expression = entry.substring (eq + 1).trim();
+      boolean known = false;
+      for (String type : TYPES) {
+        known = known || type.equals (column.type);
+      }
+      if (!known) {
+        throw new IllegalArgumentException ("Invalid type " + names[1] + " of column " + column.name + ". Use one of VARCHAR, INTEGER, DECIMAL, DOUBLE, BOOLEAN, DATE, TIME or TIMESTAMP");
+      }
+      columns.add (column);
+    }
+    if (columns.isEmpty() || columns.size() > MAX_COLUMNS) {
+      throw new IllegalArgumentException ("Between 1 and " + MAX_COLUMNS + " columns must be provided: " + columns.size());
+    }
+    return columns;
+  }
+
+  /*
+   * The records are read one at a time and each one is the only element of its document, so the parent, ancestor,
+   * sibling, preceding and following axes and absolute paths would silently select nothing (or the record itself.)
+   *
+   * @return the first part of the expression that refers outside of the record, or null when there is none
+   */
+  static String findOutsideRecord (String expression) {
+    boolean operandEnded = false;	// whether the previous token ends an operand, e.g. a name, a number, ')' or ']'
+    String previous = null;
+    int i = 0;
+    int length = expression.length();
+    while (i < length) {
+      char ch = expression.charAt (i);
+      if (Character.isWhitespace (ch)) {
+        i++;
+        continue;
+      }
+      int start = i;
+      String token;
+      boolean ends;
+      if (ch == '"' || ch == '\'') {
+        int close = expression.indexOf (ch, i + 1);
+        i = (close < 0) ? length : close + 1;
+        token = expression.substring (start, i);
+        ends = true;
+      } else if (Character.isDigit (ch) || (ch == '.' && i + 1 < length && Character.isDigit (expression.charAt (i + 1)))) {
+        while (i < length && (Character.isDigit (expression.charAt (i)) || expression.charAt (i) == '.')) {
+          i++;
+        }
+        token = expression.substring (start, i);
+        ends = true;
+      } else if (Character.isLetter (ch) || ch == '_') {
+        while (i < length && (Character.isLetterOrDigit (expression.charAt (i)) || "_-.".indexOf (expression.charAt (i)) >= 0)) {
+          i++;
+        }
+        // the local part of a QName or the * of p:*, but not the :: of an axis
+        if (i + 1 < length && expression.charAt (i) == ':' && expression.charAt (i + 1) != ':') {
+          i++;
+          if (expression.charAt (i) == '*') {
+            i++;
+          } else {
+            while (i < length && (Character.isLetterOrDigit (expression.charAt (i)) || "_-.".indexOf (expression.charAt (i)) >= 0)) {
+              i++;
+            }
+          }
+        }
+        token = expression.substring (start, i);
+        // after an operand a name is an operator (and, or, div, mod), which doesn't end an operand
+        ends = !operandEnded;
+      } else if (expression.startsWith ("..", i) || expression.startsWith ("//", i) || expression.startsWith ("::", i)
+          || expression.startsWith ("!=", i) || expression.startsWith ("<=", i) || expression.startsWith (">=", i)) {
+        i += 2;
+        token = expression.substring (start, i);
+        ends = token.equals ("..");
+      } else {
+        i++;
+        token = expression.substring (start, i);
+        // after an operand '*' is the multiply operator, otherwise a name test
+        ends = token.equals (".") || token.equals (")") || token.equals ("]") || (token.equals ("*") && !operandEnded);
+      }
+
+      if (token.equals ("..")) {
+        return "..";
+      }
+      if ((token.equals ("/") || token.equals ("//")) && !operandEnded) {
+        return "an absolute location path (" + token + ")";
+      }
+      if (token.equals ("::") && previous != null && (previous.equals ("parent") || previous.startsWith ("ancestor")
+          || previous.startsWith ("preceding") || previous.startsWith ("following"))) {
+        return previous + "::";
+      }
+      previous = token;
+      operandEnded = ends;
+    }
+    return null;
+  }
+
+  private static void releaseColumns (List<Column> columns) {
+    for (Column column : columns) {
+      if (column.compiled != null) {
+        XPathCache.release (column.key, column.compiled);
+        column.compiled = null;
+      }
+    }
+  }
+
+  /*
+   * @return the value in the canonical form of the type, e.g. 1.50 for a DECIMAL of " 1.50 "
+   */
+  private static String convert (String value, String type) {
+    if (type.equals ("VARCHAR")) {
+      return value;
+    }
+    String s = value.trim();
+    if (s.length() == 0) {
+      return null;
+    }
+    if (type.equals ("INTEGER")) {
+      return Long.toString (Long.parseLong (s.startsWith ("+") ? s.substring (1) : s));
+    }
+    if (type.equals ("DECIMAL")) {
+      return new BigDecimal (s).toPlainString();
+    }
+    if (type.equals ("DOUBLE")) {
+      // XPath numbers are doubles, and number() of a missing value is NaN
+      double d = Double.parseDouble (s);
+      return (Double.isNaN (d)) ? null : Double.toString (d);
+    }
+    if (type.equals ("BOOLEAN")) {
+      if (s.equalsIgnoreCase ("true") || s.equals ("1")) {
+        return "true";
+      }
+      if (s.equalsIgnoreCase ("false") || s.equals ("0")) {
+        return "false";
+      }
+      throw new IllegalArgumentException ("not a boolean");
+    }
+    if (type.equals ("DATE")) {
+      return Date.valueOf (s).toString();
+    }
+    if (type.equals ("TIME")) {
+      return Time.valueOf (s).toString();
+    }
+    return Timestamp.valueOf (s).toString();
+  }
+
+  /*
+   * Cursor that reads a record from the XML each time the caller asks for the next row.
+   */
+  private class RecordCursor implements CustomCursor {
+    private XMLRecordReader _records;
+    private List<Column> _columns;
+    private boolean _done = false;
+
+    public RecordCursor (XMLRecordReader records, List<Column> columns) {
+      _records = records;
+      _columns = columns;
+    }
+
+    public ParameterInfo[] getColumnInfo() {
+      return OUTPUT_CURSOR;
+    }
+
+    public Object[] next() throws CustomProcedureException, SQLException {
+      if (_done) {
+        return null;
+      }
+      Column column = null;
+      String value = null;
+      try {
+        Element record = _records.next();
+        if (record == null) {
+          if (logger.isDebug()) logger.debug (className + " ROWCOUNT = " + _records.getRecordNumber());
+          close();
+          return null;
+        }
+
+        Object[] row = new Object[MAX_COLUMNS + 1];
+        row[0] = new Integer (_records.getRecordNumber());
+        for (int x = 0; x < _columns.size(); x++) {
+          column = _columns.get (x);
+          value = null;
+          value = (column.path != null) ? column.path.evaluate (record) : (String) column.compiled.evaluate (record, XPathConstants.STRING);
+          row[x + 1] = convert (value, column.type);
+        }
+        return row;
+
+      } catch (Exception e) {
+        close();
+        if (column != null && value != null) {
+          throw new CustomProcedureException ("Error in CJP " + className + ": the value \"" + value + "\" of column " + column.name +
+            " of record " + _records.getRecordNumber() + " is not a " + column.type + ((e.getMessage() != null) ? " (" + e.getMessage() + ")" : ""));
+        }
+        throw new CustomProcedureException (e);
+      }
+    }
+
+    public void close() throws SQLException {
+      if (_done) {
+        return;
+      }
+      _done = true;
+      releaseColumns (_columns);
+      try {
+        _records.close();
+      } catch (Exception e) {
+        throw new SQLException ("Unable to close the XML: " + e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package com.tibco.ps.utils.xml;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+Description:
+  Tests of EditElements, run by the test target of build.xml. Each edit list is applied to a small
+  document and the result is compared with the document the single-edit procedures would leave. The
+  result is written with XMLEventWriter, so empty elements have end tags.
+
+*/
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.w3c.dom.DOMException;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ExecutionEnvironment;
+
+public class EditElementsTest {
+
+    private static int failures = 0;
+
+    // an environment whose log() discards the messages
+    //
+    private static final ExecutionEnvironment ENV = (ExecutionEnvironment) Proxy.newProxyInstance (
+        EditElementsTest.class.getClassLoader(), new Class<?>[] { ExecutionEnvironment.class }, new InvocationHandler() {
+            public Object invoke (Object proxy, Method method, Object[] args) {
+                return null;
+            }
+        });
+
+    public static void main (String[] args) throws Exception {
+        check ("delete", "<a><c></c></a>",
+            edit ("<a><b>x</b><c/></a>", "DeleteElement b 1"));
+        check ("edits apply in sequence", "<a><b>3</b></a>",
+            edit ("<a><b>1</b><b>2</b><b>3</b></a>", "DeleteElement b 1; DeleteElement b 1"));
+        check ("negative occurrence", "<a><b>1</b><b>2</b></a>",
+            edit ("<a><b>1</b><b>2</b><b>3</b></a>", "DeleteElement b -1"));
+        check ("negative occurrence after an edit", "<a><b>2</b></a>",
+            edit ("<a><b>1</b><b>2</b><b>3</b></a>", "DeleteElement b 1\nDeleteElement b -1"));
+        check ("spare children", "<a><c></c><d></d><e></e></a>",
+            edit ("<a><b><c/><d/></b><e/></a>", "DeleteElementSpareChildren b 1"));
+        check ("insert", "<a><n><b></b>t</n></a>",
+            edit ("<a><b/>t</a>", "InsertElementDemoteChildren a 1 n"));
+        check ("insert then delete the inserted element", "<a><b></b></a>",
+            edit ("<a><b/></a>", "InsertElementDemoteChildren a 1 n; DeleteElementSpareChildren n 1"));
+        check ("namespace", "<a xmlns:p=\"urn:p\"><b></b></a>",
+            edit ("<a xmlns:p=\"urn:p\"><p:b/><b/></a>", "DeleteElement {urn:p}b 1"));
+        check ("wildcard name", "<a><c></c></a>",
+            edit ("<a><b/><c/></a>", "DeleteElement {*}* 2"));
+        check ("occurrence not found returns the input as is", "<a><b/></a>",
+            edit ("<a><b/></a>", "DeleteElement b 2"));
+        check ("root with one child", "<b><c></c></b>",
+            edit ("<a> <b><c/></b> </a>", "DeleteElementSpareChildren a 1"));
+        checkHierarchyRequestError ("root with two children", "<a><b/><c/></a>", "DeleteElementSpareChildren a 1");
+        checkHierarchyRequestError ("root with text", "<a>t<b/></a>", "DeleteElementSpareChildren a 1");
+
+        if (failures > 0) {
+            System.out.println (EditElementsTest.class.getName() + ": " + failures + " failed");
+            System.exit (1);
+        }
+        System.out.println (EditElementsTest.class.getName() + ": passed");
+    }
+
+    private static String edit (String xml, String edits) throws Exception {
+        EditElements cjp = new EditElements();
+        cjp.initialize (ENV);
+        cjp.invoke (new Object[] { xml, edits });
+        return stripDeclaration ((String) cjp.getOutputValues()[0]).trim();
+    }
+
+    private static void checkHierarchyRequestError (String name, String xml, String edits) throws Exception {
+        try {
+            String result = edit (xml, edits);
+            fail (name, "HIERARCHY_REQUEST_ERR", result);
+        } catch (CustomProcedureException e) {
+            Throwable cause = e.getCause();
+            if (!(cause instanceof DOMException) || ((DOMException) cause).code != DOMException.HIERARCHY_REQUEST_ERR) {
+                fail (name, "HIERARCHY_REQUEST_ERR", String.valueOf (cause));
+            }
+        }
+    }
+
+    private static String stripDeclaration (String xml) {
+        return (xml.startsWith ("<?xml")) ? xml.substring (xml.indexOf ("?>") + 2) : xml;
+    }
+
+    private static void check (String name, String expected, String actual) {
+        if (!expected.equals (actual)) {
+            fail (name, expected, actual);
+        }
+    }
+
+    private static void fail (String name, String expected, String actual) {
+        failures++;
+        System.out.println ("FAILED " + name + ": expected " + expected + " but was " + actual);
+    }
+}
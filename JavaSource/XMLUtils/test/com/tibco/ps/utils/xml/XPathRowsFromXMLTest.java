@@ -0,0 +1,148 @@
+package com.tibco.ps.utils.xml;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+Description:
+  Tests of XMLRecordReader and XPathRowsFromXML, run by the test target of build.xml: the records a
+  record path matches, the column values of the paths evaluated directly on the record (ChildPath)
+  and of those evaluated with XPath, and the column expressions that are rejected because they
+  would select nodes outside of the record.
+
+*/
+
+import java.io.StringReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.w3c.dom.Element;
+
+import com.compositesw.extension.CustomCursor;
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ExecutionEnvironment;
+
+public class XPathRowsFromXMLTest {
+
+    private static int failures = 0;
+
+    // an environment whose log() discards the messages
+    //
+    private static final ExecutionEnvironment ENV = (ExecutionEnvironment) Proxy.newProxyInstance (
+        XPathRowsFromXMLTest.class.getClassLoader(), new Class<?>[] { ExecutionEnvironment.class }, new InvocationHandler() {
+            public Object invoke (Object proxy, Method method, Object[] args) {
+                return null;
+            }
+        });
+
+    private static final String ORDERS =
+        "<orders xmlns:p=\"urn:p\">" +
+          "<order id=\"1\"><customer><name>Smith</name></customer><line><amount>1.50</amount></line><line><amount>2</amount></line></order>" +
+          "<batch><order id=\"2\" p:type=\"web\"><customer><name>Jones</name><name>Other</name></customer></order></batch>" +
+          "<order id=\"3\"><order id=\"4\"/></order>" +
+        "</orders>";
+
+    public static void main (String[] args) throws Exception {
+        Map<String, String> namespaces = new HashMap<String, String>();
+        namespaces.put ("p", "urn:p");
+
+        check ("child records", "[1, 3]", records ("/orders/order", namespaces));
+        check ("descendant records", "[1, 2, 3]", records ("//order", namespaces));
+        check ("wildcard records", "[1, , 3]", records ("/orders/*", namespaces));
+
+        check ("child paths", "[[1, Smith, , 3.5, 2], [2, Jones, web, 0, 0], [3, , , 0, 0]]",
+            rows ("//order", "id INTEGER = @id; name = customer/name; type = @p:type; total DECIMAL = sum(line/amount); lines INTEGER = count(line)"));
+        check ("a numeric step is a number", "[[1, 1], [2, 1], [3, 1]]",
+            rows ("//order", "id = @id; one = 1"));
+        check ("string value of a record", "[[Smith1.502], []]",
+            rows ("/orders/order", "text = ."));
+
+        for (String outside : new String[] { "..", "../@id", "parent::*/@id", "ancestor::orders", "preceding-sibling::order",
+                                             "following-sibling::*", "/orders/order/@id", "//name", "count(//line)" }) {
+            checkRejected (outside);
+        }
+
+        if (failures > 0) {
+            System.out.println (XPathRowsFromXMLTest.class.getName() + ": " + failures + " failed");
+            System.exit (1);
+        }
+        System.out.println (XPathRowsFromXMLTest.class.getName() + ": passed");
+    }
+
+    // the id attribute of each record
+    //
+    private static String records (String recordPath, Map<String, String> namespaces) throws Exception {
+        XMLRecordReader reader = new XMLRecordReader (XMLFactories.getInputFactory (true).createXMLStreamReader (new StringReader (ORDERS)), null, recordPath, namespaces);
+        List<String> ids = new ArrayList<String>();
+        try {
+            for (Element record = reader.next(); record != null; record = reader.next()) {
+                ids.add (record.getAttribute ("id"));
+            }
+        } finally {
+            reader.close();
+        }
+        return ids.toString();
+    }
+
+    // the values of the columns of each row
+    //
+    private static List<List<String>> rows (String recordPath, String columns) throws Exception {
+        XPathRowsFromXML cjp = new XPathRowsFromXML();
+        cjp.initialize (ENV);
+        cjp.invoke (new Object[] { null, ORDERS, recordPath, columns, "p=urn:p" });
+        CustomCursor cursor = (CustomCursor) cjp.getOutputValues()[0];
+        int numColumns = columns.split (";").length;
+        List<List<String>> rows = new ArrayList<List<String>>();
+        for (Object[] row = cursor.next(); row != null; row = cursor.next()) {
+            List<String> values = new ArrayList<String>();
+            for (int x = 1; x <= numColumns; x++) {
+                values.add ((row[x] == null) ? "" : row[x].toString());
+            }
+            rows.add (values);
+        }
+        cjp.close();
+        return rows;
+    }
+
+    private static void checkRejected (String expression) throws Exception {
+        try {
+            rows ("//order", "c = " + expression);
+            fail ("rejects " + expression, "an error", "no error");
+        } catch (CustomProcedureException e) {
+            // expected
+        }
+    }
+
+    private static void check (String name, Object expected, Object actual) {
+        if (!expected.toString().equals (actual.toString())) {
+            fail (name, expected.toString(), actual.toString());
+        }
+    }
+
+    private static void fail (String name, String expected, String actual) {
+        failures++;
+        System.out.println ("FAILED " + name + ": expected " + expected + " but was " + actual);
+    }
+}